@@ -0,0 +1,106 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.ast.type.TypeEntry;
+import org.spongepowered.despector.util.serialization.AstLoader;
+import org.spongepowered.despector.util.serialization.MessagePacker;
+import org.spongepowered.despector.util.serialization.MessageUnpacker;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks serializing the asts of the corpus and loading them back. Types
+ * which cannot be serialized yet are left out.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AstSerializationBenchmark {
+
+    private List<TypeEntry> types;
+    private List<byte[]> serialized;
+
+    @Setup(Level.Trial)
+    public void serializeCorpus() {
+        this.types = new ArrayList<>();
+        this.serialized = new ArrayList<>();
+        for (TypeEntry type : Corpus.decompile(new SourceSet())) {
+            try {
+                this.serialized.add(serialize(type));
+                this.types.add(type);
+            } catch (Exception e) {
+                continue;
+            }
+        }
+    }
+
+    private static byte[] serialize(TypeEntry type) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (MessagePacker pack = new MessagePacker(out)) {
+            type.writeTo(pack);
+        }
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public void serialize(Blackhole bh) throws IOException {
+        for (TypeEntry type : this.types) {
+            bh.consume(serialize(type));
+        }
+    }
+
+    @Benchmark
+    public void load(Blackhole bh) throws IOException {
+        SourceSet source = new SourceSet();
+        for (byte[] data : this.serialized) {
+            try (MessageUnpacker unpack = new MessageUnpacker(new ByteArrayInputStream(data))) {
+                bh.consume(AstLoader.loadType(unpack, source));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,151 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.spongepowered.despector.ast.Locals;
+import org.spongepowered.despector.decompiler.ir.InsnBlock;
+import org.spongepowered.despector.decompiler.loader.BytecodeTranslator;
+import org.spongepowered.despector.decompiler.loader.ClassConstantPool;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks translating the bytecode of every method of the corpus into the
+ * intermediate representation, and of a generated method at the 64KB limit.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BytecodeTranslatorBenchmark {
+
+    private final BytecodeTranslator translator = new BytecodeTranslator();
+    private List<MethodCode> methods;
+    private List<Locals> locals;
+
+    @Setup(Level.Trial)
+    public void loadMethods() throws IOException {
+        this.methods = new ArrayList<>();
+        for (byte[] data : Corpus.getClasses()) {
+            for (MethodCode method : MethodCode.read(data)) {
+                // methods which the translator fails on are left out
+                try {
+                    this.translator.createIR(method.getCode(), method.createLocals(), method.getCatchRegions(), method.getPool(),
+                            method.getBootstrapMethods());
+                } catch (Exception e) {
+                    continue;
+                }
+                this.methods.add(method);
+            }
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void createLocals() {
+        this.locals = new ArrayList<>(this.methods.size());
+        for (MethodCode method : this.methods) {
+            this.locals.add(method.createLocals());
+        }
+    }
+
+    /**
+     * A method of just under 64KB made of a repeated short circuit with a
+     * local scoped to each repetition, so it is dense in jumps and local
+     * variable table entries.
+     */
+    @State(Scope.Thread)
+    public static class LargeMethod {
+
+        private static final int UNIT = 10;
+
+        byte[] code;
+        Locals locals;
+
+        @Setup(Level.Trial)
+        public void generate() {
+            int units = (65535 - 1) / UNIT;
+            this.code = new byte[units * UNIT + 1];
+            for (int u = 0; u < units; u++) {
+                int pc = u * UNIT;
+                // iload_1
+                this.code[pc] = 27;
+                // ifeq to the end of the unit
+                this.code[pc + 1] = (byte) 153;
+                this.code[pc + 3] = (byte) (UNIT - 1);
+                // iinc 2 1
+                this.code[pc + 4] = (byte) 132;
+                this.code[pc + 5] = 2;
+                this.code[pc + 6] = 1;
+                // goto the end of the unit
+                this.code[pc + 7] = (byte) 167;
+                this.code[pc + 9] = (byte) (UNIT - 7);
+            }
+            // return
+            this.code[units * UNIT] = (byte) 177;
+        }
+
+        @Setup(Level.Invocation)
+        public void createLocals() {
+            this.locals = new Locals(true);
+            for (int pc = 0; pc + UNIT < this.code.length; pc += UNIT) {
+                this.locals.getLocal(2).addLVT(pc, UNIT, "i" + pc, "I");
+            }
+        }
+
+    }
+
+    @Benchmark
+    public InsnBlock createIRLargeMethod(LargeMethod method) {
+        return this.translator.createIR(method.code, method.locals, Collections.emptyList(), new ClassConstantPool(), Collections.emptyList());
+    }
+
+    @Benchmark
+    public void createIR(Blackhole bh) {
+        for (int i = 0; i < this.methods.size(); i++) {
+            MethodCode method = this.methods.get(i);
+            bh.consume(this.translator.createIR(method.getCode(), this.locals.get(i), method.getCatchRegions(), method.getPool(),
+                    method.getBootstrapMethods()));
+        }
+    }
+
+}
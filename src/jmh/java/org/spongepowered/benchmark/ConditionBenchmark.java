@@ -0,0 +1,167 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.spongepowered.despector.ast.insn.condition.AndCondition;
+import org.spongepowered.despector.ast.insn.condition.BooleanCondition;
+import org.spongepowered.despector.ast.insn.condition.CompareCondition;
+import org.spongepowered.despector.ast.insn.condition.Condition;
+import org.spongepowered.despector.ast.insn.condition.ConditionVisitor;
+import org.spongepowered.despector.ast.insn.condition.InverseCondition;
+import org.spongepowered.despector.ast.insn.condition.OrCondition;
+import org.spongepowered.despector.ast.insn.cst.IntConstant;
+import org.spongepowered.despector.ast.stmt.Statement;
+import org.spongepowered.despector.ast.type.MethodEntry;
+import org.spongepowered.despector.util.ConditionUtil;
+import org.spongepowered.despector.util.condition.AdaptiveConditionSimplifier;
+import org.spongepowered.despector.util.condition.BruteForceConditionSimplifier;
+import org.spongepowered.despector.util.condition.ConditionSimplifier;
+import org.spongepowered.despector.util.condition.EspressoConditionSimplifier;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks simplifying the conditions found in the method bodies of the
+ * corpus, along with the inverse of each, and wide conditions of the form
+ * {@code (a || b) && (c || d) && ...} expanded into sum-of-products form with
+ * each simplifier.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ConditionBenchmark {
+
+    @Param({"adaptive", "brute_force", "espresso"})
+    public String simplifier;
+
+    private ConditionSimplifier condition_simplifier;
+    private List<Condition> conditions;
+    private List<Condition> wide_conditions;
+
+    @Setup(Level.Trial)
+    public void collectConditions() {
+        if ("brute_force".equals(this.simplifier)) {
+            this.condition_simplifier = new BruteForceConditionSimplifier();
+        } else if ("espresso".equals(this.simplifier)) {
+            this.condition_simplifier = new EspressoConditionSimplifier();
+        } else {
+            this.condition_simplifier = new AdaptiveConditionSimplifier();
+        }
+
+        ConditionCollector collector = new ConditionCollector();
+        for (MethodEntry mth : Corpus.decompileMethods()) {
+            for (Statement stmt : mth.getInstructions().getStatements()) {
+                stmt.accept(collector);
+            }
+        }
+        this.conditions = new ArrayList<>();
+        for (Condition condition : collector.conditions) {
+            this.conditions.add(condition);
+            this.conditions.add(new InverseCondition(condition));
+        }
+        this.wide_conditions = new ArrayList<>();
+        for (int pairs = 2; pairs <= 5; pairs++) {
+            this.wide_conditions.add(expand(pairs));
+        }
+    }
+
+    private static Condition expand(int pairs) {
+        // every combination of one operand from each pair, 2^pairs terms
+        List<Condition> terms = new ArrayList<>();
+        for (int i = 0; i < 1 << pairs; i++) {
+            List<Condition> term = new ArrayList<>();
+            for (int j = 0; j < pairs; j++) {
+                int operand = j * 2 + ((i >> j) & 1);
+                term.add(new BooleanCondition(new IntConstant(operand), false));
+            }
+            terms.add(new AndCondition(term));
+        }
+        return new OrCondition(terms);
+    }
+
+    @Benchmark
+    public void simplifyCondition(Blackhole bh) {
+        for (Condition condition : this.conditions) {
+            bh.consume(ConditionUtil.simplifyCondition(condition, this.condition_simplifier));
+        }
+    }
+
+    @Benchmark
+    public void simplifyWideCondition(Blackhole bh) {
+        for (Condition condition : this.wide_conditions) {
+            bh.consume(ConditionUtil.simplifyCondition(condition, this.condition_simplifier));
+        }
+    }
+
+    private static class ConditionCollector implements ConditionVisitor {
+
+        final List<Condition> conditions = new ArrayList<>();
+
+        @Override
+        public void visitAndCondition(AndCondition and) {
+            this.conditions.add(and);
+        }
+
+        @Override
+        public void visitBooleanCondition(BooleanCondition bool) {
+            this.conditions.add(bool);
+        }
+
+        @Override
+        public void visitCompareCondition(CompareCondition compare) {
+            this.conditions.add(compare);
+        }
+
+        @Override
+        public void visitInverseCondition(InverseCondition inverse) {
+            this.conditions.add(inverse);
+        }
+
+        @Override
+        public void visitOrCondition(OrCondition or) {
+            this.conditions.add(or);
+        }
+
+    }
+
+}
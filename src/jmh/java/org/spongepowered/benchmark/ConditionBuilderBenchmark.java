@@ -0,0 +1,187 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.spongepowered.despector.ast.insn.condition.AndCondition;
+import org.spongepowered.despector.ast.insn.condition.BooleanCondition;
+import org.spongepowered.despector.ast.insn.condition.Condition;
+import org.spongepowered.despector.ast.insn.condition.OrCondition;
+import org.spongepowered.despector.ast.insn.cst.IntConstant;
+import org.spongepowered.despector.decompiler.method.ConditionBuilder;
+import org.spongepowered.despector.util.ConditionUtil;
+import org.spongepowered.despector.util.condition.AdaptiveConditionSimplifier;
+import org.spongepowered.despector.util.condition.ConditionSimplifier;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks forming a condition from a graph of short circuit jumps with
+ * {@link ConditionBuilder} against enumerating every path from the root to the
+ * body, which is how conditions were previously formed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ConditionBuilderBenchmark {
+
+    abstract static class JumpGraph {
+
+        List<Condition> conditions;
+        int[] targets;
+        int[] else_targets;
+        ConditionSimplifier simplifier = new AdaptiveConditionSimplifier();
+
+        void init(int terms) {
+            this.conditions = new ArrayList<>(terms);
+            this.targets = new int[terms];
+            this.else_targets = new int[terms];
+            for (int i = 0; i < terms; i += 2) {
+                this.conditions.add(new BooleanCondition(new IntConstant(i), false));
+                this.conditions.add(new BooleanCondition(new IntConstant(i + 1), true));
+                link(i, i + 2 >= terms);
+            }
+        }
+
+        abstract void link(int i, boolean last);
+
+    }
+
+    /**
+     * A condition of the form {@code a && b || c && d || ...}. The number of
+     * paths through the graph is exponential but few of them reach the body.
+     */
+    @State(Scope.Thread)
+    public static class OrOfAnds extends JumpGraph {
+
+        @Param({"8", "16", "20", "24"})
+        public int terms;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            init(this.terms);
+        }
+
+        @Override
+        void link(int i, boolean last) {
+            // if (!a) goto next; if (!b) goto next; goto body;
+            int next = last ? ConditionBuilder.RET : i + 2;
+            this.targets[i] = next;
+            this.else_targets[i] = i + 1;
+            this.targets[i + 1] = next;
+            this.else_targets[i + 1] = ConditionBuilder.BODY;
+        }
+
+    }
+
+    /**
+     * A condition of the form {@code (a || b) && (c || d) && ...}. The number
+     * of paths reaching the body is exponential, enumerating them takes
+     * seconds per operation at 16 terms and does not finish in reasonable time
+     * beyond that.
+     */
+    @State(Scope.Thread)
+    public static class AndOfOrs extends JumpGraph {
+
+        @Param({"8", "12", "16"})
+        public int terms;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            init(this.terms);
+        }
+
+        @Override
+        void link(int i, boolean last) {
+            // if (a) goto next; if (!b) goto ret;
+            int next = last ? ConditionBuilder.BODY : i + 2;
+            this.targets[i] = next;
+            this.else_targets[i] = i + 1;
+            this.targets[i + 1] = ConditionBuilder.RET;
+            this.else_targets[i + 1] = next;
+        }
+
+    }
+
+    @Benchmark
+    public Condition structuralOrOfAnds(OrOfAnds graph) {
+        return ConditionBuilder.makeCondition(graph.conditions, graph.targets, graph.else_targets, graph.simplifier);
+    }
+
+    @Benchmark
+    public Condition pathEnumerationOrOfAnds(OrOfAnds graph) {
+        return enumeratePaths(graph);
+    }
+
+    @Benchmark
+    public Condition structuralAndOfOrs(AndOfOrs graph) {
+        return ConditionBuilder.makeCondition(graph.conditions, graph.targets, graph.else_targets, graph.simplifier);
+    }
+
+    @Benchmark
+    public Condition pathEnumerationAndOfOrs(AndOfOrs graph) {
+        return enumeratePaths(graph);
+    }
+
+    private static Condition enumeratePaths(JumpGraph graph) {
+        List<Condition> paths = new ArrayList<>();
+        dfs(graph, 0, new ArrayDeque<>(), paths);
+        return ConditionUtil.simplifyCondition(new OrCondition(paths), graph.simplifier);
+    }
+
+    private static void dfs(JumpGraph graph, int node, Deque<Condition> stack, List<Condition> paths) {
+        if (node < 0) {
+            if (node == ConditionBuilder.BODY) {
+                paths.add(stack.size() == 1 ? stack.peek() : new AndCondition(stack));
+            }
+            return;
+        }
+        Condition condition = graph.conditions.get(node);
+        stack.addLast(condition);
+        dfs(graph, graph.targets[node], stack, paths);
+        stack.pollLast();
+        stack.addLast(ConditionUtil.inverse(condition));
+        dfs(graph, graph.else_targets[node], stack, paths);
+        stack.pollLast();
+    }
+
+}
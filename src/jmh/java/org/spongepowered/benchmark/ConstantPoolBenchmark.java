@@ -0,0 +1,92 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.spongepowered.despector.decompiler.loader.ClassConstantPool;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks loading the constant pools of the corpus.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ConstantPoolBenchmark {
+
+    @Benchmark
+    public void load(Blackhole bh) throws IOException {
+        for (byte[] data : Corpus.getClasses()) {
+            DataInputStream input = new DataInputStream(new ByteArrayInputStream(data));
+            // skip the magic and version
+            input.skipBytes(8);
+            ClassConstantPool pool = new ClassConstantPool();
+            pool.load(input);
+            bh.consume(pool);
+        }
+    }
+
+    @Benchmark
+    public void loadFromArray(Blackhole bh) {
+        for (byte[] data : Corpus.getClasses()) {
+            ClassConstantPool pool = new ClassConstantPool();
+            bh.consume(pool.load(data, 8));
+            bh.consume(pool);
+        }
+    }
+
+    /**
+     * Loads each pool and resolves only the name of the class, as when a
+     * class is only loaded for type lookups.
+     */
+    @Benchmark
+    public void loadClassName(Blackhole bh) throws IOException {
+        for (byte[] data : Corpus.getClasses()) {
+            DataInputStream input = new DataInputStream(new ByteArrayInputStream(data));
+            input.skipBytes(8);
+            ClassConstantPool pool = new ClassConstantPool();
+            pool.load(input);
+            input.readUnsignedShort();
+            bh.consume(pool.getClass(input.readUnsignedShort()).name);
+        }
+    }
+
+}
@@ -0,0 +1,143 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.benchmark;
+
+import com.google.common.io.ByteStreams;
+import org.spongepowered.despector.Language;
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.ast.type.MethodEntry;
+import org.spongepowered.despector.ast.type.TypeEntry;
+import org.spongepowered.despector.config.LibraryConfiguration;
+import org.spongepowered.despector.decompiler.Decompilers;
+import org.spongepowered.despector.decompiler.method.MethodDecompiler;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The class files which the benchmarks are run over. The corpus is checked in
+ * under the corpus resource directory so that results can be compared between
+ * versions.
+ */
+public final class Corpus {
+
+    private static final List<byte[]> classes;
+
+    static {
+        LibraryConfiguration.quiet = true;
+        // the benchmarks measure each stage on its own
+        LibraryConfiguration.eager_method_bodies = true;
+        List<byte[]> loaded = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(open("classes.txt"), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                try (InputStream input = open(line + ".class.test")) {
+                    loaded.add(ByteStreams.toByteArray(input));
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to load the benchmark corpus", e);
+        }
+        classes = Collections.unmodifiableList(loaded);
+    }
+
+    private static InputStream open(String name) throws IOException {
+        InputStream input = Corpus.class.getResourceAsStream("/corpus/" + name);
+        if (input == null) {
+            throw new IOException("Missing corpus resource " + name);
+        }
+        return input;
+    }
+
+    /**
+     * Gets the contents of every class file in the corpus.
+     */
+    public static List<byte[]> getClasses() {
+        return classes;
+    }
+
+    /**
+     * Decompiles every class of the corpus into the given source set.
+     */
+    public static List<TypeEntry> decompile(SourceSet source) {
+        List<TypeEntry> types = new ArrayList<>();
+        for (byte[] data : classes) {
+            try {
+                types.add(Decompilers.WILD.decompile(new ByteArrayInputStream(data), source));
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return types;
+    }
+
+    /**
+     * Decompiles the corpus and returns every method body which was
+     * decompiled without error. The methods keep their intermediate
+     * representation so they may be decompiled again.
+     */
+    public static List<MethodEntry> decompileMethods() {
+        List<MethodEntry> methods = new ArrayList<>();
+        for (TypeEntry type : decompile(new SourceSet())) {
+            List<MethodEntry> all = new ArrayList<>(type.getStaticMethods());
+            all.addAll(type.getMethods());
+            for (MethodEntry mth : all) {
+                if (mth.getIR() == null || mth.getIR().size() == 0) {
+                    continue;
+                }
+                try {
+                    getMethodDecompiler(mth).decompile(mth);
+                } catch (Exception e) {
+                    continue;
+                }
+                methods.add(mth);
+            }
+        }
+        return methods;
+    }
+
+    /**
+     * Gets the method decompiler used for the language of the given method.
+     */
+    public static MethodDecompiler getMethodDecompiler(MethodEntry mth) {
+        TypeEntry owner = mth.getSource().get(mth.getOwnerName());
+        return owner.getLanguage() == Language.KOTLIN ? Decompilers.KOTLIN_METHOD : Decompilers.JAVA_METHOD;
+    }
+
+    private Corpus() {
+    }
+
+}
@@ -0,0 +1,199 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.benchmark;
+
+import org.spongepowered.despector.ast.Locals;
+import org.spongepowered.despector.decompiler.BaseDecompiler;
+import org.spongepowered.despector.decompiler.BaseDecompiler.BootstrapMethod;
+import org.spongepowered.despector.decompiler.loader.ClassConstantPool;
+import org.spongepowered.despector.decompiler.loader.ClassConstantPool.Entry;
+import org.spongepowered.despector.decompiler.method.PartialMethod.TryCatchRegion;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The raw contents of the code attribute of a method, as passed to the
+ * bytecode translator by the decompiler.
+ */
+public class MethodCode {
+
+    /**
+     * Reads the code attributes of every method of the given class file.
+     */
+    public static List<MethodCode> read(byte[] cls) throws IOException {
+        DataInputStream data = new DataInputStream(new ByteArrayInputStream(cls));
+        data.skipBytes(8);
+        ClassConstantPool pool = new ClassConstantPool();
+        pool.load(data);
+        data.skipBytes(6);
+        int interfaces_count = data.readUnsignedShort();
+        data.skipBytes(interfaces_count * 2);
+        int field_count = data.readUnsignedShort();
+        for (int i = 0; i < field_count; i++) {
+            data.skipBytes(6);
+            skipAttributes(data);
+        }
+        List<BootstrapMethod> bootstrap_methods = new ArrayList<>();
+        List<MethodCode> methods = new ArrayList<>();
+        int method_count = data.readUnsignedShort();
+        for (int i = 0; i < method_count; i++) {
+            int method_access = data.readUnsignedShort();
+            data.skipBytes(4);
+            int attribute_count = data.readUnsignedShort();
+            for (int a = 0; a < attribute_count; a++) {
+                String attribute_name = pool.getUtf8(data.readUnsignedShort());
+                int length = data.readInt();
+                if (!"Code".equals(attribute_name)) {
+                    data.skipBytes(length);
+                    continue;
+                }
+                MethodCode method = new MethodCode(pool, bootstrap_methods, (method_access & BaseDecompiler.ACC_STATIC) != 0);
+                methods.add(method);
+                data.skipBytes(4);
+                method.code = new byte[data.readInt()];
+                data.readFully(method.code);
+                int exception_table_length = data.readUnsignedShort();
+                for (int j = 0; j < exception_table_length; j++) {
+                    int start_pc = data.readUnsignedShort();
+                    int end_pc = data.readUnsignedShort();
+                    int catch_pc = data.readUnsignedShort();
+                    int ex_index = data.readUnsignedShort();
+                    String ex = ex_index != 0 ? pool.getClass(ex_index).name : "";
+                    method.catch_regions.add(new TryCatchRegion(start_pc, end_pc, catch_pc, ex));
+                }
+                int code_attribute_count = data.readUnsignedShort();
+                for (int ca = 0; ca < code_attribute_count; ca++) {
+                    String code_attribute_name = pool.getUtf8(data.readUnsignedShort());
+                    int clength = data.readInt();
+                    if ("LocalVariableTable".equals(code_attribute_name) || "LocalVariableTypeTable".equals(code_attribute_name)) {
+                        boolean signatures = "LocalVariableTypeTable".equals(code_attribute_name);
+                        int lvt_length = data.readUnsignedShort();
+                        for (int j = 0; j < lvt_length; j++) {
+                            LocalEntry local = new LocalEntry();
+                            local.start_pc = data.readUnsignedShort();
+                            local.length = data.readUnsignedShort();
+                            local.name = pool.getUtf8(data.readUnsignedShort());
+                            local.desc = pool.getUtf8(data.readUnsignedShort());
+                            local.index = data.readUnsignedShort();
+                            (signatures ? method.local_signatures : method.locals).add(local);
+                        }
+                    } else {
+                        data.skipBytes(clength);
+                    }
+                }
+            }
+        }
+        int class_attribute_count = data.readUnsignedShort();
+        for (int i = 0; i < class_attribute_count; i++) {
+            String attribute_name = pool.getUtf8(data.readUnsignedShort());
+            int length = data.readInt();
+            if (!"BootstrapMethods".equals(attribute_name)) {
+                data.skipBytes(length);
+                continue;
+            }
+            int bsm_count = data.readUnsignedShort();
+            for (int j = 0; j < bsm_count; j++) {
+                BootstrapMethod bsm = new BootstrapMethod();
+                bootstrap_methods.add(bsm);
+                bsm.handle = pool.getMethodHandle(data.readUnsignedShort());
+                int arg_count = data.readUnsignedShort();
+                bsm.arguments = new Entry[arg_count];
+                for (int k = 0; k < arg_count; k++) {
+                    bsm.arguments[k] = pool.getEntry(data.readUnsignedShort());
+                }
+            }
+        }
+        return methods;
+    }
+
+    private static void skipAttributes(DataInputStream data) throws IOException {
+        int attribute_count = data.readUnsignedShort();
+        for (int a = 0; a < attribute_count; a++) {
+            data.skipBytes(2);
+            data.skipBytes(data.readInt());
+        }
+    }
+
+    private final ClassConstantPool pool;
+    private final List<BootstrapMethod> bootstrap_methods;
+    private final boolean is_static;
+    private final List<TryCatchRegion> catch_regions = new ArrayList<>();
+    private final List<LocalEntry> locals = new ArrayList<>();
+    private final List<LocalEntry> local_signatures = new ArrayList<>();
+    private byte[] code;
+
+    private MethodCode(ClassConstantPool pool, List<BootstrapMethod> bootstrap_methods, boolean is_static) {
+        this.pool = pool;
+        this.bootstrap_methods = bootstrap_methods;
+        this.is_static = is_static;
+    }
+
+    public ClassConstantPool getPool() {
+        return this.pool;
+    }
+
+    public List<BootstrapMethod> getBootstrapMethods() {
+        return this.bootstrap_methods;
+    }
+
+    public List<TryCatchRegion> getCatchRegions() {
+        return this.catch_regions;
+    }
+
+    public byte[] getCode() {
+        return this.code;
+    }
+
+    /**
+     * Creates the locals of this method from its local variable tables. A new
+     * instance is needed for each translation as the translator bakes the
+     * local instances into it.
+     */
+    public Locals createLocals() {
+        Locals locals = new Locals(this.is_static);
+        for (LocalEntry local : this.locals) {
+            locals.getLocal(local.index).addLVT(local.start_pc, local.length, local.name, local.desc);
+        }
+        for (LocalEntry local : this.local_signatures) {
+            locals.getLocal(local.index).getLVT(local.start_pc).setSignature(local.desc);
+        }
+        return locals;
+    }
+
+    private static class LocalEntry {
+
+        int start_pc;
+        int length;
+        String name;
+        String desc;
+        int index;
+
+    }
+
+}
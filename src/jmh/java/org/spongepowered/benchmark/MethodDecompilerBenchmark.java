@@ -0,0 +1,303 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.spongepowered.despector.ast.stmt.StatementBlock;
+import org.spongepowered.despector.ast.type.MethodEntry;
+import org.spongepowered.despector.decompiler.method.MethodDecompiler;
+import org.spongepowered.despector.decompiler.method.PartialMethod;
+import org.spongepowered.despector.decompiler.method.graph.GraphOperation;
+import org.spongepowered.despector.decompiler.method.graph.GraphProducerStep;
+import org.spongepowered.despector.decompiler.method.graph.data.block.BlockSection;
+import org.spongepowered.despector.decompiler.method.graph.data.opcode.OpcodeBlock;
+import org.spongepowered.despector.decompiler.method.postprocess.StatementPostProcessor;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks decompiling the method bodies of the corpus, both as a whole and
+ * broken down into the steps of the method decompiler. Each step is measured
+ * over the methods whose language's decompiler contains that step, with the
+ * steps before it already applied.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MethodDecompilerBenchmark {
+
+    /**
+     * The decompiled methods of the corpus.
+     */
+    abstract static class CorpusMethods {
+
+        List<MethodEntry> methods;
+        List<MethodDecompiler> decompilers;
+
+        void loadMethods() {
+            this.methods = Corpus.decompileMethods();
+            this.decompilers = new ArrayList<>(this.methods.size());
+            for (MethodEntry mth : this.methods) {
+                this.decompilers.add(Corpus.getMethodDecompiler(mth));
+            }
+        }
+
+        PartialMethod createPartial(int index) {
+            PartialMethod partial = new PartialMethod(this.decompilers.get(index), this.methods.get(index));
+            partial.setBlock(new StatementBlock(StatementBlock.Type.METHOD));
+            return partial;
+        }
+
+    }
+
+    /**
+     * The methods of the corpus, measured as a whole.
+     */
+    @State(Scope.Thread)
+    public static class Methods extends CorpusMethods {
+
+        @Setup(Level.Trial)
+        public void setup() {
+            loadMethods();
+        }
+
+    }
+
+    /**
+     * The graph producer step being measured.
+     */
+    @State(Scope.Thread)
+    public static class GraphProducerState extends CorpusMethods {
+
+        @Param({"JumpGraphProducerStep", "SwitchGraphProducerStep", "TryCatchGraphProducerStep", "ElvisGraphProducerStep"})
+        public String step;
+
+        List<GraphProducerStep> steps;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            loadMethods();
+            this.steps = new ArrayList<>();
+            for (MethodDecompiler decompiler : this.decompilers) {
+                this.steps.add(find(decompiler.getGraphProducers(), this.step));
+            }
+        }
+
+    }
+
+    /**
+     * The cleanup operation being measured, with the graph of each method
+     * processed by the operations before it.
+     */
+    @State(Scope.Thread)
+    public static class CleanupOperationState extends CorpusMethods {
+
+        @Param({"JumpSeparateOperation", "BlockTargetOperation", "TernaryPrePassOperation", "BreakPrePassOperation",
+                "KotlinTernaryPrePassOperation"})
+        public String step;
+
+        List<PartialMethod> partials;
+        List<GraphOperation> steps;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            loadMethods();
+        }
+
+        @Setup(Level.Invocation)
+        public void prepareGraphs() {
+            this.partials = new ArrayList<>();
+            this.steps = new ArrayList<>();
+            for (int i = 0; i < this.methods.size(); i++) {
+                MethodDecompiler decompiler = this.decompilers.get(i);
+                GraphOperation op = find(decompiler.getCleanupOperations(), this.step);
+                if (op == null) {
+                    continue;
+                }
+                PartialMethod partial = createPartial(i);
+                partial.setGraph(decompiler.makeGraph(partial));
+                for (GraphOperation previous : decompiler.getCleanupOperations()) {
+                    if (previous == op) {
+                        break;
+                    }
+                    previous.process(partial);
+                }
+                this.partials.add(partial);
+                this.steps.add(op);
+            }
+        }
+
+    }
+
+    /**
+     * The graph of each method after all cleanup operations, ready to be
+     * flattened by the graph and region processors.
+     */
+    @State(Scope.Thread)
+    public static class FlattenState extends CorpusMethods {
+
+        List<PartialMethod> partials;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            loadMethods();
+        }
+
+        @Setup(Level.Invocation)
+        public void prepareGraphs() {
+            this.partials = new ArrayList<>();
+            for (int i = 0; i < this.methods.size(); i++) {
+                PartialMethod partial = createPartial(i);
+                partial.setGraph(this.decompilers.get(i).makeGraph(partial));
+                for (GraphOperation op : this.decompilers.get(i).getCleanupOperations()) {
+                    op.process(partial);
+                }
+                this.partials.add(partial);
+            }
+        }
+
+    }
+
+    /**
+     * The post processor being measured, with the statements of each method
+     * processed by the post processors before it.
+     */
+    @State(Scope.Thread)
+    public static class PostProcessorState extends CorpusMethods {
+
+        @Param({"IfCombiningPostProcessor", "ForFromWhilePostProcessor", "ForEachPostProcessor", "KotlinLocalsMutabilityPostProcess"})
+        public String step;
+
+        List<StatementBlock> blocks;
+        List<StatementPostProcessor> steps;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            loadMethods();
+        }
+
+        @Setup(Level.Invocation)
+        public void prepareBlocks() {
+            this.blocks = new ArrayList<>();
+            this.steps = new ArrayList<>();
+            for (int i = 0; i < this.methods.size(); i++) {
+                MethodDecompiler decompiler = this.decompilers.get(i);
+                StatementPostProcessor post = find(decompiler.getPostProcessors(), this.step);
+                if (post == null) {
+                    continue;
+                }
+                StatementBlock block = decompiler.decompileStatements(this.methods.get(i));
+                for (StatementPostProcessor previous : decompiler.getPostProcessors()) {
+                    if (previous == post) {
+                        break;
+                    }
+                    previous.postprocess(block);
+                }
+                this.blocks.add(block);
+                this.steps.add(post);
+            }
+        }
+
+    }
+
+    static <T> T find(List<T> steps, String name) {
+        for (T step : steps) {
+            if (step.getClass().getSimpleName().equals(name)) {
+                return step;
+            }
+        }
+        return null;
+    }
+
+    @Benchmark
+    public void decompile(Methods state, Blackhole bh) {
+        for (int i = 0; i < state.methods.size(); i++) {
+            bh.consume(state.decompilers.get(i).decompile(state.methods.get(i)));
+        }
+    }
+
+    @Benchmark
+    public void makeGraph(Methods state, Blackhole bh) {
+        for (int i = 0; i < state.methods.size(); i++) {
+            bh.consume(state.decompilers.get(i).makeGraph(state.createPartial(i)));
+        }
+    }
+
+    @Benchmark
+    public void graphProducer(GraphProducerState state, Blackhole bh) {
+        for (int i = 0; i < state.methods.size(); i++) {
+            GraphProducerStep step = state.steps.get(i);
+            if (step != null) {
+                Set<Integer> break_points = new HashSet<>();
+                step.collectBreakpoints(state.createPartial(i), break_points);
+                bh.consume(break_points);
+            }
+        }
+    }
+
+    @Benchmark
+    public void cleanupOperation(CleanupOperationState state) {
+        for (int i = 0; i < state.partials.size(); i++) {
+            state.steps.get(i).process(state.partials.get(i));
+        }
+    }
+
+    @Benchmark
+    public void flattenGraph(FlattenState state, Blackhole bh) {
+        for (int i = 0; i < state.partials.size(); i++) {
+            PartialMethod partial = state.partials.get(i);
+            List<OpcodeBlock> graph = partial.getGraph();
+            List<BlockSection> flat_graph = new ArrayList<>();
+            state.decompilers.get(i).flattenGraph(partial, graph, graph.size(), flat_graph);
+            bh.consume(flat_graph);
+        }
+    }
+
+    @Benchmark
+    public void postProcessor(PostProcessorState state) {
+        for (int i = 0; i < state.blocks.size(); i++) {
+            state.steps.get(i).postprocess(state.blocks.get(i));
+        }
+    }
+
+}
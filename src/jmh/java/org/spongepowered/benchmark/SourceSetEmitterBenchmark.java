@@ -0,0 +1,135 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.benchmark;
+
+import com.google.common.io.ByteStreams;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.spongepowered.despector.DecompilerSession;
+import org.spongepowered.despector.Despector;
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.ast.type.TypeEntry;
+import org.spongepowered.despector.decompiler.Decompilers;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Benchmarks the emission throughput over a large source set, made up of the
+ * classes of the decompiler itself as found on the benchmark classpath. Unlike
+ * the checked in corpus this is not stable between versions, so results are
+ * only comparable within one build.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SourceSetEmitterBenchmark {
+
+    private List<TypeEntry> types;
+    private DecompilerSession session;
+
+    @Setup(Level.Trial)
+    public void decompile() throws Exception {
+        // load the corpus first for its library configuration
+        Corpus.getClasses();
+        this.session = DecompilerSession.getDefault();
+        SourceSet source = new SourceSet();
+        List<TypeEntry> all = new ArrayList<>();
+        for (byte[] data : readClasses()) {
+            try {
+                all.add(Decompilers.WILD.decompile(data, source));
+            } catch (Exception e) {
+                continue;
+            }
+        }
+        this.types = new ArrayList<>();
+        for (TypeEntry type : all) {
+            if (type.isInnerClass() || type.isAnonType()) {
+                continue;
+            }
+            // types which the emitters fail on are left out
+            try {
+                Despector.emitToString(type, this.session);
+            } catch (Exception e) {
+                continue;
+            }
+            this.types.add(type);
+        }
+    }
+
+    private static List<byte[]> readClasses() throws Exception {
+        Path root = Paths.get(Despector.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        List<byte[]> classes = new ArrayList<>();
+        if (Files.isDirectory(root)) {
+            List<Path> files;
+            try (Stream<Path> walk = Files.walk(root)) {
+                files = walk.filter((p) -> p.toString().endsWith(".class")).sorted().collect(Collectors.toList());
+            }
+            for (Path file : files) {
+                classes.add(Files.readAllBytes(file));
+            }
+        } else {
+            try (ZipFile jar = new ZipFile(root.toFile())) {
+                for (Enumeration<? extends ZipEntry> it = jar.entries(); it.hasMoreElements();) {
+                    ZipEntry entry = it.nextElement();
+                    if (entry.getName().endsWith(".class")) {
+                        classes.add(ByteStreams.toByteArray(jar.getInputStream(entry)));
+                    }
+                }
+            }
+        }
+        return classes;
+    }
+
+    @Benchmark
+    public void emitAll(Blackhole bh) {
+        for (TypeEntry type : this.types) {
+            bh.consume(Despector.emitToString(type, this.session));
+        }
+    }
+
+}
@@ -0,0 +1,229 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.decompiler.Decompiler;
+import org.spongepowered.despector.decompiler.JarSource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nullable;
+
+/**
+ * A decompiler which stays running and accepts jobs over a local socket so
+ * that each job runs in an already warmed up jvm rather than starting a new
+ * one.
+ *
+ * <p>A random token is written on startup to a token file only readable by
+ * the user running the daemon, the first line sent on each connection must
+ * be this token and is answered with {@code OK}, otherwise the connection is
+ * closed after an {@code ERROR} reply. This keeps other local users from
+ * running jobs as the user of the daemon.</p>
+ *
+ * <p>Each following line is a job made up of the sources and the
+ * destination separated by tabs, in the same order as the command line
+ * arguments. Relative paths are resolved against the working directory of
+ * the daemon. Once the job is done a line is sent back with {@code OK} and
+ * the time taken in milliseconds, or {@code ERROR} and the error if the job
+ * failed or no sources were found. A
+ * connection may send several jobs and connections are served in
+ * parallel.</p>
+ *
+ * <p>The library types of the classpath are shared by every job, each is
+ * loaded once for the life of the daemon.</p>
+ */
+public class DecompilerDaemon {
+
+    private final DecompilerSession session;
+    private final Decompiler decompiler;
+    @Nullable private final SourceSet libraries;
+    @Nullable private final ForkJoinPool pool;
+    private final AtomicInteger connections = new AtomicInteger();
+    private byte[] token;
+
+    public DecompilerDaemon(DecompilerSession session, Decompiler decompiler, @Nullable SourceSet libraries, @Nullable ForkJoinPool pool) {
+        this.session = checkNotNull(session, "session");
+        this.decompiler = checkNotNull(decompiler, "decompiler");
+        this.libraries = libraries;
+        this.pool = pool;
+    }
+
+    /**
+     * Gets the source set of library types shared by every job.
+     */
+    @Nullable
+    public SourceSet getLibraries() {
+        return this.libraries;
+    }
+
+    /**
+     * Accepts jobs on the given port of the loopback address until the
+     * process is stopped.
+     */
+    public void serve(int port, Path token_file) throws IOException {
+        try (ServerSocket server = open(port, token_file)) {
+            System.out.println("Listening for jobs on port " + server.getLocalPort() + ", token written to " + token_file);
+            serve(server);
+        }
+    }
+
+    /**
+     * Opens a server socket on the given port of the loopback address, or a
+     * free port if zero, and writes a new token to the given file. The token
+     * file is deleted when the process exits.
+     */
+    public ServerSocket open(int port, Path token_file) throws IOException {
+        byte[] random = new byte[32];
+        new SecureRandom().nextBytes(random);
+        StringBuilder token = new StringBuilder();
+        for (byte b : random) {
+            token.append(String.format("%02x", b & 0xFF));
+        }
+        Files.deleteIfExists(token_file);
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            Set<PosixFilePermission> owner_only = EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE);
+            Files.createFile(token_file, PosixFilePermissions.asFileAttribute(owner_only));
+        } else {
+            Files.createFile(token_file);
+        }
+        token_file.toFile().deleteOnExit();
+        Files.write(token_file, token.toString().getBytes(StandardCharsets.UTF_8));
+        this.token = token.toString().getBytes(StandardCharsets.UTF_8);
+        return new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+    }
+
+    /**
+     * Accepts jobs on the given server socket until it is closed.
+     */
+    public void serve(ServerSocket server) throws IOException {
+        checkState(this.token != null, "No token was written, the socket must be opened with open");
+        while (true) {
+            Socket client;
+            try {
+                client = server.accept();
+            } catch (SocketException e) {
+                if (server.isClosed()) {
+                    return;
+                }
+                throw e;
+            }
+            Thread handler = new Thread(() -> handle(client), "Despector connection " + this.connections.incrementAndGet());
+            handler.setDaemon(true);
+            handler.start();
+        }
+    }
+
+    private void handle(Socket client) {
+        try (Socket socket = client;
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)) {
+            String line = in.readLine();
+            if (line == null) {
+                return;
+            }
+            if (!MessageDigest.isEqual(this.token, line.getBytes(StandardCharsets.UTF_8))) {
+                System.err.println("Rejected connection with an invalid token from " + client.getRemoteSocketAddress());
+                out.write("ERROR Invalid token\n");
+                out.flush();
+                return;
+            }
+            out.write("OK\n");
+            out.flush();
+            while ((line = in.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                out.write(runJob(line));
+                out.write('\n');
+                out.flush();
+            }
+        } catch (IOException e) {
+            System.err.println("Error communicating with client " + client.getRemoteSocketAddress());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Runs the job described by the given line and returns the reply.
+     */
+    public String runJob(String line) {
+        List<String> args = new ArrayList<>(Arrays.asList(line.split("\t")));
+        if (args.size() < 2) {
+            return "ERROR Expected sources and a destination separated by tabs";
+        }
+        long start = System.nanoTime();
+        List<JarSource> jars = new ArrayList<>();
+        try {
+            Path output = Paths.get(args.remove(args.size() - 1)).toAbsolutePath();
+            Files.createDirectories(output);
+            if (!Despector.run(this.session, args, jars, output, this.decompiler, this.libraries, this.pool)) {
+                return "ERROR No sources found";
+            }
+        } catch (Exception e) {
+            System.err.println("Error running job: " + line);
+            e.printStackTrace();
+            return "ERROR " + String.valueOf(e).replace('\n', ' ');
+        } finally {
+            for (JarSource jar : jars) {
+                try {
+                    jar.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+        return "OK " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+}
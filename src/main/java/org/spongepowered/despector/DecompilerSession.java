@@ -0,0 +1,323 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import org.spongepowered.despector.config.ConfigBase;
+import org.spongepowered.despector.config.ConfigManager;
+import org.spongepowered.despector.config.LibraryConfiguration;
+import org.spongepowered.despector.decompiler.BaseDecompiler;
+import org.spongepowered.despector.decompiler.Decompiler;
+import org.spongepowered.despector.decompiler.Decompilers;
+import org.spongepowered.despector.decompiler.method.MethodDecompiler;
+import org.spongepowered.despector.emitter.EmitterSet;
+import org.spongepowered.despector.emitter.Emitters;
+import org.spongepowered.despector.emitter.format.EmitterFormat;
+import org.spongepowered.despector.util.condition.AdaptiveConditionSimplifier;
+import org.spongepowered.despector.util.condition.ConditionSimplifier;
+
+import java.util.EnumMap;
+
+import javax.annotation.Nullable;
+
+/**
+ * The state of a decompilation. A session carries the configuration, the
+ * output language and formatter and its own decompiler pipelines and emitter
+ * sets so that several sessions with different settings may run side by side
+ * in one jvm.
+ *
+ * <p>The {@link #getDefault() default session} is backed by the global
+ * {@link ConfigManager} config, the {@link LibraryConfiguration} and the
+ * standard {@link Decompilers} and {@link Emitters}, and is used wherever no
+ * session is given.</p>
+ */
+public class DecompilerSession {
+
+    private static final DecompilerSession DEFAULT = new DecompilerSession();
+
+    /**
+     * Gets the default session.
+     */
+    public static DecompilerSession getDefault() {
+        return DEFAULT;
+    }
+
+    private final boolean global;
+    @Nullable private final ConfigBase config;
+    private Language lang = Language.ANY;
+    private EmitterFormat formatter;
+    private volatile boolean quiet = false;
+    private volatile boolean eager_method_bodies = false;
+    private volatile boolean incremental = false;
+    private volatile int stream_limit = 0;
+    private volatile ConditionSimplifier condition_simplifier = new AdaptiveConditionSimplifier();
+
+    @Nullable private final MethodDecompiler java_method;
+    @Nullable private final MethodDecompiler kotlin_method;
+    private final EnumMap<Language, Decompiler> decompilers = new EnumMap<>(Language.class);
+
+    @Nullable private final EmitterSet java_set;
+    @Nullable private final EmitterSet kotlin_set;
+    @Nullable private final EmitterSet bytecode_set;
+
+    private DecompilerSession() {
+        this.global = true;
+        this.config = null;
+        this.formatter = EmitterFormat.defaults();
+        this.java_method = null;
+        this.kotlin_method = null;
+        this.java_set = null;
+        this.kotlin_set = null;
+        this.bytecode_set = null;
+    }
+
+    /**
+     * Creates a new session with the given configuration and its own copy of
+     * the standard decompilers and emitters.
+     */
+    public DecompilerSession(ConfigBase config) {
+        this.global = false;
+        this.config = checkNotNull(config, "config");
+        this.formatter = EmitterFormat.defaults();
+        this.formatter.loadFrom(config.formatter);
+        this.java_method = Decompilers.createJavaMethodDecompiler(this);
+        this.kotlin_method = Decompilers.createKotlinMethodDecompiler(this);
+        this.decompilers.put(Language.JAVA, new BaseDecompiler(Language.JAVA, this));
+        this.decompilers.put(Language.KOTLIN, new BaseDecompiler(Language.KOTLIN, this));
+        this.decompilers.put(Language.ANY, new BaseDecompiler(Language.ANY, this));
+        this.java_set = Emitters.createJavaSet();
+        this.kotlin_set = Emitters.createKotlinSet(this.java_set);
+        this.bytecode_set = Emitters.createBytecodeSet();
+    }
+
+    /**
+     * Gets if this is the default session.
+     */
+    public boolean isDefault() {
+        return this.global;
+    }
+
+    /**
+     * Gets the configuration of this session.
+     */
+    public ConfigBase getConfig() {
+        if (this.global) {
+            return ConfigManager.getConfig();
+        }
+        return this.config;
+    }
+
+    /**
+     * Gets the language that types are decompiled and emitted as.
+     */
+    public Language getLanguage() {
+        return this.lang;
+    }
+
+    /**
+     * Sets the language that types are decompiled and emitted as.
+     */
+    public void setLanguage(Language lang) {
+        checkState(!this.global, "The default session cannot be changed");
+        this.lang = checkNotNull(lang, "lang");
+    }
+
+    /**
+     * Gets the format used when emitting types.
+     */
+    public EmitterFormat getFormatter() {
+        return this.formatter;
+    }
+
+    /**
+     * Sets the format used when emitting types.
+     */
+    public void setFormatter(EmitterFormat formatter) {
+        checkState(!this.global, "The default session cannot be changed");
+        this.formatter = checkNotNull(formatter, "formatter");
+    }
+
+    /**
+     * Gets if progress and errors are not printed.
+     */
+    public boolean isQuiet() {
+        if (this.global) {
+            return LibraryConfiguration.quiet;
+        }
+        return this.quiet;
+    }
+
+    /**
+     * Sets if progress and errors are not printed.
+     */
+    public void setQuiet(boolean state) {
+        checkState(!this.global, "The default session cannot be changed");
+        this.quiet = state;
+    }
+
+    /**
+     * Gets if method bodies are decompiled as soon as their type is loaded
+     * rather than when they are first accessed.
+     */
+    public boolean isEagerMethodBodies() {
+        if (this.global) {
+            return LibraryConfiguration.eager_method_bodies;
+        }
+        return this.eager_method_bodies;
+    }
+
+    /**
+     * Sets if method bodies are decompiled as soon as their type is loaded.
+     */
+    public void setEagerMethodBodies(boolean state) {
+        checkState(!this.global, "The default session cannot be changed");
+        this.eager_method_bodies = state;
+    }
+
+    /**
+     * Gets if jar sources are decompiled incrementally, only emitting the
+     * outer types which changed since the last run into the same output.
+     */
+    public boolean isIncremental() {
+        return this.incremental;
+    }
+
+    /**
+     * Sets if jar sources are decompiled incrementally.
+     */
+    public void setIncremental(boolean state) {
+        checkState(!this.global, "The default session cannot be changed");
+        this.incremental = state;
+    }
+
+    /**
+     * Gets the number of outer types of jar sources which are decompiled and
+     * emitted together when streaming, or 0 if the sources are decompiled
+     * all at once. Each outer type is counted along with all of its inner and
+     * anonymous classes, so this limits groups of classes rather than the
+     * number of types held at once.
+     */
+    public int getStreamLimit() {
+        return this.stream_limit;
+    }
+
+    /**
+     * Sets the number of outer types of jar sources which are decompiled and
+     * emitted together, or 0 to decompile the sources all at once.
+     */
+    public void setStreamLimit(int limit) {
+        checkState(!this.global, "The default session cannot be changed");
+        checkArgument(limit >= 0, "limit");
+        this.stream_limit = limit;
+    }
+
+    /**
+     * Gets the simplifier for conditions formed by the method decompilers of
+     * this session.
+     */
+    public ConditionSimplifier getConditionSimplifier() {
+        return this.condition_simplifier;
+    }
+
+    /**
+     * Sets the simplifier for conditions formed by the method decompilers of
+     * this session.
+     */
+    public void setConditionSimplifier(ConditionSimplifier simplifier) {
+        checkState(!this.global, "The default session cannot be changed");
+        this.condition_simplifier = checkNotNull(simplifier, "simplifier");
+    }
+
+    /**
+     * Gets the decompiler for the language of this session.
+     */
+    public Decompiler getDecompiler() {
+        return getDecompiler(this.lang);
+    }
+
+    /**
+     * Gets the decompiler for the given language.
+     */
+    public Decompiler getDecompiler(Language lang) {
+        if (this.global) {
+            return Decompilers.get(lang);
+        }
+        return this.decompilers.get(lang);
+    }
+
+    /**
+     * Gets the method decompiler for java method bodies.
+     */
+    public MethodDecompiler getJavaMethodDecompiler() {
+        if (this.global) {
+            return Decompilers.JAVA_METHOD;
+        }
+        return this.java_method;
+    }
+
+    /**
+     * Gets the method decompiler for kotlin method bodies.
+     */
+    public MethodDecompiler getKotlinMethodDecompiler() {
+        if (this.global) {
+            return Decompilers.KOTLIN_METHOD;
+        }
+        return this.kotlin_method;
+    }
+
+    /**
+     * Gets the emitter set for java source.
+     */
+    public EmitterSet getJavaEmitterSet() {
+        if (this.global) {
+            return Emitters.JAVA_SET;
+        }
+        return this.java_set;
+    }
+
+    /**
+     * Gets the emitter set for kotlin source.
+     */
+    public EmitterSet getKotlinEmitterSet() {
+        if (this.global) {
+            return Emitters.KOTLIN_SET;
+        }
+        return this.kotlin_set;
+    }
+
+    /**
+     * Gets the emitter set for bytecode.
+     */
+    public EmitterSet getBytecodeEmitterSet() {
+        if (this.global) {
+            return Emitters.BYTECODE_SET;
+        }
+        return this.bytecode_set;
+    }
+
+}
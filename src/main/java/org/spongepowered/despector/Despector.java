@@ -25,36 +25,54 @@
 package org.spongepowered.despector;
 
 import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.ast.type.MethodEntry;
 import org.spongepowered.despector.ast.type.TypeEntry;
+import org.spongepowered.despector.ast.type.TypeEntry.InnerClassInfo;
+import org.spongepowered.despector.config.ConfigBase;
 import org.spongepowered.despector.config.ConfigBase.CleanupConfigSection;
 import org.spongepowered.despector.config.ConfigManager;
+import org.spongepowered.despector.decompiler.CachingDecompiler;
 import org.spongepowered.despector.decompiler.Decompiler;
-import org.spongepowered.despector.decompiler.Decompilers;
 import org.spongepowered.despector.decompiler.DirectoryWalker;
+import org.spongepowered.despector.decompiler.IncrementalManifest;
+import org.spongepowered.despector.decompiler.JarSource;
 import org.spongepowered.despector.decompiler.JarWalker;
+import org.spongepowered.despector.decompiler.error.SourceFormatException;
+import org.spongepowered.despector.decompiler.loader.ClassConstantPool;
+import org.spongepowered.despector.decompiler.loader.ClassConstantPool.MethodRefEntry;
+import org.spongepowered.despector.decompiler.method.metrics.DecompilerMetrics;
 import org.spongepowered.despector.emitter.Emitter;
 import org.spongepowered.despector.emitter.Emitters;
-import org.spongepowered.despector.emitter.format.EmitterFormat;
+import org.spongepowered.despector.emitter.OutputBuffer;
 import org.spongepowered.despector.emitter.format.FormatLoader;
 import org.spongepowered.despector.emitter.java.JavaEmitterContext;
 import org.spongepowered.despector.transform.TypeTransformer;
 import org.spongepowered.despector.transform.cleanup.CleanupOperations;
+import org.spongepowered.despector.util.condition.AdaptiveConditionSimplifier;
 
-import java.io.FileWriter;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.StringWriter;
+import java.io.Writer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.function.Consumer;
 
+import javax.annotation.Nullable;
+
 /**
  * Despector.
  */
@@ -62,7 +80,20 @@ public final class Despector {
 
     private static final Map<String, Consumer<String>> flags = new HashMap<>();
 
-    public static Language LANGUAGE = Language.ANY;
+    private static Language language = Language.ANY;
+
+    private static int threads = 1;
+    private static Path cache_dir = null;
+    private static int cache_prune_days = -1;
+    private static boolean incremental = false;
+    private static int stream_limit = 0;
+    private static Path metrics_path = null;
+    private static boolean metrics_alloc = false;
+    private static int metrics_top = 10;
+    private static long method_timeout = 0;
+    private static List<Path> classpath = new ArrayList<>();
+    private static int daemon_port = -1;
+    private static Path daemon_token = Paths.get("despector-daemon.token");
 
     static {
         flags.put("--config=", (arg) -> {
@@ -73,17 +104,111 @@ public final class Despector {
         flags.put("--lang=", (arg) -> {
             String lang = arg.substring(7);
             if ("kotlin".equalsIgnoreCase(lang)) {
-                LANGUAGE = Language.KOTLIN;
+                language = Language.KOTLIN;
             } else if ("java".equalsIgnoreCase(lang)) {
-                LANGUAGE = Language.JAVA;
+                language = Language.JAVA;
             } else if ("any".equalsIgnoreCase(lang)) {
-                LANGUAGE = Language.ANY;
+                language = Language.ANY;
             } else {
                 System.err.println("Unknown language: " + lang);
                 System.err.println("Options are: java, kotlin, any");
                 System.exit(0);
             }
         });
+        flags.put("--threads=", (arg) -> {
+            String count = arg.substring(10);
+            try {
+                threads = Integer.parseInt(count);
+            } catch (NumberFormatException e) {
+                threads = 0;
+            }
+            if (threads < 1) {
+                System.err.println("Invalid thread count: " + count);
+                System.exit(0);
+            }
+        });
+        flags.put("--cache=", (arg) -> {
+            cache_dir = Paths.get(".").resolve(arg.substring(8));
+        });
+        flags.put("--incremental", (arg) -> {
+            incremental = true;
+        });
+        flags.put("--stream=", (arg) -> {
+            String count = arg.substring(9);
+            try {
+                stream_limit = Integer.parseInt(count);
+            } catch (NumberFormatException e) {
+                stream_limit = 0;
+            }
+            if (stream_limit < 1) {
+                System.err.println("Invalid stream limit: " + count);
+                System.exit(0);
+            }
+        });
+        flags.put("--metrics=", (arg) -> {
+            metrics_path = Paths.get(".").resolve(arg.substring(10));
+        });
+        flags.put("--metrics-alloc", (arg) -> {
+            metrics_alloc = true;
+        });
+        flags.put("--metrics-top=", (arg) -> {
+            String count = arg.substring(14);
+            try {
+                metrics_top = Integer.parseInt(count);
+            } catch (NumberFormatException e) {
+                metrics_top = -1;
+            }
+            if (metrics_top < 0) {
+                System.err.println("Invalid metrics method count: " + count);
+                System.exit(0);
+            }
+        });
+        flags.put("--method-timeout=", (arg) -> {
+            String millis = arg.substring(17);
+            try {
+                method_timeout = Long.parseLong(millis);
+            } catch (NumberFormatException e) {
+                method_timeout = -1;
+            }
+            if (method_timeout < 0) {
+                System.err.println("Invalid method timeout: " + millis);
+                System.exit(0);
+            }
+        });
+        flags.put("--classpath=", (arg) -> {
+            for (String lib : arg.substring(12).split(File.pathSeparator)) {
+                if (!lib.isEmpty()) {
+                    classpath.add(Paths.get(".").resolve(lib));
+                }
+            }
+        });
+        flags.put("--daemon=", (arg) -> {
+            String port = arg.substring(9);
+            try {
+                daemon_port = Integer.parseInt(port);
+            } catch (NumberFormatException e) {
+                daemon_port = -1;
+            }
+            if (daemon_port < 0 || daemon_port > 65535) {
+                System.err.println("Invalid daemon port: " + port);
+                System.exit(0);
+            }
+        });
+        flags.put("--daemon-token=", (arg) -> {
+            daemon_token = Paths.get(".").resolve(arg.substring(15));
+        });
+        flags.put("--prune-cache=", (arg) -> {
+            String days = arg.substring(14);
+            try {
+                cache_prune_days = Integer.parseInt(days);
+            } catch (NumberFormatException e) {
+                cache_prune_days = -1;
+            }
+            if (cache_prune_days < 0) {
+                System.err.println("Invalid cache prune age: " + days);
+                System.exit(0);
+            }
+        });
     }
 
     /**
@@ -133,7 +258,7 @@ public final class Despector {
      * given source set.
      */
     public static TypeEntry decompile(InputStream input, SourceSet source, Language lang) throws IOException {
-        TypeEntry type = Decompilers.get(lang).decompile(input, source);
+        TypeEntry type = source.getSession().getDecompiler(lang).decompile(input, source);
         return type;
     }
 
@@ -141,23 +266,30 @@ public final class Despector {
      * Emits the given type entry to a string.
      */
     public static String emitToString(TypeEntry type) {
-        StringWriter writer = new StringWriter();
-        JavaEmitterContext ctx = new JavaEmitterContext(writer, EmitterFormat.defaults());
-        Emitters.get(type.getLanguage()).emit(ctx, type);
-        return writer.toString();
+        return emitToString(type, type.getSource().getSession());
     }
 
     /**
-     * The main entrance point.
+     * Emits the given type entry to a string with the format and emitters of
+     * the given session.
      */
-    public static void main(String[] args) throws IOException {
-        if (args.length < 2) {
-            System.out.println("Usage: java -jar Despector.jar [sources...] [destination]");
-            return;
+    public static String emitToString(TypeEntry type, DecompilerSession session) {
+        OutputBuffer buffer = OutputBuffer.acquire();
+        try {
+            JavaEmitterContext ctx = new JavaEmitterContext(buffer, session);
+            Emitters.get(type.getLanguage()).emit(ctx, type);
+            return buffer.toString();
+        } finally {
+            buffer.release();
         }
+    }
 
+    /**
+     * The main entrance point.
+     */
+    public static void main(String[] args) throws IOException {
         List<String> sources = new ArrayList<>();
-        outer: for (int i = 0; i < args.length - 1; i++) {
+        outer: for (int i = 0; i < args.length; i++) {
             if (args[i].startsWith("-")) {
                 for (String flag : flags.keySet()) {
                     if (args[i].startsWith(flag)) {
@@ -170,52 +302,510 @@ public final class Despector {
                 sources.add(args[i]);
             }
         }
-        String destination = args[args.length - 1];
-        Path output = Paths.get(destination).toAbsolutePath();
-        if (!Files.exists(output)) {
-            Files.createDirectories(output);
+        if (daemon_port == -1 && sources.size() < 2) {
+            System.out.println("Usage: java -jar Despector.jar [sources...] [destination]");
+            System.out.println("   or: java -jar Despector.jar --daemon=[port]");
+            return;
         }
-        EmitterFormat formatter = EmitterFormat.defaults();
-        formatter.loadFrom(ConfigManager.getConfig().formatter);
-        Path formatter_path = Paths.get(".").resolve(ConfigManager.getConfig().emitter.formatting_path);
-        Path importorder_path = Paths.get(".").resolve(ConfigManager.getConfig().emitter.imports_path);
+
+        DecompilerSession session = new DecompilerSession(ConfigManager.getConfig());
+        session.setLanguage(language);
+        session.setIncremental(incremental);
+        session.setStreamLimit(stream_limit);
+        ConfigBase config = session.getConfig();
+        Path formatter_path = Paths.get(".").resolve(config.emitter.formatting_path);
+        Path importorder_path = Paths.get(".").resolve(config.emitter.imports_path);
         if (Files.exists(formatter_path) && Files.exists(importorder_path)) {
-            FormatLoader formatter_loader = FormatLoader.getLoader(ConfigManager.getConfig().emitter.formatting_type);
-            formatter_loader.load(formatter, formatter_path, importorder_path);
+            FormatLoader formatter_loader = FormatLoader.getLoader(config.emitter.formatting_type);
+            formatter_loader.load(session.getFormatter(), formatter_path, importorder_path);
         }
 
-        Decompiler decompiler = Decompilers.get(LANGUAGE);
+        // the time budget is part of the cache key so it is set before the
+        // cache is created
+        session.getJavaMethodDecompiler().setTimeout(method_timeout);
+        session.getKotlinMethodDecompiler().setTimeout(method_timeout);
+        Decompiler decompiler = session.getDecompiler();
+        CachingDecompiler cache = null;
+        if (cache_dir != null) {
+            if (cache_prune_days != -1) {
+                int pruned = CachingDecompiler.prune(cache_dir, cache_prune_days);
+                System.out.println("Pruned " + pruned + " entries from the ast cache");
+            }
+            cache = new CachingDecompiler(decompiler, session, cache_dir);
+            decompiler = cache;
+        } else if (cache_prune_days != -1) {
+            System.err.println("--prune-cache requires a cache directory to be set with --cache");
+        }
+        DecompilerMetrics metrics = null;
+        if (metrics_path != null) {
+            metrics = new DecompilerMetrics(metrics_alloc);
+            session.getJavaMethodDecompiler().setInstrumentation(metrics);
+            session.getKotlinMethodDecompiler().setInstrumentation(metrics);
+        } else if (metrics_alloc) {
+            System.err.println("--metrics-alloc requires a metrics file to be set with --metrics");
+        }
+        // every method body is emitted so they are decompiled up front by the
+        // walker threads
+        session.setEagerMethodBodies(true);
+        ForkJoinPool pool = threads > 1 ? new ForkJoinPool(threads) : null;
+        List<JarSource> library_jars = new ArrayList<>();
+        List<JarSource> jars = new ArrayList<>();
+        try {
+            SourceSet libraries = openLibraries(session, library_jars);
+            if (daemon_port != -1) {
+                if (metrics != null || method_timeout > 0) {
+                    System.err.println("Metrics and timed out methods are not reported in daemon mode");
+                }
+                new DecompilerDaemon(session, decompiler, libraries, pool).serve(daemon_port, daemon_token.toAbsolutePath());
+                return;
+            }
+            String destination = sources.remove(sources.size() - 1);
+            Path output = Paths.get(destination).toAbsolutePath();
+            if (!Files.exists(output)) {
+                Files.createDirectories(output);
+            }
+            run(session, sources, jars, output, decompiler, libraries, pool);
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
+            for (JarSource jar : jars) {
+                jar.close();
+            }
+            for (JarSource jar : library_jars) {
+                jar.close();
+            }
+        }
+        if (cache != null) {
+            System.out.println("Ast cache: " + cache.getHits() + " hits, " + cache.getMisses() + " misses");
+        }
+        if (method_timeout > 0) {
+            int timeouts = session.getJavaMethodDecompiler().getTimeoutCount() + session.getKotlinMethodDecompiler().getTimeoutCount();
+            System.out.println(timeouts + " methods timed out after " + method_timeout + "ms");
+        }
+        if (metrics != null) {
+            metrics.printReport(System.out, metrics_top);
+            if (session.getConditionSimplifier() instanceof AdaptiveConditionSimplifier) {
+                ((AdaptiveConditionSimplifier) session.getConditionSimplifier()).printReport(System.out);
+            }
+            try (Writer writer = Files.newBufferedWriter(metrics_path)) {
+                if (metrics_path.toString().endsWith(".csv")) {
+                    metrics.writeCsv(writer);
+                } else {
+                    metrics.writeJson(writer, metrics_top);
+                }
+            }
+        }
+    }
 
-        SourceSet source = new SourceSet();
+    /**
+     * Opens the jars of the classpath into a source set of library types which
+     * are loaded as stubs when referenced, or returns null if there is no
+     * classpath. The opened jars are added to the given list.
+     */
+    @Nullable
+    private static SourceSet openLibraries(DecompilerSession session, List<JarSource> jars) throws IOException {
+        if (classpath.isEmpty()) {
+            return null;
+        }
+        for (Path path : classpath) {
+            if (!Files.exists(path)) {
+                System.err.println("Unknown classpath entry: " + path.toAbsolutePath().toString());
+                continue;
+            }
+            jars.add(new JarSource(path));
+        }
+        SourceSet libraries = new SourceSet(session);
+        libraries.setLoader((name) -> {
+            for (JarSource jar : jars) {
+                if (jar.contains(name)) {
+                    return jar.find(name);
+                }
+            }
+            return null;
+        });
+        return libraries;
+    }
+
+    /**
+     * Decompiles the given sources into the given output directory, in the
+     * incremental or streaming mode of the session if set. The jars opened
+     * from the sources are added to the given list for the caller to close.
+     * Returns false if no types were found in the sources.
+     */
+    public static boolean run(DecompilerSession session, List<String> sources, List<JarSource> jars, Path output, Decompiler decompiler,
+            @Nullable SourceSet libraries, @Nullable ForkJoinPool pool) throws IOException {
+        SourceSet source = new SourceSet(session, libraries);
+        // Types referenced from the sources are looked up in the already open
+        // jars rather than the filesystem.
+        source.setLoader((name) -> {
+            for (JarSource jar : jars) {
+                if (jar.contains(name)) {
+                    return jar.find(name);
+                }
+            }
+            return null;
+        });
+        boolean only_jars = true;
+        Map<String, JarSource> opened = new HashMap<>();
         for (String s : sources) {
             Path path = Paths.get(s);
             if (!Files.exists(path)) {
                 System.err.println("Unknown source: " + path.toAbsolutePath().toString());
             } else if (s.endsWith(".jar")) {
-                JarWalker walker = new JarWalker(path);
-                walker.walk(source, decompiler);
-            } else if (Files.isDirectory(path)) {
-                DirectoryWalker walker = new DirectoryWalker(path);
-                try {
-                    walker.walk(source, decompiler);
-                } catch (IOException e) {
-                    System.err.println("Error while walking directory: " + path.toAbsolutePath().toString());
-                    e.printStackTrace();
+                if (!opened.containsKey(s)) {
+                    JarSource jar = new JarSource(path);
+                    jars.add(jar);
+                    opened.put(s, jar);
                 }
-            } else if (s.endsWith(".class")) {
-                decompiler.decompile(path, source);
             } else {
-                System.err.println("Unknown source type: " + path.toAbsolutePath().toString() + " must be jar or directory");
+                only_jars = false;
             }
         }
 
-        if (source.getAllClasses().isEmpty()) {
-            System.err.println("No sources found.");
+        IncrementalManifest previous = null;
+        if (session.isIncremental()) {
+            if (!only_jars) {
+                System.err.println("Incremental mode only supports jar sources, performing a full decompile");
+            } else {
+                previous = IncrementalManifest.load(output, session.getLanguage());
+            }
+        }
+        if (previous != null) {
+            runIncremental(source, jars, previous, output, decompiler, pool);
+            return true;
+        }
+
+        Map<String, String> files;
+        if (session.getStreamLimit() > 0 && only_jars) {
+            files = runStreaming(source, jars, output, decompiler, pool);
+            if (files == null) {
+                System.err.println("No sources found.");
+                return false;
+            }
+        } else {
+            if (session.getStreamLimit() > 0) {
+                System.err.println("Streaming only supports jar sources, performing a full decompile");
+            }
+            for (String s : sources) {
+                Path path = Paths.get(s);
+                if (!Files.exists(path)) {
+                    continue;
+                } else if (s.endsWith(".jar")) {
+                    JarWalker walker = new JarWalker(opened.get(s));
+                    walker.walk(source, decompiler, pool);
+                } else if (Files.isDirectory(path)) {
+                    DirectoryWalker walker = new DirectoryWalker(path);
+                    try {
+                        walker.walk(source, decompiler, pool);
+                    } catch (IOException e) {
+                        System.err.println("Error while walking directory: " + path.toAbsolutePath().toString());
+                        e.printStackTrace();
+                    }
+                } else if (s.endsWith(".class")) {
+                    decompiler.decompile(path, source);
+                } else {
+                    System.err.println("Unknown source type: " + path.toAbsolutePath().toString() + " must be jar or directory");
+                }
+            }
+
+            if (source.getAllClasses().isEmpty()) {
+                System.err.println("No sources found.");
+                return false;
+            }
+
+            // The types are copied out of the source set before each pass as the
+            // emitters may still load additional types into it.
+            List<TypeEntry> types = new ArrayList<>(source.getAllClasses());
+            transform(types, session, pool);
+            files = emit(types, output, session, pool);
+        }
+
+        if (session.isIncremental() && only_jars) {
+            Map<String, String> owners = new HashMap<>();
+            IncrementalManifest manifest = new IncrementalManifest(session.getLanguage());
+            for (JarSource jar : jars) {
+                for (String name : jar.getClassNames()) {
+                    String owner = findOwner(name, source, owners);
+                    manifest.put(name, IncrementalManifest.hash(jar.read(name)), owner, files.get(owner));
+                }
+            }
+            manifest.save(output);
+        }
+        return true;
+    }
+
+    /**
+     * Decompiles and emits only the outer types of the given jars which
+     * contain a class that was added, changed or removed since the previous
+     * manifest was written. Files of outer types which no longer exist are
+     * deleted.
+     */
+    private static void runIncremental(SourceSet source, List<JarSource> jars, IncrementalManifest previous, Path output,
+            Decompiler decompiler, ForkJoinPool pool) throws IOException {
+        DecompilerSession session = source.getSession();
+        // when a class is in several jars the last one is used, the same as a
+        // full decompile
+        Map<String, JarSource> class_sources = new HashMap<>();
+        Map<String, String> hashes = new HashMap<>();
+        for (JarSource jar : jars) {
+            for (String name : jar.getClassNames()) {
+                class_sources.put(name, jar);
+                hashes.put(name, IncrementalManifest.hash(jar.read(name)));
+            }
+        }
+
+        Set<String> changed = new HashSet<>();
+        Set<String> affected = new HashSet<>();
+        Map<String, String> owners = new HashMap<>();
+        for (Map.Entry<String, String> e : hashes.entrySet()) {
+            IncrementalManifest.Entry entry = previous.get(e.getKey());
+            if (entry == null) {
+                changed.add(e.getKey());
+            } else if (!entry.getHash().equals(e.getValue())) {
+                changed.add(e.getKey());
+                affected.add(entry.getOwner());
+            } else {
+                owners.put(e.getKey(), entry.getOwner());
+            }
+        }
+        for (String name : previous.getNames()) {
+            if (!hashes.containsKey(name)) {
+                affected.add(previous.get(name).getOwner());
+            }
+        }
+        if (changed.isEmpty() && affected.isEmpty()) {
+            System.out.println("No classes changed since the last run");
+            return;
+        }
+
+        for (JarSource jar : jars) {
+            new JarWalker(jar).walk(source, decompiler, pool, (name) -> changed.contains(name) && class_sources.get(name) == jar);
+        }
+        for (String name : changed) {
+            affected.add(findOwner(name, source, owners));
+        }
+
+        // The whole of each affected outer type is decompiled again so that
+        // its inner classes are transformed the same as in a full decompile.
+        Set<String> family = new HashSet<>();
+        for (String name : hashes.keySet()) {
+            if (!changed.contains(name) && affected.contains(owners.get(name))) {
+                family.add(name);
+            }
+        }
+        for (JarSource jar : jars) {
+            new JarWalker(jar).walk(source, decompiler, pool, (name) -> family.contains(name) && class_sources.get(name) == jar);
+        }
+
+        List<TypeEntry> types = new ArrayList<>();
+        for (String name : hashes.keySet()) {
+            if (affected.contains(owners.get(name))) {
+                TypeEntry type = source.get(name);
+                if (type != null) {
+                    types.add(type);
+                }
+            }
+        }
+        transform(types, session, pool);
+        Map<String, String> files = emit(types, output, session, pool);
+
+        // remove the files of outer types which were not emitted again
+        for (String name : previous.getNames()) {
+            IncrementalManifest.Entry entry = previous.get(name);
+            if (entry.getFile() != null && affected.contains(entry.getOwner()) && !entry.getFile().equals(files.get(entry.getOwner()))) {
+                Files.deleteIfExists(output.resolve(entry.getFile()));
+            }
+        }
+
+        IncrementalManifest manifest = new IncrementalManifest(session.getLanguage());
+        for (Map.Entry<String, String> e : hashes.entrySet()) {
+            String owner = owners.get(e.getKey());
+            String file = affected.contains(owner) ? files.get(owner) : previous.get(e.getKey()).getFile();
+            manifest.put(e.getKey(), e.getValue(), owner, file);
+        }
+        manifest.save(output);
+        System.out.println("Decompiled " + types.size() + " of " + hashes.size() + " classes, " + changed.size() + " changed");
+    }
+
+    /**
+     * Decompiles and emits the given jars a few outer types at a time. Classes
+     * are grouped by the part of their name before the first '$' and at most
+     * the stream limit of groups are decompiled, transformed and emitted
+     * together, so the limit is a number of groups rather than of types. Once
+     * the outer type of a class has been emitted the class is released and
+     * reloaded as a stub for references from the types emitted after it.
+     * Returns the path of each emitted file by type name, or null if the jars
+     * contain no classes.
+     */
+    private static Map<String, String> runStreaming(SourceSet source, List<JarSource> jars, Path output, Decompiler decompiler,
+            ForkJoinPool pool) {
+        DecompilerSession session = source.getSession();
+        Map<String, JarSource> class_sources = new HashMap<>();
+        Map<String, Set<String>> groups = new LinkedHashMap<>();
+        for (JarSource jar : jars) {
+            for (String name : jar.getClassNames()) {
+                class_sources.put(name, jar);
+                int inner = name.indexOf('$', name.lastIndexOf('/') + 2);
+                String group = inner == -1 ? name : name.substring(0, inner);
+                Set<String> members = groups.get(group);
+                if (members == null) {
+                    members = new LinkedHashSet<>();
+                    groups.put(group, members);
+                }
+                members.add(name);
+            }
+        }
+        if (groups.isEmpty()) {
+            return null;
+        }
+        Set<String> handle_targets = findMethodHandleTargets(class_sources);
+
+        Map<String, String> files = new HashMap<>();
+        Map<String, String> owners = new HashMap<>();
+        Set<String> emitted = new HashSet<>();
+        // classes whose outer type is in a group which has not been emitted
+        // yet keep their method bodies until it is
+        List<String> pending = new ArrayList<>();
+        List<Set<String>> remaining = new ArrayList<>(groups.values());
+        int limit = session.getStreamLimit();
+        for (int i = 0; i < remaining.size(); i += limit) {
+            Set<String> batch = new LinkedHashSet<>();
+            for (Set<String> group : remaining.subList(i, Math.min(i + limit, remaining.size()))) {
+                batch.addAll(group);
+            }
+            for (JarSource jar : jars) {
+                new JarWalker(jar).walk(source, decompiler, pool, (name) -> batch.contains(name) && class_sources.get(name) == jar);
+            }
+            List<TypeEntry> types = new ArrayList<>();
+            for (String name : batch) {
+                TypeEntry type = source.get(name);
+                if (type != null) {
+                    types.add(type);
+                    if (!type.isInnerClass() && !type.isAnonType()) {
+                        emitted.add(name);
+                    }
+                }
+            }
+            transform(types, session, pool);
+            files.putAll(emit(types, output, session, pool));
+
+            pending.addAll(batch);
+            for (Iterator<String> it = pending.iterator(); it.hasNext();) {
+                String name = it.next();
+                String owner = findOwner(name, source, owners);
+                if (emitted.contains(owner) || !class_sources.containsKey(owner)) {
+                    TypeEntry type = source.get(name);
+                    if (type != null) {
+                        release(source, type, handle_targets);
+                    }
+                    it.remove();
+                }
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Finds the methods which are the target of a method reference from
+     * another class of the given classes. The lambda of a method reference is
+     * emitted with the body of its target, so these bodies are needed after
+     * the type which owns them has been emitted. The methods are given as
+     * their owner, name and description.
+     */
+    private static Set<String> findMethodHandleTargets(Map<String, JarSource> class_sources) {
+        Set<String> targets = new HashSet<>();
+        for (Map.Entry<String, JarSource> e : class_sources.entrySet()) {
+            ClassConstantPool pool = new ClassConstantPool();
+            try {
+                // the constant pool follows the magic number and version
+                pool.load(e.getValue().read(e.getKey()), 8);
+                for (MethodRefEntry target : pool.getMethodHandleTargets()) {
+                    if (!target.cls.equals(e.getKey())) {
+                        targets.add(target.cls + "." + target.name + target.type);
+                    }
+                }
+            } catch (IOException | SourceFormatException ex) {
+                // malformed classes are reported when they are decompiled
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * Releases the given already emitted type. Synthetic types are kept whole
+     * and types owning the target of a method reference keep their synthetic
+     * methods and targets, as these are inlined into other types when
+     * emitting lambdas, accessors and switches on enums. Any other type is
+     * removed from the source set and loaded again as a stub if it is
+     * referenced later.
+     */
+    private static void release(SourceSet source, TypeEntry type, Set<String> handle_targets) {
+        if (type.isSynthetic()) {
             return;
         }
+        if (!ownsHandleTarget(type, handle_targets)) {
+            source.remove(type.getName());
+            return;
+        }
+        for (MethodEntry mth : type.getMethods()) {
+            release(mth, handle_targets);
+        }
+        for (MethodEntry mth : type.getStaticMethods()) {
+            release(mth, handle_targets);
+        }
+    }
+
+    private static boolean ownsHandleTarget(TypeEntry type, Set<String> handle_targets) {
+        for (MethodEntry mth : type.getMethods()) {
+            if (handle_targets.contains(mth.getOwnerName() + "." + mth.getName() + mth.getDescription())) {
+                return true;
+            }
+        }
+        for (MethodEntry mth : type.getStaticMethods()) {
+            if (handle_targets.contains(mth.getOwnerName() + "." + mth.getName() + mth.getDescription())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void release(MethodEntry mth, Set<String> handle_targets) {
+        mth.setIR(null);
+        if (!mth.isSynthetic() && !handle_targets.contains(mth.getOwnerName() + "." + mth.getName() + mth.getDescription())) {
+            mth.setInstructions(null);
+        }
+    }
 
+    /**
+     * Finds the internal name of the outer type which the given class is
+     * emitted within.
+     */
+    private static String findOwner(String name, SourceSet source, Map<String, String> owners) {
+        String owner = owners.get(name);
+        if (owner != null) {
+            return owner;
+        }
+        // guards against malformed inner class attributes forming a cycle
+        owners.put(name, name);
+        TypeEntry type = source.get(name);
+        String outer = null;
+        if (type != null && (type.isInnerClass() || type.isAnonType())) {
+            InnerClassInfo info = type.getInnerClassInfo(name);
+            if (info != null && info.getOuterName() != null) {
+                outer = info.getOuterName();
+            } else if (name.lastIndexOf('$') != -1) {
+                outer = name.substring(0, name.lastIndexOf('$'));
+            }
+        }
+        owner = outer == null ? name : findOwner(outer, source, owners);
+        owners.put(name, owner);
+        return owner;
+    }
+
+    private static void transform(List<TypeEntry> types, DecompilerSession session, ForkJoinPool pool) {
         List<TypeTransformer> transformers = new ArrayList<>();
-        for (String operation : ConfigManager.getConfig().cleanup.operations) {
+        for (String operation : session.getConfig().cleanup.operations) {
             TypeTransformer transformer = CleanupOperations.getOperation(operation);
             if (transformer == null) {
                 System.err.println("Unknown cleanup operation: " + operation);
@@ -224,7 +814,7 @@ public final class Despector {
             }
         }
         Map<String, Set<TypeTransformer>> targeted_transformers = new HashMap<>();
-        for (CleanupConfigSection section : ConfigManager.getConfig().cleanup_sections) {
+        for (CleanupConfigSection section : session.getConfig().cleanup_sections) {
             List<TypeTransformer> trans = new ArrayList<>();
             for (String operation : section.operations) {
                 TypeTransformer transformer = CleanupOperations.getOperation(operation);
@@ -244,7 +834,7 @@ public final class Despector {
             }
         }
         if (!transformers.isEmpty() || !targeted_transformers.isEmpty()) {
-            for (TypeEntry type : source.getAllClasses()) {
+            forEach(pool, types, (type) -> {
                 for (TypeTransformer transformer : transformers) {
                     transformer.transform(type);
                 }
@@ -254,25 +844,71 @@ public final class Despector {
                         transformer.transform(type);
                     }
                 }
-            }
+            });
         }
+    }
 
-        Emitter<JavaEmitterContext> emitter = Emitters.get(LANGUAGE);
+    /**
+     * Emits the outer types among the given types. Returns the path of each
+     * emitted file, relative to the output directory, by type name.
+     */
+    private static Map<String, String> emit(List<TypeEntry> types, Path output, DecompilerSession session, ForkJoinPool pool) {
+        Language lang = session.getLanguage();
+        Emitter<JavaEmitterContext> emitter = Emitters.get(lang);
 
-        for (TypeEntry type : source.getAllClasses()) {
+        List<TypeEntry> outer_types = new ArrayList<>();
+        for (TypeEntry type : types) {
             if (type.isInnerClass() || type.isAnonType()) {
                 continue;
             }
-            Path out = output.resolve(type.getName() + LANGUAGE.getExtension(type));
-            if (!Files.exists(out.getParent())) {
+            outer_types.add(type);
+        }
+        Map<String, String> files = new ConcurrentHashMap<>();
+        forEach(pool, outer_types, (type) -> {
+            String file = type.getName() + lang.getExtension(type);
+            Path out = output.resolve(file);
+            try {
                 Files.createDirectories(out.getParent());
+                files.put(type.getName(), file);
+                OutputBuffer buffer = OutputBuffer.acquire();
+                try {
+                    JavaEmitterContext ctx = new JavaEmitterContext(buffer, session);
+                    emitter.emit(ctx, type);
+                } finally {
+                    // Whatever was emitted before a failure is still written
+                    // out, as with the previous streaming writer
+                    try {
+                        buffer.writeTo(out);
+                    } finally {
+                        buffer.release();
+                    }
+                }
+            } catch (Exception e) {
+                System.err.println("Error emitting type " + type.getName() + " to " + out.toString());
+                e.printStackTrace();
             }
-            try (FileWriter writer = new FileWriter(out.toFile())) {
-                JavaEmitterContext ctx = new JavaEmitterContext(writer, formatter);
-                emitter.emit(ctx, type);
+        });
+        return files;
+    }
+
+    /**
+     * Applies the given action to every type, splitting the work across the
+     * given pool if one is present. Returns once all types have been visited.
+     */
+    private static void forEach(ForkJoinPool pool, List<TypeEntry> types, Consumer<TypeEntry> action) {
+        if (pool == null) {
+            for (TypeEntry type : types) {
+                action.accept(type);
             }
+            return;
+        }
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(types.size());
+        for (TypeEntry type : types) {
+            tasks.add(pool.submit(() -> action.accept(type)));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
         }
-
     }
 
     private Despector() {
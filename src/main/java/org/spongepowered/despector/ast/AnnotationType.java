@@ -28,8 +28,8 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * An anotation type.
@@ -37,11 +37,13 @@ import java.util.Map;
 public class AnnotationType {
 
     private final String name;
-    private final Map<String, Class<?>> types = new HashMap<>();
-    private final Map<String, Object> defaults = new HashMap<>();
+    // annotation types are shared by every type in a source set that uses
+    // them so may be updated by several decompiler threads at once
+    private final Map<String, Class<?>> types = new ConcurrentHashMap<>();
+    private final Map<String, Object> defaults = new ConcurrentHashMap<>();
 
-    private boolean runtime;
-    private boolean complete;
+    private volatile boolean runtime;
+    private volatile boolean complete;
 
     public AnnotationType(String name) {
         this.name = checkNotNull(name, "name");
@@ -79,11 +79,13 @@ public class Locals {
     }
 
     /**
-     * Bakes the local instances using the given label indices.
+     * Bakes the local instances using the given mapping of opcode offsets to
+     * instruction indices, where offsets at which no opcode starts are mapped
+     * to -1.
      */
-    public void bakeInstances(List<Integer> label_indices) {
+    public void bakeInstances(int[] insn_indices, int insn_count) {
         for (Local local : this.locals) {
-            local.bakeInstances(label_indices);
+            local.bakeInstances(insn_indices, insn_count);
         }
     }
 
@@ -198,12 +200,13 @@ public class Locals {
         /**
          * Bakes the instances of this local.
          */
-        public void bakeInstances(List<Integer> label_indices) {
+        public void bakeInstances(int[] insn_indices, int insn_count) {
             for (LVT l : this.lvt) {
-                int start = label_indices.indexOf(l.start_pc);
-                int end = label_indices.indexOf(l.start_pc + l.length);
+                int start = indexOf(insn_indices, l.start_pc);
+                int end = indexOf(insn_indices, l.start_pc + l.length);
                 if (end == -1) {
-                    end = label_indices.get(label_indices.size() - 1);
+                    // the local is in scope until the end of the method
+                    end = insn_count - 1;
                 }
                 TypeSignature sig = null;
                 if (l.signature == null) {
@@ -221,6 +224,13 @@ public class Locals {
             }
         }
 
+        private static int indexOf(int[] insn_indices, int offset) {
+            if (offset < 0 || offset >= insn_indices.length) {
+                return -1;
+            }
+            return insn_indices[offset];
+        }
+
         /**
          * Gets the local instance for the given index.
          */
@@ -246,7 +256,7 @@ public class Locals {
          * Adds the given instance to this local.
          */
         public void addInstance(LocalInstance insn) {
-            if (insn.getStart() == -1 && insn.getEnd() == -1) {
+            if (insn.getStart() == -1) {
                 this.parameter_instance = insn;
             } else {
                 this.instances.add(insn);
@@ -26,37 +26,88 @@ package org.spongepowered.despector.ast;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import org.spongepowered.despector.DecompilerSession;
 import org.spongepowered.despector.Language;
 import org.spongepowered.despector.ast.type.EnumEntry;
 import org.spongepowered.despector.ast.type.InterfaceEntry;
 import org.spongepowered.despector.ast.type.TypeEntry;
-import org.spongepowered.despector.decompiler.Decompilers;
 import org.spongepowered.despector.util.serialization.AstSerializer;
 import org.spongepowered.despector.util.serialization.MessagePacker;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import javax.annotation.Nullable;
 
 /**
  * A source set for types which are part of the obfuscated source being mapped.
+ *
+ * <p>A source set may be used by several decompiler threads at once. Missing
+ * types are loaded from the {@link Loader} exactly once, threads requesting a
+ * type which is currently being loaded wait for that load only. The collection
+ * views are weakly consistent and should be iterated once all writers have
+ * finished.</p>
+ *
+ * <p>Types from the loader are loaded as {@link TypeEntry#isStub() stubs}
+ * holding only their declarations, which is all that is needed to resolve
+ * references to them. {@link #getFull(String)} upgrades a stub to a fully
+ * decompiled type for the few cases which read the method bodies of another
+ * type.</p>
+ *
+ * <p>A source set may have a parent, such as a set of library types shared
+ * between several decompiles. Types which are neither in this set nor found by
+ * its loader are looked up in the parent. Types of the parent are never added
+ * to or upgraded through the child.</p>
  */
 public class SourceSet {
 
-    private Loader loader;
-    private final Set<String> load_failed_cache = new HashSet<>();
+    private final DecompilerSession session;
+    @Nullable private final SourceSet parent;
+    private volatile Loader loader;
+    private final Set<String> load_failed_cache = ConcurrentHashMap.newKeySet();
+    private final Set<String> upgrade_failed_cache = ConcurrentHashMap.newKeySet();
+    private final Map<String, FutureTask<TypeEntry>> loading = new ConcurrentHashMap<>();
+    private final Map<String, FutureTask<TypeEntry>> upgrading = new ConcurrentHashMap<>();
 
-    private final Map<String, TypeEntry> classes = new HashMap<>();
-    private final Map<String, EnumEntry> enums = new HashMap<>();
-    private final Map<String, InterfaceEntry> interfaces = new HashMap<>();
+    private final Map<String, TypeEntry> classes = new ConcurrentHashMap<>();
+    private final Map<String, EnumEntry> enums = new ConcurrentHashMap<>();
+    private final Map<String, InterfaceEntry> interfaces = new ConcurrentHashMap<>();
 
-    private final Map<String, AnnotationType> annotations = new HashMap<>();
+    private final Map<String, AnnotationType> annotations = new ConcurrentHashMap<>();
 
     public SourceSet() {
+        this(DecompilerSession.getDefault());
+    }
+
+    public SourceSet(DecompilerSession session) {
+        this(session, null);
+    }
+
+    public SourceSet(DecompilerSession session, @Nullable SourceSet parent) {
+        this.session = checkNotNull(session, "session");
+        this.parent = parent;
+    }
+
+    /**
+     * Gets the session that types are loaded into this source set with.
+     */
+    public DecompilerSession getSession() {
+        return this.session;
+    }
+
+    /**
+     * Gets the source set which types missing from this set are looked up in.
+     */
+    @Nullable
+    public SourceSet getParent() {
+        return this.parent;
     }
 
     public Loader getLoader() {
@@ -80,6 +131,35 @@ public class SourceSet {
         this.classes.put(e.getName(), e);
     }
 
+    /**
+     * Inserts the given type into this source set unless a type of the same
+     * name is already present. Returns the type held by this source set.
+     */
+    public TypeEntry addIfAbsent(TypeEntry e) {
+        checkNotNull(e);
+        TypeEntry existing = this.classes.putIfAbsent(e.getName(), e);
+        if (existing != null) {
+            return existing;
+        }
+        if (e instanceof EnumEntry) {
+            this.enums.putIfAbsent(e.getName(), (EnumEntry) e);
+        } else if (e instanceof InterfaceEntry) {
+            this.interfaces.putIfAbsent(e.getName(), (InterfaceEntry) e);
+        }
+        return e;
+    }
+
+    /**
+     * Removes the type with the given internal name from this source set. If
+     * the type is requested again it is loaded as a stub from the loader.
+     */
+    public void remove(String name) {
+        checkNotNull(name);
+        this.enums.remove(name);
+        this.interfaces.remove(name);
+        this.classes.remove(name);
+    }
+
     /**
      * Gets the type with the given internal name.
      */
@@ -92,31 +172,127 @@ public class SourceSet {
             return get(name.substring(0, name.length() - 2));
         }
         TypeEntry entry = this.classes.get(name);
-        if (entry == null && this.loader != null && !this.load_failed_cache.contains(name)) {
-            InputStream data = this.loader.find(name);
-            if (data == null) {
-                this.load_failed_cache.add(name);
-                return null;
-            }
+        if (entry != null) {
+            return entry;
+        }
+        if (this.loader != null && !this.load_failed_cache.contains(name)) {
+            entry = runOnce(this.loading, name, () -> load(name));
+        }
+        if (entry == null && this.parent != null) {
+            return this.parent.get(name);
+        }
+        return entry;
+    }
+
+    /**
+     * Gets the type with the given internal name with all of its method
+     * bodies decompiled. If the type was loaded as a stub it is decompiled
+     * again and replaces the stub in this source set. Stubs of the parent are
+     * treated as missing.
+     */
+    public TypeEntry getFull(String name) {
+        TypeEntry entry = get(name);
+        if (entry != null && entry.getSource() != this) {
+            // stubs of the parent are shared and so are never upgraded
+            return entry.isStub() ? null : entry;
+        }
+        if (entry == null || !entry.isStub() || this.loader == null || this.upgrade_failed_cache.contains(name)) {
+            return entry;
+        }
+        return runOnce(this.upgrading, entry.getName(), () -> upgrade(entry.getName()));
+    }
+
+    private TypeEntry runOnce(Map<String, FutureTask<TypeEntry>> tasks, String name, Callable<TypeEntry> action) {
+        // Only the first thread to request a missing type loads it, any others
+        // wait on its task. Decompiling a type never looks up other types
+        // through this source set so a load cannot wait on itself. The tasks
+        // only order lookups against each other, a walker thread may add the
+        // fully decompiled type at any point during a load.
+        FutureTask<TypeEntry> task = new FutureTask<>(action);
+        FutureTask<TypeEntry> existing = tasks.putIfAbsent(name, task);
+        if (existing == null) {
             try {
-                entry = Decompilers.get(Language.ANY).decompile(data, this);
-            } catch (IOException e) {
-                e.printStackTrace();
-                this.load_failed_cache.add(name);
-                return null;
+                task.run();
+            } finally {
+                tasks.remove(name);
             }
-            add(entry);
+        } else {
+            task = existing;
+        }
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error loading type " + name, e.getCause());
         }
+    }
+
+    private TypeEntry load(String name) {
+        // Another thread may have finished loading or decompiling the type
+        // between our lookup and claiming the load.
+        TypeEntry entry = this.classes.get(name);
+        if (entry != null || this.load_failed_cache.contains(name)) {
+            return entry;
+        }
+        InputStream data = this.loader.find(name);
+        if (data == null) {
+            this.load_failed_cache.add(name);
+            return null;
+        }
+        try {
+            entry = this.session.getDecompiler(Language.ANY).loadStub(data, this);
+        } catch (Exception e) {
+            // a malformed dependency is treated as missing rather than failing
+            // the lookup of whichever type referenced it
+            e.printStackTrace();
+            this.load_failed_cache.add(name);
+            return null;
+        }
+        // the stub was only inserted if no full type was added meanwhile, in
+        // which case that type is returned
+        return entry;
+    }
+
+    private TypeEntry upgrade(String name) {
+        // The stub may have been replaced by a full decompile since it was
+        // looked up.
+        TypeEntry stub = this.classes.get(name);
+        if (!stub.isStub() || this.upgrade_failed_cache.contains(name)) {
+            return stub;
+        }
+        InputStream data = this.loader.find(name);
+        if (data == null) {
+            this.upgrade_failed_cache.add(name);
+            return stub;
+        }
+        TypeEntry entry;
+        try {
+            entry = this.session.getDecompiler(Language.ANY).decompile(data, this);
+        } catch (Exception e) {
+            // the stub is still enough for type lookups
+            e.printStackTrace();
+            this.upgrade_failed_cache.add(name);
+            return stub;
+        }
+        add(entry);
         return entry;
     }
 
     public EnumEntry getEnum(String name) {
         EnumEntry entry = this.enums.get(name);
+        if (entry == null && this.parent != null) {
+            return this.parent.getEnum(name);
+        }
         return entry;
     }
 
     public InterfaceEntry getInterface(String name) {
         InterfaceEntry entry = this.interfaces.get(name);
+        if (entry == null && this.parent != null) {
+            return this.parent.getInterface(name);
+        }
         return entry;
     }
 
@@ -150,12 +326,7 @@ public class SourceSet {
      * Gets the annotation type with the given internal name.
      */
     public AnnotationType getAnnotationType(String name) {
-        AnnotationType anno = this.annotations.get(name);
-        if (anno == null) {
-            anno = new AnnotationType(name);
-            this.annotations.put(name, anno);
-        }
-        return anno;
+        return this.annotations.computeIfAbsent(name, AnnotationType::new);
     }
 
     public Collection<AnnotationType> getAllAnnotations() {
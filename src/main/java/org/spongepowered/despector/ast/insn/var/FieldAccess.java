@@ -30,6 +30,8 @@ import org.spongepowered.despector.ast.generic.TypeSignature;
 import org.spongepowered.despector.ast.insn.Instruction;
 import org.spongepowered.despector.util.TypeHelper;
 
+import javax.annotation.Nullable;
+
 /**
  * An instruction which loads a value from a field.
  */
@@ -38,6 +40,7 @@ public abstract class FieldAccess implements Instruction {
     protected String field_name;
     protected TypeSignature field_desc;
     protected String owner_type;
+    @Nullable private String owner_name;
 
     public FieldAccess(String name, TypeSignature desc, String owner) {
         this.field_name = checkNotNull(name, "name");
@@ -85,13 +88,17 @@ public abstract class FieldAccess implements Instruction {
      */
     public void setOwnerType(String owner) {
         this.owner_type = checkNotNull(owner, "owner");
+        this.owner_name = null;
     }
 
     /**
      * Gets the accessed field owner's internal name.
      */
     public String getOwnerName() {
-        return TypeHelper.descToType(this.owner_type);
+        if (this.owner_name == null) {
+            this.owner_name = TypeHelper.descToType(this.owner_type);
+        }
+        return this.owner_name;
     }
 
     @Override
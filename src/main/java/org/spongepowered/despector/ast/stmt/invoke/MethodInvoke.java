@@ -34,6 +34,8 @@ import org.spongepowered.despector.ast.insn.Instruction;
 import org.spongepowered.despector.ast.insn.InstructionVisitor;
 import org.spongepowered.despector.util.TypeHelper;
 
+import javax.annotation.Nullable;
+
 /**
  * An abstract statement for making method invocations.
  */
@@ -42,6 +44,7 @@ public abstract class MethodInvoke implements Instruction {
     protected String method_name;
     protected String method_desc;
     protected String method_owner;
+    @Nullable private String owner_name;
     protected Instruction[] params;
 
     public MethodInvoke(String name, String desc, String owner, Instruction[] args) {
@@ -99,7 +102,10 @@ public abstract class MethodInvoke implements Instruction {
      * Gets the internal name of the owner of the method being invoked.
      */
     public String getOwnerName() {
-        return TypeHelper.descToType(this.method_owner);
+        if (this.owner_name == null) {
+            this.owner_name = TypeHelper.descToType(this.method_owner);
+        }
+        return this.owner_name;
     }
 
     /**
@@ -107,6 +113,7 @@ public abstract class MethodInvoke implements Instruction {
      */
     public void setOwner(String type) {
         this.method_owner = checkNotNull(type, "owner");
+        this.owner_name = null;
     }
 
     /**
@@ -38,6 +38,7 @@ import org.spongepowered.despector.ast.generic.TypeSignature;
 import org.spongepowered.despector.ast.stmt.Statement;
 import org.spongepowered.despector.ast.stmt.StatementBlock;
 import org.spongepowered.despector.decompiler.ir.InsnBlock;
+import org.spongepowered.despector.util.ReferencedTypes;
 import org.spongepowered.despector.util.serialization.AstSerializer;
 import org.spongepowered.despector.util.serialization.MessagePacker;
 
@@ -46,6 +47,9 @@ import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nullable;
 
 /**
  * Represents a method declaration in a type.
@@ -55,6 +59,11 @@ import java.util.Map;
  * 
  * <p>The exceptions is obviously interfaces which will contain methods which
  * are declared as well as default methods. But still no inherited methods.</p>
+ *
+ * <p>The body of a method may be decompiled lazily, in which case it is
+ * translated and decompiled the first time that its ir or statements are
+ * accessed. Lazy bodies of different methods may be decompiled from several
+ * threads at once.</p>
  */
 public class MethodEntry extends AstEntry {
 
@@ -78,6 +87,9 @@ public class MethodEntry extends AstEntry {
     protected InsnBlock ir;
     protected Locals locals;
     protected StatementBlock instructions = null;
+    @Nullable protected volatile LazyBody lazy_body = null;
+    private boolean decompiling_body = false;
+    @Nullable private volatile Set<String> referenced_types = null;
 
     protected MethodSignature sig;
 
@@ -234,6 +246,7 @@ public class MethodEntry extends AstEntry {
     }
 
     public Locals getLocals() {
+        decompileLazyBody();
         return this.locals;
     }
 
@@ -248,6 +261,7 @@ public class MethodEntry extends AstEntry {
         if (this.is_abstract) {
             return null;
         }
+        decompileLazyBody();
         return this.instructions;
     }
 
@@ -256,9 +270,27 @@ public class MethodEntry extends AstEntry {
      */
     public void setInstructions(StatementBlock block) {
         this.instructions = block;
+        this.referenced_types = null;
+    }
+
+    /**
+     * Gets the types referenced from the statements of this method, in the
+     * form collected by {@link ReferencedTypes}. The set is recorded when the
+     * body is decompiled and is reset when the statements are replaced, but
+     * not when they are modified in place.
+     */
+    public Set<String> getReferencedTypes() {
+        decompileLazyBody();
+        Set<String> types = this.referenced_types;
+        if (types == null) {
+            types = ReferencedTypes.collect(this.is_abstract ? null : this.instructions);
+            this.referenced_types = types;
+        }
+        return types;
     }
 
     public InsnBlock getIR() {
+        decompileLazyBody();
         return this.ir;
     }
 
@@ -266,6 +298,53 @@ public class MethodEntry extends AstEntry {
         this.ir = block;
     }
 
+    /**
+     * Gets if this method has a lazy body which has not yet been decompiled.
+     */
+    public boolean hasLazyBody() {
+        return this.lazy_body != null;
+    }
+
+    /**
+     * Sets the lazy body of this method which is decompiled the first time
+     * the ir or statements of this method are accessed.
+     */
+    public void setLazyBody(@Nullable LazyBody body) {
+        this.lazy_body = body;
+    }
+
+    /**
+     * Decompiles the lazy body of this method now if it has one.
+     */
+    public void decompileLazyBody() {
+        if (this.lazy_body == null) {
+            return;
+        }
+        synchronized (this) {
+            LazyBody body = this.lazy_body;
+            // the method decompiler reads the ir back while the body is being
+            // decompiled on this thread
+            if (body == null || this.decompiling_body) {
+                return;
+            }
+            this.decompiling_body = true;
+            try {
+                body.decompile(this);
+                // recorded while the body is decompiled so that emitting the
+                // type does not need to walk the statements again
+                try {
+                    this.referenced_types = ReferencedTypes.collect(this.instructions);
+                } catch (Exception e) {
+                    // left to be collected, and the error reported, when the
+                    // type is emitted
+                }
+            } finally {
+                this.decompiling_body = false;
+                this.lazy_body = null;
+            }
+        }
+    }
+
     public Annotation getAnnotation(AnnotationType type) {
         return this.annotations.get(type);
     }
@@ -288,6 +367,8 @@ public class MethodEntry extends AstEntry {
 
     @Override
     public void writeTo(MessagePacker pack) throws IOException {
+        // decompiling the body also fills in the locals
+        decompileLazyBody();
         pack.startMap(18);
         pack.writeString("id").writeInt(AstSerializer.ENTRY_ID_METHOD);
         pack.writeString("access").writeInt(this.access.ordinal());
@@ -329,6 +410,7 @@ public class MethodEntry extends AstEntry {
         if (visitor instanceof TypeVisitor) {
             ((TypeVisitor) visitor).visitMethod(this);
         }
+        decompileLazyBody();
         if (this.instructions != null) {
             this.instructions.accept(visitor);
         }
@@ -342,4 +424,17 @@ public class MethodEntry extends AstEntry {
         return "Method: " + this.name + " " + this.sig;
     }
 
+    /**
+     * A method body which is decompiled on first access.
+     */
+    public static interface LazyBody {
+
+        /**
+         * Translates and decompiles the body of the given method, setting its
+         * ir and statements.
+         */
+        void decompile(MethodEntry mth);
+
+    }
+
 }
@@ -62,6 +62,8 @@ public abstract class TypeEntry extends AstEntry {
     protected boolean is_abstract;
     protected boolean is_deprecated;
     protected boolean is_inner_class;
+    protected boolean is_stub;
+    protected volatile boolean has_timed_out_methods;
 
     protected final String name;
 
@@ -124,6 +126,37 @@ public abstract class TypeEntry extends AstEntry {
         this.is_synthetic = state;
     }
 
+    /**
+     * Gets if this type is a stub. A stub holds the declarations of the type
+     * but none of its method bodies were decompiled.
+     */
+    public boolean isStub() {
+        return this.is_stub;
+    }
+
+    /**
+     * Sets if this type is a stub.
+     */
+    public void setStub(boolean state) {
+        this.is_stub = state;
+    }
+
+    /**
+     * Gets if the body of any method of this type was abandoned for exceeding
+     * the method time budget.
+     */
+    public boolean hasTimedOutMethods() {
+        return this.has_timed_out_methods;
+    }
+
+    /**
+     * Sets if the body of any method of this type was abandoned for exceeding
+     * the method time budget.
+     */
+    public void setTimedOutMethods(boolean state) {
+        this.has_timed_out_methods = state;
+    }
+
     public boolean isAbstract() {
         return this.is_abstract;
     }
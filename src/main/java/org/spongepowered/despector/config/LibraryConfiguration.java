@@ -26,9 +26,19 @@ package org.spongepowered.despector.config;
 
 /**
  * Static config designed to be set when despector is being used as a library.
+ *
+ * <p>These settings only apply to the default
+ * {@link org.spongepowered.despector.DecompilerSession}, other sessions have
+ * their own.</p>
  */
 public class LibraryConfiguration {
 
     public static boolean quiet = false;
 
+    /**
+     * If set method bodies are decompiled as soon as their type is loaded
+     * rather than when they are first accessed.
+     */
+    public static boolean eager_method_bodies = false;
+
 }
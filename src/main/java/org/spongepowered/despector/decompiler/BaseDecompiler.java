@@ -24,6 +24,10 @@
  */
 package org.spongepowered.despector.decompiler;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.io.ByteStreams;
+import org.spongepowered.despector.DecompilerSession;
 import org.spongepowered.despector.Language;
 import org.spongepowered.despector.ast.AccessModifier;
 import org.spongepowered.despector.ast.Annotation;
@@ -50,24 +54,23 @@ import org.spongepowered.despector.ast.type.FieldEntry;
 import org.spongepowered.despector.ast.type.InterfaceEntry;
 import org.spongepowered.despector.ast.type.MethodEntry;
 import org.spongepowered.despector.ast.type.TypeEntry;
-import org.spongepowered.despector.config.ConfigManager;
-import org.spongepowered.despector.config.LibraryConfiguration;
+import org.spongepowered.despector.decompiler.error.MethodTimeoutException;
 import org.spongepowered.despector.decompiler.error.SourceFormatException;
 import org.spongepowered.despector.decompiler.ir.Insn;
 import org.spongepowered.despector.decompiler.loader.BytecodeTranslator;
 import org.spongepowered.despector.decompiler.loader.ClassConstantPool;
 import org.spongepowered.despector.decompiler.loader.ClassConstantPool.Entry;
 import org.spongepowered.despector.decompiler.loader.ClassConstantPool.MethodHandleEntry;
+import org.spongepowered.despector.decompiler.loader.ClassFileReader;
 import org.spongepowered.despector.decompiler.method.MethodDecompiler;
 import org.spongepowered.despector.decompiler.method.PartialMethod.TryCatchRegion;
 import org.spongepowered.despector.util.SignatureParser;
 import org.spongepowered.despector.util.TypeHelper;
 
-import java.io.DataInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -75,6 +78,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * A language decompiler.
@@ -104,24 +108,55 @@ public class BaseDecompiler implements Decompiler {
 
     private final BytecodeTranslator bytecode = new BytecodeTranslator();
     private final Language lang;
+    private final DecompilerSession session;
 
     public BaseDecompiler(Language lang) {
+        this(lang, DecompilerSession.getDefault());
+    }
+
+    public BaseDecompiler(Language lang, DecompilerSession session) {
         this.lang = lang;
+        this.session = checkNotNull(session, "session");
+    }
+
+    /**
+     * Gets the session that this decompiler belongs to.
+     */
+    public DecompilerSession getSession() {
+        return this.session;
     }
 
     @Override
     public TypeEntry decompile(Path cls_path, SourceSet source) throws IOException {
-        return decompile(cls_path.toFile(), source);
+        return decompile(Files.readAllBytes(cls_path), source);
     }
 
     @Override
     public TypeEntry decompile(File cls_path, SourceSet source) throws IOException {
-        return decompile(new FileInputStream(cls_path), source);
+        return decompile(cls_path.toPath(), source);
     }
 
     @Override
     public TypeEntry decompile(InputStream input, SourceSet set) throws IOException {
-        DataInputStream data = (input instanceof DataInputStream) ? (DataInputStream) input : new DataInputStream(input);
+        return decompile(ByteStreams.toByteArray(input), set);
+    }
+
+    @Override
+    public TypeEntry decompile(byte[] cls, SourceSet set) {
+        return decompile(new ClassFileReader(cls), set, false);
+    }
+
+    @Override
+    public TypeEntry loadStub(InputStream input, SourceSet set) throws IOException {
+        return loadStub(ByteStreams.toByteArray(input), set);
+    }
+
+    @Override
+    public TypeEntry loadStub(byte[] cls, SourceSet set) {
+        return decompile(new ClassFileReader(cls), set, true);
+    }
+
+    private TypeEntry decompile(ClassFileReader data, SourceSet set, boolean stub) {
 
         int magic = data.readInt();
         if (magic != 0xCAFEBABE) {
@@ -137,13 +172,13 @@ public class BaseDecompiler implements Decompiler {
         }
 
         ClassConstantPool pool = new ClassConstantPool();
-        pool.load(data);
+        data.setOffset(pool.load(data.getData(), data.getOffset()));
 
         int access_flags = data.readUnsignedShort();
 
         String name = pool.getClass(data.readUnsignedShort()).name;
-        if (!LibraryConfiguration.quiet) {
-            System.out.println("Decompiling class " + name);
+        if (!this.session.isQuiet()) {
+            System.out.println((stub ? "Loading class " : "Decompiling class ") + name);
         }
         int super_index = data.readUnsignedShort();
         String supername = super_index != 0 ? "L" + pool.getClass(super_index).name + ";" : "Ljava/lang/Object;";
@@ -222,7 +257,7 @@ public class BaseDecompiler implements Decompiler {
                     }
                 } else {
                     System.err.println("Skipping unknown field attribute: " + attribute_name);
-                    data.skipBytes(length);
+                    data.skip(length);
                 }
             }
         }
@@ -264,12 +299,13 @@ public class BaseDecompiler implements Decompiler {
             for (int a = 0; a < attribute_count; a++) {
                 String attribute_name = pool.getUtf8(data.readUnsignedShort());
                 int length = data.readInt();
-                if ("Code".equals(attribute_name)) {
+                if (stub && "Code".equals(attribute_name)) {
+                    data.skip(length);
+                } else if ("Code".equals(attribute_name)) {
                     /* int max_stack = */ data.readUnsignedShort();
                     /* int max_locals = */ data.readUnsignedShort();
                     int code_length = data.readInt();
-                    byte[] code = new byte[code_length];
-                    data.read(code, 0, code_length);
+                    byte[] code = data.readBytes(code_length);
                     List<TryCatchRegion> catch_regions = new ArrayList<>();
                     int exception_table_length = data.readUnsignedShort();
                     for (int j = 0; j < exception_table_length; j++) {
@@ -298,7 +334,7 @@ public class BaseDecompiler implements Decompiler {
                                 loc.addLVT(start_pc, local_length, local_name, local_desc);
                             }
                         } else if ("LineNumberTable".equals(code_attribute_name)) {
-                            data.skipBytes(clength);
+                            data.skip(clength);
                         } else if ("LocalVariableTypeTable".equals(code_attribute_name)) {
                             int lvt_length = data.readUnsignedShort();
                             for (int j = 0; j < lvt_length; j++) {
@@ -311,10 +347,10 @@ public class BaseDecompiler implements Decompiler {
                                 loc.getLVT(start_pc).setSignature(local_signature);
                             }
                         } else if ("StackMapTable".equals(code_attribute_name)) {
-                            data.skipBytes(clength);
+                            data.skip(clength);
                         } else {
                             System.err.println("Skipping unknown code attribute: " + code_attribute_name);
-                            data.skipBytes(clength);
+                            data.skip(clength);
                         }
                     }
                 } else if ("Exceptions".equals(attribute_name)) {
@@ -386,7 +422,7 @@ public class BaseDecompiler implements Decompiler {
                     method.setAnnotationValue(val);
                 } else {
                     System.err.println("Skipping unknown method attribute: " + attribute_name);
-                    data.skipBytes(length);
+                    data.skip(length);
                 }
             }
             if (method_sig != null) {
@@ -401,9 +437,9 @@ public class BaseDecompiler implements Decompiler {
                 }
             }
         }
-        MethodDecompiler mth_decomp = Decompilers.JAVA_METHOD;
+        MethodDecompiler mth_decomp = this.session.getJavaMethodDecompiler();
         if (this.lang == Language.KOTLIN) {
-            mth_decomp = Decompilers.KOTLIN_METHOD;
+            mth_decomp = this.session.getKotlinMethodDecompiler();
         }
         List<BootstrapMethod> bootstrap_methods = new ArrayList<>();
         int class_attribute_count = data.readUnsignedShort();
@@ -422,15 +458,15 @@ public class BaseDecompiler implements Decompiler {
                     entry.addInnerClass(inner_cls, inner_name, outer_cls, acc);
                 }
             } else if ("EnclosingMethod".equals(attribute_name)) {
-                data.skipBytes(length);
+                data.skip(length);
             } else if ("Synthetic".equals(attribute_name)) {
                 entry.setSynthetic(true);
             } else if ("Signature".equals(attribute_name)) {
                 entry.setSignature(SignatureParser.parse(pool.getUtf8(data.readUnsignedShort())));
             } else if ("SourceFile".equals(attribute_name)) {
-                data.skipBytes(length);
+                data.skip(length);
             } else if ("SourceDebugExtension".equals(attribute_name)) {
-                data.skipBytes(length);
+                data.skip(length);
             } else if ("Deprecated".equals(attribute_name)) {
                 entry.setDeprecated(true);
             } else if ("RuntimeVisibleAnnotations".equals(attribute_name)) {
@@ -464,7 +500,7 @@ public class BaseDecompiler implements Decompiler {
                 }
             } else {
                 System.err.println("Skipping unknown class attribute: " + attribute_name);
-                data.skipBytes(length);
+                data.skip(length);
             }
         }
 
@@ -479,74 +515,118 @@ public class BaseDecompiler implements Decompiler {
 
         entry.setLanguage(actual_lang);
 
+        if (stub) {
+            entry.setStub(true);
+            // a full decompile of the type may have finished meanwhile
+            return set.addIfAbsent(entry);
+        }
+
+        List<MethodEntry> eager_methods = new ArrayList<>();
+        UnfinishedMethod enum_init = null;
         for (UnfinishedMethod unfinished : unfinished_methods) {
             if (unfinished.code == null) {
                 continue;
             }
             MethodEntry mth = unfinished.mth;
-            try {
-                mth.setIR(this.bytecode.createIR(unfinished.code, mth.getLocals(), unfinished.catch_regions, pool, bootstrap_methods));
-
-                if (unfinished.parameter_annotations != null) {
-                    for (Map.Entry<Integer, List<Annotation>> e : unfinished.parameter_annotations.entrySet()) {
-                        Local loc = mth.getLocals().getLocal(e.getKey());
-                        loc.getInstance(0).getAnnotations().addAll(e.getValue());
+            unfinished.type = entry;
+            unfinished.translator = this.bytecode;
+            unfinished.mth_decomp = mth_decomp;
+            unfinished.pool = pool;
+            unfinished.bootstrap_methods = bootstrap_methods;
+            mth.setLazyBody(unfinished);
+            if (this.session.isEagerMethodBodies()) {
+                eager_methods.add(mth);
+            }
+            if (entry instanceof EnumEntry && mth.getName().equals("<clinit>")) {
+                enum_init = unfinished;
+            }
+        }
+        decompileBodies(eager_methods);
+
+        if (enum_init != null) {
+            // the enum constant names are read from the static initializer so
+            // it cannot be left until it is accessed
+            MethodEntry mth = enum_init.mth;
+            mth.decompileLazyBody();
+            if (!enum_init.failed) {
+                try {
+                    findEnumConstantNames((EnumEntry) entry, mth.getInstructions());
+                } catch (Exception ex) {
+                    if (!this.session.isQuiet()) {
+                        System.err.println("Error decompiling method body for " + name + " " + mth.toString());
+                        ex.printStackTrace();
                     }
+                    mth.setInstructions(makeErrorBlock(this.session, mth));
                 }
+            }
+        }
 
-                if (DUMP_IR_ON_LOAD) {
-                    System.out.println("Instructions of " + mth.getName() + " " + mth.getDescription());
-                    System.out.println(mth.getIR());
-                }
-                StatementBlock block = mth_decomp.decompile(mth);
-                mth.setInstructions(block);
+        set.add(entry);
+        return entry;
+    }
 
-                if (entry instanceof EnumEntry && mth.getName().equals("<clinit>")) {
-                    EnumEntry e = (EnumEntry) entry;
-                    Set<String> names = new HashSet<>(e.getEnumConstants());
-                    e.getEnumConstants().clear();
-                    for (Statement stmt : block) {
-                        if (names.isEmpty() || !(stmt instanceof StaticFieldAssignment)) {
-                            break;
-                        }
-                        StaticFieldAssignment assign = (StaticFieldAssignment) stmt;
-                        if (!names.remove(assign.getFieldName())) {
-                            break;
-                        }
-                        New val = (New) assign.getValue();
-                        StringConstant cst = (StringConstant) val.getParameters()[0];
-                        e.addEnumConstant(cst.getConstant());
-                    }
-                    if (!names.isEmpty()) {
-                        System.err.println("Warning: Failed to find names for all enum constants in " + entry.getName());
-                    }
-                }
+    /**
+     * Decompiles the bodies of the given methods. When called from a fork join
+     * pool the methods are decompiled in parallel on that pool.
+     */
+    private static void decompileBodies(List<MethodEntry> methods) {
+        if (methods.size() < 2 || !ForkJoinTask.inForkJoinPool()) {
+            for (MethodEntry mth : methods) {
+                mth.decompileLazyBody();
+            }
+            return;
+        }
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(methods.size());
+        for (MethodEntry mth : methods) {
+            tasks.add(ForkJoinTask.adapt(mth::decompileLazyBody).fork());
+        }
+        // joined in declaration order so that an error is always reported from
+        // the first method which failed
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+    }
 
-            } catch (Exception ex) {
-                if (!LibraryConfiguration.quiet) {
-                    System.err.println("Error decompiling method body for " + name + " " + mth.toString());
-                    ex.printStackTrace();
-                }
-                StatementBlock insns = new StatementBlock(StatementBlock.Type.METHOD);
-                if (ConfigManager.getConfig().print_opcodes_on_error) {
-                    List<String> text = new ArrayList<>();
-                    text.add("Error decompiling block");
-                    for (Insn next : mth.getIR()) {
-                        text.add(next.toString());
-                    }
-                    insns.append(new Comment(text));
-                } else {
-                    insns.append(new Comment("Error decompiling block"));
-                }
-                mth.setInstructions(insns);
+    /**
+     * Replaces the names of the constants of the given enum with the names
+     * passed to their constructors in its static initializer.
+     */
+    private static void findEnumConstantNames(EnumEntry e, StatementBlock block) {
+        Set<String> names = new HashSet<>(e.getEnumConstants());
+        e.getEnumConstants().clear();
+        for (Statement stmt : block) {
+            if (names.isEmpty() || !(stmt instanceof StaticFieldAssignment)) {
+                break;
             }
+            StaticFieldAssignment assign = (StaticFieldAssignment) stmt;
+            if (!names.remove(assign.getFieldName())) {
+                break;
+            }
+            New val = (New) assign.getValue();
+            StringConstant cst = (StringConstant) val.getParameters()[0];
+            e.addEnumConstant(cst.getConstant());
+        }
+        if (!names.isEmpty()) {
+            System.err.println("Warning: Failed to find names for all enum constants in " + e.getName());
         }
+    }
 
-        set.add(entry);
-        return entry;
+    private static StatementBlock makeErrorBlock(DecompilerSession session, MethodEntry mth) {
+        StatementBlock insns = new StatementBlock(StatementBlock.Type.METHOD);
+        if (session.getConfig().print_opcodes_on_error) {
+            List<String> text = new ArrayList<>();
+            text.add("Error decompiling block");
+            for (Insn next : mth.getIR()) {
+                text.add(next.toString());
+            }
+            insns.append(new Comment(text));
+        } else {
+            insns.append(new Comment("Error decompiling block"));
+        }
+        return insns;
     }
 
-    private Annotation readAnnotation(DataInputStream data, ClassConstantPool pool, SourceSet set) throws IOException {
+    private Annotation readAnnotation(ClassFileReader data, ClassConstantPool pool, SourceSet set) {
         String anno_type_name = pool.getUtf8(data.readUnsignedShort());
         AnnotationType anno_type = set.getAnnotationType(anno_type_name);
         Annotation anno = new Annotation(anno_type);
@@ -558,7 +638,7 @@ public class BaseDecompiler implements Decompiler {
         return anno;
     }
 
-    private Object readElementValue(DataInputStream data, ClassConstantPool pool, SourceSet set) throws IOException {
+    private Object readElementValue(ClassFileReader data, ClassConstantPool pool, SourceSet set) {
         char element_type_tag = (char) data.readUnsignedByte();
         if (element_type_tag == 's') {
             String value = pool.getUtf8(data.readUnsignedShort());
@@ -615,12 +695,60 @@ public class BaseDecompiler implements Decompiler {
         public Entry[] arguments;
     }
 
-    private static class UnfinishedMethod {
+    /**
+     * The raw code of a method which is retained until its body is decompiled.
+     */
+    private static class UnfinishedMethod implements MethodEntry.LazyBody {
 
+        public TypeEntry type;
         public MethodEntry mth;
         public byte[] code;
         public List<TryCatchRegion> catch_regions;
         public Map<Integer, List<Annotation>> parameter_annotations;
+
+        public BytecodeTranslator translator;
+        public MethodDecompiler mth_decomp;
+        public ClassConstantPool pool;
+        public List<BootstrapMethod> bootstrap_methods;
+        public boolean failed;
+
+        public UnfinishedMethod() {
+        }
+
+        @Override
+        public void decompile(MethodEntry mth) {
+            try {
+                mth.setIR(this.translator.createIR(this.code, mth.getLocals(), this.catch_regions, this.pool, this.bootstrap_methods));
+
+                if (this.parameter_annotations != null) {
+                    for (Map.Entry<Integer, List<Annotation>> e : this.parameter_annotations.entrySet()) {
+                        Local loc = mth.getLocals().getLocal(e.getKey());
+                        loc.getInstance(0).getAnnotations().addAll(e.getValue());
+                    }
+                }
+
+                if (DUMP_IR_ON_LOAD) {
+                    System.out.println("Instructions of " + mth.getName() + " " + mth.getDescription());
+                    System.out.println(mth.getIR());
+                }
+                StatementBlock block = this.mth_decomp.decompile(mth);
+                mth.setInstructions(block);
+            } catch (MethodTimeoutException ex) {
+                this.failed = true;
+                this.type.setTimedOutMethods(true);
+                if (!this.mth_decomp.getSession().isQuiet()) {
+                    System.err.println("Timed out decompiling method body for " + mth.getOwnerName() + " " + mth.toString());
+                }
+                mth.setInstructions(makeErrorBlock(this.mth_decomp.getSession(), mth));
+            } catch (Exception ex) {
+                this.failed = true;
+                if (!this.mth_decomp.getSession().isQuiet()) {
+                    System.err.println("Error decompiling method body for " + mth.getOwnerName() + " " + mth.toString());
+                    ex.printStackTrace();
+                }
+                mth.setInstructions(makeErrorBlock(this.mth_decomp.getSession(), mth));
+            }
+        }
     }
 
 }
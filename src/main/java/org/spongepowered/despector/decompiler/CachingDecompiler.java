@@ -0,0 +1,267 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.decompiler;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import org.spongepowered.despector.DecompilerSession;
+import org.spongepowered.despector.Language;
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.ast.type.TypeEntry;
+import org.spongepowered.despector.util.serialization.AstLoader;
+import org.spongepowered.despector.util.serialization.AstSerializer;
+import org.spongepowered.despector.util.serialization.MessagePacker;
+import org.spongepowered.despector.util.serialization.MessageUnpacker;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * A decompiler which caches the ast of each decompiled type on disk.
+ *
+ * <p>Entries are keyed by the SHA-1 of the class file contents along with the
+ * cache version, the implementation version of the jar and the decompiler
+ * settings, including the condition simplifier and the method time budget. A
+ * type whose class file is unchanged since it was last cached is loaded from
+ * its serialized form rather than being decompiled again.</p>
+ *
+ * <p>Types with a method that exceeded its time budget are not cached, as the
+ * timeout depends on the load of the machine rather than on the class
+ * file.</p>
+ */
+public class CachingDecompiler implements Decompiler {
+
+    /**
+     * The version of the cache, this should be incremented whenever a change
+     * to the decompiler would produce a different ast for the same class file.
+     */
+    public static final int VERSION = 5;
+
+    private static final String IMPLEMENTATION_VERSION = getImplementationVersion();
+
+    private static final String EXTENSION = ".ast";
+
+    private final Decompiler delegate;
+    private final Path directory;
+    private final String key_prefix;
+
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    /**
+     * Creates a new caching decompiler which stores types decompiled by the
+     * given decompiler as the given language in the given directory.
+     */
+    public CachingDecompiler(Decompiler delegate, Language lang, Path directory) throws IOException {
+        this(delegate, lang, DecompilerSession.getDefault(), directory);
+    }
+
+    /**
+     * Creates a new caching decompiler which stores types decompiled by the
+     * given decompiler with the language and settings of the given session in
+     * the given directory.
+     */
+    public CachingDecompiler(Decompiler delegate, DecompilerSession session, Path directory) throws IOException {
+        this(delegate, session.getLanguage(), session, directory);
+    }
+
+    private CachingDecompiler(Decompiler delegate, Language lang, DecompilerSession session, Path directory) throws IOException {
+        this.delegate = checkNotNull(delegate, "delegate");
+        this.directory = checkNotNull(directory, "directory");
+        this.key_prefix = VERSION + ":" + IMPLEMENTATION_VERSION + ":" + AstSerializer.VERSION + ":" + lang.name() + ":"
+                + session.getConfig().print_opcodes_on_error + ":" + session.getConditionSimplifier().getClass().getName() + ":"
+                + session.getJavaMethodDecompiler().getTimeout() + ":" + session.getKotlinMethodDecompiler().getTimeout() + ":";
+        Files.createDirectories(directory);
+    }
+
+    /**
+     * Gets the number of types which were loaded from the cache.
+     */
+    public int getHits() {
+        return this.hits.get();
+    }
+
+    /**
+     * Gets the number of types which were decompiled as they were not in the
+     * cache.
+     */
+    public int getMisses() {
+        return this.misses.get();
+    }
+
+    @Override
+    public TypeEntry decompile(Path cls_path, SourceSet source) throws IOException {
+        return decompile(Files.readAllBytes(cls_path), source);
+    }
+
+    @Override
+    public TypeEntry decompile(File cls_path, SourceSet source) throws IOException {
+        return decompile(cls_path.toPath(), source);
+    }
+
+    @Override
+    public TypeEntry decompile(InputStream input, SourceSet source) throws IOException {
+        return decompile(ByteStreams.toByteArray(input), source);
+    }
+
+    @Override
+    public TypeEntry decompile(byte[] data, SourceSet source) throws IOException {
+        String hash = Hashing.sha1().newHasher()
+                .putString(this.key_prefix, StandardCharsets.UTF_8)
+                .putBytes(data)
+                .hash().toString();
+        Path entry = this.directory.resolve(hash.substring(0, 2)).resolve(hash + EXTENSION);
+
+        if (Files.exists(entry)) {
+            TypeEntry type = load(entry, source);
+            if (type != null) {
+                this.hits.incrementAndGet();
+                return type;
+            }
+        }
+
+        this.misses.incrementAndGet();
+        TypeEntry type = this.delegate.decompile(data, source);
+        store(entry, type);
+        return type;
+    }
+
+    @Override
+    public TypeEntry loadStub(InputStream input, SourceSet source) throws IOException {
+        // stubs are cheap enough to load that caching them is not worthwhile
+        return this.delegate.loadStub(input, source);
+    }
+
+    @Override
+    public TypeEntry loadStub(byte[] data, SourceSet source) throws IOException {
+        return this.delegate.loadStub(data, source);
+    }
+
+    private TypeEntry load(Path entry, SourceSet source) {
+        TypeEntry type;
+        try (MessageUnpacker unpack = new MessageUnpacker(new BufferedInputStream(Files.newInputStream(entry)))) {
+            type = AstLoader.loadType(unpack, source);
+        } catch (Exception e) {
+            System.err.println("Discarding corrupt cache entry " + entry);
+            e.printStackTrace();
+            try {
+                Files.deleteIfExists(entry);
+            } catch (IOException e1) {
+                e1.printStackTrace();
+            }
+            return null;
+        }
+        source.add(type);
+        try {
+            // the modified time is used as the last access time when pruning
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return type;
+    }
+
+    private void store(Path entry, TypeEntry type) {
+        if (type.hasTimedOutMethods()) {
+            return;
+        }
+        // Entries are written to a temporary file first so that other threads
+        // or runs never see a partially written entry.
+        Path temp = null;
+        try {
+            Files.createDirectories(entry.getParent());
+            temp = Files.createTempFile(entry.getParent(), entry.getFileName().toString(), ".tmp");
+            try (MessagePacker pack = new MessagePacker(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                type.writeTo(pack);
+            }
+            if (type.hasTimedOutMethods()) {
+                // a lazy body timed out while the type was written
+                Files.delete(temp);
+                return;
+            }
+            Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (Exception e) {
+            // not every ast can be serialized yet, these types are simply
+            // decompiled again next time
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e1) {
+                    e1.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * Deletes all entries in the given cache directory which have not been
+     * used for at least the given number of days. Returns the number of entries
+     * deleted.
+     */
+    public static int prune(Path directory, int days) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+        long cutoff = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(days);
+        AtomicInteger pruned = new AtomicInteger();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.filter((p) -> p.getFileName().toString().endsWith(EXTENSION)).forEach((p) -> {
+                try {
+                    if (Files.getLastModifiedTime(p).toMillis() < cutoff) {
+                        Files.delete(p);
+                        pruned.incrementAndGet();
+                    }
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            });
+        }
+        return pruned.get();
+    }
+
+    private static String getImplementationVersion() {
+        // not present when running from the classes directory rather than
+        // the built jar
+        Package pkg = CachingDecompiler.class.getPackage();
+        if (pkg == null || pkg.getImplementationVersion() == null) {
+            return "dev";
+        }
+        return pkg.getImplementationVersion();
+    }
+
+}
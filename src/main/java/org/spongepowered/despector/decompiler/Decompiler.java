@@ -52,4 +52,24 @@ public interface Decompiler {
      */
     TypeEntry decompile(InputStream cls_path, SourceSet source) throws IOException;
 
+    /**
+     * Decompiles the given class file bytes.
+     */
+    TypeEntry decompile(byte[] cls, SourceSet source) throws IOException;
+
+    /**
+     * Loads the declarations of the class file in the given input stream
+     * without decompiling any method bodies. The returned type is a
+     * {@link TypeEntry#isStub() stub}, unless the source set already held a
+     * type of the same name, which is returned instead.
+     */
+    TypeEntry loadStub(InputStream cls_path, SourceSet source) throws IOException;
+
+    /**
+     * Loads the declarations of the given class file bytes without
+     * decompiling any method bodies. If the source set already holds a type
+     * of the same name that type is returned instead.
+     */
+    TypeEntry loadStub(byte[] cls, SourceSet source) throws IOException;
+
 }
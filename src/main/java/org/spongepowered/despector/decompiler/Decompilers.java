@@ -24,6 +24,7 @@
  */
 package org.spongepowered.despector.decompiler;
 
+import org.spongepowered.despector.DecompilerSession;
 import org.spongepowered.despector.Language;
 import org.spongepowered.despector.decompiler.kotlin.method.graph.create.ElvisGraphProducerStep;
 import org.spongepowered.despector.decompiler.kotlin.method.graph.operate.KotlinTernaryPrePassOperation;
@@ -61,57 +62,73 @@ public final class Decompilers {
     public static final BaseDecompiler KOTLIN = new BaseDecompiler(Language.KOTLIN);
     public static final BaseDecompiler WILD = new BaseDecompiler(Language.ANY);
 
-    public static final MethodDecompiler JAVA_METHOD = new MethodDecompiler();
-    public static final MethodDecompiler KOTLIN_METHOD = new MethodDecompiler();
+    public static final MethodDecompiler JAVA_METHOD = createJavaMethodDecompiler(DecompilerSession.getDefault());
+    public static final MethodDecompiler KOTLIN_METHOD = createKotlinMethodDecompiler(DecompilerSession.getDefault());
 
     private static final EnumMap<Language, Decompiler> DECOMPILERS = new EnumMap<>(Language.class);
 
     static {
-        JAVA_METHOD.addGraphProducer(new JumpGraphProducerStep());
-        JAVA_METHOD.addGraphProducer(new SwitchGraphProducerStep());
-        JAVA_METHOD.addGraphProducer(new TryCatchGraphProducerStep());
-        JAVA_METHOD.addCleanupOperation(new JumpSeparateOperation());
-        JAVA_METHOD.addCleanupOperation(new BlockTargetOperation());
-        JAVA_METHOD.addCleanupOperation(new TernaryPrePassOperation());
-        JAVA_METHOD.addCleanupOperation(new BreakPrePassOperation());
-        JAVA_METHOD.addProcessor(new TryCatchBlockProcessor());
-        JAVA_METHOD.addProcessor(new InternalBlockProcessor());
-        JAVA_METHOD.addProcessor(new SwitchBlockProcessor());
-        JAVA_METHOD.addProcessor(new SubRegionBlockProcessor());
-        JAVA_METHOD.addRegionProcessor(new ChildRegionProcessor());
-        JAVA_METHOD.addRegionProcessor(new DoWhileRegionProcessor());
-        JAVA_METHOD.addRegionProcessor(new WhileRegionProcessor());
-        JAVA_METHOD.addRegionProcessor(new IfBlockRegionProcessor());
-        JAVA_METHOD.addPostProcessor(new IfCombiningPostProcessor());
-        JAVA_METHOD.addPostProcessor(new ForFromWhilePostProcessor());
-        JAVA_METHOD.addPostProcessor(new ForEachPostProcessor());
-
-        KOTLIN_METHOD.addGraphProducer(new JumpGraphProducerStep());
-        KOTLIN_METHOD.addGraphProducer(new SwitchGraphProducerStep());
-        KOTLIN_METHOD.addGraphProducer(new TryCatchGraphProducerStep());
-        KOTLIN_METHOD.addGraphProducer(new ElvisGraphProducerStep());
-        KOTLIN_METHOD.addCleanupOperation(new JumpSeparateOperation());
-        KOTLIN_METHOD.addCleanupOperation(new BlockTargetOperation());
-        KOTLIN_METHOD.addCleanupOperation(new BreakPrePassOperation());
-        KOTLIN_METHOD.addCleanupOperation(new KotlinTernaryPrePassOperation());
-        KOTLIN_METHOD.addProcessor(new TryCatchBlockProcessor());
-        KOTLIN_METHOD.addProcessor(new InternalBlockProcessor());
-        KOTLIN_METHOD.addProcessor(new SwitchBlockProcessor());
-        KOTLIN_METHOD.addProcessor(new SubRegionBlockProcessor());
-        KOTLIN_METHOD.addRegionProcessor(new ChildRegionProcessor());
-        KOTLIN_METHOD.addRegionProcessor(new DoWhileRegionProcessor());
-        KOTLIN_METHOD.addRegionProcessor(new WhileRegionProcessor());
-        KOTLIN_METHOD.addRegionProcessor(new IfBlockRegionProcessor());
-        KOTLIN_METHOD.addPostProcessor(new IfCombiningPostProcessor());
-        KOTLIN_METHOD.addPostProcessor(new ForEachPostProcessor());
-        KOTLIN_METHOD.addPostProcessor(new KotlinLocalsMutabilityPostProcess());
-        KOTLIN_METHOD.setSpecialProcessor(LocalsProcessor.class, new KotlinLocalsProcessor());
-
         DECOMPILERS.put(Language.JAVA, JAVA);
         DECOMPILERS.put(Language.KOTLIN, KOTLIN);
         DECOMPILERS.put(Language.ANY, WILD);
     }
 
+    /**
+     * Creates a new method decompiler with the standard steps for java
+     * method bodies.
+     */
+    public static MethodDecompiler createJavaMethodDecompiler(DecompilerSession session) {
+        MethodDecompiler mth = new MethodDecompiler(session);
+        mth.addGraphProducer(new JumpGraphProducerStep());
+        mth.addGraphProducer(new SwitchGraphProducerStep());
+        mth.addGraphProducer(new TryCatchGraphProducerStep());
+        mth.addCleanupOperation(new JumpSeparateOperation());
+        mth.addCleanupOperation(new BlockTargetOperation());
+        mth.addCleanupOperation(new TernaryPrePassOperation());
+        mth.addCleanupOperation(new BreakPrePassOperation());
+        mth.addProcessor(new TryCatchBlockProcessor());
+        mth.addProcessor(new InternalBlockProcessor());
+        mth.addProcessor(new SwitchBlockProcessor());
+        mth.addProcessor(new SubRegionBlockProcessor());
+        mth.addRegionProcessor(new ChildRegionProcessor());
+        mth.addRegionProcessor(new DoWhileRegionProcessor());
+        mth.addRegionProcessor(new WhileRegionProcessor());
+        mth.addRegionProcessor(new IfBlockRegionProcessor());
+        mth.addPostProcessor(new IfCombiningPostProcessor());
+        mth.addPostProcessor(new ForFromWhilePostProcessor());
+        mth.addPostProcessor(new ForEachPostProcessor());
+        return mth;
+    }
+
+    /**
+     * Creates a new method decompiler with the standard steps for kotlin
+     * method bodies.
+     */
+    public static MethodDecompiler createKotlinMethodDecompiler(DecompilerSession session) {
+        MethodDecompiler mth = new MethodDecompiler(session);
+        mth.addGraphProducer(new JumpGraphProducerStep());
+        mth.addGraphProducer(new SwitchGraphProducerStep());
+        mth.addGraphProducer(new TryCatchGraphProducerStep());
+        mth.addGraphProducer(new ElvisGraphProducerStep());
+        mth.addCleanupOperation(new JumpSeparateOperation());
+        mth.addCleanupOperation(new BlockTargetOperation());
+        mth.addCleanupOperation(new BreakPrePassOperation());
+        mth.addCleanupOperation(new KotlinTernaryPrePassOperation());
+        mth.addProcessor(new TryCatchBlockProcessor());
+        mth.addProcessor(new InternalBlockProcessor());
+        mth.addProcessor(new SwitchBlockProcessor());
+        mth.addProcessor(new SubRegionBlockProcessor());
+        mth.addRegionProcessor(new ChildRegionProcessor());
+        mth.addRegionProcessor(new DoWhileRegionProcessor());
+        mth.addRegionProcessor(new WhileRegionProcessor());
+        mth.addRegionProcessor(new IfBlockRegionProcessor());
+        mth.addPostProcessor(new IfCombiningPostProcessor());
+        mth.addPostProcessor(new ForEachPostProcessor());
+        mth.addPostProcessor(new KotlinLocalsMutabilityPostProcess());
+        mth.setSpecialProcessor(LocalsProcessor.class, new KotlinLocalsProcessor());
+        return mth;
+    }
+
     /**
      * Gets the decompiler for the given language.
      */
@@ -29,6 +29,12 @@ import org.spongepowered.despector.ast.SourceSet;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import javax.annotation.Nullable;
 
 /**
  * A directory walker which walks a directory and visits all child files and
@@ -51,6 +57,34 @@ public class DirectoryWalker {
         visit(dir, src, decomp);
     }
 
+    /**
+     * Walks this directory and decompiles all class files in it or any child
+     * directory on the given pool. This method returns once all classes have
+     * been decompiled.
+     */
+    public void walk(SourceSet src, Decompiler decomp, @Nullable ForkJoinPool pool) throws IOException {
+        if (pool == null) {
+            walk(src, decomp);
+            return;
+        }
+        List<File> files = new ArrayList<>();
+        collect(this.directory.toFile(), files);
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(files.size());
+        for (File file : files) {
+            tasks.add(pool.submit(() -> {
+                try {
+                    decomp.decompile(file, src);
+                } catch (Exception e) {
+                    System.err.println("Error decompiling class file " + file.getAbsolutePath());
+                    e.printStackTrace();
+                }
+            }));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+    }
+
     private void visit(File file, SourceSet src, Decompiler decomp) throws IOException {
         if (file.isDirectory()) {
             for (File f : file.listFiles()) {
@@ -63,4 +97,14 @@ public class DirectoryWalker {
         }
     }
 
+    private void collect(File file, List<File> files) {
+        if (file.isDirectory()) {
+            for (File f : file.listFiles()) {
+                collect(f, files);
+            }
+        } else if (file.getName().endsWith(".class")) {
+            files.add(file);
+        }
+    }
+
 }
@@ -0,0 +1,187 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.decompiler;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.hash.Hashing;
+import org.spongepowered.despector.Language;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.annotation.Nullable;
+
+/**
+ * A record of the class files which produced an output directory. For every
+ * class this holds the hash of its class file, the outer type it is emitted
+ * within and the file that outer type was emitted to.
+ *
+ * <p>The manifest is stored in the output directory and allows a later run
+ * over a new version of the same jar to only decompile and emit the types
+ * which have changed.</p>
+ */
+public class IncrementalManifest {
+
+    public static final String FILE_NAME = ".despector_manifest";
+
+    private static final String HEADER = "despector-manifest";
+    private static final String NO_FILE = "-";
+
+    /**
+     * Loads the manifest from the given output directory. Returns null if the
+     * directory has no manifest, or if the manifest was produced by a
+     * different decompiler version or for a different language.
+     */
+    @Nullable
+    public static IncrementalManifest load(Path output, Language lang) throws IOException {
+        Path path = output.resolve(FILE_NAME);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        IncrementalManifest manifest = new IncrementalManifest(lang);
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            if (!manifest.getHeader().equals(reader.readLine())) {
+                return null;
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split("\t");
+                if (parts.length != 4) {
+                    throw new IOException("Malformed manifest entry: " + line);
+                }
+                manifest.put(parts[0], parts[1], parts[2], NO_FILE.equals(parts[3]) ? null : parts[3]);
+            }
+        }
+        return manifest;
+    }
+
+    /**
+     * Gets the hash of the given class file.
+     */
+    public static String hash(byte[] data) {
+        return Hashing.sha1().hashBytes(data).toString();
+    }
+
+    private final Language lang;
+    private final Map<String, Entry> entries = new TreeMap<>();
+
+    public IncrementalManifest(Language lang) {
+        this.lang = checkNotNull(lang, "lang");
+    }
+
+    private String getHeader() {
+        return HEADER + " " + CachingDecompiler.VERSION + " " + this.lang.name();
+    }
+
+    /**
+     * Gets the entry for the class with the given internal name, or null if
+     * the class is not in this manifest.
+     */
+    @Nullable
+    public Entry get(String name) {
+        return this.entries.get(name);
+    }
+
+    /**
+     * Gets the internal names of all classes in this manifest.
+     */
+    public Collection<String> getNames() {
+        return Collections.unmodifiableCollection(this.entries.keySet());
+    }
+
+    /**
+     * Adds or replaces the entry for the class with the given internal name.
+     */
+    public void put(String name, String hash, String owner, @Nullable String file) {
+        this.entries.put(checkNotNull(name, "name"), new Entry(hash, owner, file));
+    }
+
+    /**
+     * Writes this manifest to the given output directory.
+     */
+    public void save(Path output) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(output.resolve(FILE_NAME), StandardCharsets.UTF_8)) {
+            writer.write(getHeader());
+            writer.newLine();
+            for (Map.Entry<String, Entry> e : this.entries.entrySet()) {
+                Entry entry = e.getValue();
+                writer.write(e.getKey() + "\t" + entry.hash + "\t" + entry.owner + "\t" + (entry.file == null ? NO_FILE : entry.file));
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * A manifest entry for a single class.
+     */
+    public static class Entry {
+
+        private final String hash;
+        private final String owner;
+        @Nullable private final String file;
+
+        public Entry(String hash, String owner, @Nullable String file) {
+            this.hash = checkNotNull(hash, "hash");
+            this.owner = checkNotNull(owner, "owner");
+            this.file = file;
+        }
+
+        /**
+         * Gets the hash of the class file.
+         */
+        public String getHash() {
+            return this.hash;
+        }
+
+        /**
+         * Gets the internal name of the outer type which this class is emitted
+         * within. This is the class itself if it is not an inner class.
+         */
+        public String getOwner() {
+            return this.owner;
+        }
+
+        /**
+         * Gets the path, relative to the output directory, of the file the
+         * owning type was emitted to. Returns null if the owner was not
+         * emitted.
+         */
+        @Nullable
+        public String getFile() {
+            return this.file;
+        }
+
+    }
+
+}
@@ -0,0 +1,133 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.decompiler;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.io.ByteStreams;
+import org.spongepowered.despector.ast.SourceSet;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import javax.annotation.Nullable;
+
+/**
+ * A random access view of the class files in a jar. The class entries are
+ * indexed by their internal name from the central directory when the jar is
+ * opened so they may be read in any order, and from several threads at once.
+ *
+ * <p>A jar source may also be used as the {@link SourceSet.Loader} of a source
+ * set so that types are loaded from the already open archive.</p>
+ */
+public class JarSource implements SourceSet.Loader, Closeable {
+
+    private final Path path;
+    private final ZipFile jar;
+    private final Map<String, ZipEntry> classes = new LinkedHashMap<>();
+
+    /**
+     * Opens the jar at the given path and indexes its class files.
+     */
+    public JarSource(Path path) throws IOException {
+        this.path = checkNotNull(path, "path");
+        this.jar = new ZipFile(path.toFile());
+        for (ZipEntry entry : Collections.list(this.jar.entries())) {
+            String name = entry.getName();
+            if (entry.isDirectory() || !name.endsWith(".class")) {
+                continue;
+            }
+            this.classes.put(name.substring(0, name.length() - 6), entry);
+        }
+    }
+
+    /**
+     * Gets the path of this jar.
+     */
+    public Path getPath() {
+        return this.path;
+    }
+
+    /**
+     * Gets the internal names of all classes in this jar, in the order they
+     * appear in the central directory.
+     */
+    public Collection<String> getClassNames() {
+        return Collections.unmodifiableCollection(this.classes.keySet());
+    }
+
+    /**
+     * Gets if this jar contains a class with the given internal name.
+     */
+    public boolean contains(String name) {
+        return this.classes.containsKey(name);
+    }
+
+    /**
+     * Reads the class file with the given internal name, or returns null if
+     * this jar has no such class.
+     */
+    @Nullable
+    public byte[] read(String name) throws IOException {
+        ZipEntry entry = this.classes.get(name);
+        if (entry == null) {
+            return null;
+        }
+        try (InputStream in = this.jar.getInputStream(entry)) {
+            return ByteStreams.toByteArray(in);
+        }
+    }
+
+    @Override
+    public InputStream find(String name) {
+        try {
+            byte[] data = read(name);
+            if (data == null) {
+                return null;
+            }
+            // The entry is read out fully as the decompiler expects reads to
+            // never return short.
+            return new ByteArrayInputStream(data);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.jar.close();
+    }
+
+}
@@ -26,12 +26,15 @@ package org.spongepowered.despector.decompiler;
 
 import org.spongepowered.despector.ast.SourceSet;
 
-import java.io.BufferedInputStream;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.jar.JarInputStream;
-import java.util.zip.ZipEntry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Predicate;
+
+import javax.annotation.Nullable;
 
 /**
  * Walks a jar file to produce an ast. Steps such as associating overriding
@@ -40,45 +43,85 @@ import java.util.zip.ZipEntry;
 public class JarWalker {
 
     private final Path jar;
+    @Nullable private final JarSource source;
 
     /**
      * Creates a new jar walker.
      */
     public JarWalker(Path jar) {
         this.jar = jar;
+        this.source = null;
+    }
+
+    /**
+     * Creates a new jar walker over the given already open jar.
+     */
+    public JarWalker(JarSource source) {
+        this.jar = source.getPath();
+        this.source = source;
     }
 
     /**
      * Produces a new obfuscated source set for this version.
      */
     public void walk(SourceSet sources, Decompiler decomp) {
-        scanJar(this.jar, sources, decomp);
+        walk(sources, decomp, null);
     }
 
-    private void scanJar(Path path, SourceSet src, Decompiler decomp) {
-        try (JarInputStream jar = new JarInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
-            ZipEntry entry = jar.getNextEntry();
-            if (entry == null) {
-                return;
-            }
-            do {
-                if (entry.isDirectory()) {
-                    continue;
-                }
-                final String name = entry.getName();
-                if (!name.endsWith(".class")) {
-                    continue;
-                }
-                scanClassFile(jar, src, decomp);
-            } while ((entry = jar.getNextEntry()) != null);
+    /**
+     * Produces a new obfuscated source set for this version, decompiling the
+     * classes of the jar on the given pool. Each class is read from the jar
+     * and decompiled as a separate task. This method returns once all classes
+     * have been decompiled.
+     */
+    public void walk(SourceSet sources, Decompiler decomp, @Nullable ForkJoinPool pool) {
+        walk(sources, decomp, pool, (name) -> true);
+    }
+
+    /**
+     * Decompiles only the classes of the jar whose internal name matches the
+     * given filter, on the given pool. This method returns once all matching
+     * classes have been decompiled.
+     */
+    public void walk(SourceSet sources, Decompiler decomp, @Nullable ForkJoinPool pool, Predicate<String> filter) {
+        if (this.source != null) {
+            scanJar(this.source, sources, decomp, pool, filter);
+            return;
+        }
+        try (JarSource jar = new JarSource(this.jar)) {
+            scanJar(jar, sources, decomp, pool, filter);
         } catch (IOException e) {
             e.printStackTrace();
+        }
+    }
+
+    private void scanJar(JarSource jar, SourceSet src, Decompiler decomp, @Nullable ForkJoinPool pool, Predicate<String> filter) {
+        if (pool == null) {
+            for (String name : jar.getClassNames()) {
+                if (filter.test(name)) {
+                    scanClassFile(jar, name, src, decomp);
+                }
+            }
             return;
         }
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (String name : jar.getClassNames()) {
+            if (filter.test(name)) {
+                tasks.add(pool.submit(() -> scanClassFile(jar, name, src, decomp)));
+            }
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
     }
 
-    private void scanClassFile(JarInputStream input, SourceSet src, Decompiler decomp) throws IOException {
-        decomp.decompile(input, src);
+    private void scanClassFile(JarSource jar, String name, SourceSet src, Decompiler decomp) {
+        try {
+            decomp.decompile(jar.read(name), src);
+        } catch (Exception e) {
+            System.err.println("Error decompiling class file " + name + ".class");
+            e.printStackTrace();
+        }
     }
 
 }
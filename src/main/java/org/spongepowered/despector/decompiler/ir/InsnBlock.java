@@ -24,36 +24,205 @@
  */
 package org.spongepowered.despector.decompiler.ir;
 
+import org.spongepowered.despector.decompiler.loader.ClassConstantPool.FieldRefEntry;
+import org.spongepowered.despector.decompiler.loader.ClassConstantPool.MemberRefEntry;
+import org.spongepowered.despector.decompiler.loader.ClassConstantPool.MethodRefEntry;
 import org.spongepowered.despector.decompiler.method.PartialMethod.TryCatchRegion;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
+/**
+ * A block of instructions stored as flat arrays of opcodes, int operands and
+ * constant operands. {@link Insn} objects are only created when an
+ * instruction is requested with {@link #get(int)}, consumers which can work
+ * from an {@link InsnCursor} never create them.
+ *
+ * <p>The operand of each instruction is stored as follows:</p>
+ * <ul>
+ * <li>ICONST, LOCAL_LOAD, LOCAL_STORE: the value or local index</li>
+ * <li>FCONST: the raw int bits of the value</li>
+ * <li>IINC: the local index in the upper 16 bits and the increment in the
+ * lower 16 bits</li>
+ * <li>jumps: the target index, switches: the default target index</li>
+ * <li>MULTINEWARRAY: the dimension count</li>
+ * </ul>
+ *
+ * <p>The constant of each instruction is the pushed value for PUSH, LCONST
+ * and DCONST, the {@link MemberRefEntry} for field and method instructions,
+ * the type descriptor for type instructions, the target map for switches and
+ * the {@link InvokeDynamicInsn} for invokedynamic.</p>
+ */
 public class InsnBlock implements Iterable<Insn> {
 
-    private final List<Insn> instructions;
+    private int size;
+    private int[] opcodes;
+    private int[] operands;
+    private Object[] constants;
+    private Insn[] insns;
+
     private int[] op_indices;
     private List<TryCatchRegion> catch_regions = new ArrayList<>();
 
     public InsnBlock() {
-        this.instructions = new ArrayList<>();
+        this(16);
+    }
+
+    public InsnBlock(int capacity) {
+        capacity = Math.max(capacity, 4);
+        this.opcodes = new int[capacity];
+        this.operands = new int[capacity];
+        this.constants = new Object[capacity];
     }
 
     public int size() {
-        return this.instructions.size();
+        return this.size;
+    }
+
+    public int getOpcode(int i) {
+        return this.opcodes[i];
+    }
+
+    public int getOperand(int i) {
+        return this.operands[i];
+    }
+
+    public void setOperand(int i, int operand) {
+        this.operands[i] = operand;
+        if (this.insns != null) {
+            this.insns[i] = null;
+        }
+    }
+
+    public Object getConstant(int i) {
+        return this.constants[i];
     }
 
+    /**
+     * Gets the instruction at the given index, creating it on the first
+     * request.
+     */
     public Insn get(int i) {
-        return this.instructions.get(i);
+        if (i < 0 || i >= this.size) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + this.size);
+        }
+        if (this.insns == null) {
+            this.insns = new Insn[this.opcodes.length];
+        }
+        Insn insn = this.insns[i];
+        if (insn == null) {
+            insn = materialize(i);
+            this.insns[i] = insn;
+        }
+        return insn;
     }
 
+    public void append(int op) {
+        append(op, 0, null);
+    }
+
+    public void append(int op, int operand) {
+        append(op, operand, null);
+    }
+
+    public void append(int op, int operand, Object constant) {
+        if (this.size == this.opcodes.length) {
+            int capacity = this.size * 2;
+            this.opcodes = Arrays.copyOf(this.opcodes, capacity);
+            this.operands = Arrays.copyOf(this.operands, capacity);
+            this.constants = Arrays.copyOf(this.constants, capacity);
+            if (this.insns != null) {
+                this.insns = Arrays.copyOf(this.insns, capacity);
+            }
+        }
+        this.opcodes[this.size] = op;
+        this.operands[this.size] = operand;
+        this.constants[this.size] = constant;
+        this.size++;
+    }
+
+    /**
+     * Appends an already created instruction, its operands are copied into
+     * the flat form and the instance is kept for {@link #get(int)}.
+     */
     public void append(Insn insn) {
-        this.instructions.add(insn);
+        int op = insn.getOpcode();
+        if (insn instanceof IntInsn) {
+            append(op, ((IntInsn) insn).getValue());
+        } else if (insn instanceof LongInsn) {
+            append(op, 0, ((LongInsn) insn).getValue());
+        } else if (insn instanceof FloatInsn) {
+            append(op, Float.floatToRawIntBits(((FloatInsn) insn).getValue()));
+        } else if (insn instanceof DoubleInsn) {
+            append(op, 0, ((DoubleInsn) insn).getValue());
+        } else if (insn instanceof LdcInsn) {
+            append(op, 0, ((LdcInsn) insn).getConstant());
+        } else if (insn instanceof VarIntInsn) {
+            VarIntInsn var = (VarIntInsn) insn;
+            append(op, packIncrement(var.getLocal(), var.getValue()));
+        } else if (insn instanceof JumpInsn) {
+            append(op, ((JumpInsn) insn).getTarget());
+        } else if (insn instanceof SwitchInsn) {
+            append(op, ((SwitchInsn) insn).getDefault(), ((SwitchInsn) insn).getTargets());
+        } else if (insn instanceof TypeInsn) {
+            append(op, 0, ((TypeInsn) insn).getType());
+        } else if (insn instanceof TypeIntInsn) {
+            append(op, ((TypeIntInsn) insn).getValue(), ((TypeIntInsn) insn).getType());
+        } else if (insn instanceof FieldInsn) {
+            FieldInsn field = (FieldInsn) insn;
+            append(op, 0, memberRef(new FieldRefEntry(), field.getOwner(), field.getName(), field.getDescription()));
+        } else if (insn instanceof InvokeInsn) {
+            InvokeInsn method = (InvokeInsn) insn;
+            append(op, 0, memberRef(new MethodRefEntry(), method.getOwner(), method.getName(), method.getDescription()));
+        } else if (insn instanceof InvokeDynamicInsn) {
+            append(op, 0, insn);
+        } else {
+            append(op);
+        }
+        if (this.insns == null) {
+            this.insns = new Insn[this.opcodes.length];
+        }
+        this.insns[this.size - 1] = insn;
+    }
+
+    /**
+     * Gets a cursor over all instructions in this block.
+     */
+    public InsnCursor cursor() {
+        return new InsnCursor(this, 0, this.size);
+    }
+
+    /**
+     * Gets a cursor over the instructions from the start index inclusive to
+     * the end index exclusive.
+     */
+    public InsnCursor cursor(int start, int end) {
+        if (start < 0 || end > this.size || start > end) {
+            throw new IndexOutOfBoundsException("Range: " + start + " to " + end + ", Size: " + this.size);
+        }
+        return new InsnCursor(this, start, end);
     }
 
+    /**
+     * Gets a view of the instructions of this block.
+     */
     public List<Insn> getInstructions() {
-        return this.instructions;
+        return new AbstractList<Insn>() {
+
+            @Override
+            public Insn get(int index) {
+                return InsnBlock.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return InsnBlock.this.size;
+            }
+        };
     }
 
     public int[] getOpcodeIndices() {
@@ -68,11 +237,95 @@ public class InsnBlock implements Iterable<Insn> {
         return this.catch_regions;
     }
 
+    @SuppressWarnings("unchecked")
+    private Insn materialize(int i) {
+        int op = this.opcodes[i];
+        int operand = this.operands[i];
+        Object constant = this.constants[i];
+        switch (op) {
+        case Insn.PUSH:
+            return new LdcInsn(op, constant);
+        case Insn.ICONST:
+        case Insn.LOCAL_LOAD:
+        case Insn.LOCAL_STORE:
+            return new IntInsn(op, operand);
+        case Insn.LCONST:
+            return new LongInsn(op, (Long) constant);
+        case Insn.FCONST:
+            return new FloatInsn(op, Float.intBitsToFloat(operand));
+        case Insn.DCONST:
+            return new DoubleInsn(op, (Double) constant);
+        case Insn.GETFIELD:
+        case Insn.PUTFIELD:
+        case Insn.GETSTATIC:
+        case Insn.PUTSTATIC: {
+            MemberRefEntry ref = (MemberRefEntry) constant;
+            return new FieldInsn(op, ref.cls, ref.name, ref.type);
+        }
+        case Insn.INVOKE:
+        case Insn.INVOKESTATIC: {
+            MemberRefEntry ref = (MemberRefEntry) constant;
+            return new InvokeInsn(op, ref.cls, ref.name, ref.type);
+        }
+        case Insn.INVOKEDYNAMIC:
+            return (Insn) constant;
+        case Insn.NEW:
+        case Insn.NEWARRAY:
+        case Insn.CAST:
+        case Insn.INSTANCEOF:
+            return new TypeInsn(op, (String) constant);
+        case Insn.MULTINEWARRAY:
+            return new TypeIntInsn(op, (String) constant, operand);
+        case Insn.IINC:
+            return new VarIntInsn(op, unpackLocal(operand), unpackIncrement(operand));
+        case Insn.IFEQ:
+        case Insn.IFNE:
+        case Insn.IF_CMPLT:
+        case Insn.IF_CMPGT:
+        case Insn.IF_CMPGE:
+        case Insn.IF_CMPLE:
+        case Insn.IF_CMPEQ:
+        case Insn.IF_CMPNE:
+        case Insn.GOTO:
+            return new JumpInsn(op, operand);
+        case Insn.SWITCH:
+            return new SwitchInsn(op, (Map<Integer, Integer>) constant, operand);
+        default:
+            return new OpInsn(op);
+        }
+    }
+
+    /**
+     * Packs the local index and increment of an IINC instruction into a
+     * single operand.
+     */
+    public static int packIncrement(int local, int increment) {
+        return (local << 16) | (increment & 0xFFFF);
+    }
+
+    public static int unpackLocal(int operand) {
+        return operand >>> 16;
+    }
+
+    public static int unpackIncrement(int operand) {
+        return (short) operand;
+    }
+
+    /**
+     * Creates a member reference for the given owner, name and descriptor.
+     */
+    public static <T extends MemberRefEntry> T memberRef(T ref, String owner, String name, String desc) {
+        ref.cls = owner;
+        ref.name = name;
+        ref.type = desc;
+        return ref;
+    }
+
     @Override
     public String toString() {
         StringBuilder str = new StringBuilder();
-        for (Insn insn : this.instructions) {
-            str.append(" ").append(insn).append("\n");
+        for (int i = 0; i < this.size; i++) {
+            str.append(" ").append(get(i)).append("\n");
         }
         return str.toString();
     }
@@ -88,12 +341,12 @@ public class InsnBlock implements Iterable<Insn> {
 
         @Override
         public boolean hasNext() {
-            return InsnBlock.this.getInstructions().size() > this.index;
+            return InsnBlock.this.size > this.index;
         }
 
         @Override
         public Insn next() {
-            return InsnBlock.this.getInstructions().get(this.index++);
+            return InsnBlock.this.get(this.index++);
         }
 
     }
@@ -0,0 +1,187 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.decompiler.ir;
+
+import org.spongepowered.despector.decompiler.loader.ClassConstantPool.MemberRefEntry;
+
+import java.util.Map;
+
+/**
+ * A cursor over a range of an {@link InsnBlock} which reads the operands of
+ * each instruction directly from the flat form of the block.
+ *
+ * <pre>
+ * InsnCursor cursor = block.cursor();
+ * while (cursor.next()) {
+ *     switch (cursor.getOpcode()) {
+ *     ...
+ * </pre>
+ */
+public class InsnCursor {
+
+    private final InsnBlock block;
+    private final int start;
+    private final int end;
+    private int index;
+
+    InsnCursor(InsnBlock block, int start, int end) {
+        this.block = block;
+        this.start = start;
+        this.end = end;
+        this.index = start - 1;
+    }
+
+    /**
+     * Advances the cursor to the next instruction, returns false if there
+     * are no instructions left.
+     */
+    public boolean next() {
+        if (this.index + 1 >= this.end) {
+            this.index = this.end;
+            return false;
+        }
+        this.index++;
+        return true;
+    }
+
+    /**
+     * Moves the cursor to the given position, relative to the start of the
+     * range of this cursor.
+     */
+    public void seek(int position) {
+        this.index = this.start + position;
+    }
+
+    /**
+     * Gets the position of the current instruction relative to the start of
+     * the range of this cursor.
+     */
+    public int getPosition() {
+        return this.index - this.start;
+    }
+
+    /**
+     * Gets the number of instructions in the range of this cursor.
+     */
+    public int size() {
+        return this.end - this.start;
+    }
+
+    public int getOpcode() {
+        return this.block.getOpcode(this.index);
+    }
+
+    /**
+     * Gets if the current instruction is a conditional or unconditional jump.
+     */
+    public boolean isJump() {
+        int op = getOpcode();
+        return op >= Insn.IFEQ && op <= Insn.GOTO;
+    }
+
+    /**
+     * Gets the int value of an ICONST, the local index of a local load or
+     * store, or the dimension count of a MULTINEWARRAY.
+     */
+    public int getInt() {
+        return this.block.getOperand(this.index);
+    }
+
+    public long getLong() {
+        return (Long) this.block.getConstant(this.index);
+    }
+
+    public float getFloat() {
+        return Float.intBitsToFloat(this.block.getOperand(this.index));
+    }
+
+    public double getDouble() {
+        return (Double) this.block.getConstant(this.index);
+    }
+
+    /**
+     * Gets the value pushed by a PUSH instruction, may be null.
+     */
+    public Object getConstant() {
+        return this.block.getConstant(this.index);
+    }
+
+    /**
+     * Gets the target index of a jump, or the default target index of a
+     * switch.
+     */
+    public int getTarget() {
+        return this.block.getOperand(this.index);
+    }
+
+    @SuppressWarnings("unchecked")
+    public Map<Integer, Integer> getSwitchTargets() {
+        return (Map<Integer, Integer>) this.block.getConstant(this.index);
+    }
+
+    public int getLocal() {
+        int op = getOpcode();
+        if (op == Insn.IINC) {
+            return InsnBlock.unpackLocal(this.block.getOperand(this.index));
+        }
+        return this.block.getOperand(this.index);
+    }
+
+    public int getIncrement() {
+        return InsnBlock.unpackIncrement(this.block.getOperand(this.index));
+    }
+
+    /**
+     * Gets the type descriptor of a type instruction.
+     */
+    public String getType() {
+        return (String) this.block.getConstant(this.index);
+    }
+
+    /**
+     * Gets the owner of the member referenced by a field or method
+     * instruction.
+     */
+    public String getOwner() {
+        return ((MemberRefEntry) this.block.getConstant(this.index)).cls;
+    }
+
+    public String getName() {
+        return ((MemberRefEntry) this.block.getConstant(this.index)).name;
+    }
+
+    public String getDescription() {
+        return ((MemberRefEntry) this.block.getConstant(this.index)).type;
+    }
+
+    /**
+     * Gets the current instruction as an {@link Insn}, creating it if this is
+     * the first request for it.
+     */
+    public Insn getInsn() {
+        return this.block.get(this.index);
+    }
+
+}
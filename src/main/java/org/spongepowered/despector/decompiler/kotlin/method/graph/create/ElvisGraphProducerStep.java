@@ -58,7 +58,7 @@ public class ElvisGraphProducerStep implements GraphProducerStep {
         if (ops.size() == 0) {
             return;
         }
-        int last = ops.get(0).getOpcode();
+        int last = ops.getOpcode(0);
         for (int i = 1; i < ops.size(); i++) {
             // an elvis statement when compiled will look something like:
             //
@@ -76,7 +76,7 @@ public class ElvisGraphProducerStep implements GraphProducerStep {
             //
             // Sometimes with the condition inverted and the else case placed
             // before the GOTO
-            int next = ops.get(i).getOpcode();
+            int next = ops.getOpcode(i);
             if (last == Insn.DUP && ((next >= Insn.IFEQ && next <= Insn.IF_CMPNE))) {
                 // Hello elvis
                 int o = i;
@@ -42,6 +42,7 @@ import org.spongepowered.despector.decompiler.method.graph.data.opcode.OpcodeBlo
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.ProcessedOpcodeBlock;
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.TryCatchMarkerOpcodeBlock;
 import org.spongepowered.despector.util.AstUtil;
+import org.spongepowered.despector.util.condition.ConditionSimplifier;
 
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -71,13 +72,13 @@ public class KotlinTernaryPrePassOperation implements GraphOperation {
         }
         for (int i = 0; i < blocks.size(); i++) {
             OpcodeBlock block = blocks.get(i);
-            if (!block.isOmittedFromTernaryCheck() && AstUtil.hasStartingRequirement(block.getOpcodes())) {
-                i -= compileTernary(blocks, i, partial.getLocals());
+            if (!block.isOmittedFromTernaryCheck() && AstUtil.hasStartingRequirement(block.cursor())) {
+                i -= compileTernary(blocks, i, partial.getLocals(), partial.getDecompiler().getConditionSimplifier());
             }
         }
     }
 
-    private static int compileTernary(List<OpcodeBlock> blocks, int end, Locals locals) {
+    private static int compileTernary(List<OpcodeBlock> blocks, int end, Locals locals, ConditionSimplifier simplifier) {
         if (end < 4) {
             return 0;
         }
@@ -140,7 +141,7 @@ public class KotlinTernaryPrePassOperation implements GraphOperation {
                 seen.add(next);
                 condition_blocks.add(0, (ConditionalOpcodeBlock) next);
             }
-            Condition cond = ConditionBuilder.makeCondition(condition_blocks, locals, first_false, first_true);
+            Condition cond = ConditionBuilder.makeCondition(condition_blocks, locals, first_false, first_true, simplifier);
             WhenBlock next_when = new WhenBlock(cond);
             next_when.getBody().addAll(false_blocks);
             first = condition_blocks.get(0);
@@ -182,7 +183,7 @@ public class KotlinTernaryPrePassOperation implements GraphOperation {
             TernaryBlockSection ternary = new TernaryBlockSection(conditions.get(0).getCondition());
             if (true_blocks.size() > 1) {
                 true_blocks.add(consumer);
-                compileTernary(true_blocks, true_blocks.size() - 1, locals);
+                compileTernary(true_blocks, true_blocks.size() - 1, locals, simplifier);
                 true_blocks.remove(consumer);
             }
             for (OpcodeBlock t : true_blocks) {
@@ -196,7 +197,7 @@ public class KotlinTernaryPrePassOperation implements GraphOperation {
             List<OpcodeBlock> false_blocks = conditions.get(0).getBody();
             if (false_blocks.size() > 1) {
                 false_blocks.add(consumer);
-                compileTernary(false_blocks, false_blocks.size() - 1, locals);
+                compileTernary(false_blocks, false_blocks.size() - 1, locals, simplifier);
                 false_blocks.remove(consumer);
             }
             for (OpcodeBlock t : false_blocks) {
@@ -24,299 +24,434 @@
  */
 package org.spongepowered.despector.decompiler.loader;
 
-import com.google.common.base.Charsets;
 import org.spongepowered.despector.decompiler.error.SourceFormatException;
 
 import java.io.DataInputStream;
 import java.io.IOException;
-
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The constant pool of a class. Loading the pool only records the offset of
+ * each entry, entries are decoded from the pool bytes when first requested.
+ *
+ * <p>Once loaded a pool may be read from several threads at once. Two threads
+ * decoding the same entry at once both decode it but only the first result is
+ * kept.</p>
+ */
 public class ClassConstantPool {
 
     private static final boolean DUMP_CONSTANT_POOL = Boolean.getBoolean("despect.debug.jvm.dump_constant_pool");
+    private static final EntryType[] ENTRY_TYPES = EntryType.values();
 
-    private Entry[] values;
+    private byte[] data;
+    private int[] offsets;
+    private byte[] tags;
+    private AtomicReferenceArray<Entry> values;
 
     public ClassConstantPool() {
     }
 
+    /**
+     * Loads the constant pool from the given stream. The entries are copied
+     * into a buffer owned by this pool.
+     */
     public void load(DataInputStream data) throws IOException {
         int entry_count = data.readUnsignedShort();
+        init(entry_count);
 
-        this.values = new Entry[entry_count - 1];
-
+        byte[] bytes = new byte[Math.max(64, entry_count * 8)];
+        int size = 0;
         for (int i = 0; i < entry_count - 1; i++) {
             int tag = data.readUnsignedByte();
-            EntryType type = EntryType.values()[tag];
-            switch (type) {
-            case UTF8: {
-                Utf8Entry u = new Utf8Entry();
-                int len = data.readUnsignedShort();
-                byte[] bytes = new byte[len];
-                data.read(bytes, 0, len);
-                u.value = new String(bytes, Charsets.UTF_8);
-                this.values[i] = u;
-                if (DUMP_CONSTANT_POOL) {
-                    System.out.println(i + ": Utf8 " + u.value);
+            int len;
+            int prefix = 0;
+            if (tag == EntryType.UTF8.ordinal()) {
+                int utf_len = data.readUnsignedShort();
+                prefix = 2;
+                len = utf_len;
+                if (bytes.length < size + 2 + len) {
+                    bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + 2 + len));
                 }
-                break;
-            }
-            case INTEGER: {
-                IntEntry c = new IntEntry();
-                c.value = data.readInt();
-                this.values[i] = c;
-                if (DUMP_CONSTANT_POOL) {
-                    System.out.println(i + ": Int " + c.value);
-                }
-                break;
-            }
-            case FLOAT: {
-                FloatEntry c = new FloatEntry();
-                c.value = data.readFloat();
-                this.values[i] = c;
-                if (DUMP_CONSTANT_POOL) {
-                    System.out.println(i + ": Float " + c.value);
-                }
-                break;
-            }
-            case LONG: {
-                LongEntry c = new LongEntry();
-                long l = ((long) data.readInt() << 32);
-                l |= data.readInt();
-                c.value = l;
-                this.values[i] = c;
-                if (DUMP_CONSTANT_POOL) {
-                    System.out.println(i + ": Long " + c.value);
-                }
-                break;
-            }
-            case DOUBLE: {
-                DoubleEntry c = new DoubleEntry();
-                long l = ((long) data.readInt() << 32);
-                l |= data.readInt();
-                c.value = Double.longBitsToDouble(l);
-                this.values[i] = c;
-                if (DUMP_CONSTANT_POOL) {
-                    System.out.println(i + ": Double " + c.value);
-                }
-                break;
-            }
-            case CLASS: {
-                ClassEntry e = new ClassEntry();
-                e.name_index = data.readUnsignedShort();
-                this.values[i] = e;
-                if (DUMP_CONSTANT_POOL) {
-                    System.out.println(i + ": Class " + e.name_index);
-                }
-                break;
-            }
-            case STRING: {
-                StringEntry e = new StringEntry();
-                e.value_index = data.readUnsignedShort();
-                this.values[i] = e;
-                if (DUMP_CONSTANT_POOL) {
-                    System.out.println(i + ": String " + e.value_index);
-                }
-                break;
-            }
-            case FIELD_REF: {
-                FieldRefEntry f = new FieldRefEntry();
-                f.class_index = data.readUnsignedShort();
-                f.name_and_type_index = data.readUnsignedShort();
-                this.values[i] = f;
-                if (DUMP_CONSTANT_POOL) {
-                    System.out.println(i + ": FieldRef " + f.class_index + " " + f.name_and_type_index);
-                }
-                break;
-            }
-            case METHOD_REF: {
-                MethodRefEntry f = new MethodRefEntry();
-                f.class_index = data.readUnsignedShort();
-                f.name_and_type_index = data.readUnsignedShort();
-                this.values[i] = f;
-                if (DUMP_CONSTANT_POOL) {
-                    System.out.println(i + ": MethodRef " + f.class_index + " " + f.name_and_type_index);
-                }
-                break;
-            }
-            case INTERFACE_METHOD_REF: {
-                MethodRefEntry f = new MethodRefEntry();
-                f.class_index = data.readUnsignedShort();
-                f.name_and_type_index = data.readUnsignedShort();
-                this.values[i] = f;
-                if (DUMP_CONSTANT_POOL) {
-                    System.out.println(i + ": InterfaceMethodRef " + f.class_index + " " + f.name_and_type_index);
-                }
-                break;
-            }
-            case NAME_AND_TYPE: {
-                NameAndTypeEntry n = new NameAndTypeEntry();
-                n.name_index = data.readUnsignedShort();
-                n.type_index = data.readUnsignedShort();
-                this.values[i] = n;
-                if (DUMP_CONSTANT_POOL) {
-                    System.out.println(i + ": NameAndType " + n.name_index + " " + n.type_index);
-                }
-                break;
-            }
-            case METHOD_HANDLE: {
-                MethodHandleEntry h = new MethodHandleEntry();
-                h.kind = data.readByte();
-                h.reference_index = data.readUnsignedShort();
-                this.values[i] = h;
-                if (DUMP_CONSTANT_POOL) {
-                    System.out.println(i + ": MethodHandle " + h.kind + " " + h.reference_index);
+                bytes[size] = (byte) (utf_len >> 8);
+                bytes[size + 1] = (byte) utf_len;
+            } else {
+                len = payloadLength(tag);
+                if (bytes.length < size + len) {
+                    bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + len));
                 }
-                break;
             }
-            case METHOD_TYPE: {
-                MethodTypeEntry t = new MethodTypeEntry();
-                t.desc_index = data.readUnsignedShort();
-                this.values[i] = t;
-                if (DUMP_CONSTANT_POOL) {
-                    System.out.println(i + ": MethodType " + t.desc_index);
-                }
-                break;
-            }
-            case INVOKE_DYNAMIC: {
-                InvokeDynamicEntry d = new InvokeDynamicEntry();
-                d.bootstrap_index = data.readUnsignedShort();
-                d.name_and_type_index = data.readUnsignedShort();
-                this.values[i] = d;
-                if (DUMP_CONSTANT_POOL) {
-                    System.out.println(i + ": InvokeDynamic " + d.bootstrap_index + " " + d.name_and_type_index);
-                }
-                break;
-            }
-            default:
-                throw new SourceFormatException("Illegal tag in constant pool");
-            }
-            this.values[i].type = type;
-            if (type == EntryType.LONG || type == EntryType.DOUBLE) {
+            data.readFully(bytes, size + prefix, len);
+            this.tags[i] = (byte) tag;
+            this.offsets[i] = size;
+            size += prefix + len;
+            if (tag == EntryType.LONG.ordinal() || tag == EntryType.DOUBLE.ordinal()) {
                 i++;
             }
         }
+        this.data = bytes;
+        if (DUMP_CONSTANT_POOL) {
+            dump();
+        }
+    }
 
-        // bake references
+    /**
+     * Loads the constant pool starting at the given offset of the class
+     * bytes, without copying them. Returns the offset of the first byte
+     * after the constant pool.
+     *
+     * @throws SourceFormatException If the class bytes end within the pool
+     */
+    public int load(byte[] data, int offset) {
+        require(data, offset, 2);
+        int entry_count = ((data[offset] & 0xFF) << 8) | (data[offset + 1] & 0xFF);
+        offset += 2;
+        init(entry_count);
         for (int i = 0; i < entry_count - 1; i++) {
-            Entry e = this.values[i];
-            if (e == null) {
-                continue;
+            require(data, offset, 1);
+            int tag = data[offset++] & 0xFF;
+            this.tags[i] = (byte) tag;
+            this.offsets[i] = offset;
+            if (tag == EntryType.UTF8.ordinal()) {
+                require(data, offset, 2);
+                offset += 2 + (((data[offset] & 0xFF) << 8) | (data[offset + 1] & 0xFF));
+            } else {
+                offset += payloadLength(tag);
             }
-            switch (e.type) {
-            case UTF8:
-            case INTEGER:
-            case FLOAT:
-                break;
-            case LONG:
-            case DOUBLE:
+            // the entry is only decoded when requested so the whole entry
+            // must be within the class bytes
+            require(data, offset, 0);
+            if (tag == EntryType.LONG.ordinal() || tag == EntryType.DOUBLE.ordinal()) {
                 i++;
-                break;
-            case CLASS: {
-                ClassEntry c = (ClassEntry) e;
-                c.name = getUtf8(c.name_index);
-                break;
-            }
-            case STRING: {
-                StringEntry c = (StringEntry) e;
-                c.value = getUtf8(c.value_index);
-                break;
-            }
-            case FIELD_REF: {
-                FieldRefEntry f = (FieldRefEntry) e;
-                f.cls = getUtf8(getClass(f.class_index).name_index);
-                f.name = getUtf8(getNameAndType(f.name_and_type_index).name_index);
-                f.type = getUtf8(getNameAndType(f.name_and_type_index).type_index);
-                break;
-            }
-            case METHOD_REF: {
-                MethodRefEntry f = (MethodRefEntry) e;
-                f.cls = getUtf8(getClass(f.class_index).name_index);
-                f.name = getUtf8(getNameAndType(f.name_and_type_index).name_index);
-                f.type = getUtf8(getNameAndType(f.name_and_type_index).type_index);
-                break;
-            }
-            case INTERFACE_METHOD_REF: {
-                MethodRefEntry f = (MethodRefEntry) e;
-                f.cls = getUtf8(getClass(f.class_index).name_index);
-                f.name = getUtf8(getNameAndType(f.name_and_type_index).name_index);
-                f.type = getUtf8(getNameAndType(f.name_and_type_index).type_index);
-                break;
             }
-            case NAME_AND_TYPE: {
-                NameAndTypeEntry n = (NameAndTypeEntry) e;
-                n.name = getUtf8(n.name_index);
-                n.type = getUtf8(n.type_index);
-                break;
+        }
+        this.data = data;
+        if (DUMP_CONSTANT_POOL) {
+            dump();
+        }
+        return offset;
+    }
+
+    private static void require(byte[] data, int offset, int length) {
+        if (offset + length > data.length) {
+            throw new SourceFormatException("Unexpected end of class file");
+        }
+    }
+
+    private void init(int entry_count) {
+        if (entry_count == 0) {
+            throw new SourceFormatException("Illegal constant pool size");
+        }
+        this.values = new AtomicReferenceArray<>(entry_count - 1);
+        this.offsets = new int[entry_count - 1];
+        this.tags = new byte[entry_count - 1];
+    }
+
+    private static int payloadLength(int tag) {
+        if (tag >= ENTRY_TYPES.length) {
+            throw new SourceFormatException("Illegal tag in constant pool");
+        }
+        switch (ENTRY_TYPES[tag]) {
+        case CLASS:
+        case STRING:
+        case METHOD_TYPE:
+            return 2;
+        case METHOD_HANDLE:
+            return 3;
+        case INTEGER:
+        case FLOAT:
+        case FIELD_REF:
+        case METHOD_REF:
+        case INTERFACE_METHOD_REF:
+        case NAME_AND_TYPE:
+        case INVOKE_DYNAMIC:
+            return 4;
+        case LONG:
+        case DOUBLE:
+            return 8;
+        default:
+            throw new SourceFormatException("Illegal tag in constant pool");
+        }
+    }
+
+    private void dump() {
+        for (int i = 0; i < this.values.length(); i++) {
+            if (this.tags[i] == 0) {
+                continue;
             }
-            case METHOD_HANDLE:
-                break;
-            case METHOD_TYPE: {
-                MethodTypeEntry t = (MethodTypeEntry) e;
-                t.desc = getUtf8(t.desc_index);
-                break;
+            Entry e = getEntry(i + 1);
+            System.out.println(i + ": " + e.type + " " + describe(e));
+        }
+    }
+
+    private static String describe(Entry e) {
+        if (e instanceof Utf8Entry) {
+            return ((Utf8Entry) e).value;
+        } else if (e instanceof IntEntry) {
+            return String.valueOf(((IntEntry) e).value);
+        } else if (e instanceof FloatEntry) {
+            return String.valueOf(((FloatEntry) e).value);
+        } else if (e instanceof LongEntry) {
+            return String.valueOf(((LongEntry) e).value);
+        } else if (e instanceof DoubleEntry) {
+            return String.valueOf(((DoubleEntry) e).value);
+        } else if (e instanceof ClassEntry) {
+            return String.valueOf(((ClassEntry) e).name_index);
+        } else if (e instanceof StringEntry) {
+            return String.valueOf(((StringEntry) e).value_index);
+        } else if (e instanceof MemberRefEntry) {
+            return ((MemberRefEntry) e).class_index + " " + ((MemberRefEntry) e).name_and_type_index;
+        } else if (e instanceof NameAndTypeEntry) {
+            return ((NameAndTypeEntry) e).name_index + " " + ((NameAndTypeEntry) e).type_index;
+        } else if (e instanceof MethodHandleEntry) {
+            return ((MethodHandleEntry) e).kind + " " + ((MethodHandleEntry) e).reference_index;
+        } else if (e instanceof MethodTypeEntry) {
+            return String.valueOf(((MethodTypeEntry) e).desc_index);
+        } else if (e instanceof InvokeDynamicEntry) {
+            return ((InvokeDynamicEntry) e).bootstrap_index + " " + ((InvokeDynamicEntry) e).name_and_type_index;
+        }
+        return "";
+    }
+
+    private int readUnsignedShort(int offset) {
+        return ((this.data[offset] & 0xFF) << 8) | (this.data[offset + 1] & 0xFF);
+    }
+
+    private int readInt(int offset) {
+        return ((this.data[offset] & 0xFF) << 24) | ((this.data[offset + 1] & 0xFF) << 16) | ((this.data[offset + 2] & 0xFF) << 8)
+                | (this.data[offset + 3] & 0xFF);
+    }
+
+    private long readLong(int offset) {
+        return ((long) readInt(offset) << 32) | (readInt(offset + 4) & 0xFFFFFFFFL);
+    }
+
+    private Entry decode(int i) {
+        int offset = this.offsets[i];
+        EntryType type = ENTRY_TYPES[this.tags[i]];
+        Entry entry;
+        switch (type) {
+        case UTF8: {
+            Utf8Entry u = new Utf8Entry();
+            u.value = decodeUtf8(this.data, offset + 2, readUnsignedShort(offset));
+            entry = u;
+            break;
+        }
+        case INTEGER: {
+            IntEntry c = new IntEntry();
+            c.value = readInt(offset);
+            entry = c;
+            break;
+        }
+        case FLOAT: {
+            FloatEntry c = new FloatEntry();
+            c.value = Float.intBitsToFloat(readInt(offset));
+            entry = c;
+            break;
+        }
+        case LONG: {
+            LongEntry c = new LongEntry();
+            c.value = readLong(offset);
+            entry = c;
+            break;
+        }
+        case DOUBLE: {
+            DoubleEntry c = new DoubleEntry();
+            c.value = Double.longBitsToDouble(readLong(offset));
+            entry = c;
+            break;
+        }
+        case CLASS: {
+            ClassEntry e = new ClassEntry();
+            e.name_index = readUnsignedShort(offset);
+            e.name = getUtf8(e.name_index);
+            entry = e;
+            break;
+        }
+        case STRING: {
+            StringEntry e = new StringEntry();
+            e.value_index = readUnsignedShort(offset);
+            e.value = getUtf8(e.value_index);
+            entry = e;
+            break;
+        }
+        case FIELD_REF:
+            entry = decodeMemberRef(new FieldRefEntry(), offset);
+            break;
+        case METHOD_REF:
+        case INTERFACE_METHOD_REF:
+            entry = decodeMemberRef(new MethodRefEntry(), offset);
+            break;
+        case NAME_AND_TYPE: {
+            NameAndTypeEntry n = new NameAndTypeEntry();
+            n.name_index = readUnsignedShort(offset);
+            n.type_index = readUnsignedShort(offset + 2);
+            n.name = getUtf8(n.name_index);
+            n.type = getUtf8(n.type_index);
+            entry = n;
+            break;
+        }
+        case METHOD_HANDLE: {
+            MethodHandleEntry h = new MethodHandleEntry();
+            h.kind = this.data[offset];
+            h.reference_index = readUnsignedShort(offset + 1);
+            entry = h;
+            break;
+        }
+        case METHOD_TYPE: {
+            MethodTypeEntry t = new MethodTypeEntry();
+            t.desc_index = readUnsignedShort(offset);
+            t.desc = getUtf8(t.desc_index);
+            entry = t;
+            break;
+        }
+        case INVOKE_DYNAMIC: {
+            InvokeDynamicEntry d = new InvokeDynamicEntry();
+            d.bootstrap_index = readUnsignedShort(offset);
+            d.name_and_type_index = readUnsignedShort(offset + 2);
+            NameAndTypeEntry n = getNameAndType(d.name_and_type_index);
+            d.name = n.name;
+            d.type = n.type;
+            entry = d;
+            break;
+        }
+        default:
+            throw new SourceFormatException("Illegal tag in constant pool");
+        }
+        entry.type = type;
+        if (!this.values.compareAndSet(i, null, entry)) {
+            return this.values.get(i);
+        }
+        return entry;
+    }
+
+    private MemberRefEntry decodeMemberRef(MemberRefEntry f, int offset) {
+        f.class_index = readUnsignedShort(offset);
+        f.name_and_type_index = readUnsignedShort(offset + 2);
+        f.cls = getClass(f.class_index).name;
+        NameAndTypeEntry n = getNameAndType(f.name_and_type_index);
+        f.name = n.name;
+        f.type = n.type;
+        return f;
+    }
+
+    /**
+     * Decodes a modified utf8 string, strings which are entirely ascii are
+     * copied directly without decoding.
+     */
+    @SuppressWarnings("deprecation")
+    public static String decodeUtf8(byte[] data, int offset, int len) {
+        int end = offset + len;
+        int i = offset;
+        while (i < end && data[i] >= 0) {
+            i++;
+        }
+        if (i == end) {
+            return new String(data, 0, offset, len);
+        }
+        char[] chars = new char[len];
+        int count = 0;
+        for (int k = offset; k < i; k++) {
+            chars[count++] = (char) data[k];
+        }
+        while (i < end) {
+            int a = data[i++] & 0xFF;
+            if (a < 0x80) {
+                chars[count++] = (char) a;
+            } else if ((a & 0xE0) == 0xC0) {
+                if (i >= end) {
+                    throw new SourceFormatException("Malformed utf8 constant");
+                }
+                int b = data[i++] & 0x3F;
+                chars[count++] = (char) (((a & 0x1F) << 6) | b);
+            } else if ((a & 0xF0) == 0xE0) {
+                if (i + 1 >= end) {
+                    throw new SourceFormatException("Malformed utf8 constant");
+                }
+                int b = data[i++] & 0x3F;
+                int c = data[i++] & 0x3F;
+                chars[count++] = (char) (((a & 0x0F) << 12) | (b << 6) | c);
+            } else {
+                throw new SourceFormatException("Malformed utf8 constant");
             }
-            case INVOKE_DYNAMIC: {
-                InvokeDynamicEntry f = (InvokeDynamicEntry) e;
-                f.name = getUtf8(getNameAndType(f.name_and_type_index).name_index);
-                f.type = getUtf8(getNameAndType(f.name_and_type_index).type_index);
-                break;
+        }
+        return new String(chars, 0, count);
+    }
+
+    /**
+     * Gets the methods referenced by the method handles in this pool.
+     */
+    public List<MethodRefEntry> getMethodHandleTargets() {
+        List<MethodRefEntry> targets = new ArrayList<>();
+        for (int i = 0; i < this.tags.length; i++) {
+            if (this.tags[i] != EntryType.METHOD_HANDLE.ordinal()) {
+                continue;
             }
-            default:
-                throw new SourceFormatException("Illegal tag in constant pool");
+            MethodHandleEntry handle = getMethodHandle(i + 1);
+            // kinds 5 to 9 are invocations, the lower kinds access fields
+            if (handle.kind >= 5 && handle.kind <= 9) {
+                targets.add(getMethodRef(handle.reference_index));
             }
         }
+        return targets;
     }
 
     public Entry getEntry(int index) {
-        return this.values[index - 1];
+        Entry e = this.values.get(index - 1);
+        if (e == null) {
+            e = decode(index - 1);
+        }
+        return e;
     }
 
     public String getUtf8(int index) {
-        return ((Utf8Entry) this.values[index - 1]).value;
+        return ((Utf8Entry) getEntry(index)).value;
     }
 
     public int getInt(int index) {
-        return ((IntEntry) this.values[index - 1]).value;
+        return ((IntEntry) getEntry(index)).value;
     }
 
     public float getFloat(int index) {
-        return ((FloatEntry) this.values[index - 1]).value;
+        return ((FloatEntry) getEntry(index)).value;
     }
 
     public long getLong(int index) {
-        return ((LongEntry) this.values[index - 1]).value;
+        return ((LongEntry) getEntry(index)).value;
     }
 
     public double getDouble(int index) {
-        return ((DoubleEntry) this.values[index - 1]).value;
+        return ((DoubleEntry) getEntry(index)).value;
     }
 
     public ClassEntry getClass(int index) {
-        return (ClassEntry) this.values[index - 1];
+        return (ClassEntry) getEntry(index);
     }
 
     public NameAndTypeEntry getNameAndType(int index) {
-        return (NameAndTypeEntry) this.values[index - 1];
+        return (NameAndTypeEntry) getEntry(index);
     }
 
     public FieldRefEntry getFieldRef(int index) {
-        return (FieldRefEntry) this.values[index - 1];
+        return (FieldRefEntry) getEntry(index);
     }
 
     public MethodRefEntry getMethodRef(int index) {
-        return (MethodRefEntry) this.values[index - 1];
+        return (MethodRefEntry) getEntry(index);
     }
 
     public MethodRefEntry getInterfaceMethodRef(int index) {
-        return (MethodRefEntry) this.values[index - 1];
+        return (MethodRefEntry) getEntry(index);
     }
 
     public MethodHandleEntry getMethodHandle(int index) {
-        return (MethodHandleEntry) this.values[index - 1];
+        return (MethodHandleEntry) getEntry(index);
     }
 
     public InvokeDynamicEntry getInvokeDynamic(int index) {
-        return (InvokeDynamicEntry) this.values[index - 1];
+        return (InvokeDynamicEntry) getEntry(index);
     }
 
     public static abstract class Entry {
@@ -370,7 +505,7 @@ public class ClassConstantPool {
         public String type;
     }
 
-    public static class FieldRefEntry extends Entry {
+    public static abstract class MemberRefEntry extends Entry {
 
         public int class_index;
         public int name_and_type_index;
@@ -380,14 +515,12 @@ public class ClassConstantPool {
         public String type;
     }
 
-    public static class MethodRefEntry extends Entry {
+    public static class FieldRefEntry extends MemberRefEntry {
 
-        public int class_index;
-        public int name_and_type_index;
+    }
+
+    public static class MethodRefEntry extends MemberRefEntry {
 
-        public String cls;
-        public String name;
-        public String type;
     }
 
     public static class MethodHandleEntry extends Entry {
@@ -0,0 +1,113 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.decompiler.loader;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import org.spongepowered.despector.decompiler.error.SourceFormatException;
+
+import java.util.Arrays;
+
+/**
+ * A cursor over the bytes of a class file. The whole class is held in memory
+ * so reads can never return short and skipping an attribute only moves the
+ * cursor.
+ */
+public class ClassFileReader {
+
+    private final byte[] data;
+    private int offset;
+
+    public ClassFileReader(byte[] data) {
+        this.data = checkNotNull(data, "data");
+    }
+
+    /**
+     * Gets the bytes of the class file.
+     */
+    public byte[] getData() {
+        return this.data;
+    }
+
+    /**
+     * Gets the offset of the next byte to be read.
+     */
+    public int getOffset() {
+        return this.offset;
+    }
+
+    /**
+     * Sets the offset of the next byte to be read.
+     */
+    public void setOffset(int offset) {
+        if (offset < 0 || offset > this.data.length) {
+            throw new SourceFormatException("Unexpected end of class file");
+        }
+        this.offset = offset;
+    }
+
+    private int advance(int len) {
+        int start = this.offset;
+        if (len < 0 || len > this.data.length - start) {
+            throw new SourceFormatException("Unexpected end of class file");
+        }
+        this.offset = start + len;
+        return start;
+    }
+
+    public int readUnsignedByte() {
+        return this.data[advance(1)] & 0xFF;
+    }
+
+    public int readUnsignedShort() {
+        int i = advance(2);
+        return ((this.data[i] & 0xFF) << 8) | (this.data[i + 1] & 0xFF);
+    }
+
+    public short readShort() {
+        return (short) readUnsignedShort();
+    }
+
+    public int readInt() {
+        int i = advance(4);
+        return ((this.data[i] & 0xFF) << 24) | ((this.data[i + 1] & 0xFF) << 16) | ((this.data[i + 2] & 0xFF) << 8) | (this.data[i + 3] & 0xFF);
+    }
+
+    /**
+     * Reads a copy of the next given number of bytes.
+     */
+    public byte[] readBytes(int len) {
+        int start = advance(len);
+        return Arrays.copyOfRange(this.data, start, start + len);
+    }
+
+    /**
+     * Skips over the next given number of bytes.
+     */
+    public void skip(int len) {
+        advance(len);
+    }
+
+}
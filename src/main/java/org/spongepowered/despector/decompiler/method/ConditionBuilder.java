@@ -40,17 +40,31 @@ import org.spongepowered.despector.decompiler.ir.Insn;
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.ConditionalOpcodeBlock;
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.OpcodeBlock;
 import org.spongepowered.despector.util.ConditionUtil;
+import org.spongepowered.despector.util.condition.ConditionSimplifier;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Deque;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * A utility for forming a condition a set of conditional jumps.
  */
 public final class ConditionBuilder {
 
+    /**
+     * The target index representing the body of the condition.
+     */
+    public static final int BODY = -1;
+    /**
+     * The target index representing the block reached when the condition is
+     * false.
+     */
+    public static final int RET = -2;
+
     /**
      * Creates a simple condition from the given {@link ConditionalOpcodeBlock}.
      */
@@ -107,140 +121,208 @@ public final class ConditionBuilder {
         }
     }
 
-    private static void dfs(ConditionGraphNode next, Deque<Condition> stack) {
-
-        // performs a depth-first-search to populate each node in the graph's
-        // partial conditions
-
-        if (!stack.isEmpty()) {
-            // Add the condition up to this point to the partial conditions of
-            // this node. This represents a path from the root to this node and
-            // the condition of that path is the and of all simple conditions of
-            // the nodes along the path
-            if (stack.size() == 1) {
-                next.addPartialCondition(stack.peek());
-            } else {
-                Condition partial = new AndCondition(stack);
-                next.addPartialCondition(partial);
-            }
-        }
-        if (next.getSimpleCondition() == null) {
-            return;
-        }
-        // Push the simple condition of this node to the stack and recurse into
-        // the target branch
-        stack.addLast(next.getSimpleCondition());
-        dfs(next.getTarget(), stack);
-        stack.pollLast();
-        // Same thing for the else_target except we push the inverse of this
-        // node's condition
-        stack.addLast(inverse(next.getSimpleCondition()));
-        dfs(next.getElseTarget(), stack);
-        stack.pollLast();
-    }
-
     /**
-     * Converts the given set of {@link OpcodeBlock}s to a condition.
+     * Converts the given set of {@link OpcodeBlock}s to a condition, using
+     * the given simplifier where the condition is not a plain short circuit
+     * expression.
      */
-    public static Condition makeCondition(List<ConditionalOpcodeBlock> blocks, Locals locals, OpcodeBlock body, OpcodeBlock ret) {
-        List<ConditionGraphNode> nodes = new ArrayList<>(blocks.size());
-
-        ConditionGraphNode body_node = new ConditionGraphNode(null);
-        ConditionGraphNode ret_node = new ConditionGraphNode(null);
-
-        // Forms a condition from a set of conditional jumps. This is done by
-        // performing a depth first search of the nodes which form the
-        // condition. Each path through the graph from root to the start of the
-        // body is found and combined with OR to form a very much expanded
-        // version of the condition for this block. This is then simplified
-        // before being returned.
-
+    public static Condition makeCondition(List<ConditionalOpcodeBlock> blocks, Locals locals, OpcodeBlock body, OpcodeBlock ret,
+            ConditionSimplifier simplifier) {
+        List<Condition> conditions = new ArrayList<>(blocks.size());
+        int[] targets = new int[blocks.size()];
+        int[] else_targets = new int[blocks.size()];
+        Map<OpcodeBlock, Integer> indices = new IdentityHashMap<>();
         for (int i = 0; i < blocks.size(); i++) {
-            OpcodeBlock next = blocks.get(i);
-            // make the nodes and compute the simple condition for each node.
-            nodes.add(new ConditionGraphNode(makeSimpleCondition((ConditionalOpcodeBlock) next, locals)));
+            indices.put(blocks.get(i), i);
         }
 
         for (int i = 0; i < blocks.size(); i++) {
             ConditionalOpcodeBlock next = blocks.get(i);
-            ConditionGraphNode node = nodes.get(i);
-            // connect the nodes
-            if (next.getTarget() == body) {
-                node.setTarget(body_node);
-            } else if (next.getTarget() == ret) {
-                node.setTarget(ret_node);
-            } else {
-                int target = blocks.indexOf(next.getTarget());
-                if (target == -1) {
-                    throw new IllegalStateException("Condition target was unknown block " + next.getTarget().getStart());
-                }
-                node.setTarget(nodes.get(target));
-            }
-            if (next.getElseTarget() == body) {
-                node.setElseTarget(body_node);
-            } else if (next.getElseTarget() == ret) {
-                node.setElseTarget(ret_node);
-            } else {
-                int target = blocks.indexOf(next.getElseTarget());
-                node.setElseTarget(nodes.get(target));
-            }
+            // compute the simple condition for each jump and number its
+            // targets
+            conditions.add(makeSimpleCondition(next, locals));
+            targets[i] = indexOf(next.getTarget(), indices, body, ret);
+            else_targets[i] = indexOf(next.getElseTarget(), indices, body, ret);
         }
 
-        ConditionGraphNode start = nodes.get(0);
-
-        // perform the dfs
-        Deque<Condition> stack = new ArrayDeque<>();
-        dfs(start, stack);
-
-        OrCondition condition = new OrCondition(body_node.getPartialConditions());
-        return ConditionUtil.simplifyCondition(condition);
+        return makeCondition(conditions, targets, else_targets, simplifier);
     }
 
-    private ConditionBuilder() {
+    private static int indexOf(OpcodeBlock target, Map<OpcodeBlock, Integer> indices, OpcodeBlock body, OpcodeBlock ret) {
+        if (target == body) {
+            return BODY;
+        } else if (target == ret) {
+            return RET;
+        }
+        Integer index = indices.get(target);
+        if (index == null) {
+            throw new IllegalStateException("Condition target was unknown block " + target.getStart());
+        }
+        return index;
     }
 
     /**
-     * A node for converting a control flow graph to a condition.
+     * Forms the condition under which the body is reached from a graph of
+     * conditional jumps. The jump at index i is taken to {@code targets[i]}
+     * when {@code conditions.get(i)} is true and to {@code else_targets[i]}
+     * otherwise, where each target is either the index of another jump or one
+     * of {@link #BODY} and {@link #RET}. The first jump is the entry of the
+     * graph. The given simplifier is used where the graph is not a plain
+     * short circuit expression.
      */
-    private static class ConditionGraphNode {
+    public static Condition makeCondition(List<Condition> conditions, int[] targets, int[] else_targets, ConditionSimplifier simplifier) {
+        int size = conditions.size();
+        Condition[] condition = conditions.toArray(new Condition[size]);
+        int[] target = Arrays.copyOf(targets, size);
+        int[] else_target = Arrays.copyOf(else_targets, size);
+        boolean[] removed = new boolean[size];
+
+        // Rather than enumerating every path from the root to the body, which
+        // is exponential in the number of jumps, we collapse the graph in
+        // place. A jump whose successor is only reachable from it and which
+        // shares its other target with that successor is the short circuit
+        // form of an and or an or of the two conditions, so the pair is merged
+        // into a single jump. Each merge removes a node so this completes in
+        // quadratic time at worst and recovers the nesting of the source.
+
+        int[] predecessors = new int[size];
+        for (int i = 0; i < size; i++) {
+            addPredecessor(predecessors, target[i], else_target[i]);
+        }
+        int remaining = size;
+        boolean changed = true;
+        while (changed && remaining > 1) {
+            MethodTimeout.check();
+            changed = false;
+            // working backwards collapses the innermost expressions first
+            for (int x = size - 1; x >= 0; x--) {
+                if (removed[x]) {
+                    continue;
+                }
+                while (true) {
+                    int y = else_target[x];
+                    int shared;
+                    if (y >= 0 && predecessors[y] == 1 && target[x] == target[y]) {
+                        // x || y
+                        condition[x] = or(condition[x], condition[y]);
+                        shared = target[y];
+                    } else if (y >= 0 && predecessors[y] == 1 && target[x] == else_target[y]) {
+                        // !x && y
+                        condition[x] = and(inverse(condition[x]), condition[y]);
+                        shared = else_target[y];
+                    } else {
+                        y = target[x];
+                        if (y >= 0 && predecessors[y] == 1 && else_target[x] == else_target[y]) {
+                            // x && y
+                            condition[x] = and(condition[x], condition[y]);
+                            shared = else_target[y];
+                        } else if (y >= 0 && predecessors[y] == 1 && else_target[x] == target[y]) {
+                            // !x || y
+                            condition[x] = or(inverse(condition[x]), condition[y]);
+                            shared = target[y];
+                        } else {
+                            break;
+                        }
+                    }
+                    target[x] = target[y];
+                    else_target[x] = else_target[y];
+                    removed[y] = true;
+                    remaining--;
+                    // the shared target was reached from both x and y and is
+                    // now only reached from the merged node
+                    if (shared >= 0) {
+                        predecessors[shared]--;
+                    }
+                    changed = true;
+                }
+            }
+        }
 
-        private final Condition condition;
-        private final List<Condition> partial_conditions = new ArrayList<>();
+        if (remaining == 1) {
+            if (target[0] == BODY && else_target[0] == RET) {
+                return condition[0];
+            } else if (target[0] == RET && else_target[0] == BODY) {
+                return inverse(condition[0]);
+            }
+        }
 
-        private ConditionGraphNode target;
-        private ConditionGraphNode else_target;
+        // The remaining graph is not a plain short circuit expression (for
+        // example a ternary within the condition) so we expand it bottom up
+        // into an if-then-else form and simplify the result.
+        Condition[] expanded = new Condition[size];
+        return ConditionUtil.simplifyCondition(expand(0, condition, target, else_target, expanded), simplifier);
+    }
 
-        public ConditionGraphNode(Condition c) {
-            this.condition = c;
+    private static void addPredecessor(int[] predecessors, int target, int else_target) {
+        if (target >= 0) {
+            predecessors[target]++;
         }
-
-        public Condition getSimpleCondition() {
-            return this.condition;
+        if (else_target >= 0 && else_target != target) {
+            predecessors[else_target]++;
         }
+    }
 
-        public ConditionGraphNode getTarget() {
-            return this.target;
+    private static Condition expand(int node, Condition[] condition, int[] target, int[] else_target, Condition[] expanded) {
+        if (expanded[node] != null) {
+            return expanded[node];
         }
-
-        public void setTarget(ConditionGraphNode node) {
-            this.target = node;
+        MethodTimeout.check();
+        Condition c = condition[node];
+        int t = target[node];
+        int f = else_target[node];
+        Condition result;
+        if (t == BODY && f == BODY) {
+            result = or(c, inverse(c));
+        } else if (t == RET && f == RET) {
+            result = and(c, inverse(c));
+        } else if (t == BODY) {
+            result = f == RET ? c : or(c, expand(f, condition, target, else_target, expanded));
+        } else if (t == RET) {
+            result = f == BODY ? inverse(c) : and(inverse(c), expand(f, condition, target, else_target, expanded));
+        } else if (f == BODY) {
+            result = or(inverse(c), expand(t, condition, target, else_target, expanded));
+        } else if (f == RET) {
+            result = and(c, expand(t, condition, target, else_target, expanded));
+        } else {
+            Condition then = expand(t, condition, target, else_target, expanded);
+            Condition otherwise = expand(f, condition, target, else_target, expanded);
+            result = or(and(c, then), and(inverse(c), otherwise));
         }
+        expanded[node] = result;
+        return result;
+    }
 
-        public ConditionGraphNode getElseTarget() {
-            return this.else_target;
+    private static Condition or(Condition a, Condition b) {
+        List<Condition> operands = new ArrayList<>();
+        if (a instanceof OrCondition) {
+            operands.addAll(((OrCondition) a).getOperands());
+        } else {
+            operands.add(a);
         }
-
-        public void setElseTarget(ConditionGraphNode node) {
-            this.else_target = node;
+        if (b instanceof OrCondition) {
+            operands.addAll(((OrCondition) b).getOperands());
+        } else {
+            operands.add(b);
         }
+        return new OrCondition(operands);
+    }
 
-        public List<Condition> getPartialConditions() {
-            return this.partial_conditions;
+    private static Condition and(Condition a, Condition b) {
+        List<Condition> operands = new ArrayList<>();
+        if (a instanceof AndCondition) {
+            operands.addAll(((AndCondition) a).getOperands());
+        } else {
+            operands.add(a);
         }
-
-        public void addPartialCondition(Condition cond) {
-            this.partial_conditions.add(cond);
+        if (b instanceof AndCondition) {
+            operands.addAll(((AndCondition) b).getOperands());
+        } else {
+            operands.add(b);
         }
+        return new AndCondition(operands);
+    }
+
+    private ConditionBuilder() {
     }
 
 }
@@ -26,10 +26,12 @@ package org.spongepowered.despector.decompiler.method;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import org.spongepowered.despector.DecompilerSession;
 import org.spongepowered.despector.ast.insn.Instruction;
 import org.spongepowered.despector.ast.insn.var.LocalAccess;
 import org.spongepowered.despector.ast.stmt.StatementBlock;
 import org.spongepowered.despector.ast.type.MethodEntry;
+import org.spongepowered.despector.decompiler.error.MethodTimeoutException;
 import org.spongepowered.despector.decompiler.ir.InsnBlock;
 import org.spongepowered.despector.decompiler.ir.JumpInsn;
 import org.spongepowered.despector.decompiler.ir.SwitchInsn;
@@ -42,11 +44,14 @@ import org.spongepowered.despector.decompiler.method.graph.data.opcode.BodyOpcod
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.OpcodeBlock;
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.SwitchOpcodeBlock;
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.TryCatchMarkerOpcodeBlock;
+import org.spongepowered.despector.decompiler.method.metrics.MethodInstrumentation;
 import org.spongepowered.despector.decompiler.method.postprocess.StatementPostProcessor;
 import org.spongepowered.despector.decompiler.method.special.SpecialMethodProcessor;
+import org.spongepowered.despector.util.condition.ConditionSimplifier;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Deque;
 import java.util.HashMap;
@@ -54,22 +59,58 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.annotation.Nullable;
 
 /**
  * A decompiler for method bodies.
+ *
+ * <p>A method decompiler may decompile several methods at once from different
+ * threads. The registered steps are shared between those threads and must not
+ * keep any state of the method being decompiled, all such state belongs in
+ * the {@link PartialMethod}. Steps may be registered while methods are being
+ * decompiled, but only methods started afterwards are certain to use them.</p>
  */
 public class MethodDecompiler {
 
     public static final String targeted_breakpoint = "";
 
-    private final List<GraphProducerStep> graph_producers = new ArrayList<>();
-    private final List<GraphOperation> cleanup_operations = new ArrayList<>();
-    private final List<GraphProcessor> processors = new ArrayList<>();
-    private final List<RegionProcessor> region_processors = new ArrayList<>();
-    private final List<StatementPostProcessor> post_processors = new ArrayList<>();
-    private final Map<Class<?>, SpecialMethodProcessor> special_processors = new HashMap<>();
+    private final List<GraphProducerStep> graph_producers = new CopyOnWriteArrayList<>();
+    private final List<GraphOperation> cleanup_operations = new CopyOnWriteArrayList<>();
+    private final List<GraphProcessor> processors = new CopyOnWriteArrayList<>();
+    private final List<RegionProcessor> region_processors = new CopyOnWriteArrayList<>();
+    private final List<StatementPostProcessor> post_processors = new CopyOnWriteArrayList<>();
+    private final Map<Class<?>, SpecialMethodProcessor> special_processors = new ConcurrentHashMap<>();
+    @Nullable private volatile MethodInstrumentation instrumentation;
+    private volatile long timeout;
+    private final AtomicInteger timeout_count = new AtomicInteger();
+    private final DecompilerSession session;
+
+    public MethodDecompiler() {
+        this(DecompilerSession.getDefault());
+    }
+
+    public MethodDecompiler(DecompilerSession session) {
+        this.session = checkNotNull(session, "session");
+    }
+
+    /**
+     * Gets the session that this decompiler belongs to.
+     */
+    public DecompilerSession getSession() {
+        return this.session;
+    }
+
+    /**
+     * Gets the simplifier for the conditions formed from method bodies, which
+     * is the simplifier of the session.
+     */
+    public ConditionSimplifier getConditionSimplifier() {
+        return this.session.getConditionSimplifier();
+    }
 
     /**
      * Adds the given {@link GraphProducerStep} to the end of the graph
@@ -109,6 +150,41 @@ public class MethodDecompiler {
         this.post_processors.add(checkNotNull(post, "post"));
     }
 
+    /**
+     * Gets the registered {@link GraphProducerStep}s in order.
+     */
+    public List<GraphProducerStep> getGraphProducers() {
+        return Collections.unmodifiableList(this.graph_producers);
+    }
+
+    /**
+     * Gets the registered cleanup {@link GraphOperation}s in order.
+     */
+    public List<GraphOperation> getCleanupOperations() {
+        return Collections.unmodifiableList(this.cleanup_operations);
+    }
+
+    /**
+     * Gets the registered {@link GraphProcessor}s in order.
+     */
+    public List<GraphProcessor> getProcessors() {
+        return Collections.unmodifiableList(this.processors);
+    }
+
+    /**
+     * Gets the registered {@link RegionProcessor}s in order.
+     */
+    public List<RegionProcessor> getRegionProcessors() {
+        return Collections.unmodifiableList(this.region_processors);
+    }
+
+    /**
+     * Gets the registered {@link StatementPostProcessor}s in order.
+     */
+    public List<StatementPostProcessor> getPostProcessors() {
+        return Collections.unmodifiableList(this.post_processors);
+    }
+
     /**
      * Adds the given {@link SpecialMethodProcessor} to the special processors.
      */
@@ -126,10 +202,89 @@ public class MethodDecompiler {
         return (T) this.special_processors.get(checkNotNull(type, "type"));
     }
 
+    /**
+     * Gets the instrumentation notified of each method and step, or null if
+     * none is set.
+     */
+    @Nullable
+    public MethodInstrumentation getInstrumentation() {
+        return this.instrumentation;
+    }
+
+    /**
+     * Sets the instrumentation notified of each method and step, or null to
+     * remove it.
+     */
+    public void setInstrumentation(@Nullable MethodInstrumentation instrumentation) {
+        this.instrumentation = instrumentation;
+    }
+
+    /**
+     * Gets the time budget in milliseconds for decompiling a single method, or
+     * zero if methods may take as long as they need.
+     */
+    public long getTimeout() {
+        return this.timeout;
+    }
+
+    /**
+     * Sets the time budget in milliseconds for decompiling a single method.
+     * Methods which exceed it are abandoned with a
+     * {@link MethodTimeoutException}. A value of zero disables the timeout.
+     */
+    public void setTimeout(long timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * Gets the number of methods which have been abandoned for exceeding the
+     * time budget.
+     */
+    public int getTimeoutCount() {
+        return this.timeout_count.get();
+    }
+
     /**
      * Decompiles the given asm method to a statement block.
      */
     public StatementBlock decompile(MethodEntry entry) {
+        long previous = MethodTimeout.begin(this.timeout);
+        try {
+            return decompileMethod(entry);
+        } catch (MethodTimeoutException e) {
+            this.timeout_count.incrementAndGet();
+            throw e;
+        } finally {
+            MethodTimeout.end(previous);
+        }
+    }
+
+    private StatementBlock decompileMethod(MethodEntry entry) {
+        MethodInstrumentation inst = this.instrumentation;
+        if (inst == null) {
+            StatementBlock block = decompileStatements(entry);
+            if (block != null) {
+                postProcess(block);
+            }
+            return block;
+        }
+        inst.startMethod(entry);
+        try {
+            StatementBlock block = decompileStatements(entry);
+            if (block != null) {
+                postProcess(block);
+            }
+            return block;
+        } finally {
+            inst.endMethod(entry);
+        }
+    }
+
+    /**
+     * Decompiles the given asm method to a statement block without applying
+     * the post processors.
+     */
+    public StatementBlock decompileStatements(MethodEntry entry) {
         if (entry.getIR() == null || entry.getIR().size() == 0) {
             return null;
         }
@@ -163,8 +318,16 @@ public class MethodDecompiler {
 
         // process the graph to perform in-graph operations prior to flattening
         // it to a list of block sections
+        MethodInstrumentation inst = this.instrumentation;
         for (GraphOperation op : this.cleanup_operations) {
+            MethodTimeout.check();
+            if (inst != null) {
+                inst.startStep(op);
+            }
             op.process(partial);
+            if (inst != null) {
+                inst.endStep(op);
+            }
         }
 
         if (partial.getEntry().getName().equals(targeted_breakpoint)) {
@@ -198,27 +361,51 @@ public class MethodDecompiler {
             op.appendTo(block, entry.getLocals(), stack);
         }
 
+        return block;
+    }
+
+    /**
+     * Applies the post processors to the given statement block.
+     */
+    public void postProcess(StatementBlock block) {
+        MethodInstrumentation inst = this.instrumentation;
         for (StatementPostProcessor post : this.post_processors) {
+            if (inst != null) {
+                inst.startStep(post);
+            }
             try {
                 post.postprocess(block);
             } catch (Exception e) {
                 System.err.println("Failed to apply post processor: " + post.getClass().getSimpleName());
                 e.printStackTrace();
+            } finally {
+                if (inst != null) {
+                    inst.endStep(post);
+                }
             }
         }
-
-        return block;
     }
 
-    private List<OpcodeBlock> makeGraph(PartialMethod partial) {
+    /**
+     * Creates the initial form of the control flow graph of the given method
+     * with the registered graph producers.
+     */
+    public List<OpcodeBlock> makeGraph(PartialMethod partial) {
         InsnBlock instructions = partial.getOpcodes();
 
         Set<Integer> break_points = new HashSet<>();
+        MethodInstrumentation inst = this.instrumentation;
 
         // queries all graph producers to determine where the instructions
         // should be broken up to form the graph
         for (GraphProducerStep step : this.graph_producers) {
+            if (inst != null) {
+                inst.startStep(step);
+            }
             step.collectBreakpoints(partial, break_points);
+            if (inst != null) {
+                inst.endStep(step);
+            }
         }
 
         // Sort the break points
@@ -234,18 +421,14 @@ public class MethodDecompiler {
             // breakpoint.
             OpcodeBlock block = new BodyOpcodeBlock(last_brk, brk);
             block_list.add(block);
-            for (int i = last_brk; i <= brk; i++) {
-                block.getOpcodes().add(instructions.get(i));
-            }
+            block.setOpcodes(instructions, last_brk, brk + 1);
             last_brk = brk + 1;
         }
 
         if (last_brk < instructions.size()) {
             OpcodeBlock block = new BodyOpcodeBlock(last_brk, instructions.size() - 1);
             block_list.add(block);
-            for (int i = last_brk; i < instructions.size(); i++) {
-                block.getOpcodes().add(instructions.get(i));
-            }
+            block.setOpcodes(instructions, last_brk, instructions.size());
         }
 
         for (int i = 0; i < block_list.size() - 1; i++) {
@@ -257,7 +440,13 @@ public class MethodDecompiler {
 
         // form the edges of the graph
         for (GraphProducerStep step : this.graph_producers) {
+            if (inst != null) {
+                inst.startStep(step);
+            }
             step.formEdges(partial, sorted_break_points, block_list);
+            if (inst != null) {
+                inst.endStep(step);
+            }
         }
 
         return block_list;
@@ -271,10 +460,18 @@ public class MethodDecompiler {
         if (stop_offs < 0) {
             return;
         }
+        MethodInstrumentation inst = this.instrumentation;
         outer: for (int i = 0; i < blocks.size() - stop_offs; i++) {
             OpcodeBlock region_start = blocks.get(i);
             for (GraphProcessor processor : this.processors) {
+                MethodTimeout.check();
+                if (inst != null) {
+                    inst.startStep(processor);
+                }
                 int next = processor.process(partial, blocks, region_start, result);
+                if (inst != null) {
+                    inst.endStep(processor);
+                }
                 if (next != -1) {
                     i = next;
                     continue outer;
@@ -287,8 +484,16 @@ public class MethodDecompiler {
      * Processes the given region with the registered region processors.
      */
     public BlockSection processRegion(PartialMethod partial, List<OpcodeBlock> region, OpcodeBlock ret, int body_start) {
+        MethodInstrumentation inst = this.instrumentation;
         for (RegionProcessor proc : this.region_processors) {
+            MethodTimeout.check();
+            if (inst != null) {
+                inst.startStep(proc);
+            }
             BlockSection block = proc.process(partial, region, ret, body_start);
+            if (inst != null) {
+                inst.endStep(proc);
+            }
             if (block != null) {
                 return block;
             }
@@ -0,0 +1,86 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.decompiler.method;
+
+import org.spongepowered.despector.decompiler.error.MethodTimeoutException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks the time budget of the method currently being decompiled on this
+ * thread. Potentially long running loops in the decompiler call
+ * {@link #check()} so that a pathological method is abandoned once its
+ * budget runs out rather than stalling the whole run.
+ */
+public final class MethodTimeout {
+
+    private static final ThreadLocal<long[]> deadline = ThreadLocal.withInitial(() -> new long[1]);
+
+    /**
+     * Starts a new budget of the given number of milliseconds for this thread,
+     * a budget of zero disables the timeout. Returns the previous deadline
+     * which must be passed to {@link #end(long)} once the method is finished.
+     */
+    public static long begin(long timeout_ms) {
+        long[] current = deadline.get();
+        long previous = current[0];
+        if (timeout_ms > 0) {
+            // zero is reserved for no deadline
+            current[0] = (System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout_ms)) | 1;
+        } else {
+            current[0] = 0;
+        }
+        return previous;
+    }
+
+    /**
+     * Ends the current budget and restores the given previous deadline.
+     */
+    public static void end(long previous) {
+        deadline.get()[0] = previous;
+    }
+
+    /**
+     * Gets if the budget of the current method on this thread has run out.
+     */
+    public static boolean isExpired() {
+        long end = deadline.get()[0];
+        return end != 0 && System.nanoTime() - end > 0;
+    }
+
+    /**
+     * Throws a {@link MethodTimeoutException} if the budget of the current
+     * method on this thread has run out.
+     */
+    public static void check() {
+        if (isExpired()) {
+            throw new MethodTimeoutException("Method exceeded its decompilation time budget");
+        }
+    }
+
+    private MethodTimeout() {
+    }
+
+}
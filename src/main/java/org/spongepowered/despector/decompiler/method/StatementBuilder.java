@@ -64,18 +64,9 @@ import org.spongepowered.despector.ast.stmt.invoke.StaticMethodInvoke;
 import org.spongepowered.despector.ast.stmt.misc.Increment;
 import org.spongepowered.despector.ast.stmt.misc.Return;
 import org.spongepowered.despector.ast.stmt.misc.Throw;
-import org.spongepowered.despector.decompiler.ir.DoubleInsn;
-import org.spongepowered.despector.decompiler.ir.FieldInsn;
-import org.spongepowered.despector.decompiler.ir.FloatInsn;
 import org.spongepowered.despector.decompiler.ir.Insn;
-import org.spongepowered.despector.decompiler.ir.IntInsn;
+import org.spongepowered.despector.decompiler.ir.InsnCursor;
 import org.spongepowered.despector.decompiler.ir.InvokeDynamicInsn;
-import org.spongepowered.despector.decompiler.ir.InvokeInsn;
-import org.spongepowered.despector.decompiler.ir.LdcInsn;
-import org.spongepowered.despector.decompiler.ir.LongInsn;
-import org.spongepowered.despector.decompiler.ir.TypeInsn;
-import org.spongepowered.despector.decompiler.ir.TypeIntInsn;
-import org.spongepowered.despector.decompiler.ir.VarIntInsn;
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.OpcodeBlock;
 import org.spongepowered.despector.util.TypeHelper;
 
@@ -93,47 +84,45 @@ public final class StatementBuilder {
 
         // Decompiles a set of opcodes into statements.
 
-        for (int index = 0; index < op.getOpcodes().size(); index++) {
-            int label_index = op.getStart() + index;
-            Insn next = op.getOpcodes().get(index);
-            switch (next.getOpcode()) {
+        InsnCursor cursor = op.cursor();
+        while (cursor.next()) {
+            int label_index = op.getStart() + cursor.getPosition();
+            switch (cursor.getOpcode()) {
             case Insn.NOOP:
                 break;
             case Insn.ICONST:
-                stack.push(new IntConstant(((IntInsn) next).getValue()));
+                stack.push(new IntConstant(cursor.getInt()));
                 break;
             case Insn.LCONST:
-                stack.push(new LongConstant(((LongInsn) next).getValue()));
+                stack.push(new LongConstant(cursor.getLong()));
                 break;
             case Insn.FCONST:
-                stack.push(new FloatConstant(((FloatInsn) next).getValue()));
+                stack.push(new FloatConstant(cursor.getFloat()));
                 break;
             case Insn.DCONST:
-                stack.push(new DoubleConstant(((DoubleInsn) next).getValue()));
+                stack.push(new DoubleConstant(cursor.getDouble()));
                 break;
             case Insn.PUSH: {
-                LdcInsn ldc = (LdcInsn) next;
-                if (ldc.getConstant() == null) {
+                Object cst = cursor.getConstant();
+                if (cst == null) {
                     stack.push(NullConstant.NULL);
-                } else if (ldc.getConstant() instanceof String) {
-                    stack.push(new StringConstant((String) ldc.getConstant()));
-                } else if (ldc.getConstant() instanceof ClassTypeSignature) {
-                    stack.push(new TypeConstant((ClassTypeSignature) ldc.getConstant()));
+                } else if (cst instanceof String) {
+                    stack.push(new StringConstant((String) cst));
+                } else if (cst instanceof ClassTypeSignature) {
+                    stack.push(new TypeConstant((ClassTypeSignature) cst));
                 } else {
-                    throw new IllegalStateException("Unsupported ldc constant: " + ldc.getConstant().getClass().getName());
+                    throw new IllegalStateException("Unsupported ldc constant: " + cst.getClass().getName());
                 }
                 break;
             }
             case Insn.LOCAL_LOAD: {
-                IntInsn var = (IntInsn) next;
-                Local local = locals.getLocal(var.getValue());
+                Local local = locals.getLocal(cursor.getLocal());
                 stack.push(new LocalAccess(local.getInstance(label_index)));
                 break;
             }
             case Insn.LOCAL_STORE: {
-                IntInsn var = (IntInsn) next;
                 Instruction val = stack.pop();
-                Local local = locals.getLocal(var.getValue());
+                Local local = locals.getLocal(cursor.getLocal());
                 LocalInstance instance = local.getInstance(label_index);
                 if (!local.isParameter() && local.getParameterInstance() != null) {
                     instance.setType(val.inferType());
@@ -308,9 +297,8 @@ public final class StatementBuilder {
                 break;
             }
             case Insn.IINC: {
-                VarIntInsn inc = (VarIntInsn) next;
-                Local local = locals.getLocal(inc.getLocal());
-                Increment insn = new Increment(local.getInstance(label_index), inc.getValue());
+                Local local = locals.getLocal(cursor.getLocal());
+                Increment insn = new Increment(local.getInstance(label_index), cursor.getIncrement());
                 block.append(insn);
                 break;
             }
@@ -327,52 +315,47 @@ public final class StatementBuilder {
                 block.append(new Return());
                 break;
             case Insn.GETSTATIC: {
-                FieldInsn field = (FieldInsn) next;
-                String owner = field.getOwner();
+                String owner = cursor.getOwner();
                 if (!owner.startsWith("[")) {
                     owner = "L" + owner + ";";
                 }
-                FieldAccess arg = new StaticFieldAccess(field.getName(), ClassTypeSignature.of(field.getDescription()), owner);
+                FieldAccess arg = new StaticFieldAccess(cursor.getName(), ClassTypeSignature.of(cursor.getDescription()), owner);
                 stack.push(arg);
                 break;
             }
             case Insn.PUTSTATIC: {
-                FieldInsn field = (FieldInsn) next;
                 Instruction val = stack.pop();
-                String owner = field.getOwner();
+                String owner = cursor.getOwner();
                 if (!owner.startsWith("[")) {
                     owner = "L" + owner + ";";
                 }
-                FieldAssignment assign = new StaticFieldAssignment(field.getName(), field.getDescription(), owner, val);
+                FieldAssignment assign = new StaticFieldAssignment(cursor.getName(), cursor.getDescription(), owner, val);
                 block.append(assign);
                 break;
             }
             case Insn.GETFIELD: {
-                FieldInsn field = (FieldInsn) next;
-                String owner = field.getOwner();
+                String owner = cursor.getOwner();
                 if (!owner.startsWith("[")) {
                     owner = "L" + owner + ";";
                 }
-                FieldAccess arg = new InstanceFieldAccess(field.getName(), ClassTypeSignature.of(field.getDescription()), owner, stack.pop());
+                FieldAccess arg = new InstanceFieldAccess(cursor.getName(), ClassTypeSignature.of(cursor.getDescription()), owner, stack.pop());
                 stack.push(arg);
                 break;
             }
             case Insn.PUTFIELD: {
-                FieldInsn field = (FieldInsn) next;
                 Instruction val = stack.pop();
                 Instruction owner = stack.pop();
-                String owner_t = field.getOwner();
+                String owner_t = cursor.getOwner();
                 if (!owner_t.startsWith("[")) {
                     owner_t = "L" + owner_t + ";";
                 }
-                FieldAssignment assign = new InstanceFieldAssignment(field.getName(), field.getDescription(), owner_t, owner, val);
+                FieldAssignment assign = new InstanceFieldAssignment(cursor.getName(), cursor.getDescription(), owner_t, owner, val);
                 block.append(assign);
                 break;
             }
             case Insn.INVOKE: {
-                InvokeInsn method = (InvokeInsn) next;
-                if (method.getName().equals("<init>")) {
-                    Instruction[] args = new Instruction[TypeHelper.paramCount(method.getDescription())];
+                if (cursor.getName().equals("<init>")) {
+                    Instruction[] args = new Instruction[TypeHelper.paramCount(cursor.getDescription())];
                     for (int i = args.length - 1; i >= 0; i--) {
                         args[i] = stack.pop();
                     }
@@ -381,39 +364,39 @@ public final class StatementBuilder {
                         if (stack.peek() instanceof New) {
                             New new_arg2 = (New) stack.pop();
                             if (new_arg2 == new_arg) {
-                                new_arg.setCtorDescription(method.getDescription());
+                                new_arg.setCtorDescription(cursor.getDescription());
                                 new_arg.setParameters(args);
                                 stack.push(new_arg);
                                 break;
                             }
                             stack.push(new_arg2);
                         }
-                        New insn = new New(new_arg.getType(), method.getDescription(), args);
+                        New insn = new New(new_arg.getType(), cursor.getDescription(), args);
                         block.append(new InvokeStatement(insn));
                         break;
                     } else if (stack.peek() instanceof LocalAccess) {
                         LocalAccess callee = (LocalAccess) stack.pop();
-                        String owner = method.getOwner();
+                        String owner = cursor.getOwner();
                         if (!owner.startsWith("[")) {
                             owner = "L" + owner + ";";
                         }
-                        InstanceMethodInvoke arg = new InstanceMethodInvoke(method.getName(), method.getDescription(), owner, args, callee);
+                        InstanceMethodInvoke arg = new InstanceMethodInvoke(cursor.getName(), cursor.getDescription(), owner, args, callee);
                         block.append(new InvokeStatement(arg));
                         break;
                     }
                     throw new IllegalStateException("Callee of call to <init> was " + stack.pop());
                 }
-                String ret = TypeHelper.getRet(method.getDescription());
-                Instruction[] args = new Instruction[TypeHelper.paramCount(method.getDescription())];
+                String ret = TypeHelper.getRet(cursor.getDescription());
+                Instruction[] args = new Instruction[TypeHelper.paramCount(cursor.getDescription())];
                 for (int i = args.length - 1; i >= 0; i--) {
                     args[i] = stack.pop();
                 }
                 Instruction callee = stack.pop();
-                String owner = method.getOwner();
+                String owner = cursor.getOwner();
                 if (!owner.startsWith("[")) {
                     owner = "L" + owner + ";";
                 }
-                InstanceMethodInvoke arg = new InstanceMethodInvoke(method.getName(), method.getDescription(), owner, args, callee);
+                InstanceMethodInvoke arg = new InstanceMethodInvoke(cursor.getName(), cursor.getDescription(), owner, args, callee);
                 if (ret.equals("V")) {
                     block.append(new InvokeStatement(arg));
                 } else {
@@ -422,17 +405,16 @@ public final class StatementBuilder {
                 break;
             }
             case Insn.INVOKESTATIC: {
-                InvokeInsn method = (InvokeInsn) next;
-                String ret = TypeHelper.getRet(method.getDescription());
-                Instruction[] args = new Instruction[TypeHelper.paramCount(method.getDescription())];
+                String ret = TypeHelper.getRet(cursor.getDescription());
+                Instruction[] args = new Instruction[TypeHelper.paramCount(cursor.getDescription())];
                 for (int i = args.length - 1; i >= 0; i--) {
                     args[i] = stack.pop();
                 }
-                String owner = method.getOwner();
+                String owner = cursor.getOwner();
                 if (!owner.startsWith("[")) {
                     owner = "L" + owner + ";";
                 }
-                StaticMethodInvoke arg = new StaticMethodInvoke(method.getName(), method.getDescription(), owner, args);
+                StaticMethodInvoke arg = new StaticMethodInvoke(cursor.getName(), cursor.getDescription(), owner, args);
                 if (ret.equals("V")) {
                     block.append(new InvokeStatement(arg));
                 } else {
@@ -441,7 +423,7 @@ public final class StatementBuilder {
                 break;
             }
             case Insn.INVOKEDYNAMIC: {
-                InvokeDynamicInsn invoke = (InvokeDynamicInsn) next;
+                InvokeDynamicInsn invoke = (InvokeDynamicInsn) cursor.getInsn();
                 TypeSignature type = ClassTypeSignature.of(invoke.getType());
                 DynamicInvoke handle = new DynamicInvoke(invoke.getLambdaOwner(), invoke.getLambdaName(), invoke.getLambdaDescription(),
                         type, invoke.getName());
@@ -449,38 +431,34 @@ public final class StatementBuilder {
                 break;
             }
             case Insn.NEW: {
-                TypeSignature type = ClassTypeSignature.of("L" + ((TypeInsn) next).getType() + ";");
+                TypeSignature type = ClassTypeSignature.of("L" + cursor.getType() + ";");
                 stack.push(new New(type, null, null));
                 break;
             }
             case Insn.NEWARRAY: {
                 Instruction size = stack.pop();
-                TypeInsn array = (TypeInsn) next;
-                stack.push(new NewArray(ClassTypeSignature.of(array.getType()), size, null));
+                stack.push(new NewArray(ClassTypeSignature.of(cursor.getType()), size, null));
                 break;
             }
             case Insn.MULTINEWARRAY: {
-                TypeIntInsn array = (TypeIntInsn) next;
-                Instruction[] size = new Instruction[array.getValue()];
-                for (int i = 0; i < array.getValue(); i++) {
+                Instruction[] size = new Instruction[cursor.getInt()];
+                for (int i = 0; i < cursor.getInt(); i++) {
                     size[i] = stack.pop();
                 }
-                stack.push(new MultiNewArray(ClassTypeSignature.of(array.getType()), size));
+                stack.push(new MultiNewArray(ClassTypeSignature.of(cursor.getType()), size));
                 break;
             }
             case Insn.THROW:
                 block.append(new Throw(stack.pop()));
                 break;
             case Insn.CAST: {
-                TypeInsn cast = (TypeInsn) next;
-                String desc = cast.getType();
+                String desc = cursor.getType();
                 stack.push(new Cast(ClassTypeSignature.of(desc), stack.pop()));
                 break;
             }
             case Insn.INSTANCEOF: {
-                TypeInsn insn = (TypeInsn) next;
                 Instruction val = stack.pop();
-                String type = insn.getType();
+                String type = cursor.getType();
                 if (!type.startsWith("[")) {
                     type = "L" + type + ";";
                 }
@@ -500,7 +478,7 @@ public final class StatementBuilder {
                 // graph
                 break;
             default:
-                System.err.println("Unsupported opcode: " + next.getOpcode());
+                System.err.println("Unsupported opcode: " + cursor.getOpcode());
                 throw new IllegalStateException();
             }
         }
@@ -25,7 +25,7 @@
 package org.spongepowered.despector.decompiler.method.graph.create;
 
 import org.spongepowered.despector.decompiler.ir.Insn;
-import org.spongepowered.despector.decompiler.ir.InsnBlock;
+import org.spongepowered.despector.decompiler.ir.InsnCursor;
 import org.spongepowered.despector.decompiler.ir.JumpInsn;
 import org.spongepowered.despector.decompiler.method.PartialMethod;
 import org.spongepowered.despector.decompiler.method.graph.GraphOperation;
@@ -45,19 +45,19 @@ public class JumpGraphProducerStep implements GraphProducerStep {
 
     @Override
     public void collectBreakpoints(PartialMethod partial, Set<Integer> break_points) {
-        InsnBlock instructions = partial.getOpcodes();
+        InsnCursor cursor = partial.getOpcodes().cursor();
 
-        for (int i = 0; i < instructions.size(); i++) {
-            Insn next = instructions.get(i);
-            if (next instanceof JumpInsn) {
-                if(next.getOpcode() == Insn.GOTO && i > 0) {
+        while (cursor.next()) {
+            if (cursor.isJump()) {
+                int i = cursor.getPosition();
+                if(cursor.getOpcode() == Insn.GOTO && i > 0) {
                     break_points.add(i - 1);
                 }
                 break_points.add(i);
                 // also break before labels targetted by jump opcodes to have a
                 // break between the body of an if block and the statements
                 // after it
-                int target = ((JumpInsn) next).getTarget() - 1;
+                int target = cursor.getTarget() - 1;
                 if (target >= 0) {
                     break_points.add(target);
                 }
@@ -77,14 +77,14 @@ public class JumpGraphProducerStep implements GraphProducerStep {
                 if (block.getLast().getOpcode() == Insn.GOTO) {
                     GotoOpcodeBlock replacement = new GotoOpcodeBlock(block.getStart(), block.getEnd());
                     block_list.set(i, replacement);
-                    replacement.getOpcodes().addAll(block.getOpcodes());
+                    replacement.copyOpcodes(block);
                     replacement.setTarget(GraphProducerStep.find(block_list, label));
                     GraphOperation.remap(block_list, block, replacement);
                 } else {
                     ConditionalOpcodeBlock replacement = new ConditionalOpcodeBlock(block.getStart(), block.getEnd());
                     OpcodeBlock next = block_list.get(block_list.indexOf(block) + 1);
                     block_list.set(i, replacement);
-                    replacement.getOpcodes().addAll(block.getOpcodes());
+                    replacement.copyOpcodes(block);
                     replacement.setTarget(GraphProducerStep.find(block_list, label));
                     replacement.setElseTarget(next);
                     GraphOperation.remap(block_list, block, replacement);
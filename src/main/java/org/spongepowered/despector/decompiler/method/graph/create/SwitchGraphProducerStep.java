@@ -25,7 +25,7 @@
 package org.spongepowered.despector.decompiler.method.graph.create;
 
 import org.spongepowered.despector.decompiler.ir.Insn;
-import org.spongepowered.despector.decompiler.ir.InsnBlock;
+import org.spongepowered.despector.decompiler.ir.InsnCursor;
 import org.spongepowered.despector.decompiler.ir.SwitchInsn;
 import org.spongepowered.despector.decompiler.method.PartialMethod;
 import org.spongepowered.despector.decompiler.method.graph.GraphOperation;
@@ -44,17 +44,15 @@ public class SwitchGraphProducerStep implements GraphProducerStep {
 
     @Override
     public void collectBreakpoints(PartialMethod partial, Set<Integer> break_points) {
-        InsnBlock instructions = partial.getOpcodes();
+        InsnCursor cursor = partial.getOpcodes().cursor();
 
-        for (int i = 0; i < instructions.size(); i++) {
-            Insn next = instructions.get(i);
-            if (next instanceof SwitchInsn) {
-                break_points.add(i);
-                SwitchInsn ts = (SwitchInsn) next;
-                for (int l : ts.getTargets().values()) {
+        while (cursor.next()) {
+            if (cursor.getOpcode() == Insn.SWITCH) {
+                break_points.add(cursor.getPosition());
+                for (int l : cursor.getSwitchTargets().values()) {
                     break_points.add(l - 1);
                 }
-                break_points.add(ts.getDefault() - 1);
+                break_points.add(cursor.getTarget() - 1);
             }
         }
     }
@@ -69,7 +67,7 @@ public class SwitchGraphProducerStep implements GraphProducerStep {
                 continue;
             }
             SwitchOpcodeBlock replacement = new SwitchOpcodeBlock(block.getStart(), block.getEnd());
-            replacement.getOpcodes().addAll(block.getOpcodes());
+            replacement.copyOpcodes(block);
             replacement.setTarget(block.getTarget());
             block_list.set(i, replacement);
             GraphOperation.remap(block_list, block, replacement);
@@ -24,6 +24,8 @@
  */
 package org.spongepowered.despector.decompiler.method.graph.data.block;
 
+import static com.google.common.base.Preconditions.checkState;
+
 import org.spongepowered.despector.ast.Locals;
 import org.spongepowered.despector.ast.insn.Instruction;
 import org.spongepowered.despector.ast.insn.condition.Condition;
@@ -37,6 +39,7 @@ import org.spongepowered.despector.decompiler.method.graph.data.opcode.BreakMark
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.BreakMarkerOpcodeBlock.MarkerType;
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.ConditionalOpcodeBlock;
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.OpcodeBlock;
+import org.spongepowered.despector.util.condition.ConditionSimplifier;
 
 import java.util.ArrayList;
 import java.util.Deque;
@@ -55,6 +58,7 @@ public class BreakBlockSection extends BlockSection {
     private Break final_break;
 
     private final List<ConditionalOpcodeBlock> inlined = new ArrayList<>();
+    private ConditionSimplifier simplifier;
 
     public BreakBlockSection(BreakMarkerOpcodeBlock marker, MarkerType type) {
         this.marker = marker;
@@ -133,12 +137,21 @@ public class BreakBlockSection extends BlockSection {
         return this.inlined;
     }
 
+    /**
+     * Sets the simplifier for the condition formed from the inlined
+     * conditional blocks.
+     */
+    public void setConditionSimplifier(ConditionSimplifier simplifier) {
+        this.simplifier = simplifier;
+    }
+
     @Override
     public void appendTo(StatementBlock block, Locals locals, Deque<Instruction> stack) {
         this.final_break = new Break(this.br, this.type == MarkerType.BREAK ? Type.BREAK : Type.CONTINUE, this.nested);
         if (!this.inlined.isEmpty()) {
             ConditionalOpcodeBlock last = this.inlined.get(this.inlined.size() - 1);
-            Condition cond = ConditionBuilder.makeCondition(this.inlined, locals, last.getTarget(), last.getElseTarget());
+            checkState(this.simplifier != null, "No condition simplifier set for the inlined conditions");
+            Condition cond = ConditionBuilder.makeCondition(this.inlined, locals, last.getTarget(), last.getElseTarget(), this.simplifier);
             StatementBlock inner = new StatementBlock(StatementBlock.Type.IF);
             inner.append(this.final_break);
             If ifblock = new If(cond, inner);
@@ -25,6 +25,8 @@
 package org.spongepowered.despector.decompiler.method.graph.data.opcode;
 
 import org.spongepowered.despector.decompiler.ir.Insn;
+import org.spongepowered.despector.decompiler.ir.InsnBlock;
+import org.spongepowered.despector.decompiler.ir.InsnCursor;
 import org.spongepowered.despector.decompiler.method.graph.data.block.BlockSection;
 
 import java.util.ArrayList;
@@ -32,6 +34,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import javax.annotation.Nullable;
+
 /**
  * Represents a section of opcodes in the original method that forms part of a
  * graph representing the control flow through the method. The opcode blocks are
@@ -43,6 +47,11 @@ public abstract class OpcodeBlock {
     protected int start_pc;
     protected int end_pc;
     protected final List<Insn> opcodes = new ArrayList<>();
+    // the range of the method's instructions backing this block until the
+    // opcodes are first requested as a list
+    @Nullable protected InsnBlock source;
+    protected int source_start;
+    protected int source_end;
     protected OpcodeBlock target;
 
     protected Set<OpcodeBlock> targetted_by = new HashSet<>();
@@ -75,10 +84,58 @@ public abstract class OpcodeBlock {
      * Gets the opcodes that are part of this block.
      */
     public List<Insn> getOpcodes() {
+        if (this.source != null) {
+            for (int i = this.source_start; i < this.source_end; i++) {
+                this.opcodes.add(this.source.get(i));
+            }
+            this.source = null;
+        }
         return this.opcodes;
     }
 
+    /**
+     * Sets the opcodes of this block to the given range of instructions, from
+     * the start index inclusive to the end index exclusive. The range is not
+     * copied into the opcode list until it is requested.
+     */
+    public void setOpcodes(InsnBlock block, int start, int end) {
+        this.opcodes.clear();
+        this.source = block;
+        this.source_start = start;
+        this.source_end = end;
+    }
+
+    /**
+     * Sets the opcodes of this block to the opcodes of the given block.
+     */
+    public void copyOpcodes(OpcodeBlock block) {
+        if (block.source != null) {
+            setOpcodes(block.source, block.source_start, block.source_end);
+        } else {
+            this.source = null;
+            this.opcodes.clear();
+            this.opcodes.addAll(block.opcodes);
+        }
+    }
+
+    /**
+     * Gets a cursor over the opcodes of this block.
+     */
+    public InsnCursor cursor() {
+        if (this.source != null) {
+            return this.source.cursor(this.source_start, this.source_end);
+        }
+        InsnBlock block = new InsnBlock(this.opcodes.size());
+        for (Insn insn : this.opcodes) {
+            block.append(insn);
+        }
+        return block.cursor();
+    }
+
     public Insn getLast() {
+        if (this.source != null) {
+            return this.source.get(this.source_end - 1);
+        }
         return this.opcodes.get(this.opcodes.size() - 1);
     }
 
@@ -161,7 +218,7 @@ public abstract class OpcodeBlock {
     public String toString() {
         StringBuilder builder = new StringBuilder();
         builder.append(getDebugHeader()).append("\n");
-        for (Insn insn : this.opcodes) {
+        for (Insn insn : getOpcodes()) {
             builder.append("  ").append(insn.toString()).append("\n");
         }
         return builder.toString();
@@ -41,6 +41,7 @@ import org.spongepowered.despector.decompiler.method.graph.data.opcode.OpcodeBlo
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.ProcessedOpcodeBlock;
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.TryCatchMarkerOpcodeBlock;
 import org.spongepowered.despector.util.AstUtil;
+import org.spongepowered.despector.util.condition.ConditionSimplifier;
 
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -70,13 +71,13 @@ public class TernaryPrePassOperation implements GraphOperation {
         }
         for (int i = 0; i < blocks.size(); i++) {
             OpcodeBlock block = blocks.get(i);
-            if (!block.isOmittedFromTernaryCheck() && AstUtil.hasStartingRequirement(block.getOpcodes())) {
-                i -= compileTernary(blocks, i, partial.getLocals());
+            if (!block.isOmittedFromTernaryCheck() && AstUtil.hasStartingRequirement(block.cursor())) {
+                i -= compileTernary(blocks, i, partial.getLocals(), partial.getDecompiler().getConditionSimplifier());
             }
         }
     }
 
-    private static int compileTernary(List<OpcodeBlock> blocks, int end, Locals locals) {
+    private static int compileTernary(List<OpcodeBlock> blocks, int end, Locals locals, ConditionSimplifier simplifier) {
         if (end < 4) {
             return 0;
         }
@@ -139,11 +140,11 @@ public class TernaryPrePassOperation implements GraphOperation {
             seen.add(next);
             condition_blocks.add(0, (ConditionalOpcodeBlock) next);
         }
-        Condition cond = ConditionBuilder.makeCondition(condition_blocks, locals, first_false, first_true);
+        Condition cond = ConditionBuilder.makeCondition(condition_blocks, locals, first_false, first_true, simplifier);
         TernaryBlockSection ternary = new TernaryBlockSection(cond);
         while (true_blocks.size() > 1) {
             true_blocks.add(consumer);
-            int n = compileTernary(true_blocks, true_blocks.size() - 1, locals);
+            int n = compileTernary(true_blocks, true_blocks.size() - 1, locals, simplifier);
             true_blocks.remove(consumer);
             if (n == 0) {
                 break;
@@ -159,7 +160,7 @@ public class TernaryPrePassOperation implements GraphOperation {
         }
         while (false_blocks.size() > 1) {
             false_blocks.add(consumer);
-            int n = compileTernary(false_blocks, false_blocks.size() - 1, locals);
+            int n = compileTernary(false_blocks, false_blocks.size() - 1, locals, simplifier);
             false_blocks.remove(consumer);
             if (n == 0) {
                 break;
@@ -24,7 +24,6 @@
  */
 package org.spongepowered.despector.decompiler.method.graph.process;
 
-import org.spongepowered.despector.config.ConfigManager;
 import org.spongepowered.despector.decompiler.ir.Insn;
 import org.spongepowered.despector.decompiler.method.PartialMethod;
 import org.spongepowered.despector.decompiler.method.graph.GraphProcessor;
@@ -109,7 +108,7 @@ public class SubRegionBlockProcessor implements GraphProcessor {
         }
 
         OpcodeBlock first = region.get(0);
-        if (first instanceof ConditionalOpcodeBlock && AstUtil.hasStartingRequirement(first.getOpcodes()) && ((ConditionalOpcodeBlock) first).getPrefix() == null) {
+        if (first instanceof ConditionalOpcodeBlock && AstUtil.hasStartingRequirement(first.cursor()) && ((ConditionalOpcodeBlock) first).getPrefix() == null) {
             OpcodeBlock prev = blocks.get(i - 1);
             if (prev instanceof ProcessedOpcodeBlock) {
                 ((ConditionalOpcodeBlock) first).setPrefix(prev);
@@ -120,7 +119,7 @@ public class SubRegionBlockProcessor implements GraphProcessor {
         try {
             final_blocks.add(partial.getDecompiler().processRegion(partial, region, last, targeted_in_future ? 0 : 1));
         } catch (Exception e) {
-            if (ConfigManager.getConfig().print_opcodes_on_error) {
+            if (partial.getDecompiler().getSession().getConfig().print_opcodes_on_error) {
                 List<String> comment = new ArrayList<>();
                 for (OpcodeBlock op : region) {
                     comment.add(op.getDebugHeader());
@@ -166,11 +166,13 @@ public class ChildRegionProcessor implements RegionProcessor {
                             sec = new BreakBlockSection(new BreakMarkerOpcodeBlock(next.getStart(), next.getStart(), BreakMarkerOpcodeBlock.MarkerType.BREAK),
                                     BreakMarkerOpcodeBlock.MarkerType.BREAK);
                             sec.getInlinedConditions().add((ConditionalOpcodeBlock) next);
+                            sec.setConditionSimplifier(partial.getDecompiler().getConditionSimplifier());
                             OpcodeBlock replace = new ProcessedOpcodeBlock(next.getStart(), next.getStart(), sec);
                             region.set(i, replace);
                             GraphOperation.remap(region, next, replace);
                         } else {
                             sec.getInlinedConditions().add((ConditionalOpcodeBlock) next);
+                            sec.setConditionSimplifier(partial.getDecompiler().getConditionSimplifier());
                             region.remove(i);
                             i--;
                         }
@@ -225,11 +227,13 @@ public class ChildRegionProcessor implements RegionProcessor {
                     sec = new BreakBlockSection(new BreakMarkerOpcodeBlock(next.getStart(), next.getEnd(), BreakMarkerOpcodeBlock.MarkerType.CONTINUE),
                             BreakMarkerOpcodeBlock.MarkerType.CONTINUE);
                     sec.getInlinedConditions().add((ConditionalOpcodeBlock) next);
+                    sec.setConditionSimplifier(partial.getDecompiler().getConditionSimplifier());
                     OpcodeBlock replace = new ProcessedOpcodeBlock(next.getStart(), next.getEnd(), sec);
                     region.set(i, replace);
                     GraphOperation.remap(region, next, replace);
                 } else {
                     sec.getInlinedConditions().add((ConditionalOpcodeBlock) next);
+                    sec.setConditionSimplifier(partial.getDecompiler().getConditionSimplifier());
                     region.remove(i);
                     i--;
                 }
@@ -71,7 +71,8 @@ public class DoWhileRegionProcessor implements RegionProcessor {
             }
 
             cond_start++;
-            cond = ConditionBuilder.makeCondition(condition_blocks, partial.getLocals(), start, ret);
+            cond = ConditionBuilder.makeCondition(condition_blocks, partial.getLocals(), start, ret,
+                    partial.getDecompiler().getConditionSimplifier());
 
             boolean targetted_by_previous_jump = condition_blocks.get(0).getTargettedBy().stream()
                     .filter((b) -> b.getStart() < start.getStart()).findAny().isPresent();
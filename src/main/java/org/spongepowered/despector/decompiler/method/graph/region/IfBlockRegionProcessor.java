@@ -35,6 +35,7 @@ import org.spongepowered.despector.decompiler.method.graph.data.block.WhileBlock
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.ConditionalOpcodeBlock;
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.GotoOpcodeBlock;
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.OpcodeBlock;
+import org.spongepowered.despector.util.condition.ConditionSimplifier;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -69,7 +70,8 @@ public class IfBlockRegionProcessor implements RegionProcessor {
         }
 
         // form the condition from the header
-        Condition cond = ConditionBuilder.makeCondition(condition_blocks, partial.getLocals(), body, cond_ret);
+        Condition cond = ConditionBuilder.makeCondition(condition_blocks, partial.getLocals(), body, cond_ret,
+                partial.getDecompiler().getConditionSimplifier());
         int else_start = region.size();
         if (cond_ret != ret && region.contains(cond_ret)) {
             else_start = region.indexOf(cond_ret);
@@ -127,7 +129,8 @@ public class IfBlockRegionProcessor implements RegionProcessor {
                         break;
                     }
                 }
-                Condition elif_cond = ConditionBuilder.makeCondition(elif_condition, partial.getLocals(), elif_body, cond_ret);
+                Condition elif_cond = ConditionBuilder.makeCondition(elif_condition, partial.getLocals(), elif_body, cond_ret,
+                        partial.getDecompiler().getConditionSimplifier());
                 ElifBlockSection elif = section.new ElifBlockSection(elif_cond);
                 int elif_end = region.size();
                 if (cond_ret != ret) {
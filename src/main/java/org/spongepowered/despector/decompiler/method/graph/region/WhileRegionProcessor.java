@@ -70,7 +70,8 @@ public class WhileRegionProcessor implements RegionProcessor {
             }
 
             OpcodeBlock body = region.get(1);
-            Condition cond = ConditionBuilder.makeCondition(condition_blocks, partial.getLocals(), body, ret);
+            Condition cond = ConditionBuilder.makeCondition(condition_blocks, partial.getLocals(), body, ret,
+                    partial.getDecompiler().getConditionSimplifier());
 
             WhileBlockSection section = new WhileBlockSection(cond);
 
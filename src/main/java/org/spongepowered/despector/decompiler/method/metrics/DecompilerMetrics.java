@@ -0,0 +1,495 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.decompiler.method.metrics;
+
+import org.spongepowered.despector.ast.type.MethodEntry;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+/**
+ * Records the wall time, and optionally the bytes allocated by the
+ * decompiling thread, of every method decompiled and of each step applied to
+ * it. The time of a step does not include the time of the steps nested
+ * within it, and the time of a method does not include other methods which
+ * were decompiled on the same thread while it was being decompiled.
+ */
+public class DecompilerMetrics implements MethodInstrumentation {
+
+    @Nullable private final com.sun.management.ThreadMXBean allocations;
+    private final ThreadLocal<Deque<MethodState>> current = ThreadLocal.withInitial(ArrayDeque::new);
+    private final Queue<MethodMetrics> methods = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Creates a new metrics recorder, which also records the bytes allocated
+     * if requested and supported by the jvm.
+     */
+    public DecompilerMetrics(boolean track_allocations) {
+        com.sun.management.ThreadMXBean allocations = null;
+        if (track_allocations) {
+            ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+                allocations = (com.sun.management.ThreadMXBean) bean;
+                allocations.setThreadAllocatedMemoryEnabled(true);
+            } else {
+                System.err.println("Allocation tracking is not supported by this jvm");
+            }
+        }
+        this.allocations = allocations;
+    }
+
+    /**
+     * Gets if the bytes allocated are being recorded.
+     */
+    public boolean tracksAllocations() {
+        return this.allocations != null;
+    }
+
+    private long allocated() {
+        if (this.allocations == null) {
+            return 0;
+        }
+        return this.allocations.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    @Override
+    public void startMethod(MethodEntry method) {
+        MethodState state = new MethodState(new MethodMetrics(method.getOwnerName(), method.getName(), method.getDescription()));
+        this.current.get().push(state);
+        state.start_alloc = allocated();
+        state.start = System.nanoTime();
+    }
+
+    @Override
+    public void startStep(Object step) {
+        MethodState state = this.current.get().peek();
+        if (state == null) {
+            return;
+        }
+        Frame frame = new Frame(step);
+        state.stack.push(frame);
+        frame.start_alloc = allocated();
+        frame.start = System.nanoTime();
+    }
+
+    @Override
+    public void endStep(Object step) {
+        long now = System.nanoTime();
+        long alloc = allocated();
+        MethodState state = this.current.get().peek();
+        if (state == null || state.stack.isEmpty()) {
+            return;
+        }
+        // steps which threw an exception that was caught by an outer step
+        // are closed along with it
+        Frame frame;
+        do {
+            frame = state.stack.pop();
+            endFrame(state, frame, now, alloc);
+        } while (frame.step != step && !state.stack.isEmpty());
+    }
+
+    private void endFrame(MethodState state, Frame frame, long now, long alloc) {
+        long time = now - frame.start;
+        long bytes = alloc - frame.start_alloc;
+        state.metrics.getStep(frame.step.getClass().getSimpleName()).add(time - frame.child_time, bytes - frame.child_alloc);
+        Frame parent = state.stack.peek();
+        if (parent != null) {
+            parent.child_time += time;
+            parent.child_alloc += bytes;
+        }
+    }
+
+    @Override
+    public void endMethod(MethodEntry method) {
+        long now = System.nanoTime();
+        long alloc = allocated();
+        Deque<MethodState> states = this.current.get();
+        MethodState state = states.poll();
+        if (state == null) {
+            return;
+        }
+        while (!state.stack.isEmpty()) {
+            endFrame(state, state.stack.pop(), now, alloc);
+        }
+        long time = now - state.start;
+        long bytes = alloc - state.start_alloc;
+        state.metrics.total.add(time - state.nested_time, bytes - state.nested_alloc);
+        this.methods.add(state.metrics);
+
+        MethodState outer = states.peek();
+        if (outer != null) {
+            outer.nested_time += time;
+            outer.nested_alloc += bytes;
+            Frame parent = outer.stack.peek();
+            if (parent != null) {
+                parent.child_time += time;
+                parent.child_alloc += bytes;
+            }
+        }
+    }
+
+    /**
+     * Gets the metrics of every method decompiled so far.
+     */
+    public List<MethodMetrics> getMethods() {
+        return new ArrayList<>(this.methods);
+    }
+
+    /**
+     * Gets the given number of methods which took the longest to decompile,
+     * slowest first.
+     */
+    public List<MethodMetrics> getSlowest(int count) {
+        List<MethodMetrics> all = getMethods();
+        all.sort(Comparator.comparingLong((MethodMetrics m) -> m.getTotal().getTime()).reversed());
+        return all.subList(0, Math.min(count, all.size()));
+    }
+
+    /**
+     * Gets the totals of each step over all methods, slowest first.
+     */
+    public List<Measurement> getStepTotals() {
+        Map<String, Measurement> steps = new HashMap<>();
+        for (MethodMetrics method : this.methods) {
+            for (Measurement step : method.getSteps()) {
+                steps.computeIfAbsent(step.getName(), Measurement::new).add(step);
+            }
+        }
+        return sorted(steps.values());
+    }
+
+    /**
+     * Gets the totals of the methods of each class, slowest first.
+     */
+    public List<Measurement> getClassTotals() {
+        Map<String, Measurement> classes = new HashMap<>();
+        for (MethodMetrics method : this.methods) {
+            classes.computeIfAbsent(method.getOwner(), Measurement::new).add(method.getTotal());
+        }
+        return sorted(classes.values());
+    }
+
+    private static List<Measurement> sorted(Collection<Measurement> values) {
+        List<Measurement> list = new ArrayList<>(values);
+        list.sort(Comparator.comparingLong(Measurement::getTime).reversed());
+        return list;
+    }
+
+    /**
+     * Prints the totals of each step and the given number of slowest methods.
+     */
+    public void printReport(PrintStream out, int top) {
+        List<MethodMetrics> all = getMethods();
+        long total = 0;
+        for (MethodMetrics method : all) {
+            total += method.getTotal().getTime();
+        }
+        out.println("Decompiled " + all.size() + " methods in " + millis(total) + "ms");
+        for (Measurement step : getStepTotals()) {
+            out.println("  " + step.getName() + ": " + millis(step.getTime()) + "ms" + allocatedString(step));
+        }
+        out.println("Slowest methods:");
+        for (MethodMetrics method : getSlowest(top)) {
+            out.println("  " + method.getOwner() + " " + method.getName() + method.getDescription() + ": " + millis(method.getTotal().getTime())
+                    + "ms" + allocatedString(method.getTotal()));
+        }
+    }
+
+    private String allocatedString(Measurement m) {
+        if (this.allocations == null) {
+            return "";
+        }
+        return " (" + m.getAllocated() / 1024 + "KiB allocated)";
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    /**
+     * Writes the totals of each step and class, and the metrics of every
+     * method, as csv. Times are in nanoseconds.
+     */
+    public void writeCsv(Writer writer) throws IOException {
+        writer.write("scope,class,method,step,count,time_ns,allocated_bytes\n");
+        for (Measurement step : getStepTotals()) {
+            writeCsvRow(writer, "step", "", "", step);
+        }
+        for (Measurement cls : getClassTotals()) {
+            writeCsvRow(writer, "class", cls.getName(), "", cls);
+        }
+        for (MethodMetrics method : getSlowest(Integer.MAX_VALUE)) {
+            String name = method.getName() + method.getDescription();
+            writeCsvRow(writer, "method", method.getOwner(), name, method.getTotal());
+            for (Measurement step : method.getSteps()) {
+                writeCsvRow(writer, "method_step", method.getOwner(), name, step);
+            }
+        }
+    }
+
+    private void writeCsvRow(Writer writer, String scope, String cls, String method, Measurement m) throws IOException {
+        String step = scope.endsWith("step") ? m.getName() : "";
+        writer.write(scope + "," + cls + "," + csvEscape(method) + "," + step + "," + m.getCount() + "," + m.getTime() + ","
+                + (this.allocations == null ? "" : String.valueOf(m.getAllocated())) + "\n");
+    }
+
+    private static String csvEscape(String value) {
+        if (value.indexOf(',') == -1 && value.indexOf('"') == -1) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    /**
+     * Writes the totals of each step and class, the metrics of every method
+     * and the given number of slowest methods as json. Times are in
+     * nanoseconds.
+     */
+    public void writeJson(Writer writer, int top) throws IOException {
+        List<MethodMetrics> slowest = getSlowest(Integer.MAX_VALUE);
+        writer.write("{\n  \"method_count\": " + slowest.size() + ",\n");
+        writer.write("  \"allocations_tracked\": " + (this.allocations != null) + ",\n");
+        writer.write("  \"steps\": [");
+        writeJsonList(writer, getStepTotals());
+        writer.write("],\n  \"classes\": [");
+        writeJsonList(writer, getClassTotals());
+        writer.write("],\n  \"slowest\": [");
+        writeJsonMethods(writer, slowest.subList(0, Math.min(top, slowest.size())));
+        writer.write("],\n  \"methods\": [");
+        writeJsonMethods(writer, slowest);
+        writer.write("]\n}\n");
+    }
+
+    private void writeJsonList(Writer writer, List<Measurement> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            writer.write(i == 0 ? "\n    " : ",\n    ");
+            writeJson(writer, values.get(i));
+        }
+        if (!values.isEmpty()) {
+            writer.write("\n  ");
+        }
+    }
+
+    private void writeJsonMethods(Writer writer, List<MethodMetrics> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            MethodMetrics method = values.get(i);
+            writer.write(i == 0 ? "\n    " : ",\n    ");
+            writer.write("{\"class\": " + jsonString(method.getOwner()) + ", \"method\": " + jsonString(method.getName()) + ", \"desc\": "
+                    + jsonString(method.getDescription()) + ", \"time_ns\": " + method.getTotal().getTime());
+            if (this.allocations != null) {
+                writer.write(", \"allocated_bytes\": " + method.getTotal().getAllocated());
+            }
+            writer.write(", \"steps\": [");
+            boolean first = true;
+            for (Measurement step : method.getSteps()) {
+                if (!first) {
+                    writer.write(", ");
+                }
+                first = false;
+                writeJson(writer, step);
+            }
+            writer.write("]}");
+        }
+        if (!values.isEmpty()) {
+            writer.write("\n  ");
+        }
+    }
+
+    private void writeJson(Writer writer, Measurement m) throws IOException {
+        writer.write("{\"name\": " + jsonString(m.getName()) + ", \"count\": " + m.getCount() + ", \"time_ns\": " + m.getTime());
+        if (this.allocations != null) {
+            writer.write(", \"allocated_bytes\": " + m.getAllocated());
+        }
+        writer.write("}");
+    }
+
+    private static String jsonString(String value) {
+        StringBuilder str = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                str.append('\\').append(c);
+            } else if (c < 0x20) {
+                str.append(String.format("\\u%04x", (int) c));
+            } else {
+                str.append(c);
+            }
+        }
+        return str.append('"').toString();
+    }
+
+    private static class MethodState {
+
+        final MethodMetrics metrics;
+        final Deque<Frame> stack = new ArrayDeque<>();
+        long start;
+        long start_alloc;
+        long nested_time;
+        long nested_alloc;
+
+        MethodState(MethodMetrics metrics) {
+            this.metrics = metrics;
+        }
+
+    }
+
+    private static class Frame {
+
+        final Object step;
+        long start;
+        long start_alloc;
+        long child_time;
+        long child_alloc;
+
+        Frame(Object step) {
+            this.step = step;
+        }
+
+    }
+
+    /**
+     * The metrics of a single decompiled method.
+     */
+    public static class MethodMetrics {
+
+        private final String owner;
+        private final String name;
+        private final String desc;
+        private final Measurement total;
+        private final Map<String, Measurement> steps = new LinkedHashMap<>();
+
+        public MethodMetrics(String owner, String name, String desc) {
+            this.owner = owner;
+            this.name = name;
+            this.desc = desc;
+            this.total = new Measurement(owner + " " + name + desc);
+        }
+
+        public String getOwner() {
+            return this.owner;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public String getDescription() {
+            return this.desc;
+        }
+
+        /**
+         * Gets the total time and allocations of the method.
+         */
+        public Measurement getTotal() {
+            return this.total;
+        }
+
+        /**
+         * Gets the time and allocations of each step applied to the method,
+         * in the order the steps were first applied.
+         */
+        public Collection<Measurement> getSteps() {
+            return this.steps.values();
+        }
+
+        Measurement getStep(String step) {
+            return this.steps.computeIfAbsent(step, Measurement::new);
+        }
+
+    }
+
+    /**
+     * An accumulated time and number of bytes allocated.
+     */
+    public static class Measurement {
+
+        private final String name;
+        private int count;
+        private long time;
+        private long allocated;
+
+        public Measurement(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        /**
+         * Gets the number of measurements accumulated.
+         */
+        public int getCount() {
+            return this.count;
+        }
+
+        /**
+         * Gets the accumulated time in nanoseconds.
+         */
+        public long getTime() {
+            return this.time;
+        }
+
+        /**
+         * Gets the accumulated bytes allocated, always zero if allocations
+         * were not tracked.
+         */
+        public long getAllocated() {
+            return this.allocated;
+        }
+
+        void add(long time, long allocated) {
+            this.count++;
+            this.time += time;
+            this.allocated += allocated;
+        }
+
+        void add(Measurement other) {
+            this.count += other.count;
+            this.time += other.time;
+            this.allocated += other.allocated;
+        }
+
+    }
+
+}
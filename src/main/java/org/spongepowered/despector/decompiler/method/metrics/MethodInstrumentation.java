@@ -0,0 +1,62 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.decompiler.method.metrics;
+
+import org.spongepowered.despector.ast.type.MethodEntry;
+import org.spongepowered.despector.decompiler.method.MethodDecompiler;
+
+/**
+ * Instrumentation which is notified as a {@link MethodDecompiler} decompiles
+ * each method and applies each of its steps. All calls for a method are made
+ * on the thread decompiling it, but several methods may be decompiled on
+ * different threads at once.
+ */
+public interface MethodInstrumentation {
+
+    /**
+     * Called before the body of the given method is decompiled.
+     */
+    void startMethod(MethodEntry method);
+
+    /**
+     * Called before the given step is applied to the current method. Steps
+     * may be nested, as graph processors process the regions they find with
+     * the region processors.
+     */
+    void startStep(Object step);
+
+    /**
+     * Called after the given step has been applied to the current method.
+     * This is not called if the step throws an exception.
+     */
+    void endStep(Object step);
+
+    /**
+     * Called once the given method has been decompiled, including if
+     * decompiling it failed.
+     */
+    void endMethod(MethodEntry method);
+
+}
@@ -26,6 +26,7 @@ package org.spongepowered.despector.emitter;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import org.spongepowered.despector.DecompilerSession;
 import org.spongepowered.despector.ast.insn.Instruction;
 import org.spongepowered.despector.ast.stmt.Statement;
 import org.spongepowered.despector.ast.type.FieldEntry;
@@ -39,6 +40,7 @@ import javax.annotation.Nullable;
 
 public abstract class AbstractEmitterContext {
 
+    protected final DecompilerSession session;
     protected EmitterSet set;
 
     protected TypeEntry type = null;
@@ -48,6 +50,17 @@ public abstract class AbstractEmitterContext {
     protected Statement statement;
     protected Deque<Instruction> insn_stack = new ArrayDeque<>();
 
+    protected AbstractEmitterContext(DecompilerSession session) {
+        this.session = checkNotNull(session, "session");
+    }
+
+    /**
+     * Gets the session that this context is emitting for.
+     */
+    public DecompilerSession getSession() {
+        return this.session;
+    }
+
     /**
      * Gets the current {@link EmitterSet}.
      */
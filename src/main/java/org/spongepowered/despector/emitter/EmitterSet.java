@@ -30,18 +30,71 @@ import org.spongepowered.despector.ast.insn.condition.Condition;
 import org.spongepowered.despector.ast.stmt.Statement;
 import org.spongepowered.despector.emitter.format.EmitterFormat;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A set of emitter operations.
+ *
+ * <p>The emitters for ast entries, statements, instructions and conditions are
+ * held in arrays indexed by a small kind id which is assigned to each class the
+ * first time it is seen, rather than in maps keyed by class. These are looked
+ * up once per emitted node.</p>
  */
 public class EmitterSet {
 
-    private final Map<Class<?>, AstEmitter<?,?>> emitters = new HashMap<>();
-    private final Map<Class<?>, StatementEmitter<?,?>> stmt_emitters = new HashMap<>();
-    private final Map<Class<?>, InstructionEmitter<?,?>> insn_emitters = new HashMap<>();
-    private final Map<Class<?>, ConditionEmitter<?,?>> cond_emitters = new HashMap<>();
+    private static final AtomicInteger next_kind = new AtomicInteger();
+    private static final ClassValue<Integer> kinds = new ClassValue<Integer>() {
+
+        @Override
+        protected Integer computeValue(Class<?> type) {
+            return next_kind.getAndIncrement();
+        }
+    };
+
+    /**
+     * Gets the kind id of the given class. Ids are dense and shared by all
+     * emitter sets.
+     */
+    public static int getKind(Class<?> type) {
+        return kinds.get(type);
+    }
+
+    private static <E> E get(E[] emitters, Class<?> type) {
+        int kind = kinds.get(type);
+        if (kind >= emitters.length) {
+            return null;
+        }
+        return emitters[kind];
+    }
+
+    private static <E> E[] set(E[] emitters, Class<?> type, E emitter) {
+        int kind = kinds.get(type);
+        if (kind >= emitters.length) {
+            emitters = Arrays.copyOf(emitters, Math.max(kind + 1, emitters.length * 2));
+        }
+        emitters[kind] = emitter;
+        return emitters;
+    }
+
+    private static <E> E[] merge(E[] emitters, E[] other) {
+        if (other.length > emitters.length) {
+            emitters = Arrays.copyOf(emitters, other.length);
+        }
+        for (int i = 0; i < other.length; i++) {
+            if (other[i] != null) {
+                emitters[i] = other[i];
+            }
+        }
+        return emitters;
+    }
+
+    private AstEmitter<?, ?>[] emitters = new AstEmitter<?, ?>[0];
+    private StatementEmitter<?, ?>[] stmt_emitters = new StatementEmitter<?, ?>[0];
+    private InstructionEmitter<?, ?>[] insn_emitters = new InstructionEmitter<?, ?>[0];
+    private ConditionEmitter<?, ?>[] cond_emitters = new ConditionEmitter<?, ?>[0];
     private final Map<Class<?>, SpecialEmitter> special_emitters = new HashMap<>();
 
     public EmitterSet() {
@@ -53,14 +106,14 @@ public class EmitterSet {
      */
     @SuppressWarnings("unchecked")
     public <C extends AbstractEmitterContext, T extends AstEntry> AstEmitter<C, T> getAstEmitter(Class<T> type) {
-        return (AstEmitter<C, T>) this.emitters.get(type);
+        return (AstEmitter<C, T>) get(this.emitters, type);
     }
 
     /**
      * Sets the given ast emitter for the given type.
      */
     public <T extends AstEntry> void setAstEmitter(Class<? extends T> type, AstEmitter<?, T> emitter) {
-        this.emitters.put(type, emitter);
+        this.emitters = set(this.emitters, type, emitter);
     }
 
     /**
@@ -68,14 +121,14 @@ public class EmitterSet {
      */
     @SuppressWarnings("unchecked")
     public <C extends AbstractEmitterContext, T extends Statement> StatementEmitter<C, T> getStatementEmitter(Class<T> type) {
-        return (StatementEmitter<C, T>) this.stmt_emitters.get(type);
+        return (StatementEmitter<C, T>) get(this.stmt_emitters, type);
     }
 
     /**
      * Sets the given statement emitter for the given type.
      */
     public <T extends Statement> void setStatementEmitter(Class<? extends T> type, StatementEmitter<?, T> emitter) {
-        this.stmt_emitters.put(type, emitter);
+        this.stmt_emitters = set(this.stmt_emitters, type, emitter);
     }
 
     /**
@@ -83,14 +136,14 @@ public class EmitterSet {
      */
     @SuppressWarnings("unchecked")
     public <C extends AbstractEmitterContext, T extends Instruction> InstructionEmitter<C, T> getInstructionEmitter(Class<T> type) {
-        return (InstructionEmitter<C, T>) this.insn_emitters.get(type);
+        return (InstructionEmitter<C, T>) get(this.insn_emitters, type);
     }
 
     /**
      * Sets the given instruction emitter for the given type.
      */
     public <T extends Instruction> void setInstructionEmitter(Class<? extends T> type, InstructionEmitter<?, T> emitter) {
-        this.insn_emitters.put(type, emitter);
+        this.insn_emitters = set(this.insn_emitters, type, emitter);
     }
 
     /**
@@ -98,14 +151,14 @@ public class EmitterSet {
      */
     @SuppressWarnings("unchecked")
     public <C extends AbstractEmitterContext, T extends Condition> ConditionEmitter<C, T> getConditionEmitter(Class<T> type) {
-        return (ConditionEmitter<C, T>) this.cond_emitters.get(type);
+        return (ConditionEmitter<C, T>) get(this.cond_emitters, type);
     }
 
     /**
      * Sets the given condition emitter for the given type.
      */
     public <T extends Condition> void setConditionEmitter(Class<T> type, ConditionEmitter<?, T> emitter) {
-        this.cond_emitters.put(type, emitter);
+        this.cond_emitters = set(this.cond_emitters, type, emitter);
     }
 
     /**
@@ -127,11 +180,11 @@ public class EmitterSet {
      * Clones the given {@link EmitterFormat} into this emitter set.
      */
     public void clone(EmitterSet other) {
-        this.emitters.putAll(other.emitters);
-        this.cond_emitters.putAll(other.cond_emitters);
-        this.insn_emitters.putAll(other.insn_emitters);
+        this.emitters = merge(this.emitters, other.emitters);
+        this.cond_emitters = merge(this.cond_emitters, other.cond_emitters);
+        this.insn_emitters = merge(this.insn_emitters, other.insn_emitters);
         this.special_emitters.putAll(other.special_emitters);
-        this.stmt_emitters.putAll(other.stmt_emitters);
+        this.stmt_emitters = merge(this.stmt_emitters, other.stmt_emitters);
     }
 
 }
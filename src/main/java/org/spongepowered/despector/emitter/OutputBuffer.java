@@ -0,0 +1,233 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.emitter;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A growable character sink for emitted source. Each thread keeps one pooled
+ * buffer which is reused across emitted files, along with a byte buffer that
+ * the characters are encoded into as UTF-8 before being written out as a
+ * whole.
+ */
+public final class OutputBuffer extends Writer {
+
+    private static final int INITIAL_SIZE = 16 * 1024;
+    /**
+     * Buffers which grew beyond this many characters are not kept by the pool
+     * once released, to avoid pinning the memory of one unusually large file.
+     */
+    private static final int MAX_RETAINED_SIZE = 1024 * 1024;
+
+    private static final ThreadLocal<OutputBuffer> POOL = ThreadLocal.withInitial(OutputBuffer::new);
+
+    /**
+     * Acquires the buffer of the current thread, or a fresh unpooled buffer if
+     * the thread's buffer is already in use. The buffer must be released once
+     * its contents have been consumed.
+     */
+    public static OutputBuffer acquire() {
+        OutputBuffer buffer = POOL.get();
+        if (buffer.in_use) {
+            buffer = new OutputBuffer();
+        }
+        buffer.in_use = true;
+        return buffer;
+    }
+
+    private char[] chars = new char[INITIAL_SIZE];
+    private int length = 0;
+    private byte[] bytes = new byte[0];
+    private boolean in_use = false;
+
+    private OutputBuffer() {
+    }
+
+    /**
+     * Gets the number of characters in this buffer.
+     */
+    public int length() {
+        return this.length;
+    }
+
+    private void ensureCapacity(int extra) {
+        int required = this.length + extra;
+        if (required > this.chars.length) {
+            this.chars = Arrays.copyOf(this.chars, Math.max(required, this.chars.length * 2));
+        }
+    }
+
+    @Override
+    public void write(int c) {
+        ensureCapacity(1);
+        this.chars[this.length++] = (char) c;
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) {
+        ensureCapacity(len);
+        System.arraycopy(cbuf, off, this.chars, this.length, len);
+        this.length += len;
+    }
+
+    @Override
+    public void write(String str) {
+        write(str, 0, str.length());
+    }
+
+    @Override
+    public void write(String str, int off, int len) {
+        ensureCapacity(len);
+        str.getChars(off, off + len, this.chars, this.length);
+        this.length += len;
+    }
+
+    @Override
+    public OutputBuffer append(CharSequence csq) {
+        if (csq == null) {
+            write("null");
+            return this;
+        }
+        return append(csq, 0, csq.length());
+    }
+
+    @Override
+    public OutputBuffer append(CharSequence csq, int start, int end) {
+        if (csq instanceof StringBuilder) {
+            // Copy straight out of the builder rather than through a
+            // temporary string
+            StringBuilder builder = (StringBuilder) csq;
+            int len = end - start;
+            ensureCapacity(len);
+            builder.getChars(start, end, this.chars, this.length);
+            this.length += len;
+        } else {
+            String str = String.valueOf(csq);
+            write(str, start, end - start);
+        }
+        return this;
+    }
+
+    /**
+     * Encodes the contents of this buffer as UTF-8 into the pooled byte buffer
+     * and returns the number of bytes written. Unpaired surrogates are replaced
+     * with '?' in the same way as the standard encoder.
+     */
+    private int encode() {
+        // A char encodes to at most 3 bytes, surrogate pairs take 4 bytes for
+        // two chars
+        int max = this.length * 3;
+        if (this.bytes.length < max) {
+            this.bytes = new byte[Math.max(max, this.bytes.length * 2)];
+        }
+        char[] src = this.chars;
+        byte[] dst = this.bytes;
+        int o = 0;
+        for (int i = 0; i < this.length; i++) {
+            char c = src[i];
+            if (c < 0x80) {
+                dst[o++] = (byte) c;
+            } else if (c < 0x800) {
+                dst[o++] = (byte) (0xC0 | (c >> 6));
+                dst[o++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < this.length && Character.isLowSurrogate(src[i + 1])) {
+                    int cp = Character.toCodePoint(c, src[++i]);
+                    dst[o++] = (byte) (0xF0 | (cp >> 18));
+                    dst[o++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                    dst[o++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                    dst[o++] = (byte) (0x80 | (cp & 0x3F));
+                } else {
+                    dst[o++] = '?';
+                }
+            } else {
+                dst[o++] = (byte) (0xE0 | (c >> 12));
+                dst[o++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                dst[o++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return o;
+    }
+
+    /**
+     * Writes the contents of this buffer to the given file as UTF-8,
+     * replacing any existing file.
+     */
+    public void writeTo(Path path) throws IOException {
+        int len = encode();
+        ByteBuffer data = ByteBuffer.wrap(this.bytes, 0, len);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+        }
+    }
+
+    /**
+     * Gets the contents of this buffer encoded as UTF-8.
+     */
+    public byte[] toByteArray() {
+        int len = encode();
+        return Arrays.copyOf(this.bytes, len);
+    }
+
+    @Override
+    public String toString() {
+        return new String(this.chars, 0, this.length);
+    }
+
+    /**
+     * Clears this buffer and returns it to the pool of the current thread.
+     */
+    public void release() {
+        checkState(this.in_use, "Buffer was not acquired");
+        this.length = 0;
+        this.in_use = false;
+        if (this.chars.length > MAX_RETAINED_SIZE) {
+            this.chars = new char[INITIAL_SIZE];
+        }
+        if (this.bytes.length > MAX_RETAINED_SIZE * 3) {
+            this.bytes = new byte[0];
+        }
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+
+}
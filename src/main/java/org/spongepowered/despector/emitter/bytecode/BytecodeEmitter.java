@@ -26,13 +26,12 @@ package org.spongepowered.despector.emitter.bytecode;
 
 import org.spongepowered.despector.ast.type.TypeEntry;
 import org.spongepowered.despector.emitter.Emitter;
-import org.spongepowered.despector.emitter.Emitters;
 
 public class BytecodeEmitter implements Emitter<BytecodeEmitterContext> {
 
     @Override
     public void setup(BytecodeEmitterContext ctx) {
-        ctx.setEmitterSet(Emitters.BYTECODE_SET);
+        ctx.setEmitterSet(ctx.getSession().getBytecodeEmitterSet());
     }
 
     @Override
@@ -29,6 +29,7 @@ import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.util.CheckClassAdapter;
+import org.spongepowered.despector.DecompilerSession;
 import org.spongepowered.despector.ast.AstEntry;
 import org.spongepowered.despector.ast.generic.TypeSignature;
 import org.spongepowered.despector.ast.insn.Instruction;
@@ -57,6 +58,11 @@ public class BytecodeEmitterContext extends AbstractEmitterContext {
     private int current_stack_size;
 
     public BytecodeEmitterContext(OutputStream out) {
+        this(out, DecompilerSession.getDefault());
+    }
+
+    public BytecodeEmitterContext(OutputStream out, DecompilerSession session) {
+        super(session);
         this.out = out;
     }
 
@@ -26,60 +26,46 @@ package org.spongepowered.despector.emitter.java;
 
 import com.google.common.collect.Lists;
 import org.spongepowered.despector.ast.Annotation;
-import org.spongepowered.despector.ast.Annotation.EnumConstant;
-import org.spongepowered.despector.ast.Locals.LocalInstance;
-import org.spongepowered.despector.ast.generic.ClassTypeSignature;
-import org.spongepowered.despector.ast.generic.GenericClassTypeSignature;
-import org.spongepowered.despector.ast.generic.TypeArgument;
 import org.spongepowered.despector.ast.generic.TypeParameter;
 import org.spongepowered.despector.ast.generic.TypeSignature;
-import org.spongepowered.despector.ast.insn.InstructionVisitor;
-import org.spongepowered.despector.ast.insn.cst.DoubleConstant;
-import org.spongepowered.despector.ast.insn.cst.FloatConstant;
-import org.spongepowered.despector.ast.insn.cst.IntConstant;
-import org.spongepowered.despector.ast.insn.cst.LongConstant;
-import org.spongepowered.despector.ast.insn.cst.NullConstant;
-import org.spongepowered.despector.ast.insn.cst.StringConstant;
-import org.spongepowered.despector.ast.insn.cst.TypeConstant;
-import org.spongepowered.despector.ast.insn.misc.Cast;
-import org.spongepowered.despector.ast.insn.misc.InstanceOf;
-import org.spongepowered.despector.ast.insn.misc.MultiNewArray;
-import org.spongepowered.despector.ast.insn.misc.NewArray;
-import org.spongepowered.despector.ast.insn.misc.NumberCompare;
-import org.spongepowered.despector.ast.insn.misc.Ternary;
-import org.spongepowered.despector.ast.insn.op.NegativeOperator;
-import org.spongepowered.despector.ast.insn.op.Operator;
-import org.spongepowered.despector.ast.insn.var.ArrayAccess;
-import org.spongepowered.despector.ast.insn.var.InstanceFieldAccess;
-import org.spongepowered.despector.ast.insn.var.LocalAccess;
-import org.spongepowered.despector.ast.insn.var.StaticFieldAccess;
-import org.spongepowered.despector.ast.stmt.invoke.DynamicInvoke;
-import org.spongepowered.despector.ast.stmt.invoke.InstanceMethodInvoke;
-import org.spongepowered.despector.ast.stmt.invoke.New;
-import org.spongepowered.despector.ast.stmt.invoke.StaticMethodInvoke;
 import org.spongepowered.despector.ast.type.FieldEntry;
 import org.spongepowered.despector.ast.type.MethodEntry;
 import org.spongepowered.despector.ast.type.TypeEntry;
 import org.spongepowered.despector.ast.type.TypeEntry.InnerClassInfo;
+import org.spongepowered.despector.util.ReferencedTypes;
 import org.spongepowered.despector.util.TypeHelper;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+import javax.annotation.Nullable;
+
 /**
  * A manager which handles determining which types should be imported and
  * whether a given type is already imported.
+ *
+ * <p>The types referenced from method bodies are recorded by each method as it
+ * is decompiled, so calculating the imports of a type only visits its
+ * signatures and annotations and merges in the recorded types.</p>
  */
 public class ImportManager {
 
     private final List<String> implicit_imports = new ArrayList<>();
+    private final Set<String> implicit_packages = new HashSet<>();
     private final Set<String> imports = new HashSet<>();
+    private final Set<String> implicit_referenced = new HashSet<>();
     private final Set<TypeEntry> checked = new HashSet<>();
 
+    private final Map<String, String> type_names = new HashMap<>();
+    private final Map<String, String> descriptor_names = new HashMap<>();
+    @Nullable private TypeEntry name_scope;
+
     public ImportManager() {
         addImplicitImport("java/lang/");
     }
@@ -89,7 +75,40 @@ public class ImportManager {
      */
     public void reset() {
         this.imports.clear();
+        this.implicit_referenced.clear();
         this.checked.clear();
+        clearNameCaches();
+    }
+
+    private void clearNameCaches() {
+        this.type_names.clear();
+        this.descriptor_names.clear();
+    }
+
+    private void checkNameScope(@Nullable TypeEntry scope) {
+        if (scope != this.name_scope) {
+            this.name_scope = scope;
+            clearNameCaches();
+        }
+    }
+
+    /**
+     * Gets the cache of the emitted names of internal type names within the
+     * given type. The cache is cleared whenever the imports or the scope type
+     * change.
+     */
+    public Map<String, String> getTypeNameCache(@Nullable TypeEntry scope) {
+        checkNameScope(scope);
+        return this.type_names;
+    }
+
+    /**
+     * Gets the cache of the emitted names of type descriptors within the given
+     * type. The cache is cleared whenever the imports or the scope type change.
+     */
+    public Map<String, String> getDescriptorNameCache(@Nullable TypeEntry scope) {
+        checkNameScope(scope);
+        return this.descriptor_names;
     }
 
     /**
@@ -102,6 +121,8 @@ public class ImportManager {
     public void addImplicitImport(String i) {
         if (!this.implicit_imports.contains(i)) {
             this.implicit_imports.add(i);
+            this.implicit_packages.add(i);
+            clearNameCaches();
         }
     }
 
@@ -114,28 +135,36 @@ public class ImportManager {
             return;
         }
         this.checked.add(type);
-        ImportWalker walker = new ImportWalker();
+        ReferencedTypes refs = new ReferencedTypes();
 
         for (Annotation anno : type.getAnnotations()) {
-            check(anno);
+            refs.add(anno);
         }
         for (String i : type.getInterfaces()) {
-            add("L" + i + ";");
+            refs.addDescriptor("L" + i + ";");
         }
         for (MethodEntry method : type.getStaticMethods()) {
-            check(method, walker);
+            check(method, refs);
         }
         for (MethodEntry method : type.getMethods()) {
-            check(method, walker);
+            check(method, refs);
         }
         for (FieldEntry field : type.getStaticFields()) {
-            check(field);
+            check(field, refs);
         }
         for (FieldEntry field : type.getFields()) {
-            check(field);
+            check(field, refs);
+        }
+        for (String referenced : refs.getTypes()) {
+            addReferenced(referenced);
         }
         for (InnerClassInfo info : type.getInnerClasses()) {
-            TypeEntry inner = type.getSource().get(info.getName());
+            if (info.getOuterName() != null && !info.getOuterName().equals(type.getName())) {
+                // inner classes of other types which are only referenced from
+                // this type are emitted with their own outer type
+                continue;
+            }
+            TypeEntry inner = type.getSource().getFull(info.getName());
             if (inner != null && inner != type) {
                 calculateImports(inner);
             }
@@ -146,93 +175,62 @@ public class ImportManager {
      * Adds the given type descriptor to the list of imports.
      */
     void add(String desc) {
-        if (desc.startsWith("[")) {
-            add(desc.substring(1));
-            return;
-        }
-        if (!desc.startsWith("L")) {
-            return;
-        }
-        String type = TypeHelper.descToType(desc);
-        if (type.indexOf('$') != -1) {
-            type = type.substring(0, type.indexOf('$'));
-        }
-        for (String implicit : this.implicit_imports) {
-            if (type.startsWith(implicit) && type.lastIndexOf('/') <= implicit.length()) {
-                return;
-            }
+        String type = ReferencedTypes.toReferencedName(desc);
+        if (type != null) {
+            addReferenced(type);
         }
-        this.imports.add(type);
     }
 
-    private void check(Annotation anno) {
-        add(anno.getType().getName());
-        for (String key : anno.getKeys()) {
-            Object val = anno.getValue(key);
-            checkAnnotationValue(val);
+    /**
+     * Adds the given outer type name, as collected by {@link ReferencedTypes},
+     * to the list of imports unless its package is implicitly imported.
+     */
+    private void addReferenced(String type) {
+        if (this.imports.contains(type)) {
+            return;
         }
-    }
-
-    private void checkAnnotationValue(Object val) {
-        if (val instanceof ClassTypeSignature) {
-            add(((ClassTypeSignature) val).getDescriptor());
-        } else if (val instanceof GenericClassTypeSignature) {
-            add(((ClassTypeSignature) val).getDescriptor());
-        } else if (val instanceof EnumConstant) {
-            add(((EnumConstant) val).getEnumType());
-        } else if (val instanceof List) {
-            for (Object obj : (List<?>) val) {
-                checkAnnotationValue(obj);
-            }
+        String pkg = type.substring(0, type.lastIndexOf('/') + 1);
+        if (this.implicit_packages.contains(pkg)) {
+            this.implicit_referenced.add(type);
+            return;
         }
+        this.imports.add(type);
+        clearNameCaches();
     }
 
-    private void check(MethodEntry method, ImportWalker walker) {
+    private void check(MethodEntry method, ReferencedTypes refs) {
         for (Annotation anno : method.getAnnotations()) {
-            check(anno);
+            refs.add(anno);
         }
-        if (!method.isAbstract()) {
-            method.getInstructions().accept(walker);
+        for (String referenced : method.getReferencedTypes()) {
+            addReferenced(referenced);
         }
-        check(method.getReturnType());
+        refs.add(method.getReturnType());
         for (TypeSignature param : method.getParamTypes()) {
-            check(param);
+            refs.add(param);
         }
         for (TypeSignature ex : method.getMethodSignature().getThrowsSignature()) {
-            check(ex);
+            refs.add(ex);
         }
         for (TypeParameter arg : method.getMethodSignature().getTypeParameters()) {
             if (arg.getClassBound() != null) {
-                check(arg.getClassBound());
+                refs.add(arg.getClassBound());
             }
             for (TypeSignature sig : arg.getInterfaceBounds()) {
-                check(sig);
+                refs.add(sig);
             }
         }
     }
 
-    private void check(FieldEntry field) {
+    private void check(FieldEntry field, ReferencedTypes refs) {
         for (Annotation anno : field.getAnnotations()) {
-            check(anno);
+            refs.add(anno);
         }
-        check(field.getType());
+        refs.add(field.getType());
         // Field initializer is still within the ctor and will be walked with
         // the methods
     }
 
-    void check(TypeSignature sig) {
-        if (sig instanceof ClassTypeSignature) {
-            ClassTypeSignature cls = (ClassTypeSignature) sig;
-            add(cls.getDescriptor());
-        } else if (sig instanceof GenericClassTypeSignature) {
-            GenericClassTypeSignature cls = (GenericClassTypeSignature) sig;
-            add(cls.getDescriptor());
-            for (TypeArgument param : cls.getArguments()) {
-                check(param.getSignature());
-            }
-        }
-    }
-
     /**
      * Checks if the given type is imported.
      */
@@ -251,6 +249,45 @@ public class ImportManager {
         return this.imports.contains(type);
     }
 
+    private static String getSimpleName(String type) {
+        return type.substring(type.lastIndexOf('/') + 1);
+    }
+
+    /**
+     * Removes the imports whose simple name is already taken so that those
+     * types are emitted fully qualified. The outer type and its inner
+     * classes keep their names first, then types of the same package, then
+     * the implicitly imported types, and of any other imports sharing a
+     * simple name only the first in name order is imported.
+     */
+    private void removeClashingImports(TypeEntry outer) {
+        String outer_name = outer.getName();
+        String pkg = outer_name.substring(0, outer_name.lastIndexOf('/') + 1);
+        Map<String, String> taken = new HashMap<>();
+        taken.put(getSimpleName(outer_name), outer_name);
+        for (InnerClassInfo info : outer.getInnerClasses()) {
+            if (outer_name.equals(info.getOuterName()) && info.getSimpleName() != null) {
+                taken.putIfAbsent(info.getSimpleName(), info.getName());
+            }
+        }
+        List<String> sorted = Lists.newArrayList(this.imports);
+        Collections.sort(sorted);
+        for (String i : sorted) {
+            if (i.startsWith(pkg) && i.indexOf('/', pkg.length()) == -1) {
+                taken.putIfAbsent(getSimpleName(i), i);
+            }
+        }
+        for (String i : this.implicit_referenced) {
+            taken.putIfAbsent(getSimpleName(i), i);
+        }
+        for (String i : sorted) {
+            taken.putIfAbsent(getSimpleName(i), i);
+        }
+        if (this.imports.removeIf((i) -> !i.equals(taken.get(getSimpleName(i))))) {
+            clearNameCaches();
+        }
+    }
+
     /**
      * Emits the imports to the given emitter context.
      */
@@ -259,8 +296,10 @@ public class ImportManager {
             String i = it.next();
             if (i.equals(ctx.getOuterType().getName())) {
                 it.remove();
+                clearNameCaches();
             }
         }
+        removeClashingImports(ctx.getOuterType());
         List<String> imports = Lists.newArrayList(this.imports);
         for (int i = 0; i < ctx.getFormat().import_order.size(); i++) {
             String group = ctx.getFormat().import_order.get(i);
@@ -296,116 +335,4 @@ public class ImportManager {
         }
     }
 
-    /**
-     * A visitor to gather types needing to be imported.
-     */
-    private class ImportWalker implements InstructionVisitor {
-
-        public ImportWalker() {
-        }
-
-        @Override
-        public void visitCast(Cast cast) {
-            ImportManager.this.check(cast.getType());
-        }
-
-        @Override
-        public void visitLocalInstance(LocalInstance local) {
-            ImportManager.this.check(local.getType());
-        }
-
-        @Override
-        public void visitTypeConstant(TypeConstant cst) {
-            ImportManager.this.add(cst.getConstant().getDescriptor());
-        }
-
-        @Override
-        public void visitNew(New ne) {
-            ImportManager.this.check(ne.getType());
-        }
-
-        @Override
-        public void visitArrayAccess(ArrayAccess insn) {
-        }
-
-        @Override
-        public void visitDoubleConstant(DoubleConstant insn) {
-        }
-
-        @Override
-        public void visitDynamicInvoke(DynamicInvoke insn) {
-        }
-
-        @Override
-        public void visitFloatConstant(FloatConstant insn) {
-        }
-
-        @Override
-        public void visitInstanceFieldAccess(InstanceFieldAccess insn) {
-        }
-
-        @Override
-        public void visitInstanceMethodInvoke(InstanceMethodInvoke insn) {
-        }
-
-        @Override
-        public void visitInstanceOf(InstanceOf insn) {
-        }
-
-        @Override
-        public void visitIntConstant(IntConstant insn) {
-        }
-
-        @Override
-        public void visitLocalAccess(LocalAccess insn) {
-        }
-
-        @Override
-        public void visitLongConstant(LongConstant insn) {
-        }
-
-        @Override
-        public void visitNegativeOperator(NegativeOperator insn) {
-        }
-
-        @Override
-        public void visitNewArray(NewArray insn) {
-        }
-
-        @Override
-        public void visitNullConstant(NullConstant insn) {
-        }
-
-        @Override
-        public void visitNumberCompare(NumberCompare insn) {
-        }
-
-        @Override
-        public void visitOperator(Operator insn) {
-        }
-
-        @Override
-        public void visitStaticFieldAccess(StaticFieldAccess insn) {
-        }
-
-        @Override
-        public void visitStaticMethodInvoke(StaticMethodInvoke insn) {
-        }
-
-        @Override
-        public void visitStringConstant(StringConstant insn) {
-        }
-
-        @Override
-        public void visitTernary(Ternary insn) {
-        }
-
-        @Override
-        public void visitMultiNewArray(MultiNewArray insn) {
-            // TODO Auto-generated method stub
-            
-        }
-
-    }
-
 }
@@ -26,7 +26,6 @@ package org.spongepowered.despector.emitter.java;
 
 import org.spongepowered.despector.ast.type.TypeEntry;
 import org.spongepowered.despector.emitter.Emitter;
-import org.spongepowered.despector.emitter.Emitters;
 
 /**
  * A java source emitter.
@@ -36,7 +35,7 @@ public class JavaEmitter implements Emitter<JavaEmitterContext> {
     @Override
     public void setup(JavaEmitterContext ctx) {
         ctx.setSemicolons(true);
-        ctx.setEmitterSet(Emitters.JAVA_SET);
+        ctx.setEmitterSet(ctx.getSession().getJavaEmitterSet());
     }
 
     @Override
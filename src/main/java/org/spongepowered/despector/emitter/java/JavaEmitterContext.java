@@ -28,6 +28,7 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.google.common.collect.Sets;
+import org.spongepowered.despector.DecompilerSession;
 import org.spongepowered.despector.ast.Annotation;
 import org.spongepowered.despector.ast.AstEntry;
 import org.spongepowered.despector.ast.Locals.LocalInstance;
@@ -61,9 +62,9 @@ import org.spongepowered.despector.emitter.java.special.PackageEmitter;
 import org.spongepowered.despector.emitter.java.special.PackageInfoEmitter;
 import org.spongepowered.despector.util.TypeHelper;
 
-import java.io.IOException;
 import java.io.Writer;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -74,24 +75,27 @@ public class JavaEmitterContext extends AbstractEmitterContext {
     private final ImportManager import_manager = new ImportManager();
 
     private EmitterFormat format;
-    private Writer output;
+    private final LineLayout layout;
     private Set<LocalInstance> defined_locals = Sets.newHashSet();
 
-    private int indentation = 0;
-    private int offs = 0;
-
     private boolean semicolons = true;
 
-    private int line_length = 0;
-    private int wrap_point = -1;
-    private StringBuilder line_buffer = new StringBuilder();
-    private boolean is_wrapped = false;
+    private final StringBuilder scratch = new StringBuilder();
 
     private final Set<Class<? extends Statement>> block_statements = new HashSet<>();
 
     public JavaEmitterContext(Writer output, EmitterFormat format) {
-        this.output = output;
+        this(output, format, DecompilerSession.getDefault());
+    }
+
+    public JavaEmitterContext(Writer output, DecompilerSession session) {
+        this(output, session.getFormatter(), session);
+    }
+
+    public JavaEmitterContext(Writer output, EmitterFormat format, DecompilerSession session) {
+        super(session);
         this.format = format;
+        this.layout = new LineLayout(output, format);
 
         this.block_statements.add(DoWhile.class);
         this.block_statements.add(While.class);
@@ -247,7 +251,7 @@ public class JavaEmitterContext extends AbstractEmitterContext {
                 printIndentation();
             }
             should_indent = true;
-            int mark = this.offs;
+            long mark = this.layout.getPosition();
             emit(insn, this.semicolons);
             if (this.block_statements.contains(insn.getClass())) {
                 if (i < instructions.getStatementCount() - 1) {
@@ -261,7 +265,7 @@ public class JavaEmitterContext extends AbstractEmitterContext {
                     }
                 }
             }
-            if (this.offs == mark) {
+            if (this.layout.getPosition() == mark) {
                 should_indent = false;
                 last_success = false;
             }
@@ -335,7 +339,7 @@ public class JavaEmitterContext extends AbstractEmitterContext {
      * Increases the indentation level by one.
      */
     public JavaEmitterContext indent() {
-        this.indentation++;
+        this.layout.indent();
         return this;
     }
 
@@ -343,7 +347,7 @@ public class JavaEmitterContext extends AbstractEmitterContext {
      * Decreases the indentation level by one.
      */
     public JavaEmitterContext dedent() {
-        this.indentation--;
+        this.layout.dedent();
         return this;
     }
 
@@ -351,15 +355,7 @@ public class JavaEmitterContext extends AbstractEmitterContext {
      * Prints the required indentation for the current indentation level.
      */
     public JavaEmitterContext printIndentation() {
-        if (this.format.indent_with_spaces) {
-            for (int i = 0; i < this.indentation * this.format.indentation_size; i++) {
-                printString(" ");
-            }
-        } else {
-            for (int i = 0; i < this.indentation; i++) {
-                printString("\t");
-            }
-        }
+        this.layout.printIndentation();
         return this;
     }
 
@@ -368,7 +364,13 @@ public class JavaEmitterContext extends AbstractEmitterContext {
      * account.
      */
     public String getType(String name) {
-        return getTypeName(TypeHelper.descToType(name));
+        Map<String, String> cache = this.import_manager.getDescriptorNameCache(this.type);
+        String type_name = cache.get(name);
+        if (type_name == null) {
+            type_name = getTypeName(TypeHelper.descToType(name));
+            cache.put(name, type_name);
+        }
+        return type_name;
     }
 
     /**
@@ -376,6 +378,16 @@ public class JavaEmitterContext extends AbstractEmitterContext {
      * account.
      */
     public String getTypeName(String name) {
+        Map<String, String> cache = this.import_manager.getTypeNameCache(this.type);
+        String type_name = cache.get(name);
+        if (type_name == null) {
+            type_name = createTypeName(name);
+            cache.put(name, type_name);
+        }
+        return type_name;
+    }
+
+    private String createTypeName(String name) {
         if (name.endsWith("[]")) {
             String n = getTypeName(name.substring(0, name.length() - 2));
             if (this.format.insert_space_before_opening_bracket_in_array_type_reference) {
@@ -428,7 +440,7 @@ public class JavaEmitterContext extends AbstractEmitterContext {
      * Emits the given type descriptor taking imports into account.
      */
     public JavaEmitterContext emitType(String name) {
-        emitTypeName(TypeHelper.descToType(name));
+        printString(getType(name));
         return this;
     }
 
@@ -454,13 +466,7 @@ public class JavaEmitterContext extends AbstractEmitterContext {
      * Inserts a new line.
      */
     public JavaEmitterContext newLine() {
-        __newLine();
-        if (this.is_wrapped) {
-            for (int i = 0; i < this.format.continuation_indentation; i++) {
-                dedent();
-            }
-            this.is_wrapped = false;
-        }
+        this.layout.newLine();
         return this;
     }
 
@@ -468,27 +474,7 @@ public class JavaEmitterContext extends AbstractEmitterContext {
      * Flushes the line buffer to the output.
      */
     public void flush() {
-        try {
-            this.output.write(this.line_buffer.toString());
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-    }
-
-    /**
-     * inserts a new line without resetting wrapping.
-     */
-    private void __newLine() {
-        flush();
-        this.offs += 1;
-        try {
-            this.output.write('\n');
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-        this.line_length = 0;
-        this.wrap_point = -1;
-        this.line_buffer.setLength(0);
+        this.layout.flush();
     }
 
     /**
@@ -503,7 +489,18 @@ public class JavaEmitterContext extends AbstractEmitterContext {
      * Gets the length of the current line.
      */
     public int getCurrentLength() {
-        return this.line_length;
+        return this.layout.getLineLength();
+    }
+
+    /**
+     * Gets a builder owned by this context which text may be assembled in
+     * before being printed with {@link #printString(CharSequence)}. The builder
+     * is cleared by each call so it must not be held while emitting other
+     * nodes.
+     */
+    public StringBuilder getScratchBuffer() {
+        this.scratch.setLength(0);
+        return this.scratch;
     }
 
     /**
@@ -511,26 +508,22 @@ public class JavaEmitterContext extends AbstractEmitterContext {
      */
     public JavaEmitterContext printString(String line) {
         checkArgument(line.indexOf('\n') == -1);
-        this.offs += this.line_buffer.length();
-        this.line_length += line.length();
-        this.line_buffer.append(line);
-        if (this.line_length > this.format.line_split) {
-            if (this.wrap_point != -1) {
-                String existing = this.line_buffer.toString();
-                String next = existing.substring(this.wrap_point);
-                this.line_buffer.setLength(this.wrap_point);
-                this.wrap_point = -1;
-                newLine();
-                if (!this.is_wrapped) {
-                    this.is_wrapped = true;
-                    for (int i = 0; i < this.format.continuation_indentation; i++) {
-                        indent();
-                    }
-                }
-                printIndentation();
-                printString(next);
-            }
+        return print(line);
+    }
+
+    /**
+     * Prints the given characters to the output without first copying them
+     * into a string.
+     */
+    public JavaEmitterContext printString(CharSequence line) {
+        for (int i = 0; i < line.length(); i++) {
+            checkArgument(line.charAt(i) != '\n');
         }
+        return print(line);
+    }
+
+    private JavaEmitterContext print(CharSequence line) {
+        this.layout.print(line);
         return this;
     }
 
@@ -552,20 +545,6 @@ public class JavaEmitterContext extends AbstractEmitterContext {
         return this;
     }
 
-    /**
-     * Wraps the current line at the current position.
-     */
-    private void wrap(boolean indent) {
-        __newLine();
-        if (!this.is_wrapped && indent) {
-            this.is_wrapped = true;
-            for (int i = 0; i < this.format.continuation_indentation; i++) {
-                indent();
-            }
-        }
-        printIndentation();
-    }
-
     /**
      * Marks the current line posittion as a possible line break point depending
      * on the given wrapping style and index.
@@ -575,25 +554,25 @@ public class JavaEmitterContext extends AbstractEmitterContext {
         case DO_NOT_WRAP:
             break;
         case WRAP_ALL:
-            wrap(false);
+            this.layout.wrap(false);
             break;
         case WRAP_ALL_AND_INDENT:
-            wrap(true);
+            this.layout.wrap(true);
             break;
         case WRAP_ALL_EXCEPT_FIRST:
             if (index != 0) {
-                wrap(true);
+                this.layout.wrap(true);
             }
             break;
         case WRAP_FIRST_OR_NEEDED:
             if (index == 0) {
-                wrap(true);
+                this.layout.wrap(true);
             } else {
-                this.wrap_point = this.line_length;
+                this.layout.markWrapPoint();
             }
             break;
         case WRAP_WHEN_NEEDED:
-            this.wrap_point = this.line_length;
+            this.layout.markWrapPoint();
             break;
         default:
             break;
@@ -601,6 +580,23 @@ public class JavaEmitterContext extends AbstractEmitterContext {
         return this;
     }
 
+    /**
+     * Begins a group of wrap points, such as an argument list, which are only
+     * broken once the line can not be broken at a point outside of it.
+     */
+    public JavaEmitterContext beginGroup() {
+        this.layout.beginGroup();
+        return this;
+    }
+
+    /**
+     * Ends the innermost group of wrap points.
+     */
+    public JavaEmitterContext endGroup() {
+        this.layout.endGroup();
+        return this;
+    }
+
     /**
      * Emits an opening brace with a position depending on the given
      * {@link BracePosition}.
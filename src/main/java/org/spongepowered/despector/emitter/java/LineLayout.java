@@ -0,0 +1,369 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.emitter.java;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.base.Strings;
+import org.spongepowered.despector.emitter.format.EmitterFormat;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Lays out the text printed by the emitters into lines on its way to the
+ * output, deciding where long lines are wrapped as the text arrives.
+ *
+ * <p>The text of the current line is held until the line ends. Emitters mark
+ * the points where the line may be broken and group the text of argument
+ * lists, array initializers and call chains, in the manner of an Oppen style
+ * printer. Once the line grows past {@link EmitterFormat#line_split} it is
+ * broken at a marked point of the outermost group which has one on the line,
+ * the last such point if there are several, so an argument list is split
+ * between its arguments before any of the arguments is split itself. A break
+ * in a group indents the continuation line one continuation past the line the
+ * group began on, so nested groups are indented further than their parents.
+ * Breaks outside of any group continue the statement at a single continuation
+ * indentation as before.</p>
+ *
+ * <p>The text before a break is written out and only the text after it is
+ * kept, so every character is moved at most once by a break and laying out a
+ * line is linear in its length. Breaks which are forced by a
+ * {@link EmitterFormat.WrappingStyle} are taken immediately.</p>
+ */
+public class LineLayout {
+
+    private final Writer output;
+    private final EmitterFormat format;
+
+    private final StringBuilder line = new StringBuilder();
+    private int line_length = 0;
+    private boolean is_wrapped = false;
+    // the indentation level of the current line, taken when the line is
+    // begun, or -1 if nothing has been printed on it yet
+    private int line_level = -1;
+
+    private int indentation = 0;
+    private String[] indentations = new String[8];
+    private long position = 0;
+
+    // the open groups, with the position in the line that each began at or
+    // -1 if it began on an earlier line, in which case the indentation level
+    // of that line is kept instead
+    private int depth = 0;
+    private int base_depth = 0;
+    private int[] group_start = new int[8];
+    private int[] group_level = new int[8];
+
+    // the marked points of the current line, with the depth and the start of
+    // the group each was marked in
+    private int break_count = 0;
+    private int[] break_position = new int[8];
+    private int[] break_depth = new int[8];
+    private int[] break_group_start = new int[8];
+    private int[] break_group_level = new int[8];
+
+    public LineLayout(Writer output, EmitterFormat format) {
+        this.output = output;
+        this.format = format;
+    }
+
+    /**
+     * Gets the current indentation level.
+     */
+    public int getIndentation() {
+        return this.indentation;
+    }
+
+    /**
+     * Increases the indentation level by one.
+     */
+    public void indent() {
+        this.indentation++;
+    }
+
+    /**
+     * Decreases the indentation level by one.
+     */
+    public void dedent() {
+        this.indentation--;
+    }
+
+    /**
+     * Gets the length of the current line.
+     */
+    public int getLineLength() {
+        return this.line_length;
+    }
+
+    /**
+     * Gets the number of characters laid out so far, including new lines.
+     */
+    public long getPosition() {
+        return this.position;
+    }
+
+    /**
+     * Gets the number of groups currently open.
+     */
+    public int getGroupDepth() {
+        return this.depth;
+    }
+
+    private int getLineLevel() {
+        return this.line_level == -1 ? this.indentation : this.line_level;
+    }
+
+    private String getIndentationString(int level) {
+        if (level <= 0) {
+            return "";
+        }
+        if (level >= this.indentations.length) {
+            this.indentations = Arrays.copyOf(this.indentations, level * 2);
+        }
+        String indent = this.indentations[level];
+        if (indent == null) {
+            if (this.format.indent_with_spaces) {
+                indent = Strings.repeat(" ", level * this.format.indentation_size);
+            } else {
+                indent = Strings.repeat("\t", level);
+            }
+            this.indentations[level] = indent;
+        }
+        return indent;
+    }
+
+    /**
+     * Prints the indentation for the current indentation level.
+     */
+    public void printIndentation() {
+        String indent = getIndentationString(this.indentation);
+        if (!indent.isEmpty()) {
+            print(indent);
+        }
+    }
+
+    /**
+     * Prints the given text, which must not contain a new line, breaking the
+     * line at a marked point if it is now too long.
+     */
+    public void print(CharSequence text) {
+        if (this.line_level == -1) {
+            this.line_level = this.indentation;
+        }
+        this.position += text.length();
+        this.line_length += text.length();
+        this.line.append(text);
+        while (this.line_length > this.format.line_split && this.break_count > 0) {
+            breakLine(chooseBreak());
+        }
+    }
+
+    /**
+     * Begins a group, the marked points within which are only broken once
+     * the line can not be broken at a point of an enclosing group.
+     */
+    public void beginGroup() {
+        if (this.depth == this.group_start.length) {
+            this.group_start = Arrays.copyOf(this.group_start, this.depth * 2);
+            this.group_level = Arrays.copyOf(this.group_level, this.depth * 2);
+        }
+        this.group_start[this.depth] = this.line.length();
+        this.group_level[this.depth] = 0;
+        this.depth++;
+    }
+
+    /**
+     * Ends the innermost open group.
+     */
+    public void endGroup() {
+        checkState(this.depth > 0, "No group to end");
+        this.depth--;
+        this.base_depth = Math.min(this.base_depth, this.depth);
+    }
+
+    /**
+     * Marks the current position as a point where the line may be broken if
+     * it grows too long.
+     */
+    public void markWrapPoint() {
+        int index = this.break_count;
+        if (index == this.break_position.length) {
+            this.break_position = Arrays.copyOf(this.break_position, index * 2);
+            this.break_depth = Arrays.copyOf(this.break_depth, index * 2);
+            this.break_group_start = Arrays.copyOf(this.break_group_start, index * 2);
+            this.break_group_level = Arrays.copyOf(this.break_group_level, index * 2);
+        }
+        this.break_position[index] = this.line.length();
+        this.break_depth[index] = this.depth;
+        if (this.depth > 0) {
+            this.break_group_start[index] = this.group_start[this.depth - 1];
+            this.break_group_level[index] = this.group_level[this.depth - 1];
+        }
+        this.break_count++;
+    }
+
+    private int chooseBreak() {
+        // the last point of the outermost group, points outside of any group
+        // opened since the statement began count as outermost
+        int chosen = 0;
+        int chosen_depth = Integer.MAX_VALUE;
+        for (int i = 0; i < this.break_count; i++) {
+            int break_depth = Math.max(this.break_depth[i], this.base_depth);
+            if (break_depth <= chosen_depth) {
+                chosen = i;
+                chosen_depth = break_depth;
+            }
+        }
+        return chosen;
+    }
+
+    private void breakLine(int index) {
+        int wrap_point = this.break_position[index];
+        try {
+            this.output.append(this.line, 0, wrap_point);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        write('\n');
+        this.position++;
+        int last_level = getLineLevel();
+        if (this.break_depth[index] > this.base_depth) {
+            int start = this.break_group_start[index];
+            this.line_level = (start == -1 ? this.break_group_level[index] : last_level) + this.format.continuation_indentation;
+        } else {
+            if (!this.is_wrapped) {
+                this.is_wrapped = true;
+                this.indentation += this.format.continuation_indentation;
+            }
+            this.line_level = this.indentation;
+        }
+        // the text after the break is kept as the start of the continuation
+        // line, moved along once to make room for the indentation
+        String indent = getIndentationString(getLineLevel());
+        this.line.replace(0, wrap_point, indent);
+        this.position += indent.length();
+        this.line_length = this.line.length();
+
+        int shift = indent.length() - wrap_point;
+        int kept = 0;
+        for (int i = 0; i < this.break_count; i++) {
+            if (this.break_position[i] <= wrap_point) {
+                continue;
+            }
+            this.break_position[kept] = this.break_position[i] + shift;
+            this.break_depth[kept] = this.break_depth[i];
+            int start = this.break_group_start[i];
+            if (start > wrap_point) {
+                this.break_group_start[kept] = start + shift;
+                this.break_group_level[kept] = this.break_group_level[i];
+            } else if (start != -1) {
+                this.break_group_start[kept] = -1;
+                this.break_group_level[kept] = last_level;
+            } else {
+                this.break_group_start[kept] = -1;
+                this.break_group_level[kept] = this.break_group_level[i];
+            }
+            kept++;
+        }
+        this.break_count = kept;
+        for (int i = 0; i < this.depth; i++) {
+            int start = this.group_start[i];
+            if (start > wrap_point) {
+                this.group_start[i] = start + shift;
+            } else if (start != -1) {
+                this.group_start[i] = -1;
+                this.group_level[i] = last_level;
+            }
+        }
+    }
+
+    /**
+     * Breaks the line at the current position. If indent is set the
+     * continuation line is indented unless the line is already a
+     * continuation.
+     */
+    public void wrap(boolean indent) {
+        endLine();
+        if (!this.is_wrapped && indent) {
+            this.is_wrapped = true;
+            this.indentation += this.format.continuation_indentation;
+        }
+        printIndentation();
+    }
+
+    /**
+     * Ends the current line, ending any continuation.
+     */
+    public void newLine() {
+        endLine();
+        if (this.is_wrapped) {
+            this.indentation -= this.format.continuation_indentation;
+            this.is_wrapped = false;
+        }
+    }
+
+    private void endLine() {
+        flush();
+        write('\n');
+        this.position++;
+        this.line_length = 0;
+        this.line_level = -1;
+        // groups still open continue past the end of the line, such as an
+        // argument list around an anonymous class body, and the lines within
+        // them are laid out as statements of their own
+        this.base_depth = this.depth;
+    }
+
+    /**
+     * Writes out the text of the current line held so far.
+     */
+    public void flush() {
+        try {
+            this.output.append(this.line);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        this.line.setLength(0);
+        this.break_count = 0;
+        int level = getLineLevel();
+        for (int i = 0; i < this.depth; i++) {
+            if (this.group_start[i] != -1) {
+                this.group_start[i] = -1;
+                this.group_level[i] = level;
+            }
+        }
+    }
+
+    private void write(char c) {
+        try {
+            this.output.write(c);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+}
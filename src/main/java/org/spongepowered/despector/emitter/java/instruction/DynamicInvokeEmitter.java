@@ -43,7 +43,7 @@ public class DynamicInvokeEmitter implements InstructionEmitter<JavaEmitterConte
     @Override
     public void emit(JavaEmitterContext ctx, DynamicInvoke arg, TypeSignature type) {
 
-        TypeEntry owner = ctx.getType().getSource().get(arg.getLambdaOwner());
+        TypeEntry owner = ctx.getType().getSource().getFull(arg.getLambdaOwner());
         MethodEntry method = owner.getStaticMethod(arg.getLambdaMethod());
         if (method == null) {
             method = owner.getMethod(arg.getLambdaMethod());
@@ -31,7 +31,6 @@ import org.spongepowered.despector.ast.insn.var.FieldAccess;
 import org.spongepowered.despector.ast.insn.var.InstanceFieldAccess;
 import org.spongepowered.despector.ast.insn.var.LocalAccess;
 import org.spongepowered.despector.ast.insn.var.StaticFieldAccess;
-import org.spongepowered.despector.config.ConfigManager;
 import org.spongepowered.despector.emitter.InstructionEmitter;
 import org.spongepowered.despector.emitter.java.JavaEmitterContext;
 import org.spongepowered.despector.util.TypeHelper;
@@ -57,7 +56,7 @@ public class FieldAccessEmitter implements InstructionEmitter<JavaEmitterContext
             Instruction owner = ((InstanceFieldAccess) arg).getFieldOwner();
             // TODO check if there is a local in scope with the same name as the
             // field and we need this regardless
-            if (ConfigManager.getConfig().emitter.emit_this_for_fields || !(owner instanceof LocalAccess)
+            if (ctx.getSession().getConfig().emitter.emit_this_for_fields || !(owner instanceof LocalAccess)
                     || ((LocalAccess) owner).getLocal().getIndex() != 0 || ctx.getMethod() == null
                     || ctx.getMethod().isStatic()) {
                 ctx.emit(owner, ClassTypeSignature.of(arg.getOwnerType()));
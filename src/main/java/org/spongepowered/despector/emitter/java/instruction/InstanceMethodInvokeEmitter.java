@@ -36,11 +36,11 @@ import org.spongepowered.despector.ast.stmt.invoke.New;
 import org.spongepowered.despector.ast.stmt.invoke.StaticMethodInvoke;
 import org.spongepowered.despector.ast.type.MethodEntry;
 import org.spongepowered.despector.ast.type.TypeEntry;
-import org.spongepowered.despector.config.ConfigManager;
 import org.spongepowered.despector.emitter.InstructionEmitter;
 import org.spongepowered.despector.emitter.java.JavaEmitterContext;
 import org.spongepowered.despector.util.TypeHelper;
 
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -55,6 +55,15 @@ public class InstanceMethodInvokeEmitter implements InstructionEmitter<JavaEmitt
                 return;
             }
         }
+        // a chain of calls is laid out as one group with the wrap points
+        // before each call, opened by the outermost call of the chain, while a
+        // lone call groups just its callee so that its arguments are broken
+        // between first
+        boolean link = isChainLink(ctx, arg);
+        boolean chain = !link && arg.getCallee() instanceof InstanceMethodInvoke;
+        if (!link) {
+            ctx.beginGroup();
+        }
         if (arg.getMethodName().equals("<init>")) {
             if (ctx.getType() != null) {
                 if (arg.getOwnerName().equals(ctx.getType().getName())) {
@@ -71,7 +80,7 @@ public class InstanceMethodInvokeEmitter implements InstructionEmitter<JavaEmitt
                 if (local.getLocal().getIndex() == 0) {
                     if (ctx.getType() != null && !arg.getOwnerName().equals(ctx.getType().getName())) {
                         ctx.printString("super.");
-                    } else if (ConfigManager.getConfig().emitter.emit_this_for_methods) {
+                    } else if (ctx.getSession().getConfig().emitter.emit_this_for_methods) {
                         ctx.printString("this.");
                     }
                 } else {
@@ -86,6 +95,9 @@ public class InstanceMethodInvokeEmitter implements InstructionEmitter<JavaEmitt
             }
             ctx.printString(arg.getMethodName());
         }
+        if (!link && !chain) {
+            ctx.endGroup();
+        }
         boolean is_varargs = false;
         TypeEntry target = ctx.getType().getSource().get(arg.getOwnerName());
         if (target != null) {
@@ -96,6 +108,7 @@ public class InstanceMethodInvokeEmitter implements InstructionEmitter<JavaEmitt
             }
         }
         ctx.printString("(");
+        ctx.beginGroup();
         List<String> param_types = TypeHelper.splitSig(arg.getMethodDescription());
         for (int i = 0; i < arg.getParameters().length; i++) {
             Instruction param = arg.getParameters()[i];
@@ -116,7 +129,30 @@ public class InstanceMethodInvokeEmitter implements InstructionEmitter<JavaEmitt
                 ctx.markWrapPoint();
             }
         }
+        ctx.endGroup();
         ctx.printString(")");
+        if (chain) {
+            ctx.endGroup();
+        }
+    }
+
+    /**
+     * Gets if the given invoke is the callee of the invoke being emitted
+     * around it, making it a link within a call chain.
+     */
+    protected static boolean isChainLink(JavaEmitterContext ctx, InstanceMethodInvoke arg) {
+        Iterator<Instruction> stack = ctx.getCurrentInstructionStack().iterator();
+        if (!stack.hasNext()) {
+            return false;
+        }
+        Instruction parent = stack.next();
+        if (parent == arg) {
+            if (!stack.hasNext()) {
+                return false;
+            }
+            parent = stack.next();
+        }
+        return parent instanceof InstanceMethodInvoke && ((InstanceMethodInvoke) parent).getCallee() == arg;
     }
 
     protected boolean replaceStringConcat(JavaEmitterContext ctx, InstanceMethodInvoke arg) {
@@ -49,6 +49,7 @@ public class NewArrayEmitter implements InstructionEmitter<JavaEmitterContext, N
             ctx.printString("[]");
             ctx.emitBrace(ctx.getFormat().brace_position_for_array_initializer, false, true);
             ctx.printString(" ", ctx.getFormat().insert_space_after_opening_brace_in_array_initializer);
+            ctx.beginGroup();
             ctx.markWrapPoint(ctx.getFormat().alignment_for_expressions_in_array_initializer, 0);
             if (ctx.getFormat().insert_new_line_after_opening_brace_in_array_initializer) {
                 ctx.newLine();
@@ -63,6 +64,7 @@ public class NewArrayEmitter implements InstructionEmitter<JavaEmitterContext, N
                     ctx.markWrapPoint(ctx.getFormat().alignment_for_expressions_in_array_initializer, i + 1);
                 }
             }
+            ctx.endGroup();
             if (ctx.getFormat().insert_new_line_before_closing_brace_in_array_initializer) {
                 ctx.newLine();
                 ctx.printIndentation();
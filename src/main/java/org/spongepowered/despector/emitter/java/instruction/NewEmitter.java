@@ -52,7 +52,7 @@ public class NewEmitter implements InstructionEmitter<JavaEmitterContext, New> {
             int last_inner_class = last.lastIndexOf('$');
             last = last.substring(last_inner_class + 1);
             if (last.matches("[0-9]+")) {
-                TypeEntry anon_type = ctx.getType().getSource().get(arg.getType().getName());
+                TypeEntry anon_type = ctx.getType().getSource().getFull(arg.getType().getName());
                 if (anon_type != null) {
                     AnonymousClassEmitter emitter = ctx.getEmitterSet().getSpecialEmitter(AnonymousClassEmitter.class);
                     emitter.emit(ctx, (ClassEntry) anon_type, arg);
@@ -76,6 +76,7 @@ public class NewEmitter implements InstructionEmitter<JavaEmitterContext, New> {
         }
 
         ctx.printString("(");
+        ctx.beginGroup();
         List<String> args = TypeHelper.splitSig(arg.getCtorDescription());
         for (int i = 0; i < arg.getParameters().length; i++) {
             Instruction param = arg.getParameters()[i];
@@ -85,6 +86,7 @@ public class NewEmitter implements InstructionEmitter<JavaEmitterContext, New> {
                 ctx.printString(", ");
             }
         }
+        ctx.endGroup();
         ctx.printString(")");
     }
 
@@ -73,6 +73,7 @@ public class StaticMethodInvokeEmitter implements InstructionEmitter<JavaEmitter
         ctx.printString(arg.getMethodName());
         List<String> param_types = TypeHelper.splitSig(arg.getMethodDescription());
         ctx.printString("(");
+        ctx.beginGroup();
         for (int i = 0; i < arg.getParameters().length; i++) {
             Instruction param = arg.getParameters()[i];
             if (is_varargs && i == arg.getParameters().length - 1 && param instanceof NewArray) {
@@ -92,13 +93,14 @@ public class StaticMethodInvokeEmitter implements InstructionEmitter<JavaEmitter
                 ctx.markWrapPoint();
             }
         }
+        ctx.endGroup();
         ctx.printString(")");
     }
 
     protected boolean replaceSyntheticAccessor(JavaEmitterContext ctx, StaticMethodInvoke arg, String owner) {
         // synthetic accessor
         // we resolve these to the field that they are accessing directly
-        TypeEntry owner_type = ctx.getType().getSource().get(owner);
+        TypeEntry owner_type = ctx.getType().getSource().getFull(owner);
         if (owner_type != null) {
             MethodEntry accessor = owner_type.getStaticMethod(arg.getMethodName());
             if (accessor.getReturnType().equals(VoidTypeSignature.VOID)) {
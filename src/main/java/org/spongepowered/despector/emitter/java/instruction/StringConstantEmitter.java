@@ -26,7 +26,6 @@ package org.spongepowered.despector.emitter.java.instruction;
 
 import org.spongepowered.despector.ast.generic.TypeSignature;
 import org.spongepowered.despector.ast.insn.cst.StringConstant;
-import org.spongepowered.despector.config.ConfigManager;
 import org.spongepowered.despector.emitter.InstructionEmitter;
 import org.spongepowered.despector.emitter.java.JavaEmitterContext;
 
@@ -40,6 +39,14 @@ public class StringConstantEmitter implements InstructionEmitter<JavaEmitterCont
      */
     public static String escape(String text) {
         StringBuilder str = new StringBuilder();
+        escape(text, str);
+        return str.toString();
+    }
+
+    /**
+     * Appends the given text escaped to the given builder.
+     */
+    public static void escape(CharSequence text, StringBuilder str) {
         for (int i = 0; i < text.length(); i++) {
             char n = text.charAt(i);
             if (n == '\n') {
@@ -64,12 +71,23 @@ public class StringConstantEmitter implements InstructionEmitter<JavaEmitterCont
                 str.append(n);
             }
         }
-        return str.toString();
+    }
+
+    /**
+     * Prints the given text escaped and in quotes, building it in the scratch
+     * buffer of the context rather than in a new string.
+     */
+    public static void printQuoted(JavaEmitterContext ctx, String text) {
+        StringBuilder str = ctx.getScratchBuffer();
+        escape(text, str);
+        ctx.printString("\"");
+        ctx.printString(str);
+        ctx.printString("\"");
     }
 
     @Override
     public void emit(JavaEmitterContext ctx, StringConstant arg, TypeSignature type) {
-        if (arg.getConstant().contains("\n") && ConfigManager.getConfig().kotlin.replace_mulit_line_strings) {
+        if (arg.getConstant().contains("\n") && ctx.getSession().getConfig().kotlin.replace_mulit_line_strings) {
             ctx.printString("\"\"\"");
             String[] lines = arg.getConstant().split("\n");
             for (int i = 0; i < lines.length; i++) {
@@ -81,9 +99,7 @@ public class StringConstantEmitter implements InstructionEmitter<JavaEmitterCont
             ctx.printString("\"\"\"");
             return;
         }
-        ctx.printString("\"");
-        ctx.printString(escape(arg.getConstant()));
-        ctx.printString("\"");
+        printQuoted(ctx, arg.getConstant());
     }
 
 }
@@ -76,9 +76,7 @@ public class AnnotationEmitter implements SpecialEmitter {
             }
         });
         value_emitters.put(String.class, (ctx, value) -> {
-            ctx.printString("\"");
-            ctx.printString(StringConstantEmitter.escape((String) value));
-            ctx.printString("\"");
+            StringConstantEmitter.printQuoted(ctx, (String) value);
         });
         value_emitters.put(String[].class, (ctx, value) -> {
             String[] values = (String[]) value;
@@ -87,9 +85,7 @@ public class AnnotationEmitter implements SpecialEmitter {
                 if (i > 0) {
                     ctx.printString(", ");
                 }
-                ctx.printString("\"");
-                ctx.printString(StringConstantEmitter.escape(values[i]));
-                ctx.printString("\"");
+                StringConstantEmitter.printQuoted(ctx, values[i]);
             }
             ctx.printString("}");
         });
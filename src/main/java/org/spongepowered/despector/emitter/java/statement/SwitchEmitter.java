@@ -94,7 +94,7 @@ public class SwitchEmitter implements StatementEmitter<JavaEmitterContext, Switc
             } else if (var.getArrayVar() instanceof StaticFieldAccess) {
                 StaticFieldAccess arg = (StaticFieldAccess) var.getArrayVar();
                 if (arg.getFieldName().startsWith("$SwitchMap") && ctx.getType() != null) {
-                    TypeEntry owner = ctx.getType().getSource().get(arg.getOwnerName());
+                    TypeEntry owner = ctx.getType().getSource().getFull(arg.getOwnerName());
                     MethodEntry mth = owner.getStaticMethod("<clinit>");
                     table = buildSwitchTable(mth, arg.getFieldName());
                     String enum_type = arg.getFieldName().substring("$SwitchMap/".length()).replace('$', '/');
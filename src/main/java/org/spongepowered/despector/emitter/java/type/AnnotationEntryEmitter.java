@@ -35,7 +35,6 @@ import org.spongepowered.despector.ast.type.FieldEntry;
 import org.spongepowered.despector.ast.type.MethodEntry;
 import org.spongepowered.despector.ast.type.TypeEntry;
 import org.spongepowered.despector.ast.type.TypeEntry.InnerClassInfo;
-import org.spongepowered.despector.config.ConfigManager;
 import org.spongepowered.despector.emitter.AstEmitter;
 import org.spongepowered.despector.emitter.format.EmitterFormat.BracePosition;
 import org.spongepowered.despector.emitter.java.JavaEmitterContext;
@@ -95,7 +94,7 @@ public class AnnotationEntryEmitter implements AstEmitter<JavaEmitterContext, An
             boolean at_least_one = false;
             for (FieldEntry field : type.getStaticFields()) {
                 if (field.isSynthetic()) {
-                    if (ConfigManager.getConfig().emitter.emit_synthetics) {
+                    if (ctx.getSession().getConfig().emitter.emit_synthetics) {
                         ctx.printIndentation();
                         ctx.printString("// Synthetic");
                         ctx.newLine();
@@ -116,7 +115,7 @@ public class AnnotationEntryEmitter implements AstEmitter<JavaEmitterContext, An
         if (!type.getStaticMethods().isEmpty()) {
             for (MethodEntry mth : type.getStaticMethods()) {
                 if (mth.isSynthetic()) {
-                    if (ConfigManager.getConfig().emitter.emit_synthetics) {
+                    if (ctx.getSession().getConfig().emitter.emit_synthetics) {
                         ctx.printIndentation();
                         ctx.printString("// Synthetic");
                         if (mth.isBridge()) {
@@ -135,7 +134,7 @@ public class AnnotationEntryEmitter implements AstEmitter<JavaEmitterContext, An
         if (!type.getMethods().isEmpty()) {
             for (MethodEntry mth : type.getMethods()) {
                 if (mth.isSynthetic()) {
-                    if (ConfigManager.getConfig().emitter.emit_synthetics) {
+                    if (ctx.getSession().getConfig().emitter.emit_synthetics) {
                         ctx.printIndentation();
                         ctx.printString("// Synthetic");
                         if (mth.isBridge()) {
@@ -239,7 +238,7 @@ public class AnnotationEntryEmitter implements AstEmitter<JavaEmitterContext, An
             if (inner.getOuterName() == null || !inner.getOuterName().equals(type.getName())) {
                 continue;
             }
-            TypeEntry inner_type = type.getSource().get(inner.getName());
+            TypeEntry inner_type = type.getSource().getFull(inner.getName());
             ctx.newLine();
             ctx.emit(inner_type);
         }
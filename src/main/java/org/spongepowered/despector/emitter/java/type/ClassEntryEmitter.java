@@ -35,7 +35,6 @@ import org.spongepowered.despector.ast.type.FieldEntry;
 import org.spongepowered.despector.ast.type.MethodEntry;
 import org.spongepowered.despector.ast.type.TypeEntry;
 import org.spongepowered.despector.ast.type.TypeEntry.InnerClassInfo;
-import org.spongepowered.despector.config.ConfigManager;
 import org.spongepowered.despector.emitter.AstEmitter;
 import org.spongepowered.despector.emitter.format.EmitterFormat.BracePosition;
 import org.spongepowered.despector.emitter.java.JavaEmitterContext;
@@ -143,7 +142,7 @@ public class ClassEntryEmitter implements AstEmitter<JavaEmitterContext, ClassEn
             if (inner.getOuterName() == null || !inner.getOuterName().equals(type.getName())) {
                 continue;
             }
-            TypeEntry inner_type = type.getSource().get(inner.getName());
+            TypeEntry inner_type = type.getSource().getFull(inner.getName());
             ctx.newLine();
             ctx.emit(inner_type);
         }
@@ -185,7 +184,7 @@ public class ClassEntryEmitter implements AstEmitter<JavaEmitterContext, ClassEn
             boolean at_least_one = false;
             for (FieldEntry field : type.getStaticFields()) {
                 if (field.isSynthetic()) {
-                    if (ConfigManager.getConfig().emitter.emit_synthetics) {
+                    if (ctx.getSession().getConfig().emitter.emit_synthetics) {
                         ctx.printIndentation();
                         ctx.printString("// Synthetic");
                         ctx.newLine();
@@ -216,7 +215,7 @@ public class ClassEntryEmitter implements AstEmitter<JavaEmitterContext, ClassEn
         if (!type.getStaticMethods().isEmpty()) {
             for (MethodEntry mth : type.getStaticMethods()) {
                 if (mth.isSynthetic()) {
-                    if (ConfigManager.getConfig().emitter.emit_synthetics) {
+                    if (ctx.getSession().getConfig().emitter.emit_synthetics) {
                         ctx.printIndentation();
                         ctx.printString("// Synthetic");
                         if (mth.isBridge()) {
@@ -268,7 +267,7 @@ public class ClassEntryEmitter implements AstEmitter<JavaEmitterContext, ClassEn
             boolean at_least_one = false;
             for (FieldEntry field : type.getFields()) {
                 if (field.isSynthetic()) {
-                    if (ConfigManager.getConfig().emitter.emit_synthetics) {
+                    if (ctx.getSession().getConfig().emitter.emit_synthetics) {
                         ctx.printIndentation();
                         ctx.printString("// Synthetic");
                         ctx.newLine();
@@ -312,7 +311,7 @@ public class ClassEntryEmitter implements AstEmitter<JavaEmitterContext, ClassEn
         if (!type.getMethods().isEmpty()) {
             for (MethodEntry mth : type.getMethods()) {
                 if (mth.isSynthetic()) {
-                    if (ConfigManager.getConfig().emitter.emit_synthetics) {
+                    if (ctx.getSession().getConfig().emitter.emit_synthetics) {
                         ctx.printIndentation();
                         ctx.printString("// Synthetic");
                         if (mth.isBridge()) {
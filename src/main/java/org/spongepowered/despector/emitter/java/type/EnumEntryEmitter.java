@@ -37,7 +37,6 @@ import org.spongepowered.despector.ast.type.FieldEntry;
 import org.spongepowered.despector.ast.type.MethodEntry;
 import org.spongepowered.despector.ast.type.TypeEntry;
 import org.spongepowered.despector.ast.type.TypeEntry.InnerClassInfo;
-import org.spongepowered.despector.config.ConfigManager;
 import org.spongepowered.despector.emitter.AstEmitter;
 import org.spongepowered.despector.emitter.format.EmitterFormat.BracePosition;
 import org.spongepowered.despector.emitter.format.EmitterFormat.WrappingStyle;
@@ -178,7 +177,7 @@ public class EnumEntryEmitter implements AstEmitter<JavaEmitterContext, EnumEntr
             for (FieldEntry field : type.getStaticFields()) {
                 if (field.isSynthetic()) {
                     // Skip the values array.
-                    if (ConfigManager.getConfig().emitter.emit_synthetics) {
+                    if (ctx.getSession().getConfig().emitter.emit_synthetics) {
                         ctx.printIndentation();
                         ctx.printString("// Synthetic");
                         ctx.newLine();
@@ -225,7 +224,7 @@ public class EnumEntryEmitter implements AstEmitter<JavaEmitterContext, EnumEntr
                     // initializer
                     continue;
                 } else if (mth.isSynthetic()) {
-                    if (ConfigManager.getConfig().emitter.emit_synthetics) {
+                    if (ctx.getSession().getConfig().emitter.emit_synthetics) {
                         ctx.printIndentation();
                         ctx.printString("// Synthetic");
                         if (mth.isBridge()) {
@@ -244,7 +243,7 @@ public class EnumEntryEmitter implements AstEmitter<JavaEmitterContext, EnumEntr
         if (!type.getFields().isEmpty()) {
             for (FieldEntry field : type.getFields()) {
                 if (field.isSynthetic()) {
-                    if (ConfigManager.getConfig().emitter.emit_synthetics) {
+                    if (ctx.getSession().getConfig().emitter.emit_synthetics) {
                         ctx.printIndentation();
                         ctx.printString("// Synthetic");
                         ctx.newLine();
@@ -262,7 +261,7 @@ public class EnumEntryEmitter implements AstEmitter<JavaEmitterContext, EnumEntr
         if (!type.getMethods().isEmpty()) {
             for (MethodEntry mth : type.getMethods()) {
                 if (mth.isSynthetic()) {
-                    if (ConfigManager.getConfig().emitter.emit_synthetics) {
+                    if (ctx.getSession().getConfig().emitter.emit_synthetics) {
                         ctx.printIndentation();
                         ctx.printString("// Synthetic");
                         if (mth.isBridge()) {
@@ -291,7 +290,7 @@ public class EnumEntryEmitter implements AstEmitter<JavaEmitterContext, EnumEntr
             if (inner.getOuterName() == null || !inner.getOuterName().equals(type.getName())) {
                 continue;
             }
-            TypeEntry inner_type = type.getSource().get(inner.getName());
+            TypeEntry inner_type = type.getSource().getFull(inner.getName());
             ctx.newLine();
             ctx.emit(inner_type);
         }
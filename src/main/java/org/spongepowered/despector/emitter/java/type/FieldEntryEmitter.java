@@ -26,7 +26,6 @@ package org.spongepowered.despector.emitter.java.type;
 
 import org.spongepowered.despector.ast.Annotation;
 import org.spongepowered.despector.ast.type.FieldEntry;
-import org.spongepowered.despector.config.ConfigManager;
 import org.spongepowered.despector.emitter.AstEmitter;
 import org.spongepowered.despector.emitter.java.JavaEmitterContext;
 import org.spongepowered.despector.emitter.java.special.GenericsEmitter;
@@ -78,7 +77,7 @@ public class FieldEntryEmitter implements AstEmitter<JavaEmitterContext, FieldEn
     private static int getMaxTypeLength(JavaEmitterContext ctx, Collection<FieldEntry> fields) {
         int max = 0;
         for (FieldEntry fld : fields) {
-            if (fld.isSynthetic() && !ConfigManager.getConfig().emitter.emit_synthetics) {
+            if (fld.isSynthetic() && !ctx.getSession().getConfig().emitter.emit_synthetics) {
                 continue;
             }
             max = Math.max(max, getTypeLength(ctx, fld));
@@ -89,7 +88,7 @@ public class FieldEntryEmitter implements AstEmitter<JavaEmitterContext, FieldEn
     public static int getMaxNameLength(JavaEmitterContext ctx, Collection<FieldEntry> fields) {
         int max = 0;
         for (FieldEntry fld : fields) {
-            if (fld.isSynthetic() && !ConfigManager.getConfig().emitter.emit_synthetics) {
+            if (fld.isSynthetic() && !ctx.getSession().getConfig().emitter.emit_synthetics) {
                 continue;
             }
             max = Math.max(max, fld.getName().length());
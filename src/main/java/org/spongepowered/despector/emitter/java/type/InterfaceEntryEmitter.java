@@ -31,7 +31,6 @@ import org.spongepowered.despector.ast.type.InterfaceEntry;
 import org.spongepowered.despector.ast.type.MethodEntry;
 import org.spongepowered.despector.ast.type.TypeEntry;
 import org.spongepowered.despector.ast.type.TypeEntry.InnerClassInfo;
-import org.spongepowered.despector.config.ConfigManager;
 import org.spongepowered.despector.emitter.AstEmitter;
 import org.spongepowered.despector.emitter.format.EmitterFormat.BracePosition;
 import org.spongepowered.despector.emitter.java.JavaEmitterContext;
@@ -102,7 +101,7 @@ public class InterfaceEntryEmitter implements AstEmitter<JavaEmitterContext, Int
             boolean at_least_one = false;
             for (FieldEntry field : type.getStaticFields()) {
                 if (field.isSynthetic()) {
-                    if (ConfigManager.getConfig().emitter.emit_synthetics) {
+                    if (ctx.getSession().getConfig().emitter.emit_synthetics) {
                         ctx.printIndentation();
                         ctx.printString("// Synthetic");
                         ctx.newLine();
@@ -123,7 +122,7 @@ public class InterfaceEntryEmitter implements AstEmitter<JavaEmitterContext, Int
         if (!type.getStaticMethods().isEmpty()) {
             for (MethodEntry mth : type.getStaticMethods()) {
                 if (mth.isSynthetic()) {
-                    if (ConfigManager.getConfig().emitter.emit_synthetics) {
+                    if (ctx.getSession().getConfig().emitter.emit_synthetics) {
                         ctx.printIndentation();
                         ctx.printString("// Synthetic");
                         if (mth.isBridge()) {
@@ -142,7 +141,7 @@ public class InterfaceEntryEmitter implements AstEmitter<JavaEmitterContext, Int
         if (!type.getMethods().isEmpty()) {
             for (MethodEntry mth : type.getMethods()) {
                 if (mth.isSynthetic()) {
-                    if (ConfigManager.getConfig().emitter.emit_synthetics) {
+                    if (ctx.getSession().getConfig().emitter.emit_synthetics) {
                         ctx.printIndentation();
                         ctx.printString("// Synthetic");
                         if (mth.isBridge()) {
@@ -166,7 +165,7 @@ public class InterfaceEntryEmitter implements AstEmitter<JavaEmitterContext, Int
             if (inner.getOuterName() == null || !inner.getOuterName().equals(type.getName())) {
                 continue;
             }
-            TypeEntry inner_type = type.getSource().get(inner.getName());
+            TypeEntry inner_type = type.getSource().getFull(inner.getName());
             ctx.newLine();
             ctx.emit(inner_type);
         }
@@ -26,7 +26,6 @@ package org.spongepowered.despector.emitter.kotlin;
 
 import org.spongepowered.despector.ast.type.TypeEntry;
 import org.spongepowered.despector.emitter.Emitter;
-import org.spongepowered.despector.emitter.Emitters;
 import org.spongepowered.despector.emitter.java.ImportManager;
 import org.spongepowered.despector.emitter.java.JavaEmitterContext;
 
@@ -38,7 +37,7 @@ public class KotlinEmitter implements Emitter<JavaEmitterContext> {
     @Override
     public void setup(JavaEmitterContext ctx) {
         ctx.setSemicolons(false);
-        ctx.setEmitterSet(Emitters.KOTLIN_SET);
+        ctx.setEmitterSet(ctx.getSession().getKotlinEmitterSet());
         ImportManager imports = ctx.getImportManager();
         imports.addImplicitImport("kotlin/");
         imports.addImplicitImport("kotlin/annotation/");
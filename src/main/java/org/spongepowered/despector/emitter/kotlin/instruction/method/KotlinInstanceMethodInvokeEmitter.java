@@ -107,6 +107,7 @@ public class KotlinInstanceMethodInvokeEmitter extends InstanceMethodInvokeEmitt
             return;
         }
         ctx.printString("(");
+        ctx.beginGroup();
         List<String> param_types = TypeHelper.splitSig(arg.getMethodDescription());
         for (int i = 0; i < arg.getParameters().length; i++) {
             Instruction param = arg.getParameters()[i];
@@ -127,6 +128,7 @@ public class KotlinInstanceMethodInvokeEmitter extends InstanceMethodInvokeEmitt
                 ctx.markWrapPoint();
             }
         }
+        ctx.endGroup();
         ctx.printString(")");
     }
 
@@ -88,6 +88,7 @@ public class KotlinStaticMethodInvokeEmitter extends StaticMethodInvokeEmitter {
         ctx.printString(arg.getMethodName());
         List<String> param_types = TypeHelper.splitSig(arg.getMethodDescription());
         ctx.printString("(");
+        ctx.beginGroup();
         for (int i = 0; i < arg.getParameters().length; i++) {
             Instruction param = arg.getParameters()[i];
             if (i == arg.getParameters().length - 1 && param instanceof NewArray) {
@@ -107,6 +108,7 @@ public class KotlinStaticMethodInvokeEmitter extends StaticMethodInvokeEmitter {
                 ctx.markWrapPoint();
             }
         }
+        ctx.endGroup();
         ctx.printString(")");
     }
 
@@ -124,6 +126,7 @@ public class KotlinStaticMethodInvokeEmitter extends StaticMethodInvokeEmitter {
         ctx.printString(call.getMethodName().substring(0, call.getMethodName().length() - 8));
         List<String> param_types = TypeHelper.splitSig(call.getMethodDescription());
         ctx.printString("(");
+        ctx.beginGroup();
         boolean first = true;
         for (int i = 0; i < total_args; i++) {
             if ((set & (1 << i)) != 0) {
@@ -148,6 +151,7 @@ public class KotlinStaticMethodInvokeEmitter extends StaticMethodInvokeEmitter {
             }
             ctx.emit(param, ClassTypeSignature.of(param_types.get(i)));
         }
+        ctx.endGroup();
         ctx.printString(")");
     }
 
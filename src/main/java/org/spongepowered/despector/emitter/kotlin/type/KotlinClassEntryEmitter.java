@@ -34,7 +34,6 @@ import org.spongepowered.despector.ast.type.FieldEntry;
 import org.spongepowered.despector.ast.type.MethodEntry;
 import org.spongepowered.despector.ast.type.TypeEntry;
 import org.spongepowered.despector.ast.type.TypeEntry.InnerClassInfo;
-import org.spongepowered.despector.config.ConfigManager;
 import org.spongepowered.despector.emitter.AstEmitter;
 import org.spongepowered.despector.emitter.java.JavaEmitterContext;
 import org.spongepowered.despector.emitter.java.special.GenericsEmitter;
@@ -147,7 +146,7 @@ public class KotlinClassEntryEmitter implements AstEmitter<JavaEmitterContext, C
             if (inner.getOuterName() == null || !inner.getOuterName().equals(type.getName())) {
                 continue;
             }
-            TypeEntry inner_type = type.getSource().get(inner.getName());
+            TypeEntry inner_type = type.getSource().getFull(inner.getName());
             ctx.emit(inner_type);
             ctx.newLine();
         }
@@ -185,7 +184,7 @@ public class KotlinClassEntryEmitter implements AstEmitter<JavaEmitterContext, C
             boolean at_least_one = false;
             for (FieldEntry field : type.getStaticFields()) {
                 if (field.isSynthetic() || field.getName().equals("Companion")) {
-                    if (ConfigManager.getConfig().emitter.emit_synthetics) {
+                    if (ctx.getSession().getConfig().emitter.emit_synthetics) {
                         ctx.printIndentation();
                         ctx.printString("// Synthetic");
                         ctx.newLine();
@@ -216,7 +215,7 @@ public class KotlinClassEntryEmitter implements AstEmitter<JavaEmitterContext, C
         if (!type.getStaticMethods().isEmpty()) {
             for (MethodEntry mth : type.getStaticMethods()) {
                 if (mth.isSynthetic()) {
-                    if (ConfigManager.getConfig().emitter.emit_synthetics) {
+                    if (ctx.getSession().getConfig().emitter.emit_synthetics) {
                         ctx.printIndentation();
                         ctx.printString("// Synthetic");
                         ctx.newLine();
@@ -266,7 +265,7 @@ public class KotlinClassEntryEmitter implements AstEmitter<JavaEmitterContext, C
             boolean at_least_one = false;
             for (FieldEntry field : type.getFields()) {
                 if (field.isSynthetic()) {
-                    if (ConfigManager.getConfig().emitter.emit_synthetics) {
+                    if (ctx.getSession().getConfig().emitter.emit_synthetics) {
                         ctx.printIndentation();
                         ctx.printString("// Synthetic");
                         ctx.newLine();
@@ -310,7 +309,7 @@ public class KotlinClassEntryEmitter implements AstEmitter<JavaEmitterContext, C
         if (!type.getMethods().isEmpty()) {
             for (MethodEntry mth : type.getMethods()) {
                 if (mth.isSynthetic() || mth.getName().equals("<init>")) {
-                    if (ConfigManager.getConfig().emitter.emit_synthetics) {
+                    if (ctx.getSession().getConfig().emitter.emit_synthetics) {
                         ctx.printIndentation();
                         ctx.printString("// Synthetic");
                         ctx.newLine();
@@ -53,11 +53,14 @@ import org.spongepowered.despector.ast.stmt.invoke.InstanceMethodInvoke;
 import org.spongepowered.despector.ast.stmt.invoke.New;
 import org.spongepowered.despector.ast.stmt.invoke.StaticMethodInvoke;
 import org.spongepowered.despector.decompiler.ir.Insn;
+import org.spongepowered.despector.decompiler.ir.InsnCursor;
 import org.spongepowered.despector.decompiler.ir.InvokeInsn;
 import org.spongepowered.despector.decompiler.ir.TypeIntInsn;
 
 import java.util.List;
 
+import javax.annotation.Nullable;
+
 /**
  * Various utilities for working with AST elements.
  */
@@ -70,7 +73,24 @@ public final class AstUtil {
         if (next == null) {
             return 0;
         }
-        switch (next.getOpcode()) {
+        String desc = next instanceof InvokeInsn ? ((InvokeInsn) next).getDescription() : null;
+        int dims = next instanceof TypeIntInsn ? ((TypeIntInsn) next).getValue() : 0;
+        return getStackRequirementsSize(next.getOpcode(), desc, dims);
+    }
+
+    /**
+     * Gets the count of values consumed from the stack by the current opcode
+     * of the given cursor.
+     */
+    public static int getStackRequirementsSize(InsnCursor next) {
+        int op = next.getOpcode();
+        String desc = op == Insn.INVOKE || op == Insn.INVOKESTATIC ? next.getDescription() : null;
+        int dims = op == Insn.MULTINEWARRAY ? next.getInt() : 0;
+        return getStackRequirementsSize(op, desc, dims);
+    }
+
+    private static int getStackRequirementsSize(int opcode, @Nullable String desc, int dims) {
+        switch (opcode) {
         case -1:
             return 0;
         case Insn.ARRAY_STORE:
@@ -132,23 +152,20 @@ public final class AstUtil {
         case Insn.INVOKEDYNAMIC:
             return 0;
         case Insn.INVOKE: {
-            InvokeInsn method = (InvokeInsn) next;
-            int count = TypeHelper.paramCount(method.getDescription());
+            int count = TypeHelper.paramCount(desc);
             // the object ref
             count++;
             return count;
         }
         case Insn.INVOKESTATIC: {
-            InvokeInsn method = (InvokeInsn) next;
-            int count = TypeHelper.paramCount(method.getDescription());
+            int count = TypeHelper.paramCount(desc);
             return count;
         }
         case Insn.MULTINEWARRAY: {
-            TypeIntInsn array = (TypeIntInsn) next;
-            return array.getValue();
+            return dims;
         }
         default:
-            System.err.println("Unsupported opcode: " + next.getOpcode());
+            System.err.println("Unsupported opcode: " + opcode);
             throw new IllegalStateException();
         }
     }
@@ -160,7 +177,22 @@ public final class AstUtil {
         if (next == null) {
             return 0;
         }
-        switch (next.getOpcode()) {
+        String desc = next instanceof InvokeInsn ? ((InvokeInsn) next).getDescription() : null;
+        return getStackResultSize(next.getOpcode(), desc);
+    }
+
+    /**
+     * Gets the count of values pushed to the stack by the current opcode of
+     * the given cursor.
+     */
+    public static int getStackResultSize(InsnCursor next) {
+        int op = next.getOpcode();
+        String desc = op == Insn.INVOKE || op == Insn.INVOKESTATIC ? next.getDescription() : null;
+        return getStackResultSize(op, desc);
+    }
+
+    private static int getStackResultSize(int opcode, @Nullable String desc) {
+        switch (opcode) {
         case -1:
             return 0;
         case Insn.DUP2:
@@ -224,14 +256,13 @@ public final class AstUtil {
             return 0;
         case Insn.INVOKE:
         case Insn.INVOKESTATIC: {
-            InvokeInsn method = (InvokeInsn) next;
-            if (!TypeHelper.getRet(method.getDescription()).equals("V")) {
+            if (!TypeHelper.getRet(desc).equals("V")) {
                 return 1;
             }
             return 0;
         }
         default:
-            System.err.println("Unsupported opcode: " + next.getOpcode());
+            System.err.println("Unsupported opcode: " + opcode);
             throw new IllegalStateException();
         }
     }
@@ -243,6 +274,14 @@ public final class AstUtil {
         return getStackResultSize(next) - getStackRequirementsSize(next);
     }
 
+    /**
+     * Gets the change in stack size from the current opcode of the given
+     * cursor.
+     */
+    public static int getStackDelta(InsnCursor next) {
+        return getStackResultSize(next) - getStackRequirementsSize(next);
+    }
+
     /**
      * Gets if the given list of opcodes requires values on the stack from
      * before it starts.
@@ -259,6 +298,21 @@ public final class AstUtil {
         return false;
     }
 
+    /**
+     * Gets if the opcodes of the given cursor require values on the stack
+     * from before it starts.
+     */
+    public static boolean hasStartingRequirement(InsnCursor opcodes) {
+        int size = 0;
+        while (opcodes.next()) {
+            size += getStackDelta(opcodes);
+            if (size < 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Returns the index of the opcode that is the start of the last statement
      * in the given list of opcodes.
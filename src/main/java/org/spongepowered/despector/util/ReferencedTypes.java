@@ -0,0 +1,342 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.util;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import org.spongepowered.despector.ast.Annotation;
+import org.spongepowered.despector.ast.Annotation.EnumConstant;
+import org.spongepowered.despector.ast.Locals.LocalInstance;
+import org.spongepowered.despector.ast.generic.ClassTypeSignature;
+import org.spongepowered.despector.ast.generic.GenericClassTypeSignature;
+import org.spongepowered.despector.ast.generic.TypeArgument;
+import org.spongepowered.despector.ast.generic.TypeSignature;
+import org.spongepowered.despector.ast.insn.InstructionVisitor;
+import org.spongepowered.despector.ast.insn.condition.AndCondition;
+import org.spongepowered.despector.ast.insn.condition.BooleanCondition;
+import org.spongepowered.despector.ast.insn.condition.CompareCondition;
+import org.spongepowered.despector.ast.insn.condition.ConditionVisitor;
+import org.spongepowered.despector.ast.insn.condition.InverseCondition;
+import org.spongepowered.despector.ast.insn.condition.OrCondition;
+import org.spongepowered.despector.ast.insn.cst.DoubleConstant;
+import org.spongepowered.despector.ast.insn.cst.FloatConstant;
+import org.spongepowered.despector.ast.insn.cst.IntConstant;
+import org.spongepowered.despector.ast.insn.cst.LongConstant;
+import org.spongepowered.despector.ast.insn.cst.NullConstant;
+import org.spongepowered.despector.ast.insn.cst.StringConstant;
+import org.spongepowered.despector.ast.insn.cst.TypeConstant;
+import org.spongepowered.despector.ast.insn.misc.Cast;
+import org.spongepowered.despector.ast.insn.misc.InstanceOf;
+import org.spongepowered.despector.ast.insn.misc.MultiNewArray;
+import org.spongepowered.despector.ast.insn.misc.NewArray;
+import org.spongepowered.despector.ast.insn.misc.NumberCompare;
+import org.spongepowered.despector.ast.insn.misc.Ternary;
+import org.spongepowered.despector.ast.insn.op.NegativeOperator;
+import org.spongepowered.despector.ast.insn.op.Operator;
+import org.spongepowered.despector.ast.insn.var.ArrayAccess;
+import org.spongepowered.despector.ast.insn.var.InstanceFieldAccess;
+import org.spongepowered.despector.ast.insn.var.LocalAccess;
+import org.spongepowered.despector.ast.insn.var.StaticFieldAccess;
+import org.spongepowered.despector.ast.stmt.StatementBlock;
+import org.spongepowered.despector.ast.stmt.invoke.DynamicInvoke;
+import org.spongepowered.despector.ast.stmt.invoke.InstanceMethodInvoke;
+import org.spongepowered.despector.ast.stmt.invoke.New;
+import org.spongepowered.despector.ast.stmt.invoke.StaticMethodInvoke;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+/**
+ * Collects the types referenced by signatures, annotations and method bodies.
+ * Types are recorded as the interned internal name of their outermost class,
+ * which is the form that imports are calculated from.
+ */
+public final class ReferencedTypes {
+
+    private static final Interner<String> NAMES = Interners.newWeakInterner();
+
+    /**
+     * Collects the types referenced from the given method body.
+     */
+    public static Set<String> collect(@Nullable StatementBlock block) {
+        if (block == null) {
+            return ImmutableSet.of();
+        }
+        ReferencedTypes types = new ReferencedTypes();
+        types.add(block);
+        return types.toSet();
+    }
+
+    /**
+     * Gets the interned name of the outermost class of the given type
+     * descriptor, or null if the descriptor is not of an object type or an
+     * array of object types.
+     */
+    @Nullable
+    public static String toReferencedName(String desc) {
+        int start = 0;
+        while (start < desc.length() && desc.charAt(start) == '[') {
+            start++;
+        }
+        if (start >= desc.length() || desc.charAt(start) != 'L') {
+            return null;
+        }
+        if (desc.charAt(desc.length() - 1) == ';') {
+            // cut the name straight out of the descriptor
+            int inner = desc.indexOf('$', start);
+            return NAMES.intern(desc.substring(start + 1, inner == -1 ? desc.length() - 1 : inner));
+        }
+        String type = TypeHelper.descToType(desc.substring(start));
+        int inner = type.indexOf('$');
+        if (inner != -1) {
+            type = type.substring(0, inner);
+        }
+        return NAMES.intern(type);
+    }
+
+    private final Set<String> types = new HashSet<>();
+    private final BodyWalker walker = new BodyWalker();
+
+    public ReferencedTypes() {
+    }
+
+    /**
+     * Gets the types collected so far.
+     */
+    public Set<String> getTypes() {
+        return this.types;
+    }
+
+    /**
+     * Gets an immutable copy of the types collected so far.
+     */
+    public Set<String> toSet() {
+        return ImmutableSet.copyOf(this.types);
+    }
+
+    /**
+     * Adds the type of the given descriptor.
+     */
+    public void addDescriptor(String desc) {
+        String name = toReferencedName(desc);
+        if (name != null) {
+            this.types.add(name);
+        }
+    }
+
+    /**
+     * Adds the given type signature and any of its type arguments.
+     */
+    public void add(@Nullable TypeSignature sig) {
+        if (sig instanceof ClassTypeSignature) {
+            addDescriptor(((ClassTypeSignature) sig).getDescriptor());
+        } else if (sig instanceof GenericClassTypeSignature) {
+            GenericClassTypeSignature cls = (GenericClassTypeSignature) sig;
+            addDescriptor(cls.getDescriptor());
+            for (TypeArgument param : cls.getArguments()) {
+                add(param.getSignature());
+            }
+        }
+    }
+
+    /**
+     * Adds the type of the given annotation and the types of its values.
+     */
+    public void add(Annotation anno) {
+        addDescriptor(anno.getType().getName());
+        for (String key : anno.getKeys()) {
+            addAnnotationValue(anno.getValue(key));
+        }
+    }
+
+    private void addAnnotationValue(Object val) {
+        if (val instanceof ClassTypeSignature) {
+            addDescriptor(((ClassTypeSignature) val).getDescriptor());
+        } else if (val instanceof GenericClassTypeSignature) {
+            addDescriptor(((GenericClassTypeSignature) val).getDescriptor());
+        } else if (val instanceof EnumConstant) {
+            addDescriptor(((EnumConstant) val).getEnumType());
+        } else if (val instanceof List) {
+            for (Object obj : (List<?>) val) {
+                addAnnotationValue(obj);
+            }
+        }
+    }
+
+    /**
+     * Adds the types referenced by the given method body.
+     */
+    public void add(StatementBlock block) {
+        block.accept(this.walker);
+    }
+
+    /**
+     * A visitor to gather the types referenced within a method body. It is
+     * also a condition visitor as compound conditions only pass condition
+     * visitors down to the instructions they contain.
+     */
+    private class BodyWalker implements InstructionVisitor, ConditionVisitor {
+
+        public BodyWalker() {
+        }
+
+        @Override
+        public void visitCast(Cast cast) {
+            ReferencedTypes.this.add(cast.getType());
+        }
+
+        @Override
+        public void visitLocalInstance(LocalInstance local) {
+            ReferencedTypes.this.add(local.getType());
+        }
+
+        @Override
+        public void visitTypeConstant(TypeConstant cst) {
+            ReferencedTypes.this.addDescriptor(cst.getConstant().getDescriptor());
+        }
+
+        @Override
+        public void visitNew(New ne) {
+            ReferencedTypes.this.add(ne.getType());
+        }
+
+        @Override
+        public void visitArrayAccess(ArrayAccess insn) {
+        }
+
+        @Override
+        public void visitDoubleConstant(DoubleConstant insn) {
+        }
+
+        @Override
+        public void visitDynamicInvoke(DynamicInvoke insn) {
+        }
+
+        @Override
+        public void visitFloatConstant(FloatConstant insn) {
+        }
+
+        @Override
+        public void visitInstanceFieldAccess(InstanceFieldAccess insn) {
+        }
+
+        @Override
+        public void visitInstanceMethodInvoke(InstanceMethodInvoke insn) {
+        }
+
+        @Override
+        public void visitInstanceOf(InstanceOf insn) {
+            ReferencedTypes.this.add(insn.getType());
+        }
+
+        @Override
+        public void visitIntConstant(IntConstant insn) {
+        }
+
+        @Override
+        public void visitLocalAccess(LocalAccess insn) {
+        }
+
+        @Override
+        public void visitLongConstant(LongConstant insn) {
+        }
+
+        @Override
+        public void visitNegativeOperator(NegativeOperator insn) {
+        }
+
+        @Override
+        public void visitNewArray(NewArray insn) {
+            String type = insn.getType().getDescriptor();
+            if (type.length() > 1 && !type.startsWith("[") && !type.endsWith(";")) {
+                // the component type of an object array is held as its internal
+                // name rather than a descriptor
+                type = "L" + type + ";";
+            }
+            ReferencedTypes.this.addDescriptor(type);
+        }
+
+        @Override
+        public void visitNullConstant(NullConstant insn) {
+        }
+
+        @Override
+        public void visitNumberCompare(NumberCompare insn) {
+        }
+
+        @Override
+        public void visitOperator(Operator insn) {
+        }
+
+        @Override
+        public void visitStaticFieldAccess(StaticFieldAccess insn) {
+            ReferencedTypes.this.addDescriptor(insn.getOwnerType());
+        }
+
+        @Override
+        public void visitStaticMethodInvoke(StaticMethodInvoke insn) {
+            ReferencedTypes.this.addDescriptor(insn.getOwner());
+        }
+
+        @Override
+        public void visitStringConstant(StringConstant insn) {
+        }
+
+        @Override
+        public void visitTernary(Ternary insn) {
+        }
+
+        @Override
+        public void visitMultiNewArray(MultiNewArray insn) {
+            ReferencedTypes.this.add(insn.getType());
+        }
+
+        @Override
+        public void visitAndCondition(AndCondition cond) {
+        }
+
+        @Override
+        public void visitBooleanCondition(BooleanCondition cond) {
+        }
+
+        @Override
+        public void visitCompareCondition(CompareCondition cond) {
+        }
+
+        @Override
+        public void visitInverseCondition(InverseCondition cond) {
+        }
+
+        @Override
+        public void visitOrCondition(OrCondition cond) {
+        }
+
+    }
+
+}
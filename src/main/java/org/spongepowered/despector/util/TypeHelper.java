@@ -29,18 +29,25 @@ import com.google.common.collect.Lists;
 
 import java.util.List;
 import java.util.function.Predicate;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Various utility methods for working with types.
  */
 public final class TypeHelper {
 
-    private static final Pattern ANON_CLASS = Pattern.compile(".*\\$[0-9]+");
-
     public static boolean isAnonClass(String name) {
-        return ANON_CLASS.matcher(name).matches();
+        // equivalent to matching .*\$[0-9]+ without a matcher
+        int last = name.lastIndexOf('$');
+        if (last == -1 || last == name.length() - 1) {
+            return false;
+        }
+        for (int i = last + 1; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
     }
 
     public static String descToTypeName(String desc) {
@@ -186,7 +193,7 @@ public final class TypeHelper {
             return null;
         }
         List<String> params = Lists.newArrayList();
-        String accu = "";
+        StringBuilder accu = new StringBuilder();
         boolean is_array = false;
         int depth = 0;
         for (int i = sig.indexOf('(') + 1; i < sig.length(); i++) {
@@ -209,6 +216,10 @@ public final class TypeHelper {
             if (next == '<') {
                 depth++;
             }
+            accu.setLength(0);
+            if (is_array) {
+                accu.append('[');
+            }
             if (next == 'L' || next == 'T') {
                 int generics_depth = 0;
                 while (next != ';' || generics_depth > 0) {
@@ -224,33 +235,30 @@ public final class TypeHelper {
                             generics_depth++;
                         }
                     } else {
-                        accu += next;
+                        accu.append(next);
                     }
                     next = sig.charAt(++i);
                 }
-                accu += next;
+                accu.append(next);
             } else {
-                accu += next;
-            }
-            if (is_array) {
-                accu = "[" + accu;
+                accu.append(next);
             }
-            params.add(accu);
-            accu = "";
+            params.add(accu.toString());
             is_array = false;
         }
         return params;
     }
 
-    private static final Pattern DESC = Pattern.compile("\\([^\\)]*\\)(.*)");
-
     /**
      * Gets the return value from the given method signature.
      */
     public static String getRet(String signature) {
-        Matcher matcher = DESC.matcher(signature);
-        if (matcher.find()) {
-            return matcher.group(1);
+        int start = signature.indexOf('(');
+        if (start != -1) {
+            int end = signature.indexOf(')', start);
+            if (end != -1) {
+                return signature.substring(end + 1);
+            }
         }
         return "V";
     }
@@ -0,0 +1,196 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.util.condition;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A simplifier which uses the brute force simplifier for conditions with few
+ * terms and the espresso simplifier for wider conditions, where the brute
+ * force approach becomes slow and leaves redundant terms behind.
+ *
+ * <p>The brute force simplifier does not always produce an equivalent
+ * condition, so its result is checked against the original condition with a
+ * truth table and the espresso simplifier is used instead if they differ. The
+ * espresso result is checked the same way and the original condition is kept
+ * if it differs. Conditions with too many simple conditions for a truth table
+ * are given to the espresso simplifier unchecked, and conditions with more
+ * simple conditions than the espresso simplifier supports to the brute force
+ * simplifier.</p>
+ */
+public class AdaptiveConditionSimplifier implements ConditionSimplifier {
+
+    /**
+     * The default number of terms from which the espresso simplifier is used.
+     */
+    public static final int DEFAULT_THRESHOLD = 8;
+
+    /**
+     * The maximum number of distinct simple conditions for which the result
+     * of the brute force simplifier is checked, and so used at all.
+     */
+    public static final int MAX_CHECKED_VARIABLES = 12;
+
+    private final int threshold;
+    private final ConditionSimplifier brute_force = new BruteForceConditionSimplifier();
+    private final ConditionSimplifier espresso = new EspressoConditionSimplifier();
+    private final SimplifierStatistics brute_force_stats = new SimplifierStatistics("brute force");
+    private final SimplifierStatistics espresso_stats = new SimplifierStatistics("espresso");
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong espresso_rejected = new AtomicLong();
+
+    public AdaptiveConditionSimplifier() {
+        this(DEFAULT_THRESHOLD);
+    }
+
+    public AdaptiveConditionSimplifier(int threshold) {
+        this.threshold = threshold;
+    }
+
+    /**
+     * Gets the number of terms from which the espresso simplifier is used.
+     */
+    public int getThreshold() {
+        return this.threshold;
+    }
+
+    /**
+     * Gets the statistics of conditions simplified with the brute force
+     * simplifier.
+     */
+    public SimplifierStatistics getBruteForceStatistics() {
+        return this.brute_force_stats;
+    }
+
+    /**
+     * Gets the statistics of conditions simplified with the espresso
+     * simplifier.
+     */
+    public SimplifierStatistics getEspressoStatistics() {
+        return this.espresso_stats;
+    }
+
+    /**
+     * Gets the number of brute force results which were not equivalent to
+     * the original condition and were replaced by the espresso result.
+     */
+    public long getRejectedCount() {
+        return this.rejected.get();
+    }
+
+    /**
+     * Gets the number of espresso results which were not equivalent to the
+     * original condition and were discarded.
+     */
+    public long getEspressoRejectedCount() {
+        return this.espresso_rejected.get();
+    }
+
+    @Override
+    public void simplify(SumOfProducts sop) {
+        List<int[]> terms = sop.getTerms();
+        int size = terms.size();
+        int variables = sop.getVariableCount();
+        long start = System.nanoTime();
+        if (variables > EspressoConditionSimplifier.MAX_VARIABLES) {
+            // too wide for the espresso simplifier and far too wide for a
+            // truth table
+            this.brute_force.simplify(sop);
+            this.brute_force_stats.record(size, terms.size(), System.nanoTime() - start);
+            return;
+        }
+        List<int[]> original = null;
+        BitSet expected = null;
+        if (variables <= MAX_CHECKED_VARIABLES) {
+            original = new ArrayList<>(size);
+            for (int[] term : terms) {
+                original.add(term.clone());
+            }
+            expected = truthTable(original, variables);
+            if (size < this.threshold) {
+                this.brute_force.simplify(sop);
+                if (truthTable(terms, variables).equals(expected)) {
+                    this.brute_force_stats.record(size, terms.size(), System.nanoTime() - start);
+                    return;
+                }
+                this.rejected.incrementAndGet();
+                restore(terms, original);
+            }
+        }
+        this.espresso.simplify(sop);
+        if (expected != null && !truthTable(terms, variables).equals(expected)) {
+            this.espresso_rejected.incrementAndGet();
+            restore(terms, original);
+        }
+        this.espresso_stats.record(size, terms.size(), System.nanoTime() - start);
+    }
+
+    private static void restore(List<int[]> terms, List<int[]> original) {
+        terms.clear();
+        for (int[] term : original) {
+            terms.add(term.clone());
+        }
+    }
+
+    private static BitSet truthTable(List<int[]> terms, int variables) {
+        BitSet table = new BitSet(1 << variables);
+        for (int values = 0; values < 1 << variables; values++) {
+            for (int[] term : terms) {
+                if (evaluate(term, values)) {
+                    table.set(values);
+                    break;
+                }
+            }
+        }
+        return table;
+    }
+
+    private static boolean evaluate(int[] term, int values) {
+        for (int value : term) {
+            // simple condition n is bit n - 1, negative values are inverted
+            boolean set = (values & (1 << (Math.abs(value) - 1))) != 0;
+            if (set != value > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Prints the time spent and terms eliminated by each simplifier.
+     */
+    public void printReport(PrintStream out) {
+        out.println("Condition simplification:");
+        out.println("  " + this.brute_force_stats);
+        out.println("  " + this.espresso_stats);
+        out.println("  " + this.rejected.get() + " brute force results were not equivalent and replaced");
+        out.println("  " + this.espresso_rejected.get() + " espresso results were not equivalent and discarded");
+    }
+
+}
@@ -0,0 +1,219 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.util.condition;
+
+import static org.spongepowered.despector.util.condition.SumOfProducts.contains;
+import static org.spongepowered.despector.util.condition.SumOfProducts.containsInverse;
+import static org.spongepowered.despector.util.condition.SumOfProducts.findCommonSubpart;
+import static org.spongepowered.despector.util.condition.SumOfProducts.isInverse;
+import static org.spongepowered.despector.util.condition.SumOfProducts.remove;
+
+import org.spongepowered.despector.ast.insn.condition.Condition;
+import org.spongepowered.despector.decompiler.method.MethodTimeout;
+import org.spongepowered.despector.util.Pair;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A brute force simplification of sum-of-products expressions which
+ * repeatedly compares every pair of terms.
+ */
+public class BruteForceConditionSimplifier implements ConditionSimplifier {
+
+    private static final boolean DEBUG_SIMPLIFICATION = Boolean.getBoolean("despect.debug.simplification");
+
+    @Override
+    public void simplify(SumOfProducts sop) {
+        // This simplification method is a massive fucking hack in an
+        // attempt to more easily handle more than a small number of
+        // conditions. The problem of minimizing boolean functions is
+        // NP-hard and traditional solutions such as the Quine–McCluskey
+        // algorithm start to require a prohibative amount of memory and
+        // time with even a seemingly small number of conditions.
+        List<int[]> encodings = sop.getTerms();
+        Map<Condition, Integer> mapping = sop.getMapping();
+        if (DEBUG_SIMPLIFICATION) {
+            for (Map.Entry<Condition, Integer> e : mapping.entrySet()) {
+                System.out.println(e.getKey() + " : " + e.getValue());
+            }
+            System.out.print("Exp: ");
+            for (int[] e : encodings) {
+                for (int i = 0; i < e.length; i++) {
+                    System.out.print(e[i]);
+                }
+                System.out.print(" | ");
+            }
+            System.out.println();
+        }
+        for (int j = 0; j < encodings.size(); j++) {
+            MethodTimeout.check();
+            for (int k = 0; k < encodings.size(); k++) {
+                int[] n = encodings.get(k);
+                for (Iterator<int[]> it = encodings.iterator(); it.hasNext();) {
+                    int[] m = it.next();
+                    if (m == n || m.length < n.length) {
+                        continue;
+                    }
+                    // if m contains n either in whole or part then it can
+                    // be removed as any time n is true, m will also be true
+                    if (contains(m, n)) {
+                        it.remove();
+                        if (DEBUG_SIMPLIFICATION) {
+                            System.out.println("Removed expression containing other expression");
+                            System.out.print("Exp: ");
+                            for (int[] e : encodings) {
+                                for (int i = 0; i < e.length; i++) {
+                                    System.out.print(e[i]);
+                                }
+                                System.out.print(" | ");
+                            }
+                            System.out.println();
+                        }
+                    }
+                }
+                for (int l = 0; l < encodings.size(); l++) {
+                    if (l == k) {
+                        continue;
+                    }
+                    int[] m = encodings.get(l);
+                    // if m contains the inverse of n then those parts
+                    // corresponding to n can be removed from m
+                    if (n.length == 1 && containsInverse(m, n)) {
+                        int[] new_m = new int[m.length - n.length];
+                        int d = 0;
+                        outer: for (int u = 0; u < m.length; u++) {
+                            for (int v = 0; v < n.length; v++) {
+                                if (m[u] == -n[v]) {
+                                    continue outer;
+                                }
+                            }
+                            new_m[d++] = m[u];
+                        }
+                        encodings.set(l, new_m);
+                        if (DEBUG_SIMPLIFICATION) {
+                            System.out.println("Removed inverse of other expression from expression");
+                            System.out.print("Exp: ");
+                            for (int[] e : encodings) {
+                                for (int i = 0; i < e.length; i++) {
+                                    System.out.print(e[i]);
+                                }
+                                System.out.print(" | ");
+                            }
+                            System.out.println();
+                        }
+                    } else {
+                        // this extracts common subparts from m and n and
+                        // then performs a few simplifications ont he
+                        // remaining pieces.
+                        Pair<int[], int[]> s = simplifyCommonSubparts(m, n, encodings);
+                        if (s != null) {
+                            if (s.getFirst() != null) {
+                                encodings.set(l, s.getFirst());
+                                if (DEBUG_SIMPLIFICATION) {
+                                    System.out.println("Applied inverse removal to common sub part");
+                                    System.out.print("Exp: ");
+                                    for (int[] e : encodings) {
+                                        for (int i = 0; i < e.length; i++) {
+                                            System.out.print(e[i]);
+                                        }
+                                        System.out.print(" | ");
+                                    }
+                                    System.out.println();
+                                }
+                            } else {
+                                encodings.set(k, s.getSecond());
+                                encodings.remove(l);
+                                if (DEBUG_SIMPLIFICATION) {
+                                    System.out.println("Applied De Morgans law to common sub part");
+                                    System.out.print("Exp: ");
+                                    for (int[] e : encodings) {
+                                        for (int i = 0; i < e.length; i++) {
+                                            System.out.print(e[i]);
+                                        }
+                                        System.out.print(" | ");
+                                    }
+                                    System.out.println();
+                                }
+                                break;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static Pair<int[], int[]> simplifyCommonSubparts(int[] a, int[] b, List<int[]> encodings) {
+        if (a.length < b.length) {
+            return null;
+        }
+
+        int[] common = findCommonSubpart(a, b);
+        if (common == null) {
+            return null;
+        }
+        int common_length = common.length;
+
+        int[] remaining_a = remove(a, common);
+        int[] remaining_b = remove(b, common);
+        if (isInverse(remaining_a, remaining_b)) {
+            return new Pair<>(common, null);
+        } else if (remaining_b.length == 1 && containsInverse(remaining_a, remaining_b)) {
+            int[] new_m = new int[a.length - remaining_b.length];
+            int d = 0;
+            outer: for (int j = 0; j < a.length; j++) {
+                for (int v = 0; v < remaining_b.length; v++) {
+                    if (a[j] == -remaining_b[v]) {
+                        continue outer;
+                    }
+                }
+                new_m[d++] = a[j];
+            }
+            return new Pair<>(new_m, null);
+        } else if (remaining_a.length == remaining_b.length && remaining_a.length == 1) {
+            int[] new_m = new int[common_length];
+            for (int i = 0; i < common_length; i++) {
+                new_m[i] = common[i];
+            }
+
+            int[] dm = new int[] {-remaining_a[0], -remaining_b[0]};
+
+            for (int i = 0; i < encodings.size(); i++) {
+                int[] n = encodings.get(i);
+                if (n == a || n == b) {
+                    continue;
+                }
+                if (n.length == 2 && contains(n, dm)) {
+                    return new Pair<>(null, new_m);
+                }
+            }
+
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,325 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.util.condition;
+
+import org.spongepowered.despector.decompiler.method.MethodTimeout;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A heuristic minimizer in the style of espresso which represents each term as
+ * a cube of two bit sets, one of the variables appearing positive and one of
+ * the variables appearing inverted.
+ *
+ * <p>Each pass expands every cube by removing literals for as long as the cube
+ * is still implied by the condition, removes the cubes which the expanded cube
+ * covers and then removes any cube covered by the rest of the cover. Both
+ * checks are performed with a unate recursive tautology check of the cover
+ * cofactored against the cube. Passes are repeated until the cover stops
+ * shrinking. Every step keeps the cover equivalent to the original
+ * condition.</p>
+ */
+public class EspressoConditionSimplifier implements ConditionSimplifier {
+
+    /**
+     * The maximum number of distinct simple conditions supported, conditions
+     * with more are left unchanged.
+     */
+    public static final int MAX_VARIABLES = 64;
+
+    private static final int MAX_PASSES = 4;
+
+    @Override
+    public void simplify(SumOfProducts sop) {
+        if (sop.getVariableCount() > MAX_VARIABLES) {
+            return;
+        }
+        List<int[]> terms = sop.getTerms();
+        Cover cover = new Cover(terms.size());
+        for (int i = 0; i < terms.size(); i++) {
+            long pos = 0;
+            long neg = 0;
+            for (int value : terms.get(i)) {
+                if (value > 0) {
+                    pos |= bit(value);
+                } else {
+                    neg |= bit(-value);
+                }
+            }
+            if ((pos & neg) != 0) {
+                // contains both a condition and its inverse so is never true
+                continue;
+            }
+            cover.add(pos, neg, i);
+        }
+        if (cover.size == 0) {
+            return;
+        }
+
+        int cost = cover.cost();
+        for (int pass = 0; pass < MAX_PASSES; pass++) {
+            expand(cover);
+            irredundant(cover);
+            int next = cover.cost();
+            if (next >= cost) {
+                break;
+            }
+            cost = next;
+        }
+
+        // Rebuild the terms in their original order, the literals of each
+        // cube are a subset of those of the term it was expanded from
+        Integer[] sorted = new Integer[cover.size];
+        for (int i = 0; i < cover.size; i++) {
+            sorted[i] = i;
+        }
+        Arrays.sort(sorted, (a, b) -> Integer.compare(cover.origin[a], cover.origin[b]));
+        int[][] result = new int[cover.size][];
+        for (int i = 0; i < sorted.length; i++) {
+            int index = sorted[i];
+            result[i] = retain(terms.get(cover.origin[index]), cover.pos[index], cover.neg[index]);
+        }
+        terms.clear();
+        terms.addAll(Arrays.asList(result));
+    }
+
+    private static long bit(int value) {
+        return 1L << (value - 1);
+    }
+
+    private static int[] retain(int[] term, long pos, long neg) {
+        int[] result = new int[term.length];
+        int size = 0;
+        for (int value : term) {
+            if (value > 0 ? (pos & bit(value)) != 0 : (neg & bit(-value)) != 0) {
+                result[size++] = value;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Expands each cube, largest first, into a prime implicant and removes the
+     * cubes it then covers.
+     */
+    private static void expand(Cover cover) {
+        Integer[] order = cover.order(true);
+        boolean[] removed = new boolean[cover.size];
+        for (int index : order) {
+            if (removed[index]) {
+                continue;
+            }
+            MethodTimeout.check();
+            long pos = cover.pos[index];
+            long neg = cover.neg[index];
+            // raise the literals which appear least often in the cover first
+            // as those are the least likely to be shared with other cubes
+            long literals = pos | neg;
+            while (literals != 0) {
+                long best = 0;
+                int best_count = Integer.MAX_VALUE;
+                for (long rest = literals; rest != 0; rest &= rest - 1) {
+                    long b = rest & -rest;
+                    int count = cover.occurrences(b);
+                    if (count < best_count) {
+                        best_count = count;
+                        best = b;
+                    }
+                }
+                literals &= ~best;
+                long next_pos = pos & ~best;
+                long next_neg = neg & ~best;
+                if (cover.cofactor(next_pos, next_neg, -1).isTautology()) {
+                    pos = next_pos;
+                    neg = next_neg;
+                }
+            }
+            cover.pos[index] = pos;
+            cover.neg[index] = neg;
+            for (int i = 0; i < cover.size; i++) {
+                if (i != index && !removed[i] && (pos & ~cover.pos[i]) == 0 && (neg & ~cover.neg[i]) == 0) {
+                    removed[i] = true;
+                }
+            }
+        }
+        cover.removeAll(removed);
+    }
+
+    /**
+     * Removes each cube, smallest first, which is covered by the remaining
+     * cubes.
+     */
+    private static void irredundant(Cover cover) {
+        Integer[] order = cover.order(false);
+        boolean[] removed = new boolean[cover.size];
+        for (int index : order) {
+            MethodTimeout.check();
+            Cover rest = cover.cofactor(cover.pos[index], cover.neg[index], index, removed);
+            if (rest.isTautology()) {
+                removed[index] = true;
+            }
+        }
+        cover.removeAll(removed);
+    }
+
+    /**
+     * A set of cubes.
+     */
+    private static class Cover {
+
+        long[] pos;
+        long[] neg;
+        int[] origin;
+        int size;
+
+        Cover(int capacity) {
+            this.pos = new long[Math.max(capacity, 1)];
+            this.neg = new long[Math.max(capacity, 1)];
+            this.origin = new int[Math.max(capacity, 1)];
+        }
+
+        void add(long p, long n, int o) {
+            if (this.size == this.pos.length) {
+                this.pos = Arrays.copyOf(this.pos, this.size * 2);
+                this.neg = Arrays.copyOf(this.neg, this.size * 2);
+                this.origin = Arrays.copyOf(this.origin, this.size * 2);
+            }
+            this.pos[this.size] = p;
+            this.neg[this.size] = n;
+            this.origin[this.size] = o;
+            this.size++;
+        }
+
+        void removeAll(boolean[] removed) {
+            int next = 0;
+            for (int i = 0; i < this.size; i++) {
+                if (!removed[i]) {
+                    this.pos[next] = this.pos[i];
+                    this.neg[next] = this.neg[i];
+                    this.origin[next] = this.origin[i];
+                    next++;
+                }
+            }
+            this.size = next;
+        }
+
+        /**
+         * Gets the number of literals in the cover plus the number of cubes.
+         */
+        int cost() {
+            int cost = this.size;
+            for (int i = 0; i < this.size; i++) {
+                cost += Long.bitCount(this.pos[i] | this.neg[i]);
+            }
+            return cost;
+        }
+
+        int occurrences(long variable) {
+            int count = 0;
+            for (int i = 0; i < this.size; i++) {
+                if (((this.pos[i] | this.neg[i]) & variable) != 0) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        /**
+         * Gets the indices of the cubes ordered by their number of literals.
+         */
+        Integer[] order(boolean fewest_first) {
+            Integer[] order = new Integer[this.size];
+            for (int i = 0; i < this.size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> {
+                int ca = Long.bitCount(this.pos[a] | this.neg[a]);
+                int cb = Long.bitCount(this.pos[b] | this.neg[b]);
+                return fewest_first ? Integer.compare(ca, cb) : Integer.compare(cb, ca);
+            });
+            return order;
+        }
+
+        Cover cofactor(long p, long n, int skip) {
+            return cofactor(p, n, skip, null);
+        }
+
+        /**
+         * Gets the cofactor of this cover against the given cube, skipping the
+         * cube at the given index and any cubes marked as removed.
+         */
+        Cover cofactor(long p, long n, int skip, boolean[] removed) {
+            Cover result = new Cover(this.size);
+            for (int i = 0; i < this.size; i++) {
+                if (i == skip || (removed != null && removed[i])) {
+                    continue;
+                }
+                if ((this.pos[i] & n) != 0 || (this.neg[i] & p) != 0) {
+                    // disjoint from the cube
+                    continue;
+                }
+                result.add(this.pos[i] & ~p, this.neg[i] & ~n, this.origin[i]);
+            }
+            return result;
+        }
+
+        boolean isTautology() {
+            if (this.size == 0) {
+                return false;
+            }
+            long any_pos = 0;
+            long any_neg = 0;
+            for (int i = 0; i < this.size; i++) {
+                if (this.pos[i] == 0 && this.neg[i] == 0) {
+                    return true;
+                }
+                any_pos |= this.pos[i];
+                any_neg |= this.neg[i];
+            }
+            long binate = any_pos & any_neg;
+            if (binate == 0) {
+                // a cover where every variable appears in only one polarity is
+                // only a tautology if it contains the universal cube
+                return false;
+            }
+            MethodTimeout.check();
+            // split on the binate variable appearing in the most cubes
+            long split = 0;
+            int split_count = -1;
+            for (long rest = binate; rest != 0; rest &= rest - 1) {
+                long b = rest & -rest;
+                int count = occurrences(b);
+                if (count > split_count) {
+                    split_count = count;
+                    split = b;
+                }
+            }
+            return cofactor(split, 0, -1).isTautology() && cofactor(0, split, -1).isTautology();
+        }
+
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.util.condition;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statistics of the conditions simplified by a {@link ConditionSimplifier}.
+ */
+public class SimplifierStatistics {
+
+    private final String name;
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong time = new AtomicLong();
+    private final AtomicLong terms = new AtomicLong();
+    private final AtomicLong eliminated = new AtomicLong();
+
+    public SimplifierStatistics(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets the name of the simplifier.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Gets the number of conditions simplified.
+     */
+    public long getCount() {
+        return this.count.get();
+    }
+
+    /**
+     * Gets the total time spent simplifying in nanoseconds.
+     */
+    public long getTime() {
+        return this.time.get();
+    }
+
+    /**
+     * Gets the total number of terms of the conditions before simplification.
+     */
+    public long getTerms() {
+        return this.terms.get();
+    }
+
+    /**
+     * Gets the total number of terms eliminated by simplification.
+     */
+    public long getEliminated() {
+        return this.eliminated.get();
+    }
+
+    /**
+     * Records the simplification of a condition.
+     */
+    public void record(int terms_before, int terms_after, long time) {
+        this.count.incrementAndGet();
+        this.time.addAndGet(time);
+        this.terms.addAndGet(terms_before);
+        this.eliminated.addAndGet(terms_before - terms_after);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d conditions, %d of %d terms eliminated, %.3f ms", this.name, getCount(), getEliminated(), getTerms(),
+                getTime() / 1000000.0);
+    }
+
+}
@@ -0,0 +1,553 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.util.condition;
+
+import org.spongepowered.despector.ast.insn.condition.AndCondition;
+import org.spongepowered.despector.ast.insn.condition.Condition;
+import org.spongepowered.despector.ast.insn.condition.OrCondition;
+import org.spongepowered.despector.util.ConditionUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+/**
+ * A condition in sum-of-products form.
+ *
+ * <p>Each of the conditions is encoded into an integer array, every condition
+ * is inserted into a map to track an integer value for each condition.
+ * Conditions that are equivalent are given the same number and conditions that
+ * are inverses of each other are given numbers which are the negative of each
+ * other. This encoding allows very quick and easy comparisons of whether
+ * conditions are equal or inverses of each other.</p>
+ */
+public final class SumOfProducts {
+
+    /**
+     * Encodes the given condition, the operands of the or are the terms of the
+     * sum.
+     */
+    public static SumOfProducts encode(OrCondition or) {
+        List<int[]> encodings = new ArrayList<>(or.getOperands().size());
+        Map<Condition, Integer> mapping = new HashMap<>();
+        for (int i = 0; i < or.getOperands().size(); i++) {
+            Condition c = or.getOperands().get(i);
+            if (c instanceof AndCondition) {
+                encodings.add(encode((AndCondition) c, mapping));
+            } else {
+                encodings.add(new int[] {getMapping(mapping, c)});
+            }
+        }
+        return new SumOfProducts(mapping, encodings);
+    }
+
+    private final Map<Condition, Integer> mapping;
+    private final List<int[]> terms;
+
+    private SumOfProducts(Map<Condition, Integer> mapping, List<int[]> terms) {
+        this.mapping = mapping;
+        this.terms = terms;
+    }
+
+    /**
+     * Gets the mapping of simple conditions to their encoded value.
+     */
+    public Map<Condition, Integer> getMapping() {
+        return this.mapping;
+    }
+
+    /**
+     * Gets the encoded terms, this list may be modified to change the terms.
+     */
+    public List<int[]> getTerms() {
+        return this.terms;
+    }
+
+    /**
+     * Gets the number of distinct simple conditions, the encoded values range
+     * from 1 to this count and their negatives.
+     */
+    public int getVariableCount() {
+        int count = 0;
+        for (int value : this.mapping.values()) {
+            count = Math.max(count, Math.abs(value));
+        }
+        return count;
+    }
+
+    /**
+     * Decodes the terms back into a condition. Common patterns in the terms
+     * are broken out into nested conditions where they are found. Returns
+     * null if there are no terms or a term is empty, in which case the
+     * condition is a constant.
+     */
+    @Nullable
+    public Condition toCondition() {
+        if (this.terms.isEmpty()) {
+            return null;
+        }
+        for (int[] term : this.terms) {
+            if (term.length == 0) {
+                return null;
+            }
+        }
+        // postsimplify looks for common patterns and breaks them out
+        Condition ps = postsimplify(this.terms, this.mapping);
+        if (ps != null) {
+            return ps;
+        }
+        List<Condition> reverse = decode(this.terms, this.mapping);
+        if (this.terms.size() == 1) {
+            return reverse.get(0);
+        }
+        return new OrCondition(reverse);
+    }
+
+    private static int getMapping(Map<Condition, Integer> mapping, Condition condition) {
+        if (mapping.containsKey(condition)) {
+            return mapping.get(condition);
+        }
+        int highest = 1;
+        for (Condition key : mapping.keySet()) {
+            int kvalue = mapping.get(key);
+            if (ConditionUtil.isInverse(condition, key)) {
+                mapping.put(condition, -kvalue);
+                return -kvalue;
+            }
+            if (condition.equals(key)) {
+                mapping.put(condition, kvalue);
+                return kvalue;
+            }
+            if (kvalue >= highest) {
+                highest = kvalue + 1;
+            }
+        }
+        mapping.put(condition, highest);
+        return highest;
+    }
+
+    private static int[] encode(AndCondition and, Map<Condition, Integer> mapping) {
+        int[] encoding = new int[and.getOperands().size()];
+        int i = 0;
+        Set<Integer> seen = new HashSet<>();
+        for (Condition c : and.getOperands()) {
+            int m = getMapping(mapping, c);
+            if (seen.contains(m)) {
+                continue;
+            }
+            seen.add(m);
+            encoding[i++] = m;
+        }
+        if (i < encoding.length) {
+            return Arrays.copyOf(encoding, i);
+        }
+        return encoding;
+    }
+
+    /**
+     * Gets is the first param contains the inverse of the second param.
+     */
+    static boolean containsInverse(int[] a, int[] b) {
+        outer: for (int i = 0; i < b.length; i++) {
+            int next = b[i];
+            for (int o = 0; o < a.length; o++) {
+                if (a[o] == -next) {
+                    continue outer;
+                }
+            }
+            return false;
+        }
+        return true;
+    }
+
+    static boolean isInverse(int[] a, int[] b) {
+        if (a.length != b.length) {
+            return false;
+        }
+        outer: for (int i = 0; i < b.length; i++) {
+            int next = b[i];
+            for (int o = 0; o < a.length; o++) {
+                if (a[o] == -next) {
+                    continue outer;
+                }
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Gets is the first param contains the second param.
+     */
+    static boolean contains(int[] a, int[] b) {
+        outer: for (int i = 0; i < b.length; i++) {
+            int next = b[i];
+            for (int o = 0; o < a.length; o++) {
+                if (a[o] == next) {
+                    continue outer;
+                }
+            }
+            return false;
+        }
+        return true;
+    }
+
+    static boolean contains(int[] a, int b) {
+        for (int o = 0; o < a.length; o++) {
+            if (a[o] == b) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes a sub part from a larger term. Be sure to check that the term
+     * contains the subpart <strong>before</strong> calling this.
+     */
+    static int[] remove(int[] next, int[] common) {
+        int[] remaining = new int[next.length - common.length];
+        int remaining_index = 0;
+        int common_index = 0;
+        for (int o = 0; o < next.length; o++) {
+            if (common_index < common.length && next[o] == common[common_index]) {
+                common_index++;
+            } else {
+                remaining[remaining_index++] = next[o];
+            }
+        }
+        if (common_index != common.length) {
+            return null;
+        }
+        return remaining;
+    }
+
+    static int[] findCommonSubpart(int[] a, int[] b) {
+        int[] common = new int[Math.max(a.length, b.length)];
+        int common_length = 0;
+
+        for (int i = 0; i < a.length; i++) {
+            for (int j = 0; j < b.length; j++) {
+                if (a[i] == b[j]) {
+                    common[common_length++] = a[i];
+                    break;
+                }
+            }
+        }
+        if (common_length == 0) {
+            return null;
+        }
+        return Arrays.copyOf(common, common_length);
+    }
+
+    private static Condition reverse(Map<Condition, Integer> mapping, int val) {
+        for (Map.Entry<Condition, Integer> e : mapping.entrySet()) {
+            if (e.getValue() == val) {
+                return e.getKey();
+            }
+        }
+        return null;
+    }
+
+    private static Condition decode(int[] next, Map<Condition, Integer> mapping) {
+        List<Condition> partial = new ArrayList<>();
+        for (int o = 0; o < next.length; o++) {
+            int val = next[o];
+            Condition p = reverse(mapping, val);
+            if (p == null) {
+                p = ConditionUtil.inverse(reverse(mapping, -val));
+                if (p == null) {
+                    throw new IllegalStateException();
+                }
+            }
+            partial.add(p);
+        }
+        if (partial.size() == 1) {
+            return partial.get(0);
+        }
+        return new AndCondition(partial);
+    }
+
+    private static List<Condition> decode(List<int[]> encodings, Map<Condition, Integer> mapping) {
+        List<Condition> reverse = new ArrayList<>();
+        for (int i = 0; i < encodings.size(); i++) {
+            int[] next = encodings.get(i);
+            reverse.add(decode(next, mapping));
+        }
+        return reverse;
+    }
+
+    private static int countOccurances(List<int[]> encodings, int value) {
+        int count = 0;
+        for (int[] next : encodings) {
+            if (contains(next, value)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static BisectionResult findBiscection(List<int[]> encodings) {
+
+        // This attempts to find a bisection of the terms. A bisection here
+        // being a pair of values such that every term in the encoding contains
+        // exactly one of the values. In other words the terms can be split into
+        // two groups such that all members of one group contain the first value
+        // and all members of the second group contain the second term.
+
+        // this can probably be extended to find the n-section of the set but I
+        // think this is sufficient for now.
+
+        if (encodings.size() < 4) {
+            if (encodings.size() >= 2) {
+                int[] c = findCommonSubpart(encodings.get(0), encodings.get(1));
+                int[] p = c;
+                if (c != null && encodings.size() == 3) {
+                    c = findCommonSubpart(c, encodings.get(2));
+                }
+                if (c == null) {
+                    if (p != null) {
+                        List<int[]> r = new ArrayList<>();
+                        int[] r2 = null;
+                        for (int[] e : encodings) {
+                            if (contains(e, p)) {
+                                r.add(remove(e, p));
+                            } else {
+                                r2 = e;
+                            }
+                        }
+                        return new BisectionResult(p, r2, r, null);
+                    }
+                    return null;
+                }
+                List<int[]> r = new ArrayList<>();
+                for (int[] e : encodings) {
+                    if (contains(e, c)) {
+                        r.add(remove(e, c));
+                    }
+                }
+                return new BisectionResult(c, null, r, null);
+            }
+            return null;
+        }
+
+        // if there is a bisection then there must be at least one common value
+        // in the first three terms
+        int[] a = findCommonSubpart(encodings.get(0), encodings.get(1));
+        if (a == null) {
+            a = findCommonSubpart(encodings.get(0), encodings.get(2));
+            if (a == null) {
+                return null;
+            }
+        }
+
+        // We now want to find which value of the term is the most common if
+        // there are more than one to give us the largest initial section. This
+        // is not 100% reliable but we just have to take those punches or redo
+        // the entire subsequent calculation attempting to find a bisection for
+        // each possible term. Possible, but perhaps an exercise for later.
+        int max = 0;
+        int[] min_a = new int[1];
+        if (a.length > 1) {
+            for (int j = 0; j < a.length; j++) {
+                int c = countOccurances(encodings, a[j]);
+                if (c > max) {
+                    max = c;
+                    min_a[0] = a[j];
+                }
+            }
+        } else {
+            min_a[0] = a[0];
+        }
+
+        List<int[]> remaining = new ArrayList<>();
+
+        for (int j = 0; j < encodings.size(); j++) {
+            int[] next = encodings.get(j);
+            int[] r = null;
+            if (contains(next, min_a)) {
+                r = remove(next, min_a);
+            }
+            remaining.add(r);
+        }
+
+        outer: for (int k = 1; k < a.length; k++) {
+            int[] t = new int[] {a[k]};
+            for (int j = 0; j < encodings.size(); j++) {
+                int[] next = remaining.get(j);
+                if (next == null || !contains(next, t)) {
+                    continue outer;
+                }
+            }
+            min_a = Arrays.copyOf(min_a, min_a.length + 1);
+            min_a[min_a.length - 1] = a[k];
+        }
+
+        List<int[]> untouched = new ArrayList<>();
+        for (int i = 0; i < encodings.size(); i++) {
+            if (remaining.get(i) == null) {
+                untouched.add(encodings.get(i));
+            }
+        }
+
+        List<int[]> group1 = new ArrayList<>();
+        for (int i = 0; i < remaining.size(); i++) {
+            int[] n = remaining.get(i);
+            if (n != null) {
+                group1.add(n);
+            }
+        }
+
+        if (untouched.size() == 0) {
+            return new BisectionResult(min_a, null, group1, null);
+        } else if (untouched.size() == 1) {
+            return new BisectionResult(min_a, untouched.get(0), group1, null);
+        }
+
+        int[] b = findCommonSubpart(untouched.get(0), untouched.get(1));
+        for (int i = 2; i < untouched.size(); i++) {
+            if (b == null) {
+                break;
+            }
+            b = findCommonSubpart(b, untouched.get(i));
+        }
+        if (b == null) {
+            return new BisectionResult(min_a, null, group1, untouched);
+        }
+
+        List<int[]> remaining2 = new ArrayList<>();
+
+        for (int j = 0; j < untouched.size(); j++) {
+            int[] next = untouched.get(j);
+            int[] r = remove(next, b);
+            if (r == null) {
+                return new BisectionResult(min_a, null, group1, untouched);
+            }
+            remaining2.add(r);
+        }
+        return new BisectionResult(min_a, b, group1, remaining2);
+    }
+
+    private static Condition postsimplify(List<int[]> encodings, Map<Condition, Integer> mapping) {
+        BisectionResult bisection = findBiscection(encodings);
+        if (bisection != null) {
+            if (bisection.second == null) {
+                Condition common_condition = decode(bisection.first, mapping);
+                List<Condition> operands = decode(bisection.first_remaining, mapping);
+                if (bisection.second_remaining != null) {
+                    List<Condition> operands2 = decode(bisection.second_remaining, mapping);
+                    return new OrCondition(new AndCondition(common_condition, new OrCondition(operands)), new OrCondition(operands2));
+                }
+                return new AndCondition(common_condition, new OrCondition(operands));
+            }
+            List<int[]> a = bisection.first_remaining;
+            List<int[]> b = bisection.second_remaining;
+            Condition first = decode(bisection.first, mapping);
+            Condition second = decode(bisection.second, mapping);
+
+            if (b == null) {
+                List<Condition> operands = decode(a, mapping);
+                int[] t = null;
+                for (int i = 0; i < encodings.size(); i++) {
+                    t = encodings.get(i);
+                    if (contains(t, bisection.first)) {
+                        break;
+                    }
+                    t = null;
+                }
+                if (t != null) {
+                    int i = 0;
+                    for (; i < t.length; i++) {
+                        if (t[i] == bisection.first[0]) {
+                            break;
+                        }
+                    }
+                    if (i < t.length / 2) {
+                        return new OrCondition(new AndCondition(first, new OrCondition(operands)), second);
+                    }
+                    return new OrCondition(new AndCondition(new OrCondition(operands), first), second);
+                }
+                return new OrCondition(new AndCondition(first, new OrCondition(operands)), second);
+            }
+
+            if (a.size() == b.size()) {
+                boolean equal = true;
+                // check if our groups are equal to each other, if they are then
+                // we can make things even simpler
+                outer: for (int i = 0; i < a.size(); i++) {
+                    int[] next = a.get(i);
+                    for (int j = 0; j < b.size(); j++) {
+                        int[] n = b.get(j);
+                        if (Arrays.equals(next, n)) {
+                            continue outer;
+                        }
+                    }
+                    equal = false;
+                    break;
+                }
+                if (equal) {
+                    // we have a proper bisection where both groups are also the
+                    // same and thus we have an equation of the form
+
+                    // (a + b)(c + d + ... + e)
+                    List<Condition> group = decode(a, mapping);
+                    return new AndCondition(new OrCondition(first, second), new OrCondition(group));
+                }
+            }
+            List<Condition> group = decode(bisection.first_remaining, mapping);
+            List<Condition> group2 = decode(bisection.second_remaining, mapping);
+            return new OrCondition(new AndCondition(first, new OrCondition(group)), new AndCondition(second, new OrCondition(group2)));
+        }
+        return null;
+    }
+
+    /**
+     * A result of an attempted bisection of two conditions for a common sub
+     * part.
+     */
+    private static class BisectionResult {
+
+        public int[] first;
+        public int[] second;
+        public List<int[]> first_remaining;
+        public List<int[]> second_remaining;
+
+        public BisectionResult(int[] f, int[] s, List<int[]> fr, List<int[]> sr) {
+            this.first = f;
+            this.second = s;
+            this.first_remaining = fr;
+            this.second_remaining = sr;
+        }
+
+    }
+
+
+}
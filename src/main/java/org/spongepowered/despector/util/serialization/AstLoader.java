@@ -365,7 +365,7 @@ public class AstLoader {
         entry.setMethodSignature(loadMethodSignature(unpack));
         expectKey(unpack, "locals");
         Locals locals = loadLocals(unpack, entry.isStatic(), set);
-        method_locals = locals;
+        method_locals.set(locals);
         entry.setLocals(locals);
         expectKey(unpack, "instructions");
         if (unpack.peekType() == MessageType.NIL) {
@@ -663,7 +663,7 @@ public class AstLoader {
         } else {
             unpack.readNil();
         }
-        Local loc = method_locals.getLocal(index);
+        Local loc = method_locals.get().getLocal(index);
         return loc.find(start, type);
     }
 
@@ -672,8 +672,10 @@ public class AstLoader {
     private static final Map<Integer, Function<MessageUnpacker, Condition>> condition_loaders;
     private static final Map<Integer, Function<MessageUnpacker, TypeSignature>> signature_loaders;
 
-    private static final Map<Integer, Breakable> breakables = new HashMap<>();
-    private static Locals method_locals;
+    // loading state is kept per thread so that several types may be loaded
+    // at once
+    private static final ThreadLocal<Map<Integer, Breakable>> breakables = ThreadLocal.withInitial(HashMap::new);
+    private static final ThreadLocal<Locals> method_locals = new ThreadLocal<>();
 
     static {
         statement_loaders = new HashMap<>();
@@ -716,7 +718,7 @@ public class AstLoader {
                 boolean nested = unpack.readBool();
                 expectKey(unpack, "break_id");
                 int key = unpack.readInt();
-                Breakable brk = breakables.get(key);
+                Breakable brk = breakables.get().get(key);
                 return new Break(brk, type, nested);
             } catch (IOException e) {
                 Throwables.propagate(e);
@@ -757,12 +759,12 @@ public class AstLoader {
                 expectKey(unpack, "breakpoints");
                 int brk_size = unpack.readArray();
                 for (int i = 0; i < brk_size; i++) {
-                    breakables.put(unpack.readInt(), loop);
+                    breakables.get().put(unpack.readInt(), loop);
                 }
                 expectKey(unpack, "body");
                 StatementBlock body = loadBlock(unpack, StatementBlock.Type.WHILE);
                 loop.setBody(body);
-                for (Iterator<Map.Entry<Integer, Breakable>> it = breakables.entrySet().iterator(); it.hasNext();) {
+                for (Iterator<Map.Entry<Integer, Breakable>> it = breakables.get().entrySet().iterator(); it.hasNext();) {
                     Map.Entry<Integer, Breakable> n = it.next();
                     if (n.getValue() == loop) {
                         it.remove();
@@ -822,12 +824,12 @@ public class AstLoader {
                 expectKey(unpack, "breakpoints");
                 int brk_size = unpack.readArray();
                 for (int i = 0; i < brk_size; i++) {
-                    breakables.put(unpack.readInt(), loop);
+                    breakables.get().put(unpack.readInt(), loop);
                 }
                 expectKey(unpack, "body");
                 StatementBlock body = loadBlock(unpack, StatementBlock.Type.WHILE);
                 loop.setBody(body);
-                for (Iterator<Map.Entry<Integer, Breakable>> it = breakables.entrySet().iterator(); it.hasNext();) {
+                for (Iterator<Map.Entry<Integer, Breakable>> it = breakables.get().entrySet().iterator(); it.hasNext();) {
                     Map.Entry<Integer, Breakable> n = it.next();
                     if (n.getValue() == loop) {
                         it.remove();
@@ -849,12 +851,12 @@ public class AstLoader {
                 expectKey(unpack, "breakpoints");
                 int brk_size = unpack.readArray();
                 for (int i = 0; i < brk_size; i++) {
-                    breakables.put(unpack.readInt(), loop);
+                    breakables.get().put(unpack.readInt(), loop);
                 }
                 expectKey(unpack, "body");
                 StatementBlock body = loadBlock(unpack, StatementBlock.Type.WHILE);
                 loop.setBody(body);
-                for (Iterator<Map.Entry<Integer, Breakable>> it = breakables.entrySet().iterator(); it.hasNext();) {
+                for (Iterator<Map.Entry<Integer, Breakable>> it = breakables.get().entrySet().iterator(); it.hasNext();) {
                     Map.Entry<Integer, Breakable> n = it.next();
                     if (n.getValue() == loop) {
                         it.remove();
@@ -1298,12 +1300,12 @@ public class AstLoader {
                 expectKey(unpack, "breakpoints");
                 int brk_size = unpack.readArray();
                 for (int i = 0; i < brk_size; i++) {
-                    breakables.put(unpack.readInt(), loop);
+                    breakables.get().put(unpack.readInt(), loop);
                 }
                 expectKey(unpack, "body");
                 StatementBlock body = loadBlock(unpack, StatementBlock.Type.WHILE);
                 loop.setBody(body);
-                for (Iterator<Map.Entry<Integer, Breakable>> it = breakables.entrySet().iterator(); it.hasNext();) {
+                for (Iterator<Map.Entry<Integer, Breakable>> it = breakables.get().entrySet().iterator(); it.hasNext();) {
                     Map.Entry<Integer, Breakable> n = it.next();
                     if (n.getValue() == loop) {
                         it.remove();
@@ -0,0 +1,226 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.ast;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.spongepowered.despector.ast.AstVisitor;
+import org.spongepowered.despector.ast.generic.ClassTypeSignature;
+import org.spongepowered.despector.ast.generic.TypeSignature;
+import org.spongepowered.despector.ast.insn.Instruction;
+import org.spongepowered.despector.ast.insn.condition.AndCondition;
+import org.spongepowered.despector.ast.insn.condition.BooleanCondition;
+import org.spongepowered.despector.ast.insn.condition.Condition;
+import org.spongepowered.despector.ast.insn.condition.InverseCondition;
+import org.spongepowered.despector.ast.insn.condition.OrCondition;
+import org.spongepowered.despector.decompiler.method.ConditionBuilder;
+import org.spongepowered.despector.util.condition.AdaptiveConditionSimplifier;
+import org.spongepowered.despector.util.condition.ConditionSimplifier;
+import org.spongepowered.despector.util.serialization.MessagePacker;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConditionBuilderTest {
+
+    private static final int BODY = ConditionBuilder.BODY;
+    private static final int RET = ConditionBuilder.RET;
+    private static final ConditionSimplifier SIMPLIFIER = new AdaptiveConditionSimplifier();
+
+    private static List<BooleanCondition> atoms(int count) {
+        List<BooleanCondition> atoms = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            atoms.add(new BooleanCondition(new MockInsn(i), false));
+        }
+        return atoms;
+    }
+
+    private static BooleanCondition not(BooleanCondition c) {
+        return new BooleanCondition(c.getConditionValue(), !c.isInverse());
+    }
+
+    @Test
+    public void testAndOr() {
+        // (a || b) && c
+        List<BooleanCondition> v = atoms(3);
+        List<Condition> jumps = Arrays.asList(v.get(0), not(v.get(1)), not(v.get(2)));
+        Condition cond = ConditionBuilder.makeCondition(jumps, new int[] {2, RET, RET}, new int[] {1, 2, BODY}, SIMPLIFIER);
+        assertEquals(new AndCondition(new OrCondition(v.get(0), v.get(1)), v.get(2)), cond);
+    }
+
+    @Test
+    public void testOrAnd() {
+        // a || b && c
+        List<BooleanCondition> v = atoms(3);
+        List<Condition> jumps = Arrays.asList(v.get(0), not(v.get(1)), not(v.get(2)));
+        Condition cond = ConditionBuilder.makeCondition(jumps, new int[] {BODY, RET, RET}, new int[] {1, 2, BODY}, SIMPLIFIER);
+        assertEquals(new OrCondition(v.get(0), new AndCondition(v.get(1), v.get(2))), cond);
+    }
+
+    @Test
+    public void testTernaryUsesSimplifier() {
+        // a ? b : c is not a short circuit expression and is expanded and
+        // passed to the given simplifier
+        List<BooleanCondition> v = atoms(3);
+        List<Condition> jumps = Arrays.asList(v.get(0), v.get(1), v.get(2));
+        int[] targets = new int[] {1, BODY, BODY};
+        int[] else_targets = new int[] {2, RET, RET};
+        AtomicInteger simplified = new AtomicInteger();
+        Condition cond = ConditionBuilder.makeCondition(jumps, targets, else_targets, (sop) -> {
+            simplified.incrementAndGet();
+            SIMPLIFIER.simplify(sop);
+        });
+        assertEquals(1, simplified.get());
+        for (int values = 0; values < 1 << 3; values++) {
+            assertEquals(cond.toString(), walk(jumps, targets, else_targets, values), evaluate(cond, values));
+        }
+    }
+
+    @Test
+    public void testLongChain() {
+        // (a0 || b0) && (a1 || b1) && ... has 2^12 paths to the body
+        int pairs = 12;
+        List<BooleanCondition> v = atoms(pairs * 2);
+        List<Condition> jumps = new ArrayList<>();
+        int[] targets = new int[pairs * 2];
+        int[] else_targets = new int[pairs * 2];
+        List<Condition> expected = new ArrayList<>();
+        for (int i = 0; i < pairs; i++) {
+            int a = i * 2;
+            int next = i == pairs - 1 ? BODY : a + 2;
+            jumps.add(v.get(a));
+            targets[a] = next;
+            else_targets[a] = a + 1;
+            jumps.add(not(v.get(a + 1)));
+            targets[a + 1] = RET;
+            else_targets[a + 1] = next;
+            expected.add(new OrCondition(v.get(a), v.get(a + 1)));
+        }
+        Condition cond = ConditionBuilder.makeCondition(jumps, targets, else_targets, SIMPLIFIER);
+        assertEquals(new AndCondition(expected), cond);
+    }
+
+    @Test
+    public void testRandomGraphs() {
+        Random rand = new Random(5);
+        for (int n = 0; n < 500; n++) {
+            int size = 1 + rand.nextInt(8);
+            List<BooleanCondition> v = atoms(size);
+            List<Condition> jumps = new ArrayList<>();
+            int[] targets = new int[size];
+            int[] else_targets = new int[size];
+            for (int i = 0; i < size; i++) {
+                jumps.add(rand.nextBoolean() ? v.get(i) : not(v.get(i)));
+                // a jump always has two distinct targets
+                targets[i] = randomTarget(rand, i, size);
+                do {
+                    else_targets[i] = randomTarget(rand, i, size);
+                } while (else_targets[i] == targets[i]);
+            }
+            Condition cond = ConditionBuilder.makeCondition(jumps, targets, else_targets, SIMPLIFIER);
+            for (int values = 0; values < 1 << size; values++) {
+                boolean expected = walk(jumps, targets, else_targets, values);
+                assertEquals(cond.toString(), expected, evaluate(cond, values));
+            }
+        }
+    }
+
+    private static int randomTarget(Random rand, int index, int size) {
+        int next = index + 1 + rand.nextInt(size - index + 1);
+        if (next == size) {
+            return BODY;
+        } else if (next > size) {
+            return RET;
+        }
+        return next;
+    }
+
+    private static boolean walk(List<Condition> jumps, int[] targets, int[] else_targets, int values) {
+        int node = 0;
+        while (node >= 0) {
+            node = evaluate(jumps.get(node), values) ? targets[node] : else_targets[node];
+        }
+        return node == BODY;
+    }
+
+    private static boolean evaluate(Condition cond, int values) {
+        if (cond instanceof BooleanCondition) {
+            BooleanCondition bool = (BooleanCondition) cond;
+            boolean value = (values & (1 << ((MockInsn) bool.getConditionValue()).index)) != 0;
+            return value != bool.isInverse();
+        } else if (cond instanceof InverseCondition) {
+            return !evaluate(((InverseCondition) cond).getConditionValue(), values);
+        } else if (cond instanceof AndCondition) {
+            for (Condition operand : ((AndCondition) cond).getOperands()) {
+                if (!evaluate(operand, values)) {
+                    return false;
+                }
+            }
+            return true;
+        } else if (cond instanceof OrCondition) {
+            for (Condition operand : ((OrCondition) cond).getOperands()) {
+                if (evaluate(operand, values)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        throw new IllegalStateException("Unexpected condition " + cond);
+    }
+
+    private static class MockInsn implements Instruction {
+
+        final int index;
+
+        public MockInsn(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public TypeSignature inferType() {
+            return ClassTypeSignature.BOOLEAN;
+        }
+
+        @Override
+        public void accept(AstVisitor visitor) {
+        }
+
+        @Override
+        public String toString() {
+            return "v" + this.index;
+        }
+
+        @Override
+        public void writeTo(MessagePacker pack) throws IOException {
+        }
+
+    }
+
+}
@@ -0,0 +1,218 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.ast;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.spongepowered.despector.ast.AstVisitor;
+import org.spongepowered.despector.ast.generic.ClassTypeSignature;
+import org.spongepowered.despector.ast.generic.TypeSignature;
+import org.spongepowered.despector.ast.insn.Instruction;
+import org.spongepowered.despector.ast.insn.condition.AndCondition;
+import org.spongepowered.despector.ast.insn.condition.BooleanCondition;
+import org.spongepowered.despector.ast.insn.condition.Condition;
+import org.spongepowered.despector.ast.insn.condition.InverseCondition;
+import org.spongepowered.despector.ast.insn.condition.OrCondition;
+import org.spongepowered.despector.util.condition.AdaptiveConditionSimplifier;
+import org.spongepowered.despector.util.condition.ConditionSimplifier;
+import org.spongepowered.despector.util.condition.EspressoConditionSimplifier;
+import org.spongepowered.despector.util.condition.SumOfProducts;
+import org.spongepowered.despector.util.serialization.MessagePacker;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class EspressoSimplifierTest {
+
+    private static final BooleanCondition a = new BooleanCondition(new MockInsn(0), false);
+    private static final BooleanCondition anot = new BooleanCondition(a.getConditionValue(), true);
+    private static final BooleanCondition b = new BooleanCondition(new MockInsn(1), false);
+    private static final BooleanCondition c = new BooleanCondition(new MockInsn(2), false);
+
+    private static Condition simplify(ConditionSimplifier simplifier, OrCondition condition) {
+        SumOfProducts sop = SumOfProducts.encode(condition);
+        simplifier.simplify(sop);
+        return sop.toCondition();
+    }
+
+    @Test
+    public void testConsensus() {
+        // a && b || !a && c || b && c, the last term is redundant
+        Condition complex = new OrCondition(new AndCondition(a, b), new AndCondition(anot, c), new AndCondition(b, c));
+        Condition simplified = simplify(new EspressoConditionSimplifier(), (OrCondition) complex);
+        assertEquals(new OrCondition(new AndCondition(a, b), new AndCondition(anot, c)), simplified);
+    }
+
+    @Test
+    public void testExpand() {
+        // a && b || a && !b || c
+        BooleanCondition bnot = new BooleanCondition(b.getConditionValue(), true);
+        Condition complex = new OrCondition(new AndCondition(a, b), new AndCondition(a, bnot), c);
+        Condition simplified = simplify(new EspressoConditionSimplifier(), (OrCondition) complex);
+        assertEquals(new OrCondition(a, c), simplified);
+    }
+
+    @Test
+    public void testRandomEquivalence() {
+        checkRandomEquivalence(new EspressoConditionSimplifier(), new Random(11), 300);
+    }
+
+    @Test
+    public void testAdaptiveRandomEquivalence() {
+        // the brute force simplifier alone gives a different condition for
+        // some of these, which the adaptive simplifier must replace
+        AdaptiveConditionSimplifier adaptive = new AdaptiveConditionSimplifier();
+        checkRandomEquivalence(adaptive, new Random(3), 3000);
+        assertTrue(adaptive.getBruteForceStatistics().getCount() > 0);
+        assertTrue(adaptive.getRejectedCount() > 0);
+        assertEquals(0, adaptive.getEspressoRejectedCount());
+    }
+
+    @Test
+    public void testAdaptiveTooWideForEspresso() {
+        // more simple conditions than the espresso simplifier supports, the
+        // second term is absorbed by the first
+        List<Condition> first = new ArrayList<>();
+        for (int i = 0; i <= EspressoConditionSimplifier.MAX_VARIABLES; i++) {
+            first.add(new BooleanCondition(new MockInsn(i), false));
+        }
+        List<Condition> second = new ArrayList<>(first);
+        second.add(new BooleanCondition(new MockInsn(EspressoConditionSimplifier.MAX_VARIABLES + 1), false));
+        AdaptiveConditionSimplifier adaptive = new AdaptiveConditionSimplifier();
+        Condition simplified = simplify(adaptive, new OrCondition(new AndCondition(first), new AndCondition(second)));
+        assertEquals(new AndCondition(first), simplified);
+        assertEquals(1, adaptive.getBruteForceStatistics().getCount());
+        assertEquals(0, adaptive.getEspressoStatistics().getCount());
+    }
+
+    private static void checkRandomEquivalence(ConditionSimplifier simplifier, Random rand, int count) {
+        for (int n = 0; n < count; n++) {
+            int variables = 2 + rand.nextInt(6);
+            List<BooleanCondition> atoms = new ArrayList<>();
+            for (int i = 0; i < variables; i++) {
+                atoms.add(new BooleanCondition(new MockInsn(i), false));
+            }
+            List<Condition> terms = new ArrayList<>();
+            int term_count = 2 + rand.nextInt(12);
+            for (int i = 0; i < term_count; i++) {
+                List<Condition> literals = new ArrayList<>();
+                for (BooleanCondition atom : atoms) {
+                    int r = rand.nextInt(3);
+                    if (r != 0) {
+                        literals.add(new BooleanCondition(atom.getConditionValue(), r == 2));
+                    }
+                }
+                if (literals.isEmpty()) {
+                    literals.add(atoms.get(0));
+                }
+                terms.add(literals.size() == 1 ? literals.get(0) : new AndCondition(literals));
+            }
+            OrCondition complex = new OrCondition(terms);
+            SumOfProducts sop = SumOfProducts.encode(complex);
+            simplifier.simplify(sop);
+            assertTrue(sop.getTerms().size() <= term_count);
+            Condition simplified = sop.toCondition();
+            if (simplified == null) {
+                // the condition is always true
+                for (int values = 0; values < 1 << variables; values++) {
+                    assertTrue(evaluate(complex, values));
+                }
+                continue;
+            }
+            for (int values = 0; values < 1 << variables; values++) {
+                assertEquals(complex + " -> " + simplified, evaluate(complex, values), evaluate(simplified, values));
+            }
+        }
+    }
+
+    @Test
+    public void testAdaptiveStatistics() {
+        AdaptiveConditionSimplifier adaptive = new AdaptiveConditionSimplifier(3);
+        simplify(adaptive, new OrCondition(a, b));
+        simplify(adaptive, new OrCondition(new AndCondition(a, b), new AndCondition(anot, c), new AndCondition(b, c)));
+        assertEquals(1, adaptive.getBruteForceStatistics().getCount());
+        assertEquals(1, adaptive.getEspressoStatistics().getCount());
+        assertEquals(3, adaptive.getEspressoStatistics().getTerms());
+        assertEquals(1, adaptive.getEspressoStatistics().getEliminated());
+    }
+
+    private static boolean evaluate(Condition cond, int values) {
+        if (cond instanceof BooleanCondition) {
+            BooleanCondition bool = (BooleanCondition) cond;
+            boolean value = (values & (1 << ((MockInsn) bool.getConditionValue()).index)) != 0;
+            return value != bool.isInverse();
+        } else if (cond instanceof InverseCondition) {
+            return !evaluate(((InverseCondition) cond).getConditionValue(), values);
+        } else if (cond instanceof AndCondition) {
+            for (Condition operand : ((AndCondition) cond).getOperands()) {
+                if (!evaluate(operand, values)) {
+                    return false;
+                }
+            }
+            return true;
+        } else if (cond instanceof OrCondition) {
+            for (Condition operand : ((OrCondition) cond).getOperands()) {
+                if (evaluate(operand, values)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        throw new IllegalStateException("Unexpected condition " + cond);
+    }
+
+    private static class MockInsn implements Instruction {
+
+        final int index;
+
+        public MockInsn(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public TypeSignature inferType() {
+            return ClassTypeSignature.BOOLEAN;
+        }
+
+        @Override
+        public void accept(AstVisitor visitor) {
+        }
+
+        @Override
+        public String toString() {
+            return "v" + this.index;
+        }
+
+        @Override
+        public void writeTo(MessagePacker pack) throws IOException {
+        }
+
+    }
+
+}
@@ -0,0 +1,181 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.ast;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.ast.type.MethodEntry;
+import org.spongepowered.despector.ast.type.TypeEntry;
+import org.spongepowered.despector.decompiler.Decompilers;
+import org.spongepowered.test.util.TestHelper;
+
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class SourceSetTest {
+
+    private static final String DUMMY_NAME = Dummy.class.getName().replace('.', '/');
+
+    @Test
+    public void testConcurrentLoad() throws Exception {
+        AtomicInteger finds = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        SourceSet set = new SourceSet();
+        set.setLoader((name) -> {
+            finds.incrementAndGet();
+            return findClass(name);
+        });
+
+        ExecutorService exec = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<TypeEntry>> results = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                results.add(exec.submit(() -> {
+                    start.await();
+                    return set.get(DUMMY_NAME);
+                }));
+            }
+            start.countDown();
+            TypeEntry type = results.get(0).get();
+            Assert.assertNotNull(type);
+            for (Future<TypeEntry> result : results) {
+                Assert.assertSame(type, result.get());
+            }
+        } finally {
+            exec.shutdown();
+        }
+        Assert.assertEquals(1, finds.get());
+    }
+
+    @Test
+    public void testMissingTypeCached() {
+        AtomicInteger finds = new AtomicInteger();
+        SourceSet set = new SourceSet();
+        set.setLoader((name) -> {
+            finds.incrementAndGet();
+            return (InputStream) null;
+        });
+        Assert.assertNull(set.get("does/not/Exist"));
+        Assert.assertNull(set.get("does/not/Exist"));
+        Assert.assertEquals(1, finds.get());
+    }
+
+    @Test
+    public void testLoadsStub() {
+        SourceSet set = new SourceSet();
+        set.setLoader(SourceSetTest::findClass);
+        TypeEntry type = set.get(DUMMY_NAME);
+        Assert.assertNotNull(type);
+        Assert.assertTrue(type.isStub());
+        Assert.assertNotNull(type.getField("value"));
+        MethodEntry mth = type.getMethod("getValue");
+        Assert.assertNotNull(mth);
+        Assert.assertEquals("()I", mth.getDescription());
+        Assert.assertNull(mth.getIR());
+        Assert.assertNull(mth.getInstructions());
+    }
+
+    @Test
+    public void testUpgradesStub() {
+        AtomicInteger finds = new AtomicInteger();
+        SourceSet set = new SourceSet();
+        set.setLoader((name) -> {
+            finds.incrementAndGet();
+            return findClass(name);
+        });
+        TypeEntry stub = set.get(DUMMY_NAME);
+        Assert.assertTrue(stub.isStub());
+        TypeEntry type = set.getFull(DUMMY_NAME);
+        Assert.assertNotSame(stub, type);
+        Assert.assertFalse(type.isStub());
+        Assert.assertNotNull(type.getMethod("getValue").getInstructions());
+        Assert.assertSame(type, set.get(DUMMY_NAME));
+        Assert.assertSame(type, set.getFull(DUMMY_NAME));
+        Assert.assertEquals(2, finds.get());
+    }
+
+    @Test
+    public void testRemovedTypeReloadedAsStub() {
+        SourceSet set = new SourceSet();
+        set.setLoader(SourceSetTest::findClass);
+        TypeEntry type = set.getFull(DUMMY_NAME);
+        Assert.assertFalse(type.isStub());
+        set.remove(DUMMY_NAME);
+        Assert.assertFalse(set.getAllClasses().contains(type));
+        TypeEntry stub = set.get(DUMMY_NAME);
+        Assert.assertNotSame(type, stub);
+        Assert.assertTrue(stub.isStub());
+    }
+
+    @Test
+    public void testStubDoesNotReplaceFullType() throws IOException {
+        SourceSet set = new SourceSet();
+        AtomicReference<TypeEntry> full = new AtomicReference<>();
+        set.setLoader((name) -> {
+            // a walker thread finishes decompiling the type while the stub
+            // is being loaded
+            try {
+                full.set(Decompilers.WILD.decompile(TestHelper.getClassFile(name), set));
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return findClass(name);
+        });
+        TypeEntry type = set.get(DUMMY_NAME);
+        Assert.assertFalse(type.isStub());
+        Assert.assertSame(full.get(), type);
+        Assert.assertSame(type, set.get(DUMMY_NAME));
+    }
+
+    private static InputStream findClass(String name) {
+        try {
+            return new FileInputStream(TestHelper.getClassFile(name));
+        } catch (FileNotFoundException e) {
+            return null;
+        }
+    }
+
+    public static class Dummy {
+
+        public int value;
+
+        public int getValue() {
+            return this.value;
+        }
+
+    }
+
+}
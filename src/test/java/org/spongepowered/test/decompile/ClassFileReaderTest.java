@@ -0,0 +1,77 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.decompile;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.spongepowered.despector.Despector;
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.decompiler.Decompilers;
+import org.spongepowered.despector.decompiler.error.SourceFormatException;
+import org.spongepowered.despector.decompiler.loader.ClassFileReader;
+import org.spongepowered.test.util.TestHelper;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+
+public class ClassFileReaderTest {
+
+    private static byte[] readClass() throws Exception {
+        return TestHelper.readClass(ClassFileReaderTest.class);
+    }
+
+    @Test
+    public void testReads() {
+        ClassFileReader reader = new ClassFileReader(new byte[] {(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE, (byte) 0xFF, 0x01, 0x02});
+        assertEquals(0xCAFEBABE, reader.readInt());
+        assertEquals(0xFF01, reader.readUnsignedShort());
+        reader.setOffset(4);
+        assertEquals((short) 0xFF01, reader.readShort());
+        assertEquals(2, reader.readUnsignedByte());
+    }
+
+    @Test(expected = SourceFormatException.class)
+    public void testSkipPastEnd() {
+        ClassFileReader reader = new ClassFileReader(new byte[4]);
+        reader.skip(2);
+        reader.skip(3);
+    }
+
+    @Test(expected = SourceFormatException.class)
+    public void testTruncatedClass() throws Exception {
+        byte[] data = readClass();
+        Decompilers.WILD.decompile(Arrays.copyOf(data, data.length - 8), new SourceSet());
+    }
+
+    @Test
+    public void testBytesMatchStream() throws Exception {
+        byte[] data = readClass();
+        String from_bytes = Despector.emitToString(Decompilers.WILD.decompile(data, new SourceSet()));
+        String from_stream = Despector.emitToString(Decompilers.WILD.decompile(new ByteArrayInputStream(data), new SourceSet()));
+        assertEquals(from_bytes, from_stream);
+    }
+
+}
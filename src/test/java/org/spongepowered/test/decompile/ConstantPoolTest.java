@@ -0,0 +1,132 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.decompile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import org.spongepowered.despector.decompiler.error.SourceFormatException;
+import org.spongepowered.despector.decompiler.loader.ClassConstantPool;
+import org.spongepowered.despector.decompiler.loader.ClassConstantPool.FieldRefEntry;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+public class ConstantPoolTest {
+
+    private static final String UNICODE = "héllo \u0000 ☃ 𝄞";
+
+    private static byte[] createPool() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeShort(11);
+        // 1
+        out.writeByte(1);
+        out.writeUTF("java/lang/Object");
+        // 2
+        out.writeByte(7);
+        out.writeShort(1);
+        // 3
+        out.writeByte(1);
+        out.writeUTF(UNICODE);
+        // 4 and 5
+        out.writeByte(5);
+        out.writeLong(-1234567890123L);
+        // 6
+        out.writeByte(3);
+        out.writeInt(-5);
+        // 7
+        out.writeByte(1);
+        out.writeUTF("x");
+        // 8
+        out.writeByte(1);
+        out.writeUTF("I");
+        // 9
+        out.writeByte(12);
+        out.writeShort(7);
+        out.writeShort(8);
+        // 10
+        out.writeByte(9);
+        out.writeShort(2);
+        out.writeShort(9);
+        // a trailing value after the pool
+        out.writeShort(0xCAFE);
+        return bytes.toByteArray();
+    }
+
+    private static void checkPool(ClassConstantPool pool) {
+        FieldRefEntry field = pool.getFieldRef(10);
+        assertEquals("java/lang/Object", field.cls);
+        assertEquals("x", field.name);
+        assertEquals("I", field.type);
+        assertEquals(UNICODE, pool.getUtf8(3));
+        assertEquals(-1234567890123L, pool.getLong(4));
+        assertEquals(-5, pool.getInt(6));
+        assertEquals("java/lang/Object", pool.getClass(2).name);
+    }
+
+    @Test
+    public void testLoadStream() throws IOException {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(createPool()));
+        ClassConstantPool pool = new ClassConstantPool();
+        pool.load(input);
+        assertEquals(0xCAFE, input.readUnsignedShort());
+        checkPool(pool);
+    }
+
+    @Test
+    public void testLoadArray() throws IOException {
+        byte[] data = createPool();
+        ClassConstantPool pool = new ClassConstantPool();
+        int end = pool.load(data, 0);
+        assertEquals(data.length - 2, end);
+        checkPool(pool);
+    }
+
+    @Test
+    public void testLoadTruncatedArray() throws IOException {
+        byte[] data = createPool();
+        // every length which ends within the pool, before the trailing value
+        for (int length = 0; length < data.length - 2; length++) {
+            ClassConstantPool pool = new ClassConstantPool();
+            try {
+                pool.load(Arrays.copyOf(data, length), 0);
+                fail("Loaded a pool truncated to " + length + " bytes");
+            } catch (SourceFormatException expected) {
+            }
+        }
+    }
+
+    @Test(expected = SourceFormatException.class)
+    public void testLoadEmptyPool() {
+        new ClassConstantPool().load(new byte[] {0, 0}, 0);
+    }
+
+}
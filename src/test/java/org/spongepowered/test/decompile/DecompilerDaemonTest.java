@@ -0,0 +1,180 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.decompile;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.spongepowered.despector.DecompilerDaemon;
+import org.spongepowered.despector.DecompilerSession;
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.ast.type.TypeEntry;
+import org.spongepowered.despector.config.ConfigBase;
+import org.spongepowered.despector.decompiler.JarSource;
+import org.spongepowered.test.util.TestHelper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.EnumSet;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+public class DecompilerDaemonTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path jar(String name, Class<?>... types) throws IOException {
+        Path jar = this.folder.getRoot().toPath().resolve(name);
+        try (OutputStream out = Files.newOutputStream(jar); JarOutputStream jar_out = new JarOutputStream(out)) {
+            for (Class<?> type : types) {
+                String entry = type.getName().replace('.', '/') + ".class";
+                jar_out.putNextEntry(new JarEntry(entry));
+                jar_out.write(TestHelper.readClass(type));
+                jar_out.closeEntry();
+            }
+        }
+        return jar;
+    }
+
+    @Test
+    public void testJobsShareLibraries() throws Exception {
+        Path job = jar("job.jar", DaemonJobType.class);
+        Path lib = jar("lib.jar", DaemonLibrary.class);
+
+        DecompilerSession session = new DecompilerSession(new ConfigBase());
+        session.setQuiet(true);
+        session.setEagerMethodBodies(true);
+        SourceSet libraries = new SourceSet(session);
+        try (JarSource lib_jar = new JarSource(lib)) {
+            libraries.setLoader(lib_jar);
+            DecompilerDaemon daemon = new DecompilerDaemon(session, session.getDecompiler(), libraries, null);
+
+            Path first = this.folder.newFolder("first").toPath();
+            String reply = daemon.runJob(job.toString() + "\t" + first.toString());
+            Assert.assertTrue(reply, reply.startsWith("OK "));
+            String library_name = DaemonLibrary.class.getName().replace('.', '/');
+            TypeEntry library = libraries.get(library_name);
+            Assert.assertTrue(library.isStub());
+
+            Path second = this.folder.newFolder("second").toPath();
+            reply = daemon.runJob(job.toString() + "\t" + second.toString());
+            Assert.assertTrue(reply, reply.startsWith("OK "));
+            Assert.assertSame(library, libraries.get(library_name));
+
+            Path file = second.resolve(DaemonJobType.class.getName().replace('.', '/') + ".java");
+            String source = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+            Assert.assertTrue(source, source.contains("DaemonLibrary.join(\"a\", \"b\")"));
+        }
+    }
+
+    @Test
+    public void testMalformedJob() {
+        DecompilerDaemon daemon = new DecompilerDaemon(new DecompilerSession(new ConfigBase()), DecompilerSession.getDefault().getDecompiler(), null, null);
+        Assert.assertTrue(daemon.runJob("missing-destination").startsWith("ERROR "));
+    }
+
+    @Test
+    public void testNoSourcesIsError() throws Exception {
+        Path empty = jar("empty.jar");
+        DecompilerSession session = new DecompilerSession(new ConfigBase());
+        session.setQuiet(true);
+        DecompilerDaemon daemon = new DecompilerDaemon(session, session.getDecompiler(), null, null);
+        Path output = this.folder.newFolder("output").toPath();
+        String reply = daemon.runJob(empty.toString() + "\t" + output.toString());
+        Assert.assertTrue(reply, reply.startsWith("ERROR "));
+    }
+
+    @Test
+    public void testConnectionRequiresToken() throws Exception {
+        Path job = jar("job.jar", DaemonJobType.class);
+        Path token_file = this.folder.getRoot().toPath().resolve("daemon.token");
+
+        DecompilerSession session = new DecompilerSession(new ConfigBase());
+        session.setQuiet(true);
+        session.setEagerMethodBodies(true);
+        DecompilerDaemon daemon = new DecompilerDaemon(session, session.getDecompiler(), null, null);
+        try (ServerSocket server = daemon.open(0, token_file)) {
+            if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+                Assert.assertEquals(EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE),
+                        Files.getPosixFilePermissions(token_file));
+            }
+            Thread serve = new Thread(() -> {
+                try {
+                    daemon.serve(server);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            });
+            serve.setDaemon(true);
+            serve.start();
+
+            Path output = this.folder.newFolder("output").toPath();
+            String job_line = job.toString() + "\t" + output.toString();
+            try (Socket socket = new Socket(server.getInetAddress(), server.getLocalPort());
+                    BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                    Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)) {
+                out.write("wrong\n" + job_line + "\n");
+                out.flush();
+                Assert.assertEquals("ERROR Invalid token", in.readLine());
+                Assert.assertNull(in.readLine());
+            }
+            Assert.assertFalse(Files.exists(output.resolve(DaemonJobType.class.getName().replace('.', '/') + ".java")));
+
+            String token = new String(Files.readAllBytes(token_file), StandardCharsets.UTF_8);
+            try (Socket socket = new Socket(server.getInetAddress(), server.getLocalPort());
+                    BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                    Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)) {
+                out.write(token + "\n" + job_line + "\n");
+                out.flush();
+                Assert.assertEquals("OK", in.readLine());
+                String reply = in.readLine();
+                Assert.assertTrue(reply, reply.startsWith("OK "));
+            }
+            Assert.assertTrue(Files.exists(output.resolve(DaemonJobType.class.getName().replace('.', '/') + ".java")));
+        }
+    }
+
+    public static class DaemonLibrary {
+
+        public static String join(String... parts) {
+            return String.join(",", parts);
+        }
+
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.decompile;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.spongepowered.despector.DecompilerSession;
+import org.spongepowered.despector.Language;
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.config.ConfigBase;
+import org.spongepowered.despector.decompiler.method.metrics.DecompilerMetrics;
+import org.spongepowered.despector.decompiler.method.metrics.DecompilerMetrics.Measurement;
+import org.spongepowered.despector.decompiler.method.metrics.DecompilerMetrics.MethodMetrics;
+import org.spongepowered.test.util.TestHelper;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+
+public class DecompilerMetricsTest {
+
+    @Test
+    public void testMetricsRecorded() throws IOException {
+        DecompilerMetrics metrics = new DecompilerMetrics(false);
+        DecompilerSession session = new DecompilerSession(new ConfigBase());
+        session.setEagerMethodBodies(true);
+        session.getJavaMethodDecompiler().setInstrumentation(metrics);
+        session.getDecompiler(Language.JAVA).decompile(TestHelper.getClassFile(MeasuredType.class), new SourceSet(session));
+
+        // the constructor and sum
+        Assert.assertEquals(2, metrics.getMethods().size());
+        MethodMetrics slowest = metrics.getSlowest(1).get(0);
+        Assert.assertEquals(MeasuredType.class.getName().replace('.', '/'), slowest.getOwner());
+        Assert.assertEquals(1, slowest.getTotal().getCount());
+
+        boolean found = false;
+        for (Measurement step : metrics.getStepTotals()) {
+            if (step.getName().equals("JumpGraphProducerStep")) {
+                found = true;
+                // breakpoints are collected and edges formed for each method
+                Assert.assertEquals(4, step.getCount());
+            }
+        }
+        Assert.assertTrue(found);
+        List<Measurement> classes = metrics.getClassTotals();
+        Assert.assertEquals(1, classes.size());
+        Assert.assertEquals(2, classes.get(0).getCount());
+
+        StringWriter csv = new StringWriter();
+        metrics.writeCsv(csv);
+        Assert.assertTrue(csv.toString().startsWith("scope,class,method,step,count,time_ns,allocated_bytes\n"));
+        Assert.assertTrue(csv.toString().contains("method," + slowest.getOwner() + ","));
+
+        StringWriter json = new StringWriter();
+        metrics.writeJson(json, 1);
+        Assert.assertTrue(json.toString().contains("\"method_count\": 2"));
+    }
+
+    public static class MeasuredType {
+
+        public int sum(int[] values) {
+            int total = 0;
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] > 0) {
+                    total += values[i];
+                }
+            }
+            return total;
+        }
+
+    }
+
+}
@@ -0,0 +1,135 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.decompile;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.spongepowered.despector.DecompilerSession;
+import org.spongepowered.despector.Despector;
+import org.spongepowered.despector.Language;
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.ast.type.TypeEntry;
+import org.spongepowered.despector.config.ConfigBase;
+import org.spongepowered.despector.decompiler.Decompilers;
+import org.spongepowered.despector.util.condition.ConditionSimplifier;
+import org.spongepowered.despector.util.condition.EspressoConditionSimplifier;
+import org.spongepowered.test.util.TestHelper;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class DecompilerSessionTest {
+
+    private static TypeEntry decompile(DecompilerSession session) throws IOException {
+        SourceSet source = new SourceSet(session);
+        return session.getDecompiler(Language.JAVA).decompile(TestHelper.getClassFile(SessionType.class), source);
+    }
+
+    private static DecompilerSession create(boolean emit_this) {
+        ConfigBase config = new ConfigBase();
+        config.emitter.emit_this_for_methods = emit_this;
+        DecompilerSession session = new DecompilerSession(config);
+        session.setQuiet(true);
+        return session;
+    }
+
+    @Test
+    public void testSessionsAreIsolated() throws Exception {
+        DecompilerSession first = create(false);
+        DecompilerSession second = create(true);
+        Assert.assertNotSame(Decompilers.JAVA_METHOD, first.getJavaMethodDecompiler());
+        Assert.assertNotSame(first.getJavaMethodDecompiler(), second.getJavaMethodDecompiler());
+        Assert.assertNotSame(first.getJavaEmitterSet(), second.getJavaEmitterSet());
+
+        first.getJavaMethodDecompiler().setTimeout(60000);
+        Assert.assertEquals(0, second.getJavaMethodDecompiler().getTimeout());
+        Assert.assertEquals(0, Decompilers.JAVA_METHOD.getTimeout());
+    }
+
+    @Test
+    public void testSessionsRunInParallel() throws Exception {
+        DecompilerSession first = create(false);
+        DecompilerSession second = create(true);
+        ExecutorService exec = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> a = exec.submit(() -> Despector.emitToString(decompile(first)));
+            Future<String> b = exec.submit(() -> Despector.emitToString(decompile(second)));
+            String without_this = a.get();
+            String with_this = b.get();
+            Assert.assertTrue(without_this, without_this.contains("return value(1) + 1;"));
+            Assert.assertTrue(with_this, with_this.contains("return this.value(1) + 1;"));
+        } finally {
+            exec.shutdown();
+        }
+    }
+
+    @Test
+    public void testSessionsHaveOwnConditionSimplifier() {
+        DecompilerSession first = create(false);
+        DecompilerSession second = create(false);
+        Assert.assertNotSame(first.getConditionSimplifier(), second.getConditionSimplifier());
+        Assert.assertNotSame(DecompilerSession.getDefault().getConditionSimplifier(), first.getConditionSimplifier());
+
+        ConditionSimplifier simplifier = new EspressoConditionSimplifier();
+        ConditionSimplifier previous = second.getConditionSimplifier();
+        first.setConditionSimplifier(simplifier);
+        Assert.assertSame(simplifier, first.getJavaMethodDecompiler().getConditionSimplifier());
+        Assert.assertSame(simplifier, first.getKotlinMethodDecompiler().getConditionSimplifier());
+        Assert.assertSame(previous, second.getJavaMethodDecompiler().getConditionSimplifier());
+        Assert.assertSame(DecompilerSession.getDefault().getConditionSimplifier(), Decompilers.JAVA_METHOD.getConditionSimplifier());
+    }
+
+    @Test
+    public void testDefaultSessionCannotBeChanged() {
+        DecompilerSession session = DecompilerSession.getDefault();
+        Assert.assertTrue(session.isDefault());
+        Assert.assertSame(Decompilers.JAVA_METHOD, session.getJavaMethodDecompiler());
+        try {
+            session.setLanguage(Language.KOTLIN);
+            Assert.fail();
+        } catch (IllegalStateException expected) {
+        }
+        try {
+            session.setConditionSimplifier(new EspressoConditionSimplifier());
+            Assert.fail();
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    public static class SessionType {
+
+        public int value(int i) {
+            return i * 2;
+        }
+
+        public int next() {
+            return value(1) + 1;
+        }
+
+    }
+
+}
@@ -0,0 +1,59 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.decompile;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.spongepowered.despector.Despector;
+import org.spongepowered.test.util.TestHelper;
+
+public class ImportClashTest {
+
+    private static final String OUTPUT = Despector.emitToString(TestHelper.get(ImportClashType.class));
+
+    @Test
+    public void testStaticOwnerImported() {
+        assertTrue(OUTPUT.contains("import java.util.concurrent.TimeUnit;"));
+        assertTrue(OUTPUT.contains("return TimeUnit.SECONDS;"));
+    }
+
+    @Test
+    public void testStaticOwnerClashesWithImport() {
+        // only the first of the two Date types by name is imported
+        assertTrue(OUTPUT.contains("import java.sql.Date;"));
+        assertFalse(OUTPUT.contains("import java.util.Date;"));
+        assertTrue(OUTPUT.contains("return Date.valueOf(value);"));
+        assertTrue(OUTPUT.contains("private java.util.Date created;"));
+    }
+
+    @Test
+    public void testStaticOwnerClashesWithInnerClass() {
+        assertFalse(OUTPUT.contains("import java.util.Locale;"));
+        assertTrue(OUTPUT.contains("return java.util.Locale.ROOT;"));
+    }
+
+}
@@ -0,0 +1,130 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.decompile;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.spongepowered.despector.DecompilerSession;
+import org.spongepowered.despector.Despector;
+import org.spongepowered.despector.config.ConfigBase;
+import org.spongepowered.despector.decompiler.JarSource;
+import org.spongepowered.test.util.TestHelper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class IncrementalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static String name(Class<?> type) {
+        return type.getName().replace('.', '/');
+    }
+
+    private static byte[] replace(byte[] data, String from, String to) {
+        byte[] find = from.getBytes(StandardCharsets.UTF_8);
+        byte[] replacement = to.getBytes(StandardCharsets.UTF_8);
+        Assert.assertEquals(find.length, replacement.length);
+        byte[] result = data.clone();
+        outer: for (int i = 0; i <= result.length - find.length; i++) {
+            for (int o = 0; o < find.length; o++) {
+                if (result[i + o] != find[o]) {
+                    continue outer;
+                }
+            }
+            System.arraycopy(replacement, 0, result, i, replacement.length);
+            return result;
+        }
+        throw new IllegalArgumentException("Class does not contain " + from);
+    }
+
+    private Path jar(String name, Map<String, byte[]> classes) throws IOException {
+        Path jar = this.folder.getRoot().toPath().resolve(name);
+        TestHelper.writeJar(jar, classes);
+        return jar;
+    }
+
+    private static void run(Path jar, Path output) throws IOException {
+        DecompilerSession session = new DecompilerSession(new ConfigBase());
+        session.setQuiet(true);
+        session.setEagerMethodBodies(true);
+        session.setIncremental(true);
+        List<JarSource> jars = new ArrayList<>();
+        try {
+            Despector.run(session, Collections.singletonList(jar.toString()), jars, output, session.getDecompiler(), null, null);
+        } finally {
+            for (JarSource source : jars) {
+                source.close();
+            }
+        }
+    }
+
+    private static String read(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testOnlyChangedTypesEmitted() throws IOException {
+        Map<String, byte[]> classes = new LinkedHashMap<>();
+        classes.put(name(IncrementalOuter.class), TestHelper.readClass(IncrementalOuter.class));
+        classes.put(name(IncrementalOuter.Part.class), TestHelper.readClass(IncrementalOuter.Part.class));
+        classes.put(name(IncrementalOther.class), TestHelper.readClass(IncrementalOther.class));
+        Path output = this.folder.newFolder("out").toPath();
+        run(jar("first.jar", classes), output);
+
+        Path outer = output.resolve(name(IncrementalOuter.class) + ".java");
+        Path other = output.resolve(name(IncrementalOther.class) + ".java");
+        Assert.assertTrue(read(outer).contains("\"version1\""));
+        Assert.assertTrue(Files.exists(other));
+        Assert.assertFalse(Files.exists(output.resolve(name(IncrementalOuter.Part.class) + ".java")));
+
+        // marks the emitted files so that a file which is written again can
+        // be told apart from one which is left alone
+        Files.write(outer, "outer".getBytes(StandardCharsets.UTF_8));
+        Files.write(other, "other".getBytes(StandardCharsets.UTF_8));
+
+        // changing the inner class emits its outer type again
+        classes.put(name(IncrementalOuter.Part.class), replace(classes.get(name(IncrementalOuter.Part.class)), "version1", "version2"));
+        run(jar("second.jar", classes), output);
+        Assert.assertTrue(read(outer).contains("\"version2\""));
+        Assert.assertEquals("other", read(other));
+
+        classes.remove(name(IncrementalOther.class));
+        run(jar("third.jar", classes), output);
+        Assert.assertFalse(Files.exists(other));
+        Assert.assertTrue(read(outer).contains("\"version2\""));
+    }
+
+}
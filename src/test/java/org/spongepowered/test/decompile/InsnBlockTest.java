@@ -0,0 +1,146 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.decompile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.spongepowered.despector.decompiler.ir.FieldInsn;
+import org.spongepowered.despector.decompiler.ir.FloatInsn;
+import org.spongepowered.despector.decompiler.ir.Insn;
+import org.spongepowered.despector.decompiler.ir.InsnBlock;
+import org.spongepowered.despector.decompiler.ir.InsnCursor;
+import org.spongepowered.despector.decompiler.ir.IntInsn;
+import org.spongepowered.despector.decompiler.ir.JumpInsn;
+import org.spongepowered.despector.decompiler.ir.LongInsn;
+import org.spongepowered.despector.decompiler.ir.SwitchInsn;
+import org.spongepowered.despector.decompiler.ir.VarIntInsn;
+import org.spongepowered.despector.decompiler.loader.ClassConstantPool.FieldRefEntry;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class InsnBlockTest {
+
+    private static InsnBlock createBlock() {
+        Map<Integer, Integer> targets = new HashMap<>();
+        targets.put(1, 0);
+        targets.put(2, 6);
+        InsnBlock block = new InsnBlock(2);
+        block.append(Insn.ICONST, 5);
+        block.append(Insn.LOCAL_STORE, 2);
+        block.append(Insn.IINC, InsnBlock.packIncrement(2, -1));
+        block.append(Insn.FCONST, Float.floatToRawIntBits(1.5f));
+        block.append(Insn.LCONST, 0, 7L);
+        block.append(Insn.GETSTATIC, 0, InsnBlock.memberRef(new FieldRefEntry(), "java/lang/System", "out", "Ljava/io/PrintStream;"));
+        block.append(Insn.SWITCH, 7, targets);
+        block.append(Insn.GOTO, 0);
+        block.append(Insn.PUSH, 0, null);
+        return block;
+    }
+
+    @Test
+    public void testCursor() {
+        InsnBlock block = createBlock();
+        InsnCursor cursor = block.cursor();
+        assertEquals(9, cursor.size());
+
+        assertTrue(cursor.next());
+        assertEquals(Insn.ICONST, cursor.getOpcode());
+        assertEquals(5, cursor.getInt());
+        assertTrue(cursor.next());
+        assertEquals(2, cursor.getLocal());
+        assertTrue(cursor.next());
+        assertEquals(2, cursor.getLocal());
+        assertEquals(-1, cursor.getIncrement());
+        assertTrue(cursor.next());
+        assertEquals(1.5f, cursor.getFloat(), 0);
+        assertTrue(cursor.next());
+        assertEquals(7L, cursor.getLong());
+        assertTrue(cursor.next());
+        assertEquals("java/lang/System", cursor.getOwner());
+        assertEquals("out", cursor.getName());
+        assertEquals("Ljava/io/PrintStream;", cursor.getDescription());
+        assertTrue(cursor.next());
+        assertEquals(7, cursor.getTarget());
+        assertEquals(Integer.valueOf(6), cursor.getSwitchTargets().get(2));
+        assertTrue(cursor.next());
+        assertTrue(cursor.isJump());
+        assertEquals(7, cursor.getPosition());
+        assertTrue(cursor.next());
+        assertNull(cursor.getConstant());
+        assertFalse(cursor.next());
+    }
+
+    @Test
+    public void testCursorRange() {
+        InsnBlock block = createBlock();
+        InsnCursor cursor = block.cursor(2, 4);
+        assertEquals(2, cursor.size());
+        assertTrue(cursor.next());
+        assertEquals(0, cursor.getPosition());
+        assertEquals(Insn.IINC, cursor.getOpcode());
+        assertTrue(cursor.next());
+        assertEquals(Insn.FCONST, cursor.getOpcode());
+        assertFalse(cursor.next());
+    }
+
+    @Test
+    public void testMaterialize() {
+        InsnBlock block = createBlock();
+        assertEquals(5, ((IntInsn) block.get(0)).getValue());
+        VarIntInsn inc = (VarIntInsn) block.get(2);
+        assertEquals(2, inc.getLocal());
+        assertEquals(-1, inc.getValue());
+        assertEquals(1.5f, ((FloatInsn) block.get(3)).getValue(), 0);
+        assertEquals(7L, ((LongInsn) block.get(4)).getValue());
+        assertEquals("out", ((FieldInsn) block.get(5)).getName());
+        assertEquals(7, ((SwitchInsn) block.get(6)).getDefault());
+        assertEquals(0, ((JumpInsn) block.get(7)).getTarget());
+        // instructions are only created once
+        assertSame(block.get(5), block.get(5));
+    }
+
+    @Test
+    public void testAppendInsn() {
+        InsnBlock block = new InsnBlock();
+        FieldInsn field = new FieldInsn(Insn.PUTFIELD, "a/B", "c", "I");
+        block.append(field);
+        block.append(new VarIntInsn(Insn.IINC, 3, 100));
+        assertSame(field, block.get(0));
+        InsnCursor cursor = block.cursor();
+        assertTrue(cursor.next());
+        assertEquals("a/B", cursor.getOwner());
+        assertEquals("I", cursor.getDescription());
+        assertTrue(cursor.next());
+        assertEquals(3, cursor.getLocal());
+        assertEquals(100, cursor.getIncrement());
+    }
+
+}
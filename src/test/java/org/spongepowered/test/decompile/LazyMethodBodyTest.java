@@ -0,0 +1,133 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.decompile;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.spongepowered.despector.DecompilerSession;
+import org.spongepowered.despector.Despector;
+import org.spongepowered.despector.Language;
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.ast.stmt.StatementBlock;
+import org.spongepowered.despector.ast.type.MethodEntry;
+import org.spongepowered.despector.ast.type.TypeEntry;
+import org.spongepowered.despector.config.ConfigBase;
+import org.spongepowered.test.util.TestHelper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class LazyMethodBodyTest {
+
+    private static TypeEntry decompile(boolean eager) throws IOException {
+        DecompilerSession session = new DecompilerSession(new ConfigBase());
+        session.setEagerMethodBodies(eager);
+        return session.getDecompiler(Language.JAVA).decompile(TestHelper.getClassFile(LazyType.class), new SourceSet(session));
+    }
+
+    @Test
+    public void testDecompiledOnAccess() throws IOException {
+        TypeEntry type = decompile(false);
+        MethodEntry sum = type.getMethod("sum");
+        MethodEntry max = type.getMethod("max");
+        Assert.assertTrue(sum.hasLazyBody());
+        Assert.assertTrue(max.hasLazyBody());
+        StatementBlock block = sum.getInstructions();
+        Assert.assertNotNull(block);
+        Assert.assertFalse(sum.hasLazyBody());
+        Assert.assertTrue(max.hasLazyBody());
+        Assert.assertSame(block, sum.getInstructions());
+    }
+
+    @Test
+    public void testEager() throws IOException {
+        TypeEntry type = decompile(true);
+        Assert.assertFalse(type.getMethod("sum").hasLazyBody());
+        Assert.assertFalse(type.getMethod("max").hasLazyBody());
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        String expected = Despector.emitToString(decompile(true));
+        TypeEntry type = decompile(false);
+        List<MethodEntry> methods = new ArrayList<>(type.getMethods());
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService exec = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<StatementBlock>>> results = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                results.add(exec.submit(() -> {
+                    start.await();
+                    List<StatementBlock> blocks = new ArrayList<>();
+                    for (MethodEntry mth : methods) {
+                        blocks.add(mth.getInstructions());
+                    }
+                    return blocks;
+                }));
+            }
+            start.countDown();
+            List<StatementBlock> first = results.get(0).get();
+            for (Future<List<StatementBlock>> result : results) {
+                List<StatementBlock> blocks = result.get();
+                for (int i = 0; i < blocks.size(); i++) {
+                    Assert.assertNotNull(blocks.get(i));
+                    Assert.assertSame(first.get(i), blocks.get(i));
+                }
+            }
+        } finally {
+            exec.shutdown();
+        }
+        Assert.assertEquals(expected, Despector.emitToString(type));
+    }
+
+    public static class LazyType {
+
+        public int sum(int[] values) {
+            int total = 0;
+            for (int i = 0; i < values.length; i++) {
+                total += values[i];
+            }
+            return total;
+        }
+
+        public int max(int a, int b) {
+            return a > b ? a : b;
+        }
+
+        public String describe(int value) {
+            if (value < 0) {
+                return "negative";
+            }
+            return "value " + value;
+        }
+
+    }
+
+}
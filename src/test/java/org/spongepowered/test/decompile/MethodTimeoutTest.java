@@ -0,0 +1,124 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.decompile;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.spongepowered.despector.DecompilerSession;
+import org.spongepowered.despector.Language;
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.ast.stmt.StatementBlock;
+import org.spongepowered.despector.ast.stmt.misc.Comment;
+import org.spongepowered.despector.ast.type.MethodEntry;
+import org.spongepowered.despector.ast.type.TypeEntry;
+import org.spongepowered.despector.config.ConfigBase;
+import org.spongepowered.despector.decompiler.error.MethodTimeoutException;
+import org.spongepowered.despector.decompiler.method.MethodDecompiler;
+import org.spongepowered.despector.decompiler.method.MethodTimeout;
+import org.spongepowered.despector.decompiler.method.metrics.MethodInstrumentation;
+import org.spongepowered.test.util.TestHelper;
+
+import java.io.IOException;
+
+public class MethodTimeoutTest {
+
+    @Test
+    public void testDeadline() throws InterruptedException {
+        long previous = MethodTimeout.begin(0);
+        MethodTimeout.check();
+        MethodTimeout.begin(1);
+        Thread.sleep(5);
+        Assert.assertTrue(MethodTimeout.isExpired());
+        try {
+            MethodTimeout.check();
+            Assert.fail();
+        } catch (MethodTimeoutException e) {
+            // expected
+        }
+        MethodTimeout.end(previous);
+        Assert.assertFalse(MethodTimeout.isExpired());
+    }
+
+    @Test
+    public void testTimedOutMethod() throws IOException {
+        DecompilerSession session = new DecompilerSession(new ConfigBase());
+        session.setQuiet(true);
+        session.setEagerMethodBodies(true);
+        MethodDecompiler decompiler = session.getJavaMethodDecompiler();
+        decompiler.setTimeout(1);
+        // stalls each step of the method decompiler so that every method
+        // overruns its budget
+        decompiler.setInstrumentation(new SlowInstrumentation());
+        TypeEntry type = session.getDecompiler(Language.JAVA).decompile(TestHelper.getClassFile(SlowType.class), new SourceSet(session));
+
+        // the constructor and sum
+        Assert.assertEquals(2, decompiler.getTimeoutCount());
+        MethodEntry sum = type.getMethod("sum");
+        StatementBlock block = sum.getInstructions();
+        Assert.assertEquals(1, block.getStatementCount());
+        Comment comment = (Comment) block.getStatement(0);
+        Assert.assertEquals("Error decompiling block", comment.getCommentText().get(0));
+    }
+
+    private static class SlowInstrumentation implements MethodInstrumentation {
+
+        @Override
+        public void startMethod(MethodEntry method) {
+        }
+
+        @Override
+        public void startStep(Object step) {
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void endStep(Object step) {
+        }
+
+        @Override
+        public void endMethod(MethodEntry method) {
+        }
+
+    }
+
+    public static class SlowType {
+
+        public int sum(int[] values) {
+            int total = 0;
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] > 0) {
+                    total += values[i];
+                }
+            }
+            return total;
+        }
+
+    }
+
+}
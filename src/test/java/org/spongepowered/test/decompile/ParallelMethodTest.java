@@ -0,0 +1,104 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.decompile;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.spongepowered.despector.DecompilerSession;
+import org.spongepowered.despector.Despector;
+import org.spongepowered.despector.Language;
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.ast.type.EnumEntry;
+import org.spongepowered.despector.ast.type.MethodEntry;
+import org.spongepowered.despector.ast.type.TypeEntry;
+import org.spongepowered.despector.config.ConfigBase;
+import org.spongepowered.test.util.TestHelper;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+public class ParallelMethodTest {
+
+    private static TypeEntry decompile() throws IOException {
+        DecompilerSession session = new DecompilerSession(new ConfigBase());
+        session.setEagerMethodBodies(true);
+        return session.getDecompiler(Language.JAVA).decompile(TestHelper.getClassFile(ParallelType.class), new SourceSet(session));
+    }
+
+    @Test
+    public void testParallelMatchesSequential() throws Exception {
+        TypeEntry sequential = decompile();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        TypeEntry parallel;
+        try {
+            parallel = pool.submit(ParallelMethodTest::decompile).get();
+        } finally {
+            pool.shutdown();
+        }
+        for (MethodEntry mth : parallel.getMethods()) {
+            Assert.assertFalse(mth.hasLazyBody());
+        }
+        Assert.assertEquals(Arrays.asList("FIRST", "SECOND", "THIRD"), ((EnumEntry) parallel).getEnumConstants());
+        Assert.assertEquals(Despector.emitToString(sequential), Despector.emitToString(parallel));
+    }
+
+    public static enum ParallelType {
+        FIRST(1),
+        SECOND(2),
+        THIRD(3);
+
+        private final int weight;
+
+        ParallelType(int weight) {
+            this.weight = weight;
+        }
+
+        public int scaled(int value) {
+            return value * this.weight;
+        }
+
+        public int sum(int[] values) {
+            int total = 0;
+            for (int i = 0; i < values.length; i++) {
+                total += values[i] * this.weight;
+            }
+            return total;
+        }
+
+        public boolean isHeavy() {
+            return this.weight > 1 && this != THIRD;
+        }
+
+        public String describe() {
+            if (this.weight == 1) {
+                return "light";
+            }
+            return "weight " + this.weight;
+        }
+
+    }
+
+}
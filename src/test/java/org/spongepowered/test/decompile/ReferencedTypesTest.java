@@ -0,0 +1,137 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.decompile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.ast.stmt.StatementBlock;
+import org.spongepowered.despector.ast.type.MethodEntry;
+import org.spongepowered.despector.ast.type.TypeEntry;
+import org.spongepowered.despector.decompiler.Decompilers;
+import org.spongepowered.despector.util.ReferencedTypes;
+import org.spongepowered.test.util.TestHelper;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+public class ReferencedTypesTest {
+
+    public static Object referencing(Object value) {
+        Map.Entry<?, ?> entry = (Map.Entry<?, ?>) value;
+        return new ArrayList<>(entry == null ? 0 : 1);
+    }
+
+    public static Object staticInvoke() {
+        return Collections.emptyList();
+    }
+
+    public static Object staticField() {
+        return TimeUnit.SECONDS;
+    }
+
+    public static Object newArray(int size) {
+        return new Date[size];
+    }
+
+    public static Object multiNewArray(int size) {
+        return new BigInteger[size][size];
+    }
+
+    public static boolean instanceOf(Object value) {
+        return value instanceof Locale;
+    }
+
+    public static boolean compoundCondition(Object value) {
+        return !(value instanceof Locale) && value != null;
+    }
+
+    private static Set<String> getReferencedTypes(String method) throws Exception {
+        TypeEntry type = Decompilers.WILD.decompile(TestHelper.readClass(ReferencedTypesTest.class), new SourceSet());
+        return type.getStaticMethod(method).getReferencedTypes();
+    }
+
+    @Test
+    public void testReferencedName() {
+        assertEquals("java/util/Map", ReferencedTypes.toReferencedName("[[Ljava/util/Map$Entry;"));
+        assertSame(ReferencedTypes.toReferencedName("Ljava/util/List;"), ReferencedTypes.toReferencedName(new String("Ljava/util/List;")));
+        assertNull(ReferencedTypes.toReferencedName("[I"));
+    }
+
+    @Test
+    public void testMethodBody() throws Exception {
+        TypeEntry type = Decompilers.WILD.decompile(TestHelper.readClass(ReferencedTypesTest.class), new SourceSet());
+        MethodEntry mth = type.getStaticMethod("referencing");
+
+        Set<String> types = mth.getReferencedTypes();
+        assertTrue(types.contains("java/util/Map"));
+        assertTrue(types.contains("java/util/ArrayList"));
+        assertSame(types, mth.getReferencedTypes());
+
+        mth.setInstructions(new StatementBlock(StatementBlock.Type.METHOD));
+        assertTrue(mth.getReferencedTypes().isEmpty());
+    }
+
+    @Test
+    public void testStaticMethodInvoke() throws Exception {
+        assertTrue(getReferencedTypes("staticInvoke").contains("java/util/Collections"));
+    }
+
+    @Test
+    public void testStaticFieldAccess() throws Exception {
+        assertTrue(getReferencedTypes("staticField").contains("java/util/concurrent/TimeUnit"));
+    }
+
+    @Test
+    public void testNewArray() throws Exception {
+        assertTrue(getReferencedTypes("newArray").contains("java/util/Date"));
+    }
+
+    @Test
+    public void testMultiNewArray() throws Exception {
+        assertTrue(getReferencedTypes("multiNewArray").contains("java/math/BigInteger"));
+    }
+
+    @Test
+    public void testInstanceOf() throws Exception {
+        assertTrue(getReferencedTypes("instanceOf").contains("java/util/Locale"));
+    }
+
+    @Test
+    public void testCompoundCondition() throws Exception {
+        assertTrue(getReferencedTypes("compoundCondition").contains("java/util/Locale"));
+    }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.decompile;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.spongepowered.despector.DecompilerSession;
+import org.spongepowered.despector.Despector;
+import org.spongepowered.despector.config.ConfigBase;
+import org.spongepowered.despector.decompiler.JarSource;
+import org.spongepowered.test.util.TestHelper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class StreamingTest {
+
+    private static final String PACKAGE = "org/spongepowered/test/decompile/";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static void run(Path jar, Path output, int stream_limit) throws IOException {
+        DecompilerSession session = new DecompilerSession(new ConfigBase());
+        session.setQuiet(true);
+        session.setEagerMethodBodies(true);
+        session.setStreamLimit(stream_limit);
+        List<JarSource> jars = new ArrayList<>();
+        try {
+            Despector.run(session, Collections.singletonList(jar.toString()), jars, output, session.getDecompiler(), null, null);
+        } finally {
+            for (JarSource source : jars) {
+                source.close();
+            }
+        }
+    }
+
+    private static List<Path> listFiles(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile).map(dir::relativize).sorted().collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    public void testStreamingMatchesFullRun() throws IOException {
+        // each outer type is emitted and released before the ones after it,
+        // the method reference in StreamingUser is emitted with the body of
+        // a method of StreamingType
+        Map<String, byte[]> classes = new LinkedHashMap<>();
+        for (String name : new String[] {"StreamingEnum", "StreamingType", "StreamingType$1", "StreamingType$Counter", "StreamingUser"}) {
+            classes.put(PACKAGE + name, Files.readAllBytes(TestHelper.getClassFile(PACKAGE + name).toPath()));
+        }
+        Path jar = this.folder.getRoot().toPath().resolve("streaming.jar");
+        TestHelper.writeJar(jar, classes);
+
+        Path full = this.folder.newFolder("full").toPath();
+        run(jar, full, 0);
+        Path streamed = this.folder.newFolder("streamed").toPath();
+        run(jar, streamed, 1);
+
+        List<Path> files = listFiles(full);
+        Assert.assertEquals(3, files.size());
+        Assert.assertEquals(files, listFiles(streamed));
+        for (Path file : files) {
+            String expected = new String(Files.readAllBytes(full.resolve(file)), "UTF-8");
+            String actual = new String(Files.readAllBytes(streamed.resolve(file)), "UTF-8");
+            Assert.assertEquals(file.toString(), expected, actual);
+        }
+        String type = new String(Files.readAllBytes(streamed.resolve(PACKAGE + "StreamingType.java")), "UTF-8");
+        Assert.assertTrue(type, type.contains("case FIRST:"));
+        Assert.assertTrue(type, type.contains("->"));
+    }
+
+}
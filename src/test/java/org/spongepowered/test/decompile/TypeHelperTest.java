@@ -0,0 +1,70 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.decompile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+import org.spongepowered.despector.emitter.java.instruction.StringConstantEmitter;
+import org.spongepowered.despector.util.TypeHelper;
+
+public class TypeHelperTest {
+
+    @Test
+    public void testSplitSig() {
+        assertEquals(Lists.newArrayList("I", "Ljava/lang/String;", "[J", "Ljava/util/List;"),
+                TypeHelper.splitSig("(ILjava/lang/String;[JLjava/util/List<Ljava/lang/String;>;)V"));
+        assertEquals(Lists.newArrayList("TT;", "[Ljava/lang/Object;"), TypeHelper.splitSig("<T:Ljava/lang/Object;>(TT;[Ljava/lang/Object;)TT;"));
+        assertTrue(TypeHelper.splitSig("()V").isEmpty());
+    }
+
+    @Test
+    public void testGetRet() {
+        assertEquals("Ljava/lang/String;", TypeHelper.getRet("(IJ)Ljava/lang/String;"));
+        assertEquals("V", TypeHelper.getRet("()V"));
+        assertEquals("V", TypeHelper.getRet("I"));
+    }
+
+    @Test
+    public void testIsAnonClass() {
+        assertTrue(TypeHelper.isAnonClass("a/b/Foo$1"));
+        assertTrue(TypeHelper.isAnonClass("a/b/Foo$Bar$12"));
+        assertFalse(TypeHelper.isAnonClass("a/b/Foo$1Bar"));
+        assertFalse(TypeHelper.isAnonClass("a/b/Foo$"));
+        assertFalse(TypeHelper.isAnonClass("a/b/Foo"));
+    }
+
+    @Test
+    public void testEscape() {
+        StringBuilder str = new StringBuilder("x");
+        StringConstantEmitter.escape("a\n\"b\\", str);
+        assertEquals("xa\\n\\\"b\\\\", str.toString());
+        assertEquals("a\\n\\\"b\\\\", StringConstantEmitter.escape("a\n\"b\\"));
+    }
+
+}
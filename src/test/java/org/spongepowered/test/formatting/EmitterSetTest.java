@@ -0,0 +1,77 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.formatting;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+import org.spongepowered.despector.ast.insn.cst.IntConstant;
+import org.spongepowered.despector.ast.insn.misc.Ternary;
+import org.spongepowered.despector.ast.stmt.invoke.InstanceMethodInvoke;
+import org.spongepowered.despector.ast.stmt.misc.Comment;
+import org.spongepowered.despector.emitter.EmitterSet;
+import org.spongepowered.despector.emitter.Emitters;
+import org.spongepowered.despector.emitter.java.instruction.IntConstantEmitter;
+import org.spongepowered.despector.emitter.java.instruction.TernaryEmitter;
+import org.spongepowered.despector.emitter.kotlin.instruction.KotlinTernaryEmitter;
+
+public class EmitterSetTest {
+
+    @Test
+    public void testKinds() {
+        assertEquals(EmitterSet.getKind(Ternary.class), EmitterSet.getKind(Ternary.class));
+        assertNotEquals(EmitterSet.getKind(Ternary.class), EmitterSet.getKind(IntConstant.class));
+    }
+
+    @Test
+    public void testKotlinOverrides() {
+        assertEquals(TernaryEmitter.class, Emitters.JAVA_SET.getInstructionEmitter(Ternary.class).getClass());
+        assertEquals(KotlinTernaryEmitter.class, Emitters.KOTLIN_SET.getInstructionEmitter(Ternary.class).getClass());
+        assertSame(Emitters.JAVA_SET.getInstructionEmitter(IntConstant.class), Emitters.KOTLIN_SET.getInstructionEmitter(IntConstant.class));
+    }
+
+    @Test
+    public void testClone() {
+        EmitterSet set = new EmitterSet();
+        assertNull(set.getInstructionEmitter(Ternary.class));
+        // a kind which is first seen after the set was created
+        assertNull(set.getStatementEmitter(new Comment("unregistered") {}.getClass()));
+
+        IntConstantEmitter emitter = new IntConstantEmitter();
+        set.setInstructionEmitter(IntConstant.class, emitter);
+        set.clone(Emitters.JAVA_SET);
+        assertSame(Emitters.JAVA_SET.getInstructionEmitter(IntConstant.class), set.getInstructionEmitter(IntConstant.class));
+        assertSame(Emitters.JAVA_SET.getInstructionEmitter(InstanceMethodInvoke.class), set.getInstructionEmitter(InstanceMethodInvoke.class));
+
+        set.setInstructionEmitter(IntConstant.class, emitter);
+        assertSame(emitter, set.getInstructionEmitter(IntConstant.class));
+        assertNotSame(emitter, Emitters.JAVA_SET.getInstructionEmitter(IntConstant.class));
+    }
+
+}
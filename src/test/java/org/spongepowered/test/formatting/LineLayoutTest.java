@@ -0,0 +1,160 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.formatting;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.spongepowered.despector.emitter.format.EmitterFormat;
+import org.spongepowered.despector.emitter.java.LineLayout;
+
+import java.io.StringWriter;
+
+public class LineLayoutTest {
+
+    private static EmitterFormat format(int line_split) {
+        EmitterFormat format = new EmitterFormat();
+        format.line_split = line_split;
+        format.indent_with_spaces = true;
+        format.indentation_size = 4;
+        format.continuation_indentation = 2;
+        return format;
+    }
+
+    @Test
+    public void testFillBreaks() {
+        StringWriter out = new StringWriter();
+        LineLayout layout = new LineLayout(out, format(20));
+        layout.indent();
+        layout.printIndentation();
+        for (int i = 0; i < 6; i++) {
+            if (i > 0) {
+                layout.print(", ");
+                layout.markWrapPoint();
+            }
+            layout.print("arg" + i);
+        }
+        layout.newLine();
+        layout.printIndentation();
+        layout.print("done");
+        layout.newLine();
+        assertEquals("    arg0, arg1, \n"
+                + "            arg2, \n"
+                + "            arg3, \n"
+                + "            arg4, \n"
+                + "            arg5\n"
+                + "    done\n", out.toString());
+        assertEquals(1, layout.getIndentation());
+    }
+
+    private static void printArguments(LineLayout layout, String... args) {
+        layout.print("(");
+        layout.beginGroup();
+        for (int i = 0; i < args.length; i++) {
+            if (i > 0) {
+                layout.print(", ");
+                layout.markWrapPoint();
+            }
+            layout.print(args[i]);
+        }
+        layout.endGroup();
+        layout.print(")");
+    }
+
+    @Test
+    public void testNestedGroups() {
+        StringWriter out = new StringWriter();
+        LineLayout layout = new LineLayout(out, format(40));
+        layout.indent();
+        layout.printIndentation();
+        layout.print("outer");
+        printArguments(layout, "first_argument", "inner_call", "last");
+        layout.print(";");
+        layout.newLine();
+        layout.printIndentation();
+        layout.print("outer(first_argument, inner");
+        layout.beginGroup();
+        printArguments(layout, "alpha_value", "beta_value", "gamma_value");
+        layout.endGroup();
+        layout.print(");");
+        layout.newLine();
+        assertEquals("    outer(first_argument, inner_call, \n"
+                + "            last);\n"
+                + "    outer(first_argument, inner(alpha_value, \n"
+                + "            beta_value, gamma_value));\n", out.toString());
+        assertEquals(0, layout.getGroupDepth());
+    }
+
+    @Test
+    public void testOutermostGroupFirst() {
+        StringWriter out = new StringWriter();
+        LineLayout layout = new LineLayout(out, format(40));
+        layout.indent();
+        layout.printIndentation();
+        layout.print("result = outer(");
+        layout.beginGroup();
+        layout.print("first_argument, ");
+        layout.markWrapPoint();
+        layout.print("inner");
+        printArguments(layout, "alpha_value", "beta_value", "gamma_value");
+        layout.print(", ");
+        layout.markWrapPoint();
+        layout.print("last");
+        layout.endGroup();
+        layout.print(");");
+        layout.newLine();
+        assertEquals("    result = outer(first_argument, \n"
+                + "            inner(alpha_value, \n"
+                + "                    beta_value, \n"
+                + "                    gamma_value), last);\n", out.toString());
+    }
+
+    @Test
+    public void testNoWrapPoint() {
+        StringWriter out = new StringWriter();
+        LineLayout layout = new LineLayout(out, format(10));
+        layout.print("a_long_identifier");
+        layout.markWrapPoint();
+        layout.print("x");
+        layout.newLine();
+        assertEquals("a_long_identifier\n        x\n", out.toString());
+    }
+
+    @Test
+    public void testForcedWrap() {
+        StringWriter out = new StringWriter();
+        LineLayout layout = new LineLayout(out, format(999));
+        layout.print("enum A {");
+        layout.indent();
+        layout.wrap(false);
+        layout.print("ONE,");
+        layout.wrap(true);
+        layout.print("TWO");
+        layout.newLine();
+        assertEquals("enum A {\n    ONE,\n            TWO\n", out.toString());
+        assertEquals(1, layout.getIndentation());
+    }
+
+}
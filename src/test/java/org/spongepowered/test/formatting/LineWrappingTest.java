@@ -0,0 +1,116 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.formatting;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.spongepowered.despector.ast.type.MethodEntry;
+import org.spongepowered.despector.ast.type.TypeEntry;
+import org.spongepowered.despector.emitter.Emitters;
+import org.spongepowered.despector.emitter.format.EmitterFormat;
+import org.spongepowered.despector.emitter.java.JavaEmitterContext;
+import org.spongepowered.test.util.TestHelper;
+
+import java.io.StringWriter;
+
+public class LineWrappingTest {
+
+    private static String emit(String method_name, int line_split) {
+        TypeEntry type = TestHelper.get(LineWrappingTest.class);
+        MethodEntry method = type.getMethod(method_name);
+        EmitterFormat format = new EmitterFormat();
+        format.line_split = line_split;
+        StringWriter writer = new StringWriter();
+        JavaEmitterContext emitter = new JavaEmitterContext(writer, format);
+        emitter.setEmitterSet(Emitters.JAVA_SET);
+        emitter.setMethod(method);
+        emitter.setType(type);
+        emitter.emitBody(method.getInstructions());
+        emitter.flush();
+        return writer.toString();
+    }
+
+    public static class Builder {
+
+        public Builder name(String name) {
+            return this;
+        }
+
+        public Builder value(Object value) {
+            return this;
+        }
+
+        public Builder other(String other) {
+            return this;
+        }
+
+        public Builder call(String first, Object second, String third) {
+            return this;
+        }
+
+    }
+
+    public void chain(Builder builder) {
+        builder.name("first_value").value("second_value").other("third_value");
+    }
+
+    public void nested(Builder builder) {
+        builder.call("first_value", builder.call("alpha_value", "beta_value", "gamma_value"), "last_value");
+    }
+
+    public void array() {
+        values(new String[] {"first_value", "second_value", "third_value"});
+    }
+
+    public static void values(String[] values) {
+    }
+
+    @Test
+    public void testUnwrapped() {
+        assertEquals("builder.name(\"first_value\").value(\"second_value\").other(\"third_value\");", emit("chain", 999));
+    }
+
+    @Test
+    public void testCallChain() {
+        assertEquals("builder.name(\"first_value\")\n"
+                + "        .value(\"second_value\")\n"
+                + "        .other(\"third_value\");", emit("chain", 40));
+    }
+
+    @Test
+    public void testNestedArguments() {
+        assertEquals("builder.call(\"first_value\", \n"
+                + "        builder.call(\"alpha_value\", \"beta_value\", \n"
+                + "                \"gamma_value\"), \"last_value\");", emit("nested", 60));
+    }
+
+    @Test
+    public void testArrayInitializer() {
+        assertEquals("values(new String[] {\"first_value\", \n"
+                + "        \"second_value\", \"third_value\"});", emit("array", 40));
+    }
+
+}
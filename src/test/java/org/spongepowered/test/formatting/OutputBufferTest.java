@@ -0,0 +1,94 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.formatting;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+import org.spongepowered.despector.emitter.OutputBuffer;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class OutputBufferTest {
+
+    private static final String TEXT = "plain ascii, éß, 中文, 😀 and a lone \ud800 surrogate";
+
+    @Test
+    public void testEncoding() {
+        OutputBuffer buffer = OutputBuffer.acquire();
+        try {
+            buffer.append(new StringBuilder(TEXT));
+            assertEquals(TEXT, buffer.toString());
+            assertArrayEquals(TEXT.getBytes(StandardCharsets.UTF_8), buffer.toByteArray());
+        } finally {
+            buffer.release();
+        }
+    }
+
+    @Test
+    public void testWriteTo() throws Exception {
+        Path file = Files.createTempFile("despector", ".java");
+        try {
+            Files.write(file, new byte[64 * 1024]);
+            OutputBuffer buffer = OutputBuffer.acquire();
+            try {
+                for (int i = 0; i < 10000; i++) {
+                    buffer.write(TEXT);
+                    buffer.write('\n');
+                }
+                buffer.writeTo(file);
+                assertArrayEquals(buffer.toByteArray(), Files.readAllBytes(file));
+            } finally {
+                buffer.release();
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testPooling() {
+        OutputBuffer first = OutputBuffer.acquire();
+        first.write("leftover");
+        OutputBuffer nested = OutputBuffer.acquire();
+        assertNotSame(first, nested);
+        nested.release();
+        first.release();
+
+        OutputBuffer again = OutputBuffer.acquire();
+        try {
+            assertSame(first, again);
+            assertEquals(0, again.length());
+        } finally {
+            again.release();
+        }
+    }
+
+}
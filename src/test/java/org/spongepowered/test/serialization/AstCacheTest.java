@@ -0,0 +1,167 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.serialization;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.spongepowered.despector.DecompilerSession;
+import org.spongepowered.despector.Despector;
+import org.spongepowered.despector.Language;
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.ast.type.MethodEntry;
+import org.spongepowered.despector.ast.type.TypeEntry;
+import org.spongepowered.despector.config.ConfigBase;
+import org.spongepowered.despector.decompiler.CachingDecompiler;
+import org.spongepowered.despector.decompiler.Decompilers;
+import org.spongepowered.despector.decompiler.method.MethodDecompiler;
+import org.spongepowered.despector.decompiler.method.metrics.MethodInstrumentation;
+import org.spongepowered.despector.util.condition.EspressoConditionSimplifier;
+import org.spongepowered.test.util.TestHelper;
+
+import java.io.File;
+import java.io.IOException;
+
+public class AstCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testCacheHit() throws IOException {
+        File file = TestHelper.getClassFile(CachedType.class);
+
+        CachingDecompiler cache = new CachingDecompiler(Decompilers.WILD, Language.ANY, this.folder.getRoot().toPath());
+        TypeEntry decompiled = cache.decompile(file, new SourceSet());
+        Assert.assertEquals(0, cache.getHits());
+        Assert.assertEquals(1, cache.getMisses());
+
+        TypeEntry loaded = cache.decompile(file, new SourceSet());
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(1, cache.getMisses());
+
+        Assert.assertEquals(Despector.emitToString(decompiled), Despector.emitToString(loaded));
+    }
+
+    @Test
+    public void testSimplifierIsPartOfKey() throws IOException {
+        File file = TestHelper.getClassFile(CachedType.class);
+
+        DecompilerSession first = new DecompilerSession(new ConfigBase());
+        first.setQuiet(true);
+        CachingDecompiler first_cache = new CachingDecompiler(first.getDecompiler(), first, this.folder.getRoot().toPath());
+        first_cache.decompile(file, new SourceSet(first));
+        Assert.assertEquals(1, first_cache.getMisses());
+
+        DecompilerSession second = new DecompilerSession(new ConfigBase());
+        second.setQuiet(true);
+        second.setConditionSimplifier(new EspressoConditionSimplifier());
+        CachingDecompiler second_cache = new CachingDecompiler(second.getDecompiler(), second, this.folder.getRoot().toPath());
+        second_cache.decompile(file, new SourceSet(second));
+        Assert.assertEquals(0, second_cache.getHits());
+        Assert.assertEquals(1, second_cache.getMisses());
+    }
+
+    @Test
+    public void testTimeoutIsPartOfKey() throws IOException {
+        File file = TestHelper.getClassFile(CachedType.class);
+
+        DecompilerSession first = new DecompilerSession(new ConfigBase());
+        first.setQuiet(true);
+        CachingDecompiler first_cache = new CachingDecompiler(first.getDecompiler(), first, this.folder.getRoot().toPath());
+        first_cache.decompile(file, new SourceSet(first));
+        Assert.assertEquals(1, first_cache.getMisses());
+
+        DecompilerSession second = new DecompilerSession(new ConfigBase());
+        second.setQuiet(true);
+        second.getJavaMethodDecompiler().setTimeout(60000);
+        CachingDecompiler second_cache = new CachingDecompiler(second.getDecompiler(), second, this.folder.getRoot().toPath());
+        second_cache.decompile(file, new SourceSet(second));
+        Assert.assertEquals(0, second_cache.getHits());
+        Assert.assertEquals(1, second_cache.getMisses());
+    }
+
+    @Test
+    public void testTimedOutTypeNotStored() throws IOException {
+        File file = TestHelper.getClassFile(CachedType.class);
+
+        DecompilerSession session = new DecompilerSession(new ConfigBase());
+        session.setQuiet(true);
+        session.setEagerMethodBodies(true);
+        MethodDecompiler decompiler = session.getJavaMethodDecompiler();
+        decompiler.setTimeout(1);
+        decompiler.setInstrumentation(new SlowInstrumentation());
+        CachingDecompiler cache = new CachingDecompiler(session.getDecompiler(), session, this.folder.getRoot().toPath());
+        TypeEntry decompiled = cache.decompile(file, new SourceSet(session));
+        Assert.assertTrue(decompiled.hasTimedOutMethods());
+
+        cache.decompile(file, new SourceSet(session));
+        Assert.assertEquals(0, cache.getHits());
+        Assert.assertEquals(2, cache.getMisses());
+    }
+
+    private static class SlowInstrumentation implements MethodInstrumentation {
+
+        @Override
+        public void startMethod(MethodEntry method) {
+        }
+
+        @Override
+        public void startStep(Object step) {
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void endStep(Object step) {
+        }
+
+        @Override
+        public void endMethod(MethodEntry method) {
+        }
+
+    }
+
+    public static class CachedType {
+
+        private int value;
+
+        public int sum(int[] values) {
+            int total = this.value;
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] > 0) {
+                    total += values[i];
+                }
+            }
+            return total;
+        }
+
+    }
+
+}
@@ -40,16 +40,22 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
 
 public class TestHelper {
 
+    private static final String CLASS_PATH = TestHelper.class.getProtectionDomain().getCodeSource().getLocation().getPath();
     private static final Map<Class<?>, TypeEntry> CACHED_TYPES = Maps.newHashMap();
     private static final SourceSet DUMMY_SOURCE_SET = new SourceSet();
 
     static {
-        DUMMY_SOURCE_SET.setLoader(new TestLoader(TestHelper.class.getProtectionDomain().getCodeSource().getLocation().getPath()));
+        DUMMY_SOURCE_SET.setLoader(new TestLoader(CLASS_PATH));
     }
 
     private static class TestLoader implements SourceSet.Loader {
@@ -72,13 +78,34 @@ public class TestHelper {
         }
     }
 
+    public static File getClassFile(String name) {
+        return new File(CLASS_PATH, name + ".class");
+    }
+
+    public static File getClassFile(Class<?> cls) {
+        return getClassFile(cls.getName().replace('.', '/'));
+    }
+
+    public static byte[] readClass(Class<?> cls) throws IOException {
+        return Files.readAllBytes(getClassFile(cls).toPath());
+    }
+
+    public static void writeJar(Path jar, Map<String, byte[]> classes) throws IOException {
+        try (OutputStream out = Files.newOutputStream(jar); JarOutputStream jar_out = new JarOutputStream(out)) {
+            for (Map.Entry<String, byte[]> e : classes.entrySet()) {
+                jar_out.putNextEntry(new JarEntry(e.getKey() + ".class"));
+                jar_out.write(e.getValue());
+                jar_out.closeEntry();
+            }
+        }
+    }
+
     public static TypeEntry get(Class<?> cls) {
         TypeEntry type = CACHED_TYPES.get(cls);
         if (type != null) {
             return type;
         }
-        String path = cls.getProtectionDomain().getCodeSource().getLocation().getPath();
-        File file = new File(path, cls.getName().replace('.', '/') + ".class");
+        File file = getClassFile(cls);
         try {
             type = Decompilers.WILD.decompile(file, DUMMY_SOURCE_SET);
         } catch (IOException e) {